@@ -1,4 +1,6 @@
 class Arc {
+    private int id;    // Identifiant dense attribué par la TableSymboles du graphe
+    private int idRue;
     private Noeud depart;
     private Noeud arrivee;
     private String rue;
@@ -7,6 +9,8 @@ class Arc {
     private boolean ramassageEffectue; // AJOUT : pour marquer si le ramassage a été fait sur cet arc
 
     public Arc(Noeud depart, Noeud arrivee, String rue, double duree) {
+        this.id = -1;
+        this.idRue = -1;
         this.depart = depart;
         this.arrivee = arrivee;
         this.rue = rue;
@@ -16,6 +20,8 @@ class Arc {
     }
 
     public Arc(Noeud depart, Noeud arrivee, double duree) {
+        this.id = -1;
+        this.idRue = TableSymboles.ID_RUE_CHANGEMENT;
         this.depart = depart;
         this.arrivee = arrivee;
         this.rue = "CHANGEMENT";
@@ -24,6 +30,13 @@ class Arc {
         this.ramassageEffectue = false;
     }
 
+    public int getId() { return id; }
+    public int getIdRue() { return idRue; }
+    void setIdentifiants(int id, int idRue) {
+        this.id = id;
+        this.idRue = idRue;
+    }
+
     public Noeud getDepart() { return depart; }
     public Noeud getArrivee() { return arrivee; }
     public String getRue() { return rue; }
@@ -36,10 +49,22 @@ class Arc {
     public void reinitialiserRamassage() { this.ramassageEffectue = false; }
 
     // AJOUT : créer une clé unique pour identifier un arc directionnel
+    // (affichage uniquement : les algorithmes utilisent getId())
     public String getCleDirectionnelle() {
         return depart.getNom() + "->" + arrivee.getNom() + "[" + rue + "]";
     }
 
+    // Représentant des arcs parallèles (même départ, même arrivée, même rue) :
+    // un tronçon présent plusieurs fois dans le plan n'est ramassé qu'une fois
+    public Arc getArcCanonique() {
+        for (Arc autre : depart.getArcsSortants()) {
+            if (autre.idRue == idRue && autre.arrivee == arrivee) {
+                return autre;
+            }
+        }
+        return this;
+    }
+
     @Override
     public String toString() {
         if (estChangementRue) {
@@ -0,0 +1,1079 @@
+import java.util.*;
+
+/**
+ * Mesures de performance des recherches d'itinéraire.
+ * Usage : java BenchmarkRoutage [taille de la grille] [nombre de requêtes] [plus grande ville contractée]
+ */
+public class BenchmarkRoutage {
+
+    public static void main(String[] args) {
+        int taille = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int nbRequetes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int maxHierarchie = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        comparerGrapheObjetEtCompile(taille, nbRequetes);
+        comparerRechercheVersions(50_000, 2_000);
+        comparerChargement(200);
+        comparerViragesImplicites(taille / 2, nbRequetes);
+        comparerInstantane(taille * 2);
+        comparerChargeurPlan(taille * 4);
+        mesurerAllocations(taille, nbRequetes * 10);
+        comparerAEtoile(taille * taille * 4, nbRequetes * 5);
+        comparerBidirectionnel(taille * taille * 4, nbRequetes * 5);
+        comparerALT(taille * taille * 4, nbRequetes * 5, 8);
+        for (int nbNoeuds = 10_000; nbNoeuds <= maxHierarchie; nbNoeuds *= 10) {
+            comparerHierarchie(nbNoeuds, nbRequetes * 5);
+        }
+        comparerSurcoucheCRP(maxHierarchie, nbRequetes * 5, 256);
+        comparerMatriceDistances(taille * taille * 4, nbRequetes / 2);
+        comparerOptimisationLocale(taille * taille * 6, nbRequetes * 5);
+        comparerLinKernighan(taille * taille * 9, nbRequetes * 50, 2_000);
+        comparerTourneeExacte(taille * taille * 4, 200);
+        comparerTourneeAsymetrique(taille * taille * 4, nbRequetes * 2, 2_000);
+    }
+
+    /**
+     * Tournée asymétrique (Lin-Kernighan puis mouvements sans inversion) contre l'arbre couvrant
+     * optimisé et Lin-Kernighan seul (budget en ms), sous les deux hypothèses à sens uniques (HO2, HO3)
+     */
+    static void comparerTourneeAsymetrique(int nbNoeudsVises, int nbPoints, long budget) {
+        for (OrientationRue.HypothèseOrientation hypothese : List.of(OrientationRue.HypothèseOrientation.HO2,
+                OrientationRue.HypothèseOrientation.HO3)) {
+            GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, nbNoeudsVises, 3)
+                    .construire(hypothese);
+            ville.setHeureDepart(8);
+            List<String> points = tirerMaisons(ville, nbPoints, new Random(42));
+            System.out.println("\n=== Tournée asymétrique (" + hypothese + ", " + points.size() + " maisons, ville " +
+                    "irrégulière de ~" + nbNoeudsVises + " noeuds, Lin-Kernighan " + budget + " ms) ===");
+
+            double mstOptimise = mesurerTournee("Arbre couvrant optimisé",
+                    () -> VoyageurCommerce.approcheMST(ville, points, VoyageurCommerce.NB_CANDIDATS_OPTIMISATION))
+                    .dureeTotal();
+            double lk = mesurerTournee("Lin-Kernighan          ",
+                    () -> VoyageurCommerce.approcheLinKernighan(ville, points, budget)).dureeTotal();
+            double asymetrique = mesurerTournee("Asymétrique            ",
+                    () -> VoyageurCommerce.approcheAsymetrique(ville, points, budget)).dureeTotal();
+            System.out.println("  Asymétrique : " + String.format("%+.1f", 100 * (asymetrique / mstOptimise - 1)) +
+                    " % par rapport à l'arbre couvrant optimisé, " +
+                    String.format("%+.1f", 100 * (asymetrique / lk - 1)) + " % par rapport à Lin-Kernighan");
+        }
+    }
+
+    /**
+     * Petites tournées, jusqu'à SolveurExact.NB_MAX_SEPARATION points : la tournée exacte ne doit
+     * jamais faire pire que Lin-Kernighan (budget en ms). Jusqu'à VoyageurCommerce.NB_MAX_TOURNEE_EXACTE
+     * points, le plus proche voisin et l'arbre couvrant y sont remplacés par la tournée exacte
+     */
+    static void comparerTourneeExacte(int nbNoeudsVises, long budget) {
+        GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, nbNoeudsVises, 3)
+                .construire(OrientationRue.HypothèseOrientation.HO2);
+        ville.setHeureDepart(8);
+        System.out.println("\n=== Tournées exactes (ville irrégulière de ~" + nbNoeudsVises + " noeuds, Lin-Kernighan " +
+                budget + " ms) ===");
+
+        Random random = new Random(42);
+        for (int nbPoints = 10; nbPoints <= SolveurExact.NB_MAX_SEPARATION; nbPoints += 5) {
+            List<String> points = tirerMaisons(ville, nbPoints, random);
+            System.out.println(points.size() + " maisons :");
+            double exacte = mesurerTournee("  Exacte            ",
+                    () -> VoyageurCommerce.approcheExacte(ville, points, VoyageurCommerce.BUDGET_EXACT)).dureeTotal();
+            double lk = mesurerTournee("  Lin-Kernighan     ",
+                    () -> VoyageurCommerce.approcheLinKernighan(ville, points, budget)).dureeTotal();
+            // Au-delà de SolveurExact.NB_MAX_HELD_KARP, la séparation peut s'arrêter au budget : la
+            // tournée exacte n'est alors pas prouvée optimale, mais ne doit pas faire pire
+            boolean correcte = exacte <= lk + 1e-6;
+            if (VoyageurCommerce.estPetiteTournee(ville, points)) {
+                double ppv = mesurerTournee("  Plus proche voisin",
+                        () -> VoyageurCommerce.approcheProchevoisin(ville, points)).dureeTotal();
+                double mst = mesurerTournee("  Arbre couvrant    ",
+                        () -> VoyageurCommerce.approcheMST(ville, points)).dureeTotal();
+                correcte &= Math.max(ppv, mst) <= exacte + 1e-6;
+            }
+            System.out.println("  Vérification : " + (correcte ? "OK" : "ÉCHEC") + " (exacte " +
+                    String.format("%.1f", Math.max(0.0, 100 * (1 - exacte / lk))) + " % sous Lin-Kernighan)");
+        }
+    }
+
+    /**
+     * Grande tournée : Lin-Kernighan (budget en ms) contre le parcours de l'arbre couvrant, seul
+     * puis amélioré par la recherche locale. La matrice est rangée en VOISINS (10 plus proches
+     * voisins par point) : dense, elle ne tiendrait pas en mémoire pour 10 000 points
+     */
+    static void comparerLinKernighan(int nbNoeudsVises, int nbPoints, long budget) {
+        GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, nbNoeudsVises, 3)
+                .construire(OrientationRue.HypothèseOrientation.HO2);
+        ville.setHeureDepart(8);
+        ville.setStockageDistances(MatriceDistances.Stockage.VOISINS, 10, false);
+        List<String> points = tirerMaisons(ville, nbPoints, new Random(42));
+        System.out.println("\n=== Lin-Kernighan (" + points.size() + " maisons, ville irrégulière de ~" +
+                nbNoeudsVises + " noeuds, budget " + budget + " ms) ===");
+
+        double mst = mesurerTournee("Arbre couvrant         ",
+                () -> VoyageurCommerce.approcheMST(ville, points)).dureeTotal();
+        double mstOptimise = mesurerTournee("Arbre couvrant optimisé",
+                () -> VoyageurCommerce.approcheMST(ville, points, VoyageurCommerce.NB_CANDIDATS_OPTIMISATION))
+                .dureeTotal();
+        double lk = mesurerTournee("Lin-Kernighan          ",
+                () -> VoyageurCommerce.approcheLinKernighan(ville, points, budget)).dureeTotal();
+        System.out.println("  Lin-Kernighan : " + String.format("%.1f", 100 * (1 - lk / mst)) + " % de moins que " +
+                "l'arbre couvrant, " + String.format("%.1f", 100 * (1 - lk / mstOptimise)) + " % de moins qu'optimisé");
+    }
+
+    /**
+     * Tournées du plus proche voisin et de l'arbre couvrant, sans puis avec la recherche locale
+     * (OptimisationLocale) : durée de la tournée et temps de calcul, matrice comprise
+     */
+    static void comparerOptimisationLocale(int nbNoeudsVises, int nbPoints) {
+        GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, nbNoeudsVises, 3)
+                .construire(OrientationRue.HypothèseOrientation.HO2);
+        ville.setHeureDepart(8);
+        List<String> points = tirerMaisons(ville, nbPoints, new Random(42));
+        System.out.println("\n=== Recherche locale des tournées (" + points.size() + " maisons, ville irrégulière de ~" +
+                nbNoeudsVises + " noeuds, " + VoyageurCommerce.NB_CANDIDATS_OPTIMISATION + " candidats) ===");
+
+        double ppv = mesurerTournee("Plus proche voisin         ",
+                () -> VoyageurCommerce.approcheProchevoisin(ville, points)).dureeTotal();
+        double ppvOptimise = mesurerTournee("Plus proche voisin optimisé",
+                () -> VoyageurCommerce.approcheProchevoisin(ville, points, VoyageurCommerce.NB_CANDIDATS_OPTIMISATION))
+                .dureeTotal();
+        double mst = mesurerTournee("Arbre couvrant             ",
+                () -> VoyageurCommerce.approcheMST(ville, points)).dureeTotal();
+        double mstOptimise = mesurerTournee("Arbre couvrant optimisé    ",
+                () -> VoyageurCommerce.approcheMST(ville, points, VoyageurCommerce.NB_CANDIDATS_OPTIMISATION))
+                .dureeTotal();
+        System.out.println("  Gain : " + String.format("%.1f", 100 * (1 - ppvOptimise / ppv)) + " % (plus proche voisin), " +
+                String.format("%.1f", 100 * (1 - mstOptimise / mst)) + " % (arbre couvrant)");
+    }
+
+    /**
+     * nbPoints maisons de la ville tirées au hasard (toutes s'il y en a moins)
+     */
+    private static List<String> tirerMaisons(GrapheVille ville, int nbPoints, Random random) {
+        List<String> maisons = new ArrayList<>();
+        for (Noeud n : ville.getNoeuds()) {
+            if (n instanceof Maison) maisons.add(n.getNom());
+        }
+        Collections.shuffle(maisons, random);
+        return new ArrayList<>(maisons.subList(0, Math.min(nbPoints, maisons.size())));
+    }
+
+    /**
+     * Calcule une tournée sans ses affichages, et en affiche la durée et le temps de calcul
+     */
+    private static Itineraire mesurerTournee(String libelle, java.util.function.Supplier<Itineraire> tournee) {
+        java.io.PrintStream sortie = System.out;
+        long debut = System.nanoTime();
+        Itineraire itin;
+        try {
+            System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+            itin = tournee.get();
+        } finally {
+            System.setOut(sortie);
+        }
+        long duree = System.nanoTime() - debut;
+        System.out.println(libelle + " : " + String.format("%.1f", itin.dureeTotal()) + " min, calculée en " +
+                String.format("%.1f", duree / 1e6) + " ms");
+        return itin;
+    }
+
+    /**
+     * Matrice des distances entre points de collecte : une recherche par couple (ancien remplissage
+     * du graphe complet) contre une recherche par point de départ, en parallèle (mêmes coûts),
+     * puis les stockages compacts de la matrice (hors du tas)
+     */
+    static void comparerMatriceDistances(int nbNoeudsVises, int nbPoints) {
+        System.out.println("\n=== Matrice des distances (" + nbPoints + " points, ville irrégulière de ~" +
+                nbNoeudsVises + " noeuds, " + Runtime.getRuntime().availableProcessors() + " processeurs) ===");
+        GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, nbNoeudsVises, 3)
+                .construire(OrientationRue.HypothèseOrientation.HO2);
+        ville.setHeureDepart(8);
+        GrapheCompile g = ville.compiler();
+        MoteurPlusCourtChemin.PolitiqueCout politique = MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, ville);
+
+        Random random = new Random(42);
+        List<Noeud> points = new ArrayList<>();
+        for (int i = 0; i < nbPoints; i++) {
+            points.add(g.noeuds[random.nextInt(g.nbNoeuds)]);
+        }
+
+        double[] couts = new double[nbPoints * nbPoints];
+        long debut = System.nanoTime();
+        for (int i = 0; i < nbPoints; i++) {
+            for (int j = 0; j < nbPoints; j++) {
+                MoteurPlusCourtChemin.Chemin chemin = MoteurPlusCourtChemin.chercher(g, g.indice(points.get(i)), -1,
+                        MoteurPlusCourtChemin.Cible.noeud(g, g.indice(points.get(j))), politique);
+                couts[i * nbPoints + j] = chemin == null ? Double.POSITIVE_INFINITY : chemin.cout;
+            }
+        }
+        afficherResultat("Par couple      ", System.nanoTime() - debut, nbPoints * nbPoints);
+
+        debut = System.nanoTime();
+        MatriceDistances matrice = MatriceDistances.calculer(ville, points);
+        afficherResultat("Par départ      ", System.nanoTime() - debut, nbPoints * nbPoints);
+
+        int differents = 0;
+        for (int i = 0; i < nbPoints; i++) {
+            for (int j = 0; j < nbPoints; j++) {
+                if (matrice.distance(i, j) != couts[i * nbPoints + j]) differents++;
+            }
+        }
+        System.out.println("  " + matrice + ", coûts différents : " + differents);
+
+        // Stockages compacts : place occupée et écart aux distances exactes
+        for (MatriceDistances.Stockage stockage : MatriceDistances.Stockage.values()) {
+            if (stockage == MatriceDistances.Stockage.DOUBLE) continue;
+            MatriceDistances compacte = MatriceDistances.calculer(ville, points, stockage, 8, true);
+            double ecart = 0.0;
+            for (int i = 0; i < nbPoints; i++) {
+                for (int j = 0; j < nbPoints; j++) {
+                    if (compacte.contient(i, j) && couts[i * nbPoints + j] != Double.POSITIVE_INFINITY) {
+                        ecart = Math.max(ecart, Math.abs(compacte.distance(i, j) - couts[i * nbPoints + j]));
+                    }
+                }
+            }
+            System.out.println("  " + compacte + ", écart vérifié " + String.format("%.3g", ecart));
+        }
+    }
+
+    /**
+     * Surcouche CRP sur une ville générée : partition, personnalisation à chaque changement
+     * d'heure ou nouvel événement, et requêtes comparées à Dijkstra (mêmes coûts). Les deux
+     * recherches font d'abord une passe non mesurée : sans elle, la première situation compare
+     * Dijkstra, déjà compilé par le JIT pour les mesures précédentes, à une surcouche interprétée
+     */
+    static void comparerSurcoucheCRP(int nbNoeudsVises, int nbRequetes, int tailleCellule) {
+        System.out.println("\n=== Surcouche CRP (cellules de " + tailleCellule + " noeuds, ville irrégulière de ~" +
+                nbNoeudsVises + " noeuds) ===");
+        GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, nbNoeudsVises, 3)
+                .construire(OrientationRue.HypothèseOrientation.HO2);
+        ville.setHeureDepart(8);
+        ville.setSurcoucheCRP(tailleCellule);
+        GrapheCompile g = ville.compiler();
+
+        Random random = new Random(42);
+        int[][] requetes = new int[nbRequetes][2];
+        for (int i = 0; i < nbRequetes; i++) {
+            requetes[i][0] = random.nextInt(g.nbNoeuds);
+            requetes[i][1] = random.nextInt(g.nbNoeuds);
+        }
+
+        String[] situations = {"8h", "12h", "17h", "17h + événements"};
+        for (String situation : situations) {
+            if (situation.startsWith("12h")) ville.setHeureDepart(12);
+            else if (situation.equals("17h")) ville.setHeureDepart(17);
+            else if (situation.contains("événements")) {
+                for (int i = 0; i < 20; i++) {
+                    ville.getContraintes().ajouterEvenement(g.rues[random.nextInt(g.rues.length)],
+                            ContraintesHoraires.TypeEvenement.TRAVAUX, 17);
+                }
+            }
+            MoteurPlusCourtChemin.PolitiqueCout politique = MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, ville);
+            long debut = System.nanoTime();
+            g.surcouche.personnaliser(politique);
+            System.out.println(situation + " : personnalisation " +
+                    String.format("%.1f", (System.nanoTime() - debut) / 1e6) + " ms");
+            if (situation.equals(situations[0])) {
+                for (int[] requete : requetes) {
+                    MoteurPlusCourtChemin.chercher(g, requete[0], -1, MoteurPlusCourtChemin.Cible.noeud(g, requete[1]),
+                            politique);
+                    g.surcouche.chercher(requete[0], new int[]{requete[1]}, politique);
+                }
+            }
+
+            double[] couts = new double[nbRequetes];
+            long traitesDijkstra = 0;
+            debut = System.nanoTime();
+            for (int i = 0; i < nbRequetes; i++) {
+                MoteurPlusCourtChemin.Chemin chemin = MoteurPlusCourtChemin.chercher(g, requetes[i][0], -1,
+                        MoteurPlusCourtChemin.Cible.noeud(g, requetes[i][1]), politique);
+                couts[i] = chemin == null ? -1.0 : chemin.cout;
+                if (chemin != null) traitesDijkstra += chemin.nbTraites;
+            }
+            afficherResultat("  Dijkstra      ", System.nanoTime() - debut, nbRequetes);
+
+            long traites = 0;
+            int differents = 0;
+            debut = System.nanoTime();
+            for (int i = 0; i < nbRequetes; i++) {
+                MoteurPlusCourtChemin.Chemin chemin = g.surcouche.chercher(requetes[i][0],
+                        new int[]{requetes[i][1]}, politique);
+                double cout = chemin == null ? -1.0 : chemin.cout;
+                if (chemin != null) traites += chemin.nbTraites;
+                if (Math.abs(cout - couts[i]) > 1e-6 * Math.max(1.0, couts[i])) differents++;
+            }
+            afficherResultat("  Surcouche CRP ", System.nanoTime() - debut, nbRequetes);
+            System.out.println("  noeuds traités en moyenne : " + (traitesDijkstra / nbRequetes) + " contre " +
+                    (traites / nbRequetes) + " sur " + g.nbNoeuds + ", coûts différents : " + differents);
+        }
+        System.out.println(g.surcouche);
+        ville.setSurcoucheCRP(0);
+    }
+
+    /**
+     * Dijkstra contre hiérarchie de contraction sur une ville générée : temps de précalcul,
+     * latence des requêtes, noeuds traités et mêmes coûts
+     */
+    static void comparerHierarchie(int nbNoeudsVises, int nbRequetes) {
+        System.out.println("\n=== Hiérarchie de contraction (ville irrégulière de ~" + nbNoeudsVises + " noeuds) ===");
+        GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, nbNoeudsVises, 3)
+                .construire(OrientationRue.HypothèseOrientation.HO2);
+        ville.setHeureDepart(8);
+
+        Random random = new Random(42);
+        int[][] requetes = null;
+        double[] couts = new double[nbRequetes];
+        String[] libelles = {"Dijkstra        ", "Hiérarchie      "};
+        for (int mode = 0; mode < libelles.length; mode++) {
+            ville.setHierarchieContraction(mode == 1);
+            long debutCompilation = System.nanoTime();
+            GrapheCompile g = ville.compiler();
+            long dureeCompilation = System.nanoTime() - debutCompilation;
+            MoteurPlusCourtChemin.PolitiqueCout politique = MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, ville);
+            if (requetes == null) {
+                requetes = new int[nbRequetes][2];
+                for (int i = 0; i < nbRequetes; i++) {
+                    requetes[i][0] = random.nextInt(g.nbNoeuds);
+                    requetes[i][1] = random.nextInt(g.nbNoeuds);
+                }
+            }
+
+            long traites = 0;
+            int differents = 0;
+            long debut = System.nanoTime();
+            for (int i = 0; i < nbRequetes; i++) {
+                MoteurPlusCourtChemin.Cible cible = MoteurPlusCourtChemin.Cible.noeud(g, requetes[i][1]);
+                MoteurPlusCourtChemin.Chemin chemin = mode == 1 ?
+                        MoteurPlusCourtChemin.chercherBidirectionnel(g, requetes[i][0], cible, politique) :
+                        MoteurPlusCourtChemin.chercher(g, requetes[i][0], -1, cible, politique);
+                double cout = chemin == null ? -1.0 : chemin.cout;
+                if (chemin != null) traites += chemin.nbTraites;
+                if (mode == 0) couts[i] = cout;
+                else if (Math.abs(cout - couts[i]) > 1e-6 * Math.max(1.0, couts[i])) differents++;
+            }
+            afficherResultat(libelles[mode], System.nanoTime() - debut, nbRequetes);
+            System.out.println("  compilation " + String.format("%.0f", dureeCompilation / 1e6) + " ms, " +
+                    (traites / nbRequetes) + " noeuds traités en moyenne sur " + g.nbNoeuds +
+                    (mode > 0 ? ", coûts différents : " + differents : "") +
+                    (g.hierarchie != null ? "\n  " + g.hierarchie : ""));
+        }
+        ville.setHierarchieContraction(false);
+    }
+
+    /**
+     * Dijkstra, A* euclidien et ALT (deux stratégies de choix des repères) sur une ville générée :
+     * précalcul, noeuds traités par requête et mêmes coûts
+     */
+    static void comparerALT(int nbNoeudsVises, int nbRequetes, int nbReperes) {
+        System.out.println("\n=== ALT (" + nbReperes + " repères, ville irrégulière de ~" + nbNoeudsVises + " noeuds) ===");
+        GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, nbNoeudsVises, 3)
+                .construire(OrientationRue.HypothèseOrientation.HO2);
+        ville.setHeureDepart(8);
+
+        Random random = new Random(42);
+        int[][] requetes = null;
+        double[] couts = new double[nbRequetes];
+        String[] libelles = {"Dijkstra        ", "A* euclidien    ", "ALT éloignés    ", "ALT évitement   ", "ALT + A* bidir. "};
+        for (int mode = 0; mode < libelles.length; mode++) {
+            ville.setRechercheAEtoile(mode == 1 || mode == 4);
+            ville.setReperesALT(mode >= 2 ? nbReperes : 0,
+                    mode == 3 ? ReperesALT.Strategie.EVITEMENT : ReperesALT.Strategie.ELOIGNES);
+            GrapheCompile g = ville.compiler();
+            MoteurPlusCourtChemin.PolitiqueCout politique = MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, ville);
+            if (requetes == null) {
+                requetes = new int[nbRequetes][2];
+                for (int i = 0; i < nbRequetes; i++) {
+                    requetes[i][0] = random.nextInt(g.nbNoeuds);
+                    requetes[i][1] = random.nextInt(g.nbNoeuds);
+                }
+            }
+
+            long traites = 0;
+            int differents = 0;
+            long debut = System.nanoTime();
+            for (int i = 0; i < nbRequetes; i++) {
+                MoteurPlusCourtChemin.Cible cible = MoteurPlusCourtChemin.Cible.noeud(g, requetes[i][1]);
+                MoteurPlusCourtChemin.Chemin chemin = mode == 4 ?
+                        MoteurPlusCourtChemin.chercherBidirectionnel(g, requetes[i][0], cible, politique) :
+                        MoteurPlusCourtChemin.chercher(g, requetes[i][0], -1, cible, politique);
+                double cout = chemin == null ? -1.0 : chemin.cout;
+                if (chemin != null) traites += chemin.nbTraites;
+                if (mode == 0) couts[i] = cout;
+                else if (Math.abs(cout - couts[i]) > 1e-9) differents++;
+            }
+            afficherResultat(libelles[mode], System.nanoTime() - debut, nbRequetes);
+            System.out.println("  " + (traites / nbRequetes) + " noeuds traités en moyenne sur " + g.nbNoeuds +
+                    (mode > 0 ? ", coûts différents : " + differents : "") +
+                    (g.reperes != null ? ", " + g.reperes : ""));
+        }
+        ville.setRechercheAEtoile(false);
+        ville.setReperesALT(0, ReperesALT.Strategie.ELOIGNES);
+    }
+
+    /**
+     * Recherche depuis l'entrepôt seul contre recherche bidirectionnelle (Dijkstra et A*)
+     * sur une grande grille générée : noeuds traités et mêmes coûts
+     */
+    static void comparerBidirectionnel(int nbNoeudsVises, int nbRequetes) {
+        System.out.println("\n=== Recherche unidirectionnelle vs bidirectionnelle (grille de ~" + nbNoeudsVises + " noeuds) ===");
+        GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.GRILLE, nbNoeudsVises, 5)
+                .construire(OrientationRue.HypothèseOrientation.HO2);
+        ville.setHeureDepart(8);
+
+        Random random = new Random(42);
+        int[] destinations = null;
+        for (int aEtoile = 0; aEtoile < 2; aEtoile++) {
+            ville.setRechercheAEtoile(aEtoile == 1);
+            GrapheCompile g = ville.compiler();
+            MoteurPlusCourtChemin.PolitiqueCout politique = MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, ville);
+            int source = g.indice(ville.getEntrepot());
+            if (destinations == null) {
+                destinations = new int[nbRequetes];
+                for (int i = 0; i < nbRequetes; i++) destinations[i] = random.nextInt(g.nbNoeuds);
+            }
+
+            double[] couts = new double[nbRequetes];
+            for (int mode = 0; mode < 2; mode++) {
+                long traites = 0;
+                int differents = 0;
+                long debut = System.nanoTime();
+                for (int i = 0; i < nbRequetes; i++) {
+                    MoteurPlusCourtChemin.Cible cible = MoteurPlusCourtChemin.Cible.noeud(g, destinations[i]);
+                    MoteurPlusCourtChemin.Chemin chemin = mode == 0 ?
+                            MoteurPlusCourtChemin.chercher(g, source, -1, cible, politique) :
+                            MoteurPlusCourtChemin.chercherBidirectionnel(g, source, cible, politique);
+                    double cout = chemin == null ? -1.0 : chemin.cout;
+                    if (chemin != null) traites += chemin.nbTraites;
+                    if (mode == 0) couts[i] = cout;
+                    else if (Math.abs(cout - couts[i]) > 1e-9) differents++;
+                }
+                String libelle = (aEtoile == 1 ? "A*      " : "Dijkstra") + (mode == 0 ? " simple        " : " bidirectionnel");
+                afficherResultat(libelle, System.nanoTime() - debut, nbRequetes);
+                System.out.println("  " + (traites / nbRequetes) + " noeuds traités en moyenne sur " + g.nbNoeuds +
+                        (mode == 1 ? ", coûts différents : " + differents : ""));
+            }
+        }
+        ville.setRechercheAEtoile(false);
+    }
+
+    /**
+     * Dijkstra contre A* sur une ville générée (durées proportionnelles aux distances) :
+     * mêmes coûts, noeuds traités et durée
+     */
+    static void comparerAEtoile(int nbNoeudsVises, int nbRequetes) {
+        System.out.println("\n=== Dijkstra vs A* (ville irrégulière de ~" + nbNoeudsVises + " noeuds) ===");
+        GrapheVilleAvance ville = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, nbNoeudsVises, 11)
+                .construire(OrientationRue.HypothèseOrientation.HO1);
+        ville.setHeureDepart(8);
+
+        Random random = new Random(42);
+        int[][] requetes = null;
+        double[] couts = new double[nbRequetes];
+        int cheminsDifferents = 0;
+        List<List<Arc>> cheminsDijkstra = new ArrayList<>(Collections.nCopies(nbRequetes, null));
+
+        for (int mode = 0; mode < 2; mode++) {
+            ville.setRechercheAEtoile(mode == 1);
+            GrapheCompile g = ville.compiler();
+            MoteurPlusCourtChemin.PolitiqueCout politique = MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, ville);
+            if (requetes == null) {
+                requetes = new int[nbRequetes][2];
+                for (int i = 0; i < nbRequetes; i++) {
+                    requetes[i][0] = random.nextInt(g.nbNoeuds);
+                    requetes[i][1] = random.nextInt(g.nbNoeuds);
+                }
+            }
+
+            long traites = 0;
+            double ecartMax = 0.0;
+            long debut = System.nanoTime();
+            for (int i = 0; i < nbRequetes; i++) {
+                MoteurPlusCourtChemin.Chemin chemin = MoteurPlusCourtChemin.chercher(g, requetes[i][0], -1,
+                        MoteurPlusCourtChemin.Cible.noeud(g, requetes[i][1]), politique);
+                if (chemin == null) continue;
+                traites += chemin.nbTraites;
+                if (mode == 0) {
+                    couts[i] = chemin.cout;
+                    cheminsDijkstra.set(i, chemin.arcs);
+                } else {
+                    ecartMax = Math.max(ecartMax, Math.abs(chemin.cout - couts[i]));
+                    if (!chemin.arcs.equals(cheminsDijkstra.get(i))) cheminsDifferents++;
+                }
+            }
+            afficherResultat(mode == 0 ? "Dijkstra" : "A*      ", System.nanoTime() - debut, nbRequetes);
+            System.out.println("  " + (traites / nbRequetes) + " noeuds traités en moyenne sur " + g.nbNoeuds +
+                    (mode == 1 ? ", écart de coût max " + String.format("%.2e", ecartMax) +
+                            ", chemins différents à coût égal : " + cheminsDifferents : ""));
+        }
+        ville.setRechercheAEtoile(false);
+    }
+
+    /**
+     * Octets alloués par requête et ramasse-miettes : espace de travail neuf à chaque requête
+     * (comme avant EspaceRecherche) contre celui du thread, puis tournée du plus proche voisin
+     */
+    static void mesurerAllocations(int taille, int nbRequetes) {
+        System.out.println("\n=== Allocations par requête (grille " + taille + "×" + taille + ") ===");
+        GrapheVilleAvance ville = creerGrille(taille);
+        GrapheCompile g = ville.compiler();
+        MoteurPlusCourtChemin.PolitiqueCout politique = MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, ville);
+
+        Random random = new Random(42);
+        int[][] requetes = new int[nbRequetes][2];
+        for (int i = 0; i < nbRequetes; i++) {
+            requetes[i][0] = random.nextInt(g.nbNoeuds);
+            requetes[i][1] = random.nextInt(g.nbNoeuds);
+        }
+        MoteurPlusCourtChemin.Cible[] cibles = new MoteurPlusCourtChemin.Cible[nbRequetes];
+        for (int i = 0; i < nbRequetes; i++) {
+            cibles[i] = MoteurPlusCourtChemin.Cible.noeud(g, requetes[i][1]);
+        }
+
+        for (int mode = 0; mode < 2; mode++) {
+            // Préchauffage
+            for (int i = 0; i < Math.min(200, nbRequetes); i++) {
+                EspaceRecherche espace = mode == 0 ? new EspaceRecherche() : EspaceRecherche.duThread();
+                MoteurPlusCourtChemin.chercher(g, requetes[i][0], -1, cibles[i], politique, espace);
+            }
+
+            Mesure mesure = new Mesure();
+            double total = 0.0;
+            for (int i = 0; i < nbRequetes; i++) {
+                EspaceRecherche espace = mode == 0 ? new EspaceRecherche() : EspaceRecherche.duThread();
+                MoteurPlusCourtChemin.Chemin chemin =
+                        MoteurPlusCourtChemin.chercher(g, requetes[i][0], -1, cibles[i], politique, espace);
+                if (chemin != null) total += chemin.cout;
+            }
+            mesure.afficher(mode == 0 ? "Espace neuf par requête" : "Espace du thread       ", nbRequetes);
+            if (mode == 1) System.out.println("  (coût total " + String.format("%.1f", total) + ")");
+        }
+
+        // Tournée du plus proche voisin sur une ville générée (affichages de la tournée masqués)
+        GenerateurVille generateur = new GenerateurVille(GenerateurVille.Disposition.IRREGULIERE, taille * taille, 7);
+        GrapheVilleAvance villeGeneree = generateur.construire(OrientationRue.HypothèseOrientation.HO1);
+        List<String> points = new ArrayList<>();
+        for (Noeud n : villeGeneree.getNoeuds()) {
+            if (n instanceof Maison && points.size() < 40) points.add(n.getNom());
+        }
+        java.io.PrintStream sortie = System.out;
+        Mesure mesure = new Mesure();
+        try {
+            System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+            VoyageurCommerce.approcheProchevoisin(villeGeneree, points);
+        } finally {
+            System.setOut(sortie);
+        }
+        mesure.afficher("Tournée PPV (" + points.size() + " points)", points.size() * points.size());
+    }
+
+    /**
+     * Octets alloués par le thread courant, collections et temps de ramasse-miettes depuis la création
+     */
+    private static class Mesure {
+        private final long debut = System.nanoTime();
+        private final long octets = octetsAlloues();
+        private final long collections = collections(false);
+        private final long tempsGc = collections(true);
+
+        void afficher(String libelle, int nbRequetes) {
+            long duree = System.nanoTime() - debut;
+            long alloues = octetsAlloues() - octets;
+            System.out.println(libelle + " : " + String.format("%.1f", duree / 1e6) + " ms, " +
+                    (octets < 0 ? "allocations non mesurables" :
+                            String.format("%.0f", (double) alloues / nbRequetes) + " octets/requête") +
+                    ", GC : " + (collections(false) - collections) + " collection(s), " +
+                    (collections(true) - tempsGc) + " ms");
+        }
+
+        private static long octetsAlloues() {
+            java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+            return -1;
+        }
+
+        private static long collections(boolean temps) {
+            long total = 0;
+            for (java.lang.management.GarbageCollectorMXBean gc :
+                    java.lang.management.ManagementFactory.getGarbageCollectorMXBeans()) {
+                total += Math.max(0, temps ? gc.getCollectionTime() : gc.getCollectionCount());
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Compare la lecture ligne à ligne (Scanner et split) au ChargeurPlan projeté en mémoire
+     */
+    static void comparerChargeurPlan(int taille) {
+        System.out.println("\n=== Lecture du plan texte : Scanner vs ChargeurPlan (grille " + taille + "×" + taille + ") ===");
+        try {
+            java.io.File plan = java.io.File.createTempFile("plan_grille", ".txt");
+            plan.deleteOnExit();
+            ecrirePlanGrille(plan, taille);
+
+            long debut = System.nanoTime();
+            GrapheVilleAvance ville = new GrapheVilleAvance(OrientationRue.HypothèseOrientation.HO1);
+            ville.debuterChargementGroupe();
+            chargerAvecScanner(ville, plan);
+            ville.terminerChargementGroupe(true);
+            long dureeScanner = System.nanoTime() - debut;
+
+            debut = System.nanoTime();
+            GrapheVilleAvance villeChargeur = new GrapheVilleAvance(OrientationRue.HypothèseOrientation.HO1);
+            villeChargeur.debuterChargementGroupe();
+            ChargeurPlan.Bilan bilan = ChargeurPlan.charger(villeChargeur, plan.getPath());
+            villeChargeur.terminerChargementGroupe(true);
+            long dureeChargeur = System.nanoTime() - debut;
+
+            System.out.println("Scanner + split : " + String.format("%.1f", dureeScanner / 1e6) + " ms, " +
+                    ville.getSymboles().getNbArcs() + " arcs");
+            System.out.println("ChargeurPlan    : " + String.format("%.1f", dureeChargeur / 1e6) + " ms (×" +
+                    String.format("%.1f", (double) dureeScanner / dureeChargeur) + "), " +
+                    villeChargeur.getSymboles().getNbArcs() + " arcs");
+            System.out.println("  " + bilan);
+        } catch (Exception e) {
+            System.out.println("⚠️  " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lecture ligne à ligne d'avant ChargeurPlan, gardée comme référence
+     */
+    private static void chargerAvecScanner(GrapheVilleAvance ville, java.io.File fichier) throws Exception {
+        try (Scanner sc = new Scanner(fichier, "UTF-8")) {
+            while (sc.hasNextLine()) {
+                String ligne = sc.nextLine().trim();
+                if (ligne.isEmpty() || ligne.startsWith("#")) continue;
+
+                String[] parts = ligne.split(";");
+                if (parts.length >= 3) {
+                    double duree = 2.0;
+                    if (parts.length == 7) {
+                        double xDepart = Double.parseDouble(parts[3].trim());
+                        double yDepart = Double.parseDouble(parts[4].trim());
+                        double xArrivee = Double.parseDouble(parts[5].trim());
+                        double yArrivee = Double.parseDouble(parts[6].trim());
+                        ville.definirCoordonnees(parts[1].trim(), xDepart, yDepart);
+                        ville.definirCoordonnees(parts[2].trim(), xArrivee, yArrivee);
+                        double dx = xArrivee - xDepart;
+                        double dy = yArrivee - yDepart;
+                        duree = Math.sqrt(dx * dx + dy * dy) / 100.0;
+                    }
+                    ville.ajouterTronconOriente(parts[0].trim(), parts[1].trim(), parts[2].trim(), duree);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compare la lecture du plan texte à l'ouverture de l'instantané binaire
+     */
+    static void comparerInstantane(int taille) {
+        System.out.println("\n=== Plan texte vs instantané binaire (grille " + taille + "×" + taille + ") ===");
+        try {
+            java.io.File plan = java.io.File.createTempFile("plan_grille", ".txt");
+            java.io.File instantane = new java.io.File(plan.getPath() + ".bin");
+            plan.deleteOnExit();
+            instantane.deleteOnExit();
+            ecrirePlanGrille(plan, taille);
+
+            OrientationRue.HypothèseOrientation hypothese = OrientationRue.HypothèseOrientation.HO1;
+            long debut = System.nanoTime();
+            GrapheVilleAvance ville = new GrapheVilleAvance(hypothese);
+            ville.chargerDepuisFichier(plan.getPath());
+            long dureeTexte = System.nanoTime() - debut;
+
+            debut = System.nanoTime();
+            InstantanePlan.ecrire(ville, plan.getPath(), instantane.getPath());
+            long dureeEcriture = System.nanoTime() - debut;
+
+            debut = System.nanoTime();
+            GrapheVilleAvance restauree = InstantanePlan.ouvrir(instantane.getPath(), plan.getPath(), hypothese);
+            long dureeOuverture = System.nanoTime() - debut;
+
+            System.out.println("Plan texte (" + plan.length() / 1024 + " Ko)      : " +
+                    String.format("%.1f", dureeTexte / 1e6) + " ms, " + ville.getSymboles().getNbArcs() + " arcs");
+            System.out.println("Écriture de l'instantané (" + instantane.length() / 1024 + " Ko) : " +
+                    String.format("%.1f", dureeEcriture / 1e6) + " ms");
+            if (restauree == null) {
+                System.out.println("⚠️  Instantané refusé");
+                return;
+            }
+            System.out.println("Ouverture de l'instantané : " + String.format("%.1f", dureeOuverture / 1e6) + " ms (×" +
+                    String.format("%.1f", (double) dureeTexte / dureeOuverture) + "), " +
+                    restauree.getSymboles().getNbArcs() + " arcs");
+        } catch (Exception e) {
+            System.out.println("⚠️  " + e.getMessage());
+        }
+    }
+
+    /**
+     * Plan texte d'une grille au format de plan_ville.txt (chaque segment dans les deux sens)
+     */
+    private static void ecrirePlanGrille(java.io.File fichier, int taille) throws java.io.IOException {
+        try (java.io.PrintWriter out = new java.io.PrintWriter(fichier, "UTF-8")) {
+            out.println("# Grille générée par BenchmarkRoutage");
+            ecrireSegment(out, "Rue H0", "Entrepot Grille", -100, 0, "Carrefour 0-0", 0, 0);
+            for (int i = 0; i < taille; i++) {
+                for (int j = 0; j + 1 < taille; j++) {
+                    String maison = "Maison " + i + "-" + j;
+                    ecrireSegment(out, "Rue H" + i, "Carrefour " + i + "-" + j, j * 100, i * 100, maison, j * 100 + 50, i * 100);
+                    ecrireSegment(out, "Rue H" + i, maison, j * 100 + 50, i * 100, "Carrefour " + i + "-" + (j + 1), (j + 1) * 100, i * 100);
+                    ecrireSegment(out, "Rue V" + i, "Carrefour " + j + "-" + i, i * 100, j * 100, "Carrefour " + (j + 1) + "-" + i, i * 100, (j + 1) * 100);
+                }
+            }
+        }
+    }
+
+    private static void ecrireSegment(java.io.PrintWriter out, String rue, String a, double xa, double ya,
+                                      String b, double xb, double yb) {
+        out.println(rue + ";" + a + ";" + b + ";" + xa + ";" + ya + ";" + xb + ";" + yb);
+        out.println(rue + ";" + b + ";" + a + ";" + xb + ";" + yb + ";" + xa + ";" + ya);
+    }
+
+    /**
+     * Compare le graphe à versions de carrefours (arcs CHANGEMENT explicites) au graphe à
+     * virages implicites sur une grille à diagonales (4 rues par carrefour) : taille mémoire,
+     * temps de requête et égalité des coûts
+     */
+    static void comparerViragesImplicites(int taille, int nbRequetes) {
+        System.out.println("\n=== Virages explicites vs implicites (grille à diagonales " + taille + "×" + taille + ") ===");
+        long[] memoire = new long[2];
+        GrapheVille[] villes = new GrapheVille[2];
+        for (int mode = 0; mode < 2; mode++) {
+            long avant = memoireUtilisee();
+            villes[mode] = new GrapheVille(mode == 1);
+            villes[mode].debuterChargementGroupe();
+            remplirGrilleDiagonales(villes[mode], taille);
+            villes[mode].terminerChargementGroupe();
+            villes[mode].compiler();
+            memoire[mode] = memoireUtilisee() - avant;
+            System.out.println((mode == 0 ? "Explicite : " : "Implicite : ") + villes[mode].compiler() +
+                    ", ~" + memoire[mode] / 1024 + " Ko");
+        }
+
+        Random random = new Random(11);
+        String[][] requetes = new String[nbRequetes][2];
+        for (int i = 0; i < nbRequetes; i++) {
+            for (int k = 0; k < 2; k++) {
+                requetes[i][k] = "Maison " + random.nextInt(taille) + "-" + random.nextInt(taille - 1);
+            }
+        }
+
+        double[][] couts = new double[2][nbRequetes];
+        for (int mode = 0; mode < 2; mode++) {
+            GrapheVille ville = villes[mode];
+            long debut = System.nanoTime();
+            for (int i = 0; i < nbRequetes; i++) {
+                Noeud depart = ville.getNoeud(requetes[i][0]);
+                Noeud arrivee = ville.getNoeud(requetes[i][1]);
+                for (Arc arc : VoyageurCommerce.cheminLePlusCourt(ville, depart, arrivee)) {
+                    couts[mode][i] += arc.getDuree() - arc.getArrivee().getTempsTraitement();
+                }
+            }
+            afficherResultat(mode == 0 ? "Explicite" : "Implicite", System.nanoTime() - debut, nbRequetes);
+        }
+
+        double ecartMax = 0.0;
+        for (int i = 0; i < nbRequetes; i++) {
+            ecartMax = Math.max(ecartMax, Math.abs(couts[0][i] - couts[1][i]));
+        }
+        System.out.println("Mémoire : ×" + String.format("%.1f", (double) memoire[0] / Math.max(1, memoire[1])) +
+                ", écart de coût maximal : " + ecartMax);
+
+        // Même requêtes avec le profil camion (virages à gauche pénalisés, demi-tours interdits)
+        GrapheVille ville = villes[1];
+        ville.setProfilVirages(ProfilVirages.camionBenne());
+        long debut = System.nanoTime();
+        ville.compiler();
+        System.out.println(ProfilVirages.camionBenne() + " : table construite en " +
+                String.format("%.1f", (System.nanoTime() - debut) / 1e6) + " ms");
+
+        debut = System.nanoTime();
+        double totalStandard = 0.0, totalCamion = 0.0;
+        int demiTours = 0;
+        for (int i = 0; i < nbRequetes; i++) {
+            List<Arc> chemin = VoyageurCommerce.cheminLePlusCourt(ville, ville.getNoeud(requetes[i][0]),
+                    ville.getNoeud(requetes[i][1]));
+            double cout = 0.0;
+            for (int k = 0; k < chemin.size(); k++) {
+                Arc arc = chemin.get(k);
+                cout += arc.getDuree() - arc.getArrivee().getTempsTraitement();
+                if (k > 0 && !arc.estChangementRue() && arc.getArrivee() == chemin.get(k - 1).getDepart()) {
+                    demiTours++;
+                }
+            }
+            totalStandard += couts[1][i];
+            totalCamion += cout;
+        }
+        afficherResultat("Profil camion", System.nanoTime() - debut, nbRequetes);
+        System.out.println("Coût moyen : +" + String.format("%.1f", 100.0 * (totalCamion - totalStandard) / totalStandard) +
+                " %, demi-tours sur place : " + demiTours);
+    }
+
+    private static long memoireUtilisee() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * Grille où chaque carrefour est croisé par une rue horizontale, une verticale et deux diagonales,
+     * en double sens ; une maison au milieu de chaque tronçon horizontal
+     */
+    private static void remplirGrilleDiagonales(GrapheVille ville, int taille) {
+        ville.definirCoordonnees("Entrepot Grille", -100, 0);
+        ville.ajouterTroncon("Rue H0", "Entrepot Grille", "Carrefour 0-0", 1.0);
+        ville.ajouterTroncon("Rue H0", "Carrefour 0-0", "Entrepot Grille", 1.0);
+
+        for (int i = 0; i < taille; i++) {
+            for (int j = 0; j < taille; j++) {
+                ville.definirCoordonnees("Carrefour " + i + "-" + j, j * 100, i * 100);
+            }
+        }
+
+        for (int i = 0; i < taille; i++) {
+            for (int j = 0; j + 1 < taille; j++) {
+                String maison = "Maison " + i + "-" + j;
+                ville.definirCoordonnees(maison, j * 100 + 50, i * 100);
+                ajouterDoubleSens(ville, "Rue H" + i, "Carrefour " + i + "-" + j, maison, 0.5);
+                ajouterDoubleSens(ville, "Rue H" + i, maison, "Carrefour " + i + "-" + (j + 1), 0.5);
+                ajouterDoubleSens(ville, "Rue V" + i, "Carrefour " + j + "-" + i, "Carrefour " + (j + 1) + "-" + i, 1.0);
+                if (i + 1 < taille) {
+                    ajouterDoubleSens(ville, "Diagonale " + (i - j), "Carrefour " + i + "-" + j,
+                            "Carrefour " + (i + 1) + "-" + (j + 1), 1.4);
+                    ajouterDoubleSens(ville, "Antidiagonale " + (i + j + 1), "Carrefour " + i + "-" + (j + 1),
+                            "Carrefour " + (i + 1) + "-" + j, 1.4);
+                }
+            }
+        }
+    }
+
+    private static void ajouterDoubleSens(GrapheVille ville, String rue, String a, String b, double duree) {
+        ville.ajouterTroncon(rue, a, b, duree);
+        ville.ajouterTroncon(rue, b, a, duree);
+    }
+
+    /**
+     * Compare le chargement tronçon par tronçon au chargement groupé (séquentiel et parallèle)
+     * sur des places où se croisent de nombreuses rues
+     */
+    static void comparerChargement(int nbRuesParPlace) {
+        int nbPlaces = 8;
+        System.out.println("\n=== Chargement de " + nbPlaces + " places de " + nbRuesParPlace + " rues ===");
+
+        long debut = System.nanoTime();
+        GrapheVilleAvance ville = new GrapheVilleAvance(OrientationRue.HypothèseOrientation.HO1);
+        remplirPlaces(ville, nbPlaces, nbRuesParPlace);
+        long dureeIncremental = System.nanoTime() - debut;
+        System.out.println("Tronçon par tronçon        : " + String.format("%.1f", dureeIncremental / 1e6) + " ms");
+        int nbArcs = ville.getSymboles().getNbArcs();
+
+        for (boolean enParallele : new boolean[]{false, true}) {
+            debut = System.nanoTime();
+            GrapheVilleAvance villeGroupe = new GrapheVilleAvance(OrientationRue.HypothèseOrientation.HO1);
+            villeGroupe.debuterChargementGroupe();
+            remplirPlaces(villeGroupe, nbPlaces, nbRuesParPlace);
+            villeGroupe.terminerChargementGroupe(enParallele);
+            long duree = System.nanoTime() - debut;
+            System.out.println((enParallele ? "Groupé, passe parallèle    : " : "Groupé, passe séquentielle : ") +
+                    String.format("%.1f", duree / 1e6) + " ms (×" +
+                    String.format("%.1f", (double) dureeIncremental / duree) + ")");
+            if (villeGroupe.getSymboles().getNbArcs() != nbArcs) {
+                System.out.println("⚠️  Nombre d'arcs différent : " + villeGroupe.getSymboles().getNbArcs() + " / " + nbArcs);
+            }
+        }
+    }
+
+    private static void remplirPlaces(GrapheVilleAvance ville, int nbPlaces, int nbRuesParPlace) {
+        for (int p = 0; p < nbPlaces; p++) {
+            for (int r = 0; r < nbRuesParPlace; r++) {
+                ville.ajouterTronconOriente("Rue " + p + "-" + r, "Carrefour Place " + p, "Maison " + p + "-" + r, 1.0);
+            }
+        }
+    }
+
+    /**
+     * Compare l'ancien parcours de toutes les clés (startsWith) à l'index des versions par nom
+     */
+    static void comparerRechercheVersions(int nbNoeudsVises, int nbRecherches) {
+        System.out.println("\n=== Recherche des versions d'un point (plan de ~" + nbNoeudsVises + " noeuds) ===");
+        // Une grille de taille t produit environ 4·t² noeuds (carrefour d'origine, 2 versions, maison)
+        int taille = (int) Math.ceil(Math.sqrt(nbNoeudsVises / 4.0));
+        GrapheVilleAvance ville = creerGrille(taille);
+        System.out.println("Plan généré : " + ville.getSymboles().getNbNoeuds() + " noeuds");
+
+        Random random = new Random(7);
+        String[] noms = new String[nbRecherches];
+        for (int i = 0; i < nbRecherches; i++) {
+            noms[i] = random.nextBoolean() ?
+                    "Carrefour " + random.nextInt(taille) + "-" + random.nextInt(taille) :
+                    "Maison " + random.nextInt(taille) + "-" + random.nextInt(taille - 1);
+        }
+
+        long debut = System.nanoTime();
+        long trouvesParcours = 0;
+        for (String nom : noms) {
+            trouvesParcours += versionsParParcours(ville, nom).size();
+        }
+        long dureeParcours = System.nanoTime() - debut;
+
+        debut = System.nanoTime();
+        long trouvesIndex = 0;
+        for (String nom : noms) {
+            trouvesIndex += ville.getToutesVersions(nom).size();
+        }
+        long dureeIndex = System.nanoTime() - debut;
+
+        afficherResultat("Parcours startsWith", dureeParcours, nbRecherches);
+        afficherResultat("Index par nom      ", dureeIndex, nbRecherches);
+        System.out.println("Accélération : ×" + String.format("%.0f", (double) dureeParcours / dureeIndex) +
+                " (noeuds trouvés : " + trouvesParcours + " avec collisions de préfixe / " + trouvesIndex + ")");
+    }
+
+    /**
+     * Recherche de référence : parcours de tous les noeuds (version antérieure à l'index)
+     */
+    private static List<Noeud> versionsParParcours(GrapheVille ville, String nomBase) {
+        List<Noeud> versions = new ArrayList<>();
+        for (Noeud n : ville.getNoeuds()) {
+            if (n.getNom().startsWith(nomBase)) {
+                versions.add(n);
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Compare le Dijkstra historique (listes d'Arc, HashMap par nom) au Dijkstra sur tableaux CSR
+     */
+    static void comparerGrapheObjetEtCompile(int taille, int nbRequetes) {
+        System.out.println("\n=== Graphe objet vs graphe compilé (CSR) ===");
+        GrapheVilleAvance ville = creerGrille(taille);
+
+        long t0 = System.nanoTime();
+        GrapheCompile g = ville.compiler();
+        long tCompilation = System.nanoTime() - t0;
+        System.out.println(g + " compilé en " + String.format("%.1f", tCompilation / 1e6) + " ms");
+
+        Random random = new Random(42);
+        Noeud[][] requetes = new Noeud[nbRequetes][2];
+        for (int i = 0; i < nbRequetes; i++) {
+            requetes[i][0] = g.noeuds[random.nextInt(g.nbNoeuds)];
+            requetes[i][1] = g.noeuds[random.nextInt(g.nbNoeuds)];
+        }
+
+        // Préchauffage
+        for (int i = 0; i < Math.min(20, nbRequetes); i++) {
+            cheminGrapheObjet(ville, requetes[i][0], requetes[i][1]);
+            VoyageurCommerce.cheminLePlusCourt(ville, requetes[i][0], requetes[i][1]);
+        }
+
+        long debut = System.nanoTime();
+        double totalObjet = 0.0;
+        for (Noeud[] r : requetes) {
+            totalObjet += cheminGrapheObjet(ville, r[0], r[1]).size();
+        }
+        long dureeObjet = System.nanoTime() - debut;
+
+        debut = System.nanoTime();
+        double totalCompile = 0.0;
+        for (Noeud[] r : requetes) {
+            totalCompile += VoyageurCommerce.cheminLePlusCourt(ville, r[0], r[1]).size();
+        }
+        long dureeCompile = System.nanoTime() - debut;
+
+        afficherResultat("Graphe objet", dureeObjet, nbRequetes);
+        afficherResultat("Graphe CSR  ", dureeCompile, nbRequetes);
+        System.out.println("Accélération : ×" + String.format("%.2f", (double) dureeObjet / dureeCompile) +
+                " (arcs parcourus : " + (long) totalObjet + " / " + (long) totalCompile + ")");
+    }
+
+    private static void afficherResultat(String libelle, long dureeNanos, int nbRequetes) {
+        System.out.println(libelle + " : " + String.format("%.1f", dureeNanos / 1e6) + " ms au total, " +
+                String.format("%.3f", dureeNanos / 1e6 / nbRequetes) + " ms/requête");
+    }
+
+    /**
+     * Dijkstra de référence sur le graphe objet (version antérieure au graphe compilé)
+     */
+    private static List<Arc> cheminGrapheObjet(GrapheVilleAvance ville, Noeud depart, Noeud arrivee) {
+        Map<String, Double> distances = new HashMap<>();
+        Map<String, Arc> predecesseurs = new HashMap<>();
+        Set<String> traites = new HashSet<>();
+        PriorityQueue<Object[]> file = new PriorityQueue<>(Comparator.comparingDouble(o -> (Double) o[1]));
+
+        distances.put(depart.getNom(), 0.0);
+        file.add(new Object[]{depart, 0.0});
+
+        while (!file.isEmpty()) {
+            Noeud courant = (Noeud) file.poll()[0];
+
+            if (traites.contains(courant.getNom())) continue;
+            traites.add(courant.getNom());
+
+            if (courant.getNom().equals(arrivee.getNom())) {
+                break;
+            }
+
+            for (Arc arc : courant.getArcsSortants()) {
+                if (!ville.estArcPraticable(arc)) continue;
+
+                Noeud voisin = arc.getArrivee();
+                if (traites.contains(voisin.getNom())) continue;
+
+                double nouvelleDist = distances.get(courant.getNom()) +
+                        ville.calculerDureeAvecContraintes(arc) - voisin.getTempsTraitement();
+
+                if (!distances.containsKey(voisin.getNom()) || nouvelleDist < distances.get(voisin.getNom())) {
+                    distances.put(voisin.getNom(), nouvelleDist);
+                    predecesseurs.put(voisin.getNom(), arc);
+                    file.add(new Object[]{voisin, nouvelleDist});
+                }
+            }
+        }
+
+        List<Arc> chemin = new ArrayList<>();
+        Noeud courant = arrivee;
+        while (!courant.getNom().equals(depart.getNom())) {
+            Arc arc = predecesseurs.get(courant.getNom());
+            if (arc == null) break;
+            chemin.add(arc);
+            courant = arc.getDepart();
+        }
+        Collections.reverse(chemin);
+        return chemin;
+    }
+
+    /**
+     * Grille de taille × taille carrefours : une rue par ligne et une rue par colonne,
+     * une maison au milieu de chaque tronçon horizontal
+     */
+    static GrapheVilleAvance creerGrille(int taille) {
+        GrapheVilleAvance ville = new GrapheVilleAvance(OrientationRue.HypothèseOrientation.HO1);
+        remplirGrille(ville, taille);
+        return ville;
+    }
+
+    private static void remplirGrille(GrapheVilleAvance ville, int taille) {
+        ville.definirCoordonnees("Entrepot Grille", -100, 0);
+        ville.ajouterTronconOriente("Rue H0", "Entrepot Grille", "Carrefour 0-0", 1.0);
+
+        for (int i = 0; i < taille; i++) {
+            for (int j = 0; j < taille; j++) {
+                ville.definirCoordonnees("Carrefour " + i + "-" + j, j * 100, i * 100);
+            }
+        }
+
+        for (int i = 0; i < taille; i++) {
+            for (int j = 0; j + 1 < taille; j++) {
+                String maison = "Maison " + i + "-" + j;
+                ville.definirCoordonnees(maison, j * 100 + 50, i * 100);
+                ville.ajouterTronconOriente("Rue H" + i, "Carrefour " + i + "-" + j, maison, 0.5);
+                ville.ajouterTronconOriente("Rue H" + i, maison, "Carrefour " + i + "-" + (j + 1), 0.5);
+                ville.ajouterTronconOriente("Rue V" + i, "Carrefour " + j + "-" + i, "Carrefour " + (j + 1) + "-" + i, 1.0);
+            }
+        }
+    }
+}
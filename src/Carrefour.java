@@ -2,17 +2,86 @@ import java.util.*;
 class Carrefour extends Noeud {
     private Set<String> rues;
     private String rueCourante;
+    private String nomBase;
+    private int idRueCourante;
+    private int rangVersion;          // Position dans la liste des versions du carrefour d'origine
+    private List<Carrefour> versions; // Versions par rue (carrefour d'origine uniquement)
+    private List<Integer> idsRues;    // Rues dans l'ordre d'arrivée (virages implicites)
 
     public Carrefour(String nom, String rue, double x, double y) {
         super(nom + "_" + rue, x, y);
         this.rues = new HashSet<>();
         this.rueCourante = rue;
+        this.nomBase = nom;
+        this.idRueCourante = -1;
+        this.versions = new ArrayList<>();
+        this.idsRues = new ArrayList<>();
     }
 
     public Carrefour(String nom, double x, double y) {
         super(nom, x, y);
         this.rues = new HashSet<>();
         this.rueCourante = null;
+        this.nomBase = nom;
+        this.idRueCourante = -1;
+        this.versions = new ArrayList<>();
+        this.idsRues = new ArrayList<>();
+    }
+
+    /**
+     * Version de ce carrefour propre à une rue, recherchée par identifiant de rue
+     */
+    public Carrefour getVersion(int idRue) {
+        for (Carrefour version : versions) {
+            if (version.idRueCourante == idRue) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    public void ajouterVersion(Carrefour version, int idRue) {
+        version.idRueCourante = idRue;
+        version.rangVersion = versions.size();
+        versions.add(version);
+        rues.add(version.rueCourante);
+    }
+
+    public List<Carrefour> getVersions() {
+        return versions;
+    }
+
+    public int getIdRueCourante() {
+        return idRueCourante;
+    }
+
+    public int getRangVersion() {
+        return rangVersion;
+    }
+
+    /**
+     * Enregistre une rue passant par ce carrefour sans créer de version (virages implicites).
+     * Le rang obtenu est celui qu'aurait la version de cette rue.
+     */
+    public int enregistrerRue(String rue, int idRue) {
+        int rang = getRangRue(idRue);
+        if (rang < 0) {
+            rang = idsRues.size();
+            idsRues.add(idRue);
+            rues.add(rue);
+        }
+        return rang;
+    }
+
+    /**
+     * Rang d'une rue à ce carrefour (ordre d'apparition), ou -1
+     */
+    public int getRangRue(int idRue) {
+        if (!versions.isEmpty()) {
+            Carrefour version = getVersion(idRue);
+            return version == null ? -1 : version.rangVersion;
+        }
+        return idsRues.indexOf(idRue);
     }
 
     public void ajouterRue(String rue) {
@@ -28,10 +97,7 @@ class Carrefour extends Noeud {
     }
 
     public String getNomBase() {
-        if (rueCourante != null) {
-            return nom.substring(0, nom.lastIndexOf("_"));
-        }
-        return nom;
+        return nomBase;
     }
 
     @Override
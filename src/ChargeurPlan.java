@@ -0,0 +1,406 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Chargeur du plan texte (Nom_Rue;Point_Depart;Point_Arrivee[;X_Depart;Y_Depart;X_Arrivee;Y_Arrivee]).
+ *
+ * Le fichier est projeté en mémoire (FileChannel.map) et découpé en blocs alignés sur les fins
+ * de ligne, analysés en parallèle directement sur les octets : pas de Scanner ni de split, les
+ * nombres sont lus sans créer de chaîne et chaque nom n'est décodé qu'une fois par bloc.
+ * Les tronçons sont ensuite ajoutés au graphe bloc après bloc, dans l'ordre du fichier :
+ * le graphe obtenu ne dépend pas du nombre de threads.
+ *
+ * Le résultat est celui de l'ancienne lecture ligne à ligne : lignes vides et commentaires (#)
+ * ignorés, au moins 3 champs, coordonnées lues seulement s'il y a exactement 7 champs (durée =
+ * distance / 100, sinon 2.0). Une coordonnée invalide lève la même NumberFormatException,
+ * après l'ajout des tronçons qui la précèdent.
+ */
+class ChargeurPlan {
+
+    private static final int TAILLE_BLOC_MIN = 1 << 20;
+    private static final int TAILLE_BLOC_MAX = 64 << 20;
+    private static final double DUREE_PAR_DEFAUT = 2.0;
+
+    private static final double[] PUISSANCES_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    /**
+     * Débit obtenu par un chargement
+     */
+    static class Bilan {
+        final long lignes;
+        final long troncons;
+        final long octets;
+        final int blocs;
+        final long dureeLectureNanos;  // projection et analyse parallèle
+        final long dureeFusionNanos;   // ajout des tronçons au graphe
+
+        Bilan(long lignes, long troncons, long octets, int blocs, long dureeLectureNanos, long dureeFusionNanos) {
+            this.lignes = lignes;
+            this.troncons = troncons;
+            this.octets = octets;
+            this.blocs = blocs;
+            this.dureeLectureNanos = dureeLectureNanos;
+            this.dureeFusionNanos = dureeFusionNanos;
+        }
+
+        double getLignesParSeconde() {
+            return lignes / secondes();
+        }
+
+        double getMoParSeconde() {
+            return octets / (1024.0 * 1024.0) / secondes();
+        }
+
+        private double secondes() {
+            return Math.max(dureeLectureNanos + dureeFusionNanos, 1) / 1e9;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lignes, %d tronçons, %.1f Mo en %.1f ms (lecture %.1f ms sur %d blocs, " +
+                            "graphe %.1f ms) : %.0f lignes/s, %.1f Mo/s",
+                    lignes, troncons, octets / (1024.0 * 1024.0),
+                    (dureeLectureNanos + dureeFusionNanos) / 1e6, dureeLectureNanos / 1e6, blocs,
+                    dureeFusionNanos / 1e6, getLignesParSeconde(), getMoParSeconde());
+        }
+    }
+
+    /**
+     * Tronçons lus dans un bloc, avant fusion. Les noms sont des indices dans la table
+     * des chaînes du bloc.
+     */
+    private static class Lot {
+        final List<String> noms = new ArrayList<>();
+        int[] champs = new int[3 * 256];         // rue, départ, arrivée
+        double[] coordonnees = new double[4 * 256];
+        boolean[] avecCoordonnees = new boolean[256];
+        int nbTroncons;
+        long nbLignes;
+        RuntimeException erreur;                 // première erreur du bloc (lecture arrêtée)
+
+        // Table de hachage (adressage ouvert) des noms du bloc : position et longueur des octets
+        private int[] table = new int[1024];
+        private int[] debutNom = new int[512];
+        private int[] longueurNom = new int[512];
+
+        void ajouter(int rue, int depart, int arrivee, double[] coords) {
+            if (nbTroncons == avecCoordonnees.length) {
+                int capacite = nbTroncons * 2;
+                champs = Arrays.copyOf(champs, 3 * capacite);
+                coordonnees = Arrays.copyOf(coordonnees, 4 * capacite);
+                avecCoordonnees = Arrays.copyOf(avecCoordonnees, capacite);
+            }
+            champs[3 * nbTroncons] = rue;
+            champs[3 * nbTroncons + 1] = depart;
+            champs[3 * nbTroncons + 2] = arrivee;
+            if (coords != null) {
+                System.arraycopy(coords, 0, coordonnees, 4 * nbTroncons, 4);
+                avecCoordonnees[nbTroncons] = true;
+            }
+            nbTroncons++;
+        }
+
+        /**
+         * Indice du nom formé des octets [debut, fin[ du bloc, décodé à sa première apparition
+         */
+        int interner(ByteBuffer bloc, int debut, int fin) {
+            int hash = 0x811c9dc5;
+            for (int i = debut; i < fin; i++) {
+                hash = (hash ^ bloc.get(i)) * 0x01000193;
+            }
+            int masque = table.length - 1;
+            for (int p = hash & masque; ; p = (p + 1) & masque) {
+                int indice = table[p] - 1;
+                if (indice < 0) {
+                    return nouveauNom(bloc, debut, fin, p);
+                }
+                if (memesOctets(bloc, debutNom[indice], longueurNom[indice], debut, fin)) {
+                    return indice;
+                }
+            }
+        }
+
+        private int nouveauNom(ByteBuffer bloc, int debut, int fin, int position) {
+            int indice = noms.size();
+            noms.add(decoder(bloc, debut, fin));
+            if (indice == debutNom.length) {
+                debutNom = Arrays.copyOf(debutNom, indice * 2);
+                longueurNom = Arrays.copyOf(longueurNom, indice * 2);
+            }
+            debutNom[indice] = debut;
+            longueurNom[indice] = fin - debut;
+            table[position] = indice + 1;
+            if (noms.size() * 2 > table.length) {
+                rehacher(bloc);
+            }
+            return indice;
+        }
+
+        private void rehacher(ByteBuffer bloc) {
+            table = new int[table.length * 2];
+            int masque = table.length - 1;
+            for (int indice = 0; indice < noms.size(); indice++) {
+                int hash = 0x811c9dc5;
+                for (int i = debutNom[indice]; i < debutNom[indice] + longueurNom[indice]; i++) {
+                    hash = (hash ^ bloc.get(i)) * 0x01000193;
+                }
+                int p = hash & masque;
+                while (table[p] != 0) p = (p + 1) & masque;
+                table[p] = indice + 1;
+            }
+        }
+
+        private static boolean memesOctets(ByteBuffer bloc, int debut1, int longueur1, int debut2, int fin2) {
+            if (longueur1 != fin2 - debut2) return false;
+            for (int i = 0; i < longueur1; i++) {
+                if (bloc.get(debut1 + i) != bloc.get(debut2 + i)) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Charge le plan dans la ville. En chargement groupé (debuterChargementGroupe), les
+     * changements de rue restent à créer par terminerChargementGroupe.
+     */
+    public static Bilan charger(GrapheVilleAvance ville, String fichier) throws IOException {
+        long debut = System.nanoTime();
+        long octets;
+        List<Lot> lots;
+        try (FileChannel canal = FileChannel.open(Paths.get(fichier), StandardOpenOption.READ)) {
+            octets = canal.size();
+            long[] limites = decouper(canal);
+            lots = IntStream.range(0, limites.length - 1).parallel()
+                    .mapToObj(i -> lireBloc(canal, limites[i], limites[i + 1]))
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long dureeLecture = System.nanoTime() - debut;
+
+        debut = System.nanoTime();
+        long lignes = 0;
+        long troncons = 0;
+        Map<String, String> nomsCommuns = new HashMap<>();
+        for (Lot lot : lots) {
+            String[] noms = new String[lot.noms.size()];
+            for (int i = 0; i < noms.length; i++) {
+                noms[i] = nomsCommuns.computeIfAbsent(lot.noms.get(i), n -> n);
+            }
+            for (int t = 0; t < lot.nbTroncons; t++) {
+                String rue = noms[lot.champs[3 * t]];
+                String depart = noms[lot.champs[3 * t + 1]];
+                String arrivee = noms[lot.champs[3 * t + 2]];
+                double duree = DUREE_PAR_DEFAUT;
+
+                if (lot.avecCoordonnees[t]) {
+                    double xDepart = lot.coordonnees[4 * t];
+                    double yDepart = lot.coordonnees[4 * t + 1];
+                    double xArrivee = lot.coordonnees[4 * t + 2];
+                    double yArrivee = lot.coordonnees[4 * t + 3];
+
+                    ville.definirCoordonnees(depart, xDepart, yDepart);
+                    ville.definirCoordonnees(arrivee, xArrivee, yArrivee);
+
+                    double dx = xArrivee - xDepart;
+                    double dy = yArrivee - yDepart;
+                    duree = Math.sqrt(dx * dx + dy * dy) / 100.0;
+                }
+
+                ville.ajouterTronconOriente(rue, depart, arrivee, duree);
+            }
+            lignes += lot.nbLignes;
+            troncons += lot.nbTroncons;
+            if (lot.erreur != null) {
+                throw lot.erreur;
+            }
+        }
+        return new Bilan(lignes, troncons, octets, lots.size(), dureeLecture, System.nanoTime() - debut);
+    }
+
+    /**
+     * Limites des blocs : chaque limite intérieure est placée juste après un '\n'
+     */
+    private static long[] decouper(FileChannel canal) throws IOException {
+        long taille = canal.size();
+        int nbBlocs = (int) Math.max(1, Math.min(taille / TAILLE_BLOC_MIN,
+                Runtime.getRuntime().availableProcessors() * 4L));
+        nbBlocs = (int) Math.max(nbBlocs, (taille + TAILLE_BLOC_MAX - 1) / TAILLE_BLOC_MAX);
+
+        List<Long> limites = new ArrayList<>();
+        limites.add(0L);
+        ByteBuffer tampon = ByteBuffer.allocate(4096);
+        for (int k = 1; k < nbBlocs; k++) {
+            long position = Math.max(taille * k / nbBlocs, limites.get(limites.size() - 1));
+            long limite = taille;
+            while (position < taille) {
+                tampon.clear();
+                int lus = canal.read(tampon, position);
+                if (lus <= 0) break;
+                int i = 0;
+                while (i < lus && tampon.get(i) != '\n') i++;
+                if (i < lus) {
+                    limite = position + i + 1;
+                    break;
+                }
+                position += lus;
+            }
+            if (limite > limites.get(limites.size() - 1) && limite < taille) {
+                limites.add(limite);
+            }
+        }
+        limites.add(taille);
+
+        long[] resultat = new long[limites.size()];
+        for (int i = 0; i < resultat.length; i++) resultat[i] = limites.get(i);
+        return resultat;
+    }
+
+    private static Lot lireBloc(FileChannel canal, long debut, long fin) {
+        Lot lot = new Lot();
+        ByteBuffer bloc;
+        try {
+            bloc = canal.map(FileChannel.MapMode.READ_ONLY, debut, fin - debut);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int[] bornes = new int[14];      // début et fin des 7 premiers champs
+        double[] coords = new double[4];
+        int taille = bloc.limit();
+        int pos = 0;
+        while (pos < taille) {
+            int finLigne = pos;
+            int saut = 0;
+            while (finLigne < taille && (saut = longueurFinLigne(bloc, finLigne, taille)) == 0) {
+                finLigne++;
+            }
+            lot.nbLignes++;
+            try {
+                lireLigne(bloc, pos, finLigne, bornes, coords, lot);
+            } catch (RuntimeException e) {
+                lot.erreur = e;
+                break;
+            }
+            pos = finLigne + saut;
+        }
+        return lot;
+    }
+
+    /**
+     * Longueur de la fin de ligne en position i (0 s'il n'y en a pas) : mêmes séparateurs
+     * que Scanner.nextLine (\n, \r, \r\n, U+0085, U+2028, U+2029)
+     */
+    private static int longueurFinLigne(ByteBuffer bloc, int i, int taille) {
+        byte b = bloc.get(i);
+        if (b == '\n') return 1;
+        if (b == '\r') return (i + 1 < taille && bloc.get(i + 1) == '\n') ? 2 : 1;
+        if (b == (byte) 0xC2) {
+            return (i + 1 < taille && bloc.get(i + 1) == (byte) 0x85) ? 2 : 0;
+        }
+        if (b == (byte) 0xE2 && i + 2 < taille && bloc.get(i + 1) == (byte) 0x80) {
+            byte c = bloc.get(i + 2);
+            return (c == (byte) 0xA8 || c == (byte) 0xA9) ? 3 : 0;
+        }
+        return 0;
+    }
+
+    private static void lireLigne(ByteBuffer bloc, int debut, int fin, int[] bornes, double[] coords, Lot lot) {
+        // trim() : les octets <= 0x20 sont exactement les caractères retirés (UTF-8)
+        while (debut < fin && (bloc.get(debut) & 0xFF) <= ' ') debut++;
+        while (fin > debut && (bloc.get(fin - 1) & 0xFF) <= ' ') fin--;
+        if (debut == fin || bloc.get(debut) == '#') return;
+
+        // Comme split(";") : les champs vides en fin de ligne ne comptent pas
+        int nbChamps = 0;
+        int champ = 0;
+        int debutChamp = debut;
+        for (int i = debut; i <= fin; i++) {
+            if (i == fin || bloc.get(i) == ';') {
+                if (champ < 7) {
+                    bornes[2 * champ] = debutChamp;
+                    bornes[2 * champ + 1] = i;
+                }
+                champ++;
+                if (i > debutChamp) nbChamps = champ;
+                debutChamp = i + 1;
+            }
+        }
+        if (nbChamps < 3) return;
+
+        int rue = internerChamp(bloc, bornes, 0, lot);
+        int depart = internerChamp(bloc, bornes, 1, lot);
+        int arrivee = internerChamp(bloc, bornes, 2, lot);
+        if (nbChamps == 7) {
+            for (int k = 0; k < 4; k++) {
+                coords[k] = lireNombre(bloc, bornes[2 * (k + 3)], bornes[2 * (k + 3) + 1]);
+            }
+            lot.ajouter(rue, depart, arrivee, coords);
+        } else {
+            lot.ajouter(rue, depart, arrivee, null);
+        }
+    }
+
+    private static int internerChamp(ByteBuffer bloc, int[] bornes, int champ, Lot lot) {
+        int debut = bornes[2 * champ];
+        int fin = bornes[2 * champ + 1];
+        while (debut < fin && (bloc.get(debut) & 0xFF) <= ' ') debut++;
+        while (fin > debut && (bloc.get(fin - 1) & 0xFF) <= ' ') fin--;
+        return lot.interner(bloc, debut, fin);
+    }
+
+    /**
+     * Nombre décimal simple (signe, au plus 15 chiffres, point facultatif) lu sans créer de
+     * chaîne : mantisse et puissance de 10 sont exactes, la division donne donc le même arrondi
+     * que Double.parseDouble. Les autres écritures passent par Double.parseDouble.
+     */
+    private static double lireNombre(ByteBuffer bloc, int debut, int fin) {
+        while (debut < fin && (bloc.get(debut) & 0xFF) <= ' ') debut++;
+        while (fin > debut && (bloc.get(fin - 1) & 0xFF) <= ' ') fin--;
+
+        int i = debut;
+        boolean negatif = false;
+        if (i < fin && (bloc.get(i) == '-' || bloc.get(i) == '+')) {
+            negatif = bloc.get(i) == '-';
+            i++;
+        }
+        long mantisse = 0;
+        int chiffres = 0;
+        int decimales = -1;
+        for (; i < fin; i++) {
+            byte b = bloc.get(i);
+            if (b >= '0' && b <= '9') {
+                mantisse = mantisse * 10 + (b - '0');
+                chiffres++;
+                if (decimales >= 0) decimales++;
+            } else if (b == '.' && decimales < 0) {
+                decimales = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == fin && chiffres > 0 && chiffres <= 15) {
+            double valeur = decimales > 0 ? mantisse / PUISSANCES_10[decimales] : mantisse;
+            return negatif ? -valeur : valeur;
+        }
+
+        return Double.parseDouble(decoder(bloc, debut, fin));
+    }
+
+    private static String decoder(ByteBuffer bloc, int debut, int fin) {
+        byte[] octets = new byte[fin - debut];
+        for (int i = 0; i < octets.length; i++) {
+            octets[i] = bloc.get(debut + i);
+        }
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+}
@@ -125,6 +125,7 @@ class ContraintesHoraires {
     private List<Evenement> evenements;
     private int heureActuelle;
     private Random random;
+    private int version;  // incrémentée à chaque changement de l'heure, des événements ou des contraintes
 
     public ContraintesHoraires() {
         this.contraintesRues = new HashMap<>();
@@ -141,23 +142,36 @@ class ContraintesHoraires {
             throw new IllegalArgumentException("Heure doit être entre 6h et 22h");
         }
         this.heureActuelle = heure;
+        version++;
     }
 
     public int getHeureActuelle() {
         return heureActuelle;
     }
 
+    /**
+     * Numéro de version des contraintes : deux lectures de même version donnent les mêmes
+     * coefficients et les mêmes fermetures de rues
+     */
+    public int getVersion() {
+        return version;
+    }
+
     /**
      * Avancer dans le temps
      */
     public void avancerTemps(double minutes) {
         int minutesInt = (int) Math.ceil(minutes);
+        int avant = heureActuelle;
         heureActuelle += minutesInt / 60;
 
         // Limiter à la journée
         if (heureActuelle > 22) {
             heureActuelle = 22;
         }
+        if (heureActuelle != avant) {
+            version++;
+        }
     }
 
     /**
@@ -166,6 +180,14 @@ class ContraintesHoraires {
     public void ajouterContrainteRue(String nomRue, int heureOuverture, int heureFermeture) {
         ContrainteRue contrainte = contraintesRues.computeIfAbsent(nomRue, ContrainteRue::new);
         contrainte.definirPlageInterdite(heureOuverture, heureFermeture);
+        version++;
+    }
+
+    /**
+     * Fixe la graine utilisée pour générer les événements aléatoires
+     */
+    public void setGraine(long graine) {
+        random.setSeed(graine);
     }
 
     /**
@@ -189,6 +211,7 @@ class ContraintesHoraires {
 
             System.out.println("  " + evt);
         }
+        version++;
     }
 
     /**
@@ -326,6 +349,7 @@ class ContraintesHoraires {
      */
     public void reinitialiserEvenements() {
         evenements.clear();
+        version++;
     }
 
     /**
@@ -341,4 +365,12 @@ class ContraintesHoraires {
     public Map<String, ContrainteRue> getContraintesRues() {
         return new HashMap<>(contraintesRues);
     }
+
+    /**
+     * Ajouter un événement connu (restauration d'un instantané)
+     */
+    public void ajouterEvenement(String rue, TypeEvenement type, int heureDebut) {
+        evenements.add(new Evenement(rue, type, heureDebut));
+        version++;
+    }
 }
\ No newline at end of file
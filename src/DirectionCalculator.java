@@ -1,5 +1,13 @@
 class DirectionCalculator {
 
+    // Classes de direction (indices de ProfilVirages)
+    static final int TOUT_DROIT = 0;
+    static final int GAUCHE = 1;
+    static final int DROITE = 2;
+    static final int DEMI_TOUR = 3;
+
+    private static final String[] LIBELLES = {"tout droit", "à gauche", "à droite", "demi-tour"};
+
     // Calcule l'angle entre deux vecteurs en degrés
     private static double calculerAngle(double x1, double y1, double x2, double y2) {
         double angle = Math.toDegrees(Math.atan2(y2, x2) - Math.atan2(y1, x1));
@@ -14,7 +22,11 @@ class DirectionCalculator {
         if (precedent == null || carrefour == null || suivant == null) {
             return "";
         }
+        return LIBELLES[classerVirage(precedent, carrefour, suivant)];
+    }
 
+    // Classe de direction d'un virage (TOUT_DROIT, GAUCHE, DROITE ou DEMI_TOUR)
+    static int classerVirage(Noeud precedent, Noeud carrefour, Noeud suivant) {
         // Vecteur d'arrivée (de precedent vers carrefour)
         double dx1 = carrefour.getX() - precedent.getX();
         double dy1 = carrefour.getY() - precedent.getY();
@@ -28,13 +40,13 @@ class DirectionCalculator {
 
         // Déterminer la direction selon l'angle
         if (Math.abs(angle) < 30) {
-            return "tout droit";
+            return TOUT_DROIT;
         } else if (angle > 30 && angle < 150) {
-            return "à gauche";
+            return GAUCHE;
         } else if (angle < -30 && angle > -150) {
-            return "à droite";
+            return DROITE;
         } else {
-            return "demi-tour";
+            return DEMI_TOUR;
         }
     }
 }
\ No newline at end of file
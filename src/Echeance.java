@@ -0,0 +1,41 @@
+/**
+ * Échéance d'un calcul « anytime » (voir SolveurAnytime) : une fois l'instant passé, le calcul
+ * s'interrompt et rend la meilleure réponse trouvée jusque-là
+ */
+class Echeance {
+
+    private static final long DELAI_MAX = Long.MAX_VALUE / 4;   // garde nanoTime() + délai sans débordement
+
+    private final long fin;                 // valeur de System.nanoTime() à l'échéance
+
+    private Echeance(long fin) {
+        this.fin = fin;
+    }
+
+    /**
+     * Échéance dans millisecondes à partir de maintenant
+     */
+    static Echeance dans(long millisecondes) {
+        if (millisecondes < 0) {
+            throw new IllegalArgumentException("Délai négatif : " + millisecondes + " ms");
+        }
+        long delai = millisecondes > DELAI_MAX / 1_000_000 ? DELAI_MAX : millisecondes * 1_000_000;
+        return new Echeance(System.nanoTime() + delai);
+    }
+
+    boolean estDepassee() {
+        return System.nanoTime() - fin >= 0;
+    }
+
+    /**
+     * Millisecondes restant avant l'échéance (0 une fois passée)
+     */
+    long getRestant() {
+        return Math.max(0, (fin - System.nanoTime()) / 1_000_000);
+    }
+
+    @Override
+    public String toString() {
+        return estDepassee() ? "Échéance passée" : "Échéance dans " + getRestant() + " ms";
+    }
+}
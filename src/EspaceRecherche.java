@@ -0,0 +1,226 @@
+import java.util.Arrays;
+
+/**
+ * Espace de travail d'une recherche de plus court chemin, réutilisé d'une requête à l'autre
+ * (un par thread, voir duThread()).
+ *
+ * Les états (noeuds, ou arcs en virages implicites) portent une distance et un prédécesseur
+ * valables seulement si leur époque est celle de la recherche en cours : commencer une
+ * recherche revient à incrémenter l'époque, sans réinitialiser les tableaux.
+ * La file de priorité est un tas 4-aire indexé (position de chaque état dans le tas), avec
+ * une vraie diminution de clé : un état n'y figure jamais deux fois. La clé d'un état est sa
+ * distance, plus l'estimation du reste du trajet en A*.
+ */
+final class EspaceRecherche {
+
+    private static final int ARITE = 4;
+
+    private static final ThreadLocal<EspaceRecherche> PAR_THREAD = ThreadLocal.withInitial(EspaceRecherche::new);
+    private static final ThreadLocal<EspaceRecherche> PAR_THREAD_INVERSE = ThreadLocal.withInitial(EspaceRecherche::new);
+
+    private int epoque;
+    private int[] epoqueAtteint = new int[0];  // distance et prédécesseur valables
+    private int[] epoqueTraite = new int[0];   // état extrait de la file
+    private int[] epoqueCible = new int[0];    // état cible
+    private int[] epoqueEstime = new int[0];   // estimation A* calculée
+    private double[] estimations = new double[0];
+    private double[] distances = new double[0];
+    private int[] precedents = new int[0];
+
+    private int[] position = new int[0];       // position dans le tas, -1 si absent
+    private int[] tas = new int[16];
+    private double[] clesTas = new double[16];
+    private int taille;
+
+    private boolean enCours;
+    private int nbTraites;
+
+    /**
+     * Espace de travail du thread courant
+     */
+    static EspaceRecherche duThread() {
+        return PAR_THREAD.get();
+    }
+
+    /**
+     * Second espace du thread courant, pour la recherche arrière d'une recherche bidirectionnelle
+     */
+    static EspaceRecherche duThreadInverse() {
+        return PAR_THREAD_INVERSE.get();
+    }
+
+    /**
+     * Prépare une recherche sur nbEtats états (à refermer par terminer())
+     */
+    void commencer(int nbEtats) {
+        if (enCours) {
+            throw new IllegalStateException("Espace de recherche déjà utilisé par une recherche en cours");
+        }
+        if (epoqueAtteint.length < nbEtats) {
+            agrandir(nbEtats);
+        }
+        if (++epoque == Integer.MAX_VALUE) {
+            Arrays.fill(epoqueAtteint, 0);
+            Arrays.fill(epoqueTraite, 0);
+            Arrays.fill(epoqueCible, 0);
+            Arrays.fill(epoqueEstime, 0);
+            epoque = 1;
+        }
+        nbTraites = 0;
+        enCours = true;
+    }
+
+    void terminer() {
+        for (int i = 0; i < taille; i++) {
+            position[tas[i]] = -1;
+        }
+        taille = 0;
+        enCours = false;
+    }
+
+    private void agrandir(int nbEtats) {
+        int capacite = Math.max(nbEtats, epoqueAtteint.length + epoqueAtteint.length / 2);
+        epoqueAtteint = Arrays.copyOf(epoqueAtteint, capacite);
+        epoqueTraite = Arrays.copyOf(epoqueTraite, capacite);
+        epoqueCible = Arrays.copyOf(epoqueCible, capacite);
+        epoqueEstime = Arrays.copyOf(epoqueEstime, capacite);
+        estimations = Arrays.copyOf(estimations, capacite);
+        distances = Arrays.copyOf(distances, capacite);
+        precedents = Arrays.copyOf(precedents, capacite);
+        int ancienne = position.length;
+        position = Arrays.copyOf(position, capacite);
+        Arrays.fill(position, ancienne, capacite, -1);
+    }
+
+    // ============ ÉTATS ============
+
+    double distance(int etat) {
+        return epoqueAtteint[etat] == epoque ? distances[etat] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Prédécesseur de l'état (arc compilé), -1 pour la source ou un état non atteint
+     */
+    int precedent(int etat) {
+        return epoqueAtteint[etat] == epoque ? precedents[etat] : -1;
+    }
+
+    /**
+     * Nombre d'états extraits de la file depuis commencer()
+     */
+    int getNbTraites() {
+        return nbTraites;
+    }
+
+    boolean estTraite(int etat) {
+        return epoqueTraite[etat] == epoque;
+    }
+
+    void marquerCible(int etat) {
+        epoqueCible[etat] = epoque;
+    }
+
+    boolean estCible(int etat) {
+        return epoqueCible[etat] == epoque;
+    }
+
+    /**
+     * Estimation A* déjà calculée pour ce noeud pendant la recherche en cours, NaN sinon
+     */
+    double estimation(int noeud) {
+        return epoqueEstime[noeud] == epoque ? estimations[noeud] : Double.NaN;
+    }
+
+    void retenirEstimation(int noeud, double estimation) {
+        epoqueEstime[noeud] = epoque;
+        estimations[noeud] = estimation;
+    }
+
+    /**
+     * Relâchement : si distance améliore celle de l'état, la retient avec son prédécesseur
+     * et place l'état dans la file (ou diminue sa clé)
+     */
+    boolean ameliorer(int etat, double distance, int precedent) {
+        return ameliorer(etat, distance, distance, precedent);
+    }
+
+    /**
+     * Relâchement A* : cle est la distance plus l'estimation (cohérente) du reste du trajet
+     */
+    boolean ameliorer(int etat, double distance, double cle, int precedent) {
+        if (distance >= distance(etat)) {
+            return false;
+        }
+        epoqueAtteint[etat] = epoque;
+        distances[etat] = distance;
+        precedents[etat] = precedent;
+
+        int k = position[etat];
+        if (k < 0) {
+            if (taille == tas.length) {
+                tas = Arrays.copyOf(tas, taille * 2);
+                clesTas = Arrays.copyOf(clesTas, taille * 2);
+            }
+            k = taille++;
+        }
+        remonter(k, etat, cle);
+        return true;
+    }
+
+    // ============ TAS 4-AIRE INDEXÉ ============
+
+    boolean fileVide() {
+        return taille == 0;
+    }
+
+    double cleMin() {
+        return clesTas[0];
+    }
+
+    /**
+     * Retire l'état de clé minimale et le marque comme traité
+     */
+    int extraireMin() {
+        int etat = tas[0];
+        position[etat] = -1;
+        epoqueTraite[etat] = epoque;
+        nbTraites++;
+        int n = --taille;
+        if (n > 0) {
+            descendre(0, tas[n], clesTas[n]);
+        }
+        return etat;
+    }
+
+    private void remonter(int k, int etat, double cle) {
+        while (k > 0) {
+            int parent = (k - 1) / ARITE;
+            if (cle >= clesTas[parent]) break;
+            placer(k, tas[parent], clesTas[parent]);
+            k = parent;
+        }
+        placer(k, etat, cle);
+    }
+
+    private void descendre(int k, int etat, double cle) {
+        while (true) {
+            int premier = k * ARITE + 1;
+            if (premier >= taille) break;
+            int dernier = Math.min(premier + ARITE, taille);
+            int enfant = premier;
+            for (int c = premier + 1; c < dernier; c++) {
+                if (clesTas[c] < clesTas[enfant]) enfant = c;
+            }
+            if (cle <= clesTas[enfant]) break;
+            placer(k, tas[enfant], clesTas[enfant]);
+            k = enfant;
+        }
+        placer(k, etat, cle);
+    }
+
+    private void placer(int k, int etat, double cle) {
+        tas[k] = etat;
+        clesTas[k] = cle;
+        position[etat] = k;
+    }
+}
@@ -0,0 +1,425 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Générateur de villes synthétiques pour les essais de montée en charge.
+ *
+ * Trois dispositions : grille, radiale (anneaux et rayons) et irrégulière (grille perturbée
+ * dont une partie des liaisons manque, avec des traverses en diagonale ; un arbre couvrant
+ * garantit que tout est relié). Maisons et immeubles sont répartis le long des rues entre
+ * les carrefours, et l'entrepôt est relié au premier carrefour.
+ *
+ * Tout est tiré d'un Random initialisé par la graine : même graine, même plan. Les villes
+ * construites reçoivent aussi cette graine (setGraine), ce qui rend reproductibles les tirages
+ * faits ensuite par GrapheVille et ContraintesHoraires.
+ *
+ * Le type de chaque rue se lit dans son nom, comme dans plan_ville.txt : « Avenue » et
+ * « Boulevard » à plusieurs voies, « Allée » et « Chemin » à une voie, « Rue » sinon.
+ * Le format texte ne décrit pas les sens uniques : ils ne sont appliqués que par construire()
+ * (hypothèses HO2 et HO3), et relus comme des rues à double sens depuis le fichier.
+ */
+class GenerateurVille {
+
+    enum Disposition { GRILLE, RADIALE, IRREGULIERE }
+
+    static final String NOM_ENTREPOT = "Entrepot Central";
+    private static final double ESPACEMENT = 100.0;
+
+    private final Disposition disposition;
+    private final int nbNoeudsVises;
+    private final long graine;
+
+    private double partMaisons;
+    private double partImmeubles;
+    private double partSensUnique;
+    private double partUneVoie;
+
+    /**
+     * Plan généré : noeuds, rues et segments (un segment = une ligne du plan texte)
+     */
+    private static class Plan {
+        final List<String> nomsNoeuds = new ArrayList<>();
+        double[] x = new double[1024];
+        double[] y = new double[1024];
+
+        final List<String> nomsRues = new ArrayList<>();
+        final List<OrientationRue.TypeOrientation> typesRues = new ArrayList<>(); // null : rue ordinaire
+
+        int nbSegments;
+        int[] rueSegment = new int[1024];
+        int[] departSegment = new int[1024];
+        int[] arriveeSegment = new int[1024];
+
+        int ajouterNoeud(String nom, double xNoeud, double yNoeud) {
+            int indice = nomsNoeuds.size();
+            if (indice == x.length) {
+                x = Arrays.copyOf(x, indice * 2);
+                y = Arrays.copyOf(y, indice * 2);
+            }
+            nomsNoeuds.add(nom);
+            x[indice] = xNoeud;
+            y[indice] = yNoeud;
+            return indice;
+        }
+
+        void ajouterSegment(int rue, int depart, int arrivee) {
+            if (nbSegments == rueSegment.length) {
+                rueSegment = Arrays.copyOf(rueSegment, nbSegments * 2);
+                departSegment = Arrays.copyOf(departSegment, nbSegments * 2);
+                arriveeSegment = Arrays.copyOf(arriveeSegment, nbSegments * 2);
+            }
+            rueSegment[nbSegments] = rue;
+            departSegment[nbSegments] = depart;
+            arriveeSegment[nbSegments] = arrivee;
+            nbSegments++;
+        }
+
+        double duree(int segment) {
+            double dx = x[arriveeSegment[segment]] - x[departSegment[segment]];
+            double dy = y[arriveeSegment[segment]] - y[departSegment[segment]];
+            return Math.sqrt(dx * dx + dy * dy) / 100.0;  // même conversion que ChargeurPlan
+        }
+    }
+
+    /**
+     * Liaison entre deux carrefours, découpée ensuite par les points d'arrêt
+     */
+    private static class Liaison {
+        final int rue;
+        final int depart;
+        final int arrivee;
+
+        Liaison(int rue, int depart, int arrivee) {
+            this.rue = rue;
+            this.depart = depart;
+            this.arrivee = arrivee;
+        }
+    }
+
+    /**
+     * @param nbNoeudsVises nombre approximatif de noeuds (entrepôt, carrefours, maisons et immeubles)
+     */
+    public GenerateurVille(Disposition disposition, int nbNoeudsVises, long graine) {
+        if (nbNoeudsVises < 10) {
+            throw new IllegalArgumentException("Au moins 10 noeuds sont nécessaires");
+        }
+        this.disposition = disposition;
+        this.nbNoeudsVises = nbNoeudsVises;
+        this.graine = graine;
+        this.partMaisons = 0.4;
+        this.partImmeubles = 0.05;
+        this.partSensUnique = 0.1;
+        this.partUneVoie = 0.2;
+    }
+
+    /**
+     * Parts des maisons et des immeubles parmi les noeuds (le reste : carrefours)
+     */
+    public void setPartsArrets(double partMaisons, double partImmeubles) {
+        if (partMaisons < 0 || partImmeubles < 0 || partMaisons + partImmeubles > 0.9) {
+            throw new IllegalArgumentException("Parts de points d'arrêt invalides : " + partMaisons + ", " + partImmeubles);
+        }
+        this.partMaisons = partMaisons;
+        this.partImmeubles = partImmeubles;
+    }
+
+    /**
+     * Parts des rues à sens unique et des rues à une voie (double sens)
+     */
+    public void setPartsRues(double partSensUnique, double partUneVoie) {
+        if (partSensUnique < 0 || partUneVoie < 0 || partSensUnique + partUneVoie > 1) {
+            throw new IllegalArgumentException("Parts de rues invalides : " + partSensUnique + ", " + partUneVoie);
+        }
+        this.partSensUnique = partSensUnique;
+        this.partUneVoie = partUneVoie;
+    }
+
+    public GrapheVilleAvance construire(OrientationRue.HypothèseOrientation hypothese) {
+        return construire(hypothese, false);
+    }
+
+    /**
+     * Construit directement la ville générée, en chargement groupé
+     */
+    public GrapheVilleAvance construire(OrientationRue.HypothèseOrientation hypothese, boolean viragesImplicites) {
+        Plan plan = generer();
+        GrapheVilleAvance ville = new GrapheVilleAvance(hypothese, viragesImplicites);
+        ville.setGraine(graine);
+        boolean sensUniques = hypothese != OrientationRue.HypothèseOrientation.HO1;
+
+        for (int r = 0; r < plan.nomsRues.size(); r++) {
+            OrientationRue.TypeOrientation type = plan.typesRues.get(r);
+            if (type != null && type != OrientationRue.TypeOrientation.SENS_UNIQUE) {
+                ville.configurerOrientationRue(plan.nomsRues.get(r), type);
+            }
+        }
+        for (int i = 0; i < plan.nomsNoeuds.size(); i++) {
+            ville.definirCoordonnees(plan.nomsNoeuds.get(i), plan.x[i], plan.y[i]);
+        }
+
+        ville.debuterChargementGroupe();
+        try {
+            for (int s = 0; s < plan.nbSegments; s++) {
+                String rue = plan.nomsRues.get(plan.rueSegment[s]);
+                String depart = plan.nomsNoeuds.get(plan.departSegment[s]);
+                String arrivee = plan.nomsNoeuds.get(plan.arriveeSegment[s]);
+                // Le sens unique ne porte que sur un couple de points : il est reconfiguré à chaque segment
+                if (sensUniques && plan.typesRues.get(plan.rueSegment[s]) == OrientationRue.TypeOrientation.SENS_UNIQUE) {
+                    ville.configurerSensUnique(rue, depart, arrivee);
+                }
+                ville.ajouterTronconOriente(rue, depart, arrivee, plan.duree(s));
+            }
+        } finally {
+            ville.terminerChargementGroupe(true);
+        }
+        return ville;
+    }
+
+    /**
+     * Écrit le plan généré au format de plan_ville.txt
+     */
+    public void ecrirePlan(String fichier) throws IOException {
+        Plan plan = generer();
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fichier), StandardCharsets.UTF_8),
+                1 << 16)) {
+            out.write("# Ville générée : " + this + "\n");
+            out.write("# Format: Nom_Rue;Point_Depart;Point_Arrivee;X_Depart;Y_Depart;X_Arrivee;Y_Arrivee\n");
+            StringBuilder ligne = new StringBuilder(128);
+            for (int s = 0; s < plan.nbSegments; s++) {
+                int depart = plan.departSegment[s];
+                int arrivee = plan.arriveeSegment[s];
+                ligne.setLength(0);
+                ligne.append(plan.nomsRues.get(plan.rueSegment[s])).append(';')
+                        .append(plan.nomsNoeuds.get(depart)).append(';')
+                        .append(plan.nomsNoeuds.get(arrivee)).append(';')
+                        .append(plan.x[depart]).append(';').append(plan.y[depart]).append(';')
+                        .append(plan.x[arrivee]).append(';').append(plan.y[arrivee]).append('\n');
+                out.append(ligne);
+            }
+        }
+    }
+
+    private Plan generer() {
+        Random random = new Random(graine);
+        Plan plan = new Plan();
+
+        int nbArretsVises = (int) Math.round((nbNoeudsVises - 1) * (partMaisons + partImmeubles));
+        int nbCarrefoursVises = Math.max(4, nbNoeudsVises - 1 - nbArretsVises);
+
+        int entrepot = plan.ajouterNoeud(NOM_ENTREPOT, 0, 0);
+        List<Liaison> liaisons;
+        switch (disposition) {
+            case RADIALE:
+                liaisons = genererRadiale(plan, random, nbCarrefoursVises);
+                break;
+            case IRREGULIERE:
+                liaisons = genererIrreguliere(plan, random, nbCarrefoursVises);
+                break;
+            default:
+                liaisons = genererGrille(plan, random, nbCarrefoursVises);
+        }
+
+        // L'entrepôt est placé à côté du premier carrefour
+        plan.x[entrepot] = plan.x[1] - ESPACEMENT;
+        plan.y[entrepot] = plan.y[1];
+        plan.ajouterSegment(nouvelleRue(plan, random, "Avenue", "de l'Entrepôt", false), entrepot, 1);
+
+        repartirArrets(plan, random, liaisons, nbArretsVises);
+        return plan;
+    }
+
+    private List<Liaison> genererGrille(Plan plan, Random random, int nbCarrefours) {
+        int lignes = (int) Math.ceil(Math.sqrt(nbCarrefours));
+        int colonnes = (nbCarrefours + lignes - 1) / lignes;
+        int premier = plan.nomsNoeuds.size();
+        for (int i = 0; i < lignes; i++) {
+            for (int j = 0; j < colonnes; j++) {
+                plan.ajouterNoeud("Carrefour " + i + "-" + j, j * ESPACEMENT, i * ESPACEMENT);
+            }
+        }
+
+        List<Liaison> liaisons = new ArrayList<>();
+        for (int i = 0; i < lignes; i++) {
+            int rue = nouvelleRue(plan, random, "Rue", "H" + i, true);
+            for (int j = 0; j + 1 < colonnes; j++) {
+                int a = premier + i * colonnes + j;
+                liaisons.add(new Liaison(rue, a, a + 1));
+            }
+        }
+        for (int j = 0; j < colonnes; j++) {
+            int rue = nouvelleRue(plan, random, "Avenue", "V" + j, true);
+            for (int i = 0; i + 1 < lignes; i++) {
+                int a = premier + i * colonnes + j;
+                liaisons.add(new Liaison(rue, a, a + colonnes));
+            }
+        }
+        return liaisons;
+    }
+
+    private List<Liaison> genererRadiale(Plan plan, Random random, int nbCarrefours) {
+        int nbRayons = Math.max(6, (int) Math.round(Math.sqrt(2.0 * (nbCarrefours - 1))));
+        int nbAnneaux = Math.max(1, (nbCarrefours - 1 + nbRayons - 1) / nbRayons);
+        int centre = plan.ajouterNoeud("Carrefour Centre", 0, 0);
+        for (int r = 1; r <= nbAnneaux; r++) {
+            for (int s = 0; s < nbRayons; s++) {
+                double angle = 2 * Math.PI * s / nbRayons;
+                plan.ajouterNoeud("Carrefour A" + r + "-" + s,
+                        r * ESPACEMENT * Math.cos(angle), r * ESPACEMENT * Math.sin(angle));
+            }
+        }
+
+        List<Liaison> liaisons = new ArrayList<>();
+        for (int s = 0; s < nbRayons; s++) {
+            int rue = nouvelleRue(plan, random, "Avenue", "Rayon " + s, true);
+            int precedent = centre;
+            for (int r = 1; r <= nbAnneaux; r++) {
+                int noeud = centre + 1 + (r - 1) * nbRayons + s;
+                liaisons.add(new Liaison(rue, precedent, noeud));
+                precedent = noeud;
+            }
+        }
+        for (int r = 1; r <= nbAnneaux; r++) {
+            int rue = nouvelleRue(plan, random, "Boulevard", "Anneau " + r, true);
+            int premier = centre + 1 + (r - 1) * nbRayons;
+            for (int s = 0; s < nbRayons; s++) {
+                liaisons.add(new Liaison(rue, premier + s, premier + (s + 1) % nbRayons));
+            }
+        }
+        return liaisons;
+    }
+
+    private List<Liaison> genererIrreguliere(Plan plan, Random random, int nbCarrefours) {
+        int lignes = (int) Math.ceil(Math.sqrt(nbCarrefours));
+        int colonnes = (nbCarrefours + lignes - 1) / lignes;
+        int premier = plan.nomsNoeuds.size();
+        for (int i = 0; i < lignes; i++) {
+            for (int j = 0; j < colonnes; j++) {
+                double x = j * ESPACEMENT + (random.nextDouble() - 0.5) * 0.7 * ESPACEMENT;
+                double y = i * ESPACEMENT + (random.nextDouble() - 0.5) * 0.7 * ESPACEMENT;
+                plan.ajouterNoeud("Carrefour " + i + "-" + j, Math.round(x * 10) / 10.0, Math.round(y * 10) / 10.0);
+            }
+        }
+
+        // Arbre couvrant : chaque carrefour est relié à son voisin de gauche ou du dessus
+        boolean[] versGauche = new boolean[lignes * colonnes];
+        for (int i = 0; i < lignes; i++) {
+            for (int j = 0; j < colonnes; j++) {
+                versGauche[i * colonnes + j] = j > 0 && (i == 0 || random.nextBoolean());
+            }
+        }
+
+        List<Liaison> liaisons = new ArrayList<>();
+        for (int i = 0; i < lignes; i++) {
+            int rue = nouvelleRue(plan, random, "Rue", "H" + i, true);
+            for (int j = 1; j < colonnes; j++) {
+                int b = i * colonnes + j;
+                if (versGauche[b] || random.nextDouble() < 0.6) {
+                    liaisons.add(new Liaison(rue, premier + b - 1, premier + b));
+                }
+            }
+        }
+        for (int j = 0; j < colonnes; j++) {
+            int rue = nouvelleRue(plan, random, "Avenue", "V" + j, true);
+            for (int i = 1; i < lignes; i++) {
+                int b = i * colonnes + j;
+                if (!versGauche[b] || random.nextDouble() < 0.6) {
+                    liaisons.add(new Liaison(rue, premier + b - colonnes, premier + b));
+                }
+            }
+        }
+        for (int i = 0; i + 1 < lignes; i++) {
+            for (int j = 0; j + 1 < colonnes; j++) {
+                if (random.nextDouble() < 0.1) {
+                    int a = i * colonnes + j;
+                    int rue = nouvelleRue(plan, random, "Chemin", "Traverse " + i + "-" + j, true);
+                    liaisons.add(new Liaison(rue, premier + a, premier + a + colonnes + 1));
+                }
+            }
+        }
+        return liaisons;
+    }
+
+    /**
+     * Crée une rue ; avec variable, son type peut être tiré (sens unique ou une voie)
+     */
+    private int nouvelleRue(Plan plan, Random random, String prefixe, String nom, boolean variable) {
+        OrientationRue.TypeOrientation type;
+        if (prefixe.equals("Avenue") || prefixe.equals("Boulevard")) {
+            type = OrientationRue.TypeOrientation.DOUBLE_SENS_MULTI_VOIES;
+        } else if (prefixe.equals("Chemin")) {
+            type = OrientationRue.TypeOrientation.DOUBLE_SENS_UNE_VOIE;
+        } else {
+            type = null;
+        }
+
+        if (variable) {
+            double tirage = random.nextDouble();
+            if (tirage < partSensUnique) {
+                prefixe = "Rue";
+                type = OrientationRue.TypeOrientation.SENS_UNIQUE;
+            } else if (tirage < partSensUnique + partUneVoie) {
+                prefixe = "Allée";
+                type = OrientationRue.TypeOrientation.DOUBLE_SENS_UNE_VOIE;
+            }
+        }
+
+        plan.nomsRues.add(prefixe + " " + nom);
+        plan.typesRues.add(type);
+        return plan.nomsRues.size() - 1;
+    }
+
+    /**
+     * Découpe les liaisons par des maisons et immeubles, répartis au hasard (environ
+     * nbArrets au total), et crée les segments correspondants
+     */
+    private void repartirArrets(Plan plan, Random random, List<Liaison> liaisons, int nbArrets) {
+        double parLiaison = liaisons.isEmpty() ? 0 : (double) nbArrets / liaisons.size();
+        int base = (int) parLiaison;
+        double reste = parLiaison - base;
+        double partMaisonsParmiArrets = partMaisons + partImmeubles > 0 ? partMaisons / (partMaisons + partImmeubles) : 1;
+        int nbMaisons = 0;
+        int nbImmeubles = 0;
+
+        for (Liaison liaison : liaisons) {
+            int k = base + (random.nextDouble() < reste ? 1 : 0);
+            int precedent = liaison.depart;
+            for (int t = 1; t <= k; t++) {
+                double f = (double) t / (k + 1);
+                double x = plan.x[liaison.depart] + f * (plan.x[liaison.arrivee] - plan.x[liaison.depart]);
+                double y = plan.y[liaison.depart] + f * (plan.y[liaison.arrivee] - plan.y[liaison.depart]);
+                String nom = random.nextDouble() < partMaisonsParmiArrets
+                        ? "Maison " + (++nbMaisons)
+                        : "Immeuble " + (++nbImmeubles);
+                int arret = plan.ajouterNoeud(nom, Math.round(x * 10) / 10.0, Math.round(y * 10) / 10.0);
+                plan.ajouterSegment(liaison.rue, precedent, arret);
+                precedent = arret;
+            }
+            plan.ajouterSegment(liaison.rue, precedent, liaison.arrivee);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, ~%d noeuds, graine %d, maisons %.0f %%, immeubles %.0f %%, " +
+                        "sens unique %.0f %%, une voie %.0f %%",
+                disposition, nbNoeudsVises, graine, partMaisons * 100, partImmeubles * 100,
+                partSensUnique * 100, partUneVoie * 100);
+    }
+
+    /**
+     * Usage : java GenerateurVille grille|radiale|irreguliere nbNoeuds graine fichier
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Usage : java GenerateurVille grille|radiale|irreguliere nbNoeuds graine fichier");
+            return;
+        }
+        Disposition disposition = Disposition.valueOf(args[0].toUpperCase());
+        GenerateurVille generateur = new GenerateurVille(disposition, Integer.parseInt(args[1]), Long.parseLong(args[2]));
+        long debut = System.nanoTime();
+        generateur.ecrirePlan(args[3]);
+        System.out.println("✅ " + args[3] + " écrit en " + String.format("%.1f", (System.nanoTime() - debut) / 1e6) +
+                " ms (" + generateur + ")");
+    }
+}
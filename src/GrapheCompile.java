@@ -0,0 +1,447 @@
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Instantané immuable d'un GrapheVille au format CSR (compressed sparse row).
+ * Les noeuds sont indexés par leur identifiant de TableSymboles : les arcs sortants
+ * du noeud i occupent les indices offsets[i] .. offsets[i+1]-1 des tableaux d'arcs.
+ * Les recherches de chemin parcourent ces tableaux au lieu des listes d'objets Arc.
+ */
+class GrapheCompile {
+
+    static final byte TYPE_CARREFOUR = 0;
+    static final byte TYPE_MAISON = 1;
+    static final byte TYPE_IMMEUBLE = 2;
+    static final byte TYPE_ENTREPOT = 3;
+
+    static final String RUE_CHANGEMENT = "CHANGEMENT";
+
+    final int nbNoeuds;
+    final int nbArcs;
+
+    // Structure CSR
+    final int[] offsets;          // taille nbNoeuds + 1
+    final int[] sources;          // noeud de départ de chaque arc
+    final int[] cibles;           // noeud d'arrivée de chaque arc
+    final double[] tempsParcours; // Arc.getDuree() (inclut le temps de traitement de l'arrivée)
+    final int[] idRue;            // identifiant de la rue de chaque arc (TableSymboles)
+    final int[] idArc;            // identifiant de l'Arc d'origine (TableSymboles)
+
+    // Attributs des noeuds
+    final double[] tempsTraitement;
+    final byte[] typeNoeud;
+    final double[] x;
+    final double[] y;
+
+    // Orientation figée au moment de la compilation (toujours vrai hors GrapheVilleAvance)
+    final boolean[] orientationAutorisee;
+
+    // Adjacence inverse : les arcs entrant dans le noeud v sont arcsEntrants[offsetsEntrants[v]
+    // .. offsetsEntrants[v + 1] - 1], par indice croissant
+    final int[] offsetsEntrants;
+    final int[] arcsEntrants;
+
+    // Virages implicites : rang de la rue de chaque arc à son carrefour de départ / d'arrivée
+    // (-1 hors carrefour), utilisé pour calculer la pénalité de changement de rue
+    final boolean viragesImplicites;
+    final int[] rangRueDepart;
+    final int[] rangRueArrivee;
+    private final int[] indiceParIdArc;
+
+    // A* : plus petit rapport durée / longueur à vol d'oiseau des arcs, brut ou net du temps
+    // de traitement de l'arrivée (0 si A* est désactivé ou si aucun arc n'a de longueur)
+    final boolean rechercheAEtoile;
+    final double dureeParUniteBrute;
+    final double dureeParUniteNette;
+
+    // Repères ALT (null si aucun n'est demandé)
+    final ReperesALT reperes;
+
+    // Hiérarchie de contraction pour le coût des trajets directs à la compilation (null si non demandée)
+    final HierarchieContraction hierarchie;
+
+    // Surcouche CRP : partition fixe, coûts des cellules recalculés quand les contraintes changent
+    // (null si non demandée)
+    final SurcoucheCRP surcouche;
+
+    // Derniers coefficients des rues calculés, avec la version des contraintes dont ils proviennent
+    private volatile CoefficientsRues coefficientsEnCache;
+
+    // Table des virages (profil non neutre) : pour le noeud v, le virage de son i-ème arc entrant
+    // vers son j-ème arc sortant est en debutTableVirages[v] + i * degré sortant(v) + j.
+    // Double.POSITIVE_INFINITY pour un virage interdit.
+    private final double[] tableVirages;
+    private final int[] debutTableVirages;
+    private final int[] rangEntrant;
+
+    // Correspondance avec le graphe objet
+    final Noeud[] noeuds;
+    final Arc[] arcs;
+    final String[] rues;
+    final int idRueChangement;
+
+    private GrapheCompile(GrapheVille ville) {
+        TableSymboles symboles = ville.getSymboles();
+        this.nbNoeuds = symboles.getNbNoeuds();
+        this.noeuds = symboles.getNoeuds().toArray(new Noeud[0]);
+
+        int total = 0;
+        for (Noeud n : noeuds) {
+            total += n.getArcsSortants().size();
+        }
+        this.nbArcs = total;
+
+        this.offsets = new int[nbNoeuds + 1];
+        this.sources = new int[nbArcs];
+        this.cibles = new int[nbArcs];
+        this.tempsParcours = new double[nbArcs];
+        this.idRue = new int[nbArcs];
+        this.idArc = new int[nbArcs];
+        this.orientationAutorisee = new boolean[nbArcs];
+        this.arcs = new Arc[nbArcs];
+        this.tempsTraitement = new double[nbNoeuds];
+        this.typeNoeud = new byte[nbNoeuds];
+        this.x = new double[nbNoeuds];
+        this.y = new double[nbNoeuds];
+        this.viragesImplicites = ville.aViragesImplicites();
+        this.rangRueDepart = viragesImplicites ? new int[nbArcs] : null;
+        this.rangRueArrivee = viragesImplicites ? new int[nbArcs] : null;
+        this.indiceParIdArc = new int[symboles.getNbArcs()];
+        Arrays.fill(indiceParIdArc, -1);
+
+        OrientationRue orientations = ville instanceof GrapheVilleAvance ?
+                ((GrapheVilleAvance) ville).getOrientations() : null;
+
+        int a = 0;
+        for (int i = 0; i < nbNoeuds; i++) {
+            Noeud n = noeuds[i];
+            offsets[i] = a;
+            tempsTraitement[i] = n.getTempsTraitement();
+            typeNoeud[i] = typeDe(n);
+            x[i] = n.getX();
+            y[i] = n.getY();
+
+            for (Arc arc : n.getArcsSortants()) {
+                int cible = arc.getArrivee().getId();
+                if (cible < 0 || arc.getId() < 0) {
+                    throw new IllegalStateException("Arc ou noeud absent de la table des symboles : " + arc);
+                }
+
+                arcs[a] = arc;
+                sources[a] = i;
+                cibles[a] = cible;
+                tempsParcours[a] = arc.getDuree();
+                idRue[a] = arc.getIdRue();
+                idArc[a] = arc.getId();
+                indiceParIdArc[arc.getId()] = a;
+                orientationAutorisee[a] = orientations == null ||
+                        orientations.estPassageAutorise(arc.getRue(), nomOrientation(n, arc), nomOrientation(arc.getArrivee(), arc));
+                if (viragesImplicites) {
+                    rangRueDepart[a] = rangRue(n, arc);
+                    rangRueArrivee[a] = rangRue(arc.getArrivee(), arc);
+                }
+                a++;
+            }
+        }
+        offsets[nbNoeuds] = a;
+
+        this.offsetsEntrants = new int[nbNoeuds + 1];
+        this.arcsEntrants = new int[nbArcs];
+        for (int b = 0; b < nbArcs; b++) {
+            offsetsEntrants[cibles[b] + 1]++;
+        }
+        for (int v = 0; v < nbNoeuds; v++) {
+            offsetsEntrants[v + 1] += offsetsEntrants[v];
+        }
+        int[] prochain = Arrays.copyOf(offsetsEntrants, nbNoeuds);
+        for (int b = 0; b < nbArcs; b++) {
+            arcsEntrants[prochain[cibles[b]]++] = b;
+        }
+
+        ProfilVirages profil = ville.getProfilVirages();
+        if (viragesImplicites && !profil.estNeutre()) {
+            this.rangEntrant = new int[nbArcs];
+            this.debutTableVirages = new int[nbNoeuds + 1];
+            this.tableVirages = construireTableVirages(profil);
+        } else {
+            this.rangEntrant = null;
+            this.debutTableVirages = null;
+            this.tableVirages = null;
+        }
+
+        this.rues = symboles.getRues().toArray(new String[0]);
+        this.idRueChangement = TableSymboles.ID_RUE_CHANGEMENT;
+
+        this.rechercheAEtoile = ville.aRechercheAEtoile();
+        double brute = Double.POSITIVE_INFINITY;
+        double nette = Double.POSITIVE_INFINITY;
+        if (rechercheAEtoile) {
+            for (int b = 0; b < nbArcs; b++) {
+                double longueur = distance(sources[b], cibles[b]);
+                if (longueur <= 0.0) continue;
+                brute = Math.min(brute, tempsParcours[b] / longueur);
+                nette = Math.min(nette, (tempsParcours[b] - tempsTraitement[cibles[b]]) / longueur);
+            }
+        }
+        this.dureeParUniteBrute = brute == Double.POSITIVE_INFINITY ? 0.0 : Math.max(0.0, brute);
+        this.dureeParUniteNette = nette == Double.POSITIVE_INFINITY ? 0.0 : Math.max(0.0, nette);
+
+        this.reperes = ville.getNbReperes() > 0 ?
+                ReperesALT.calculer(this, ville.getNbReperes(), ville.getStrategieReperes()) : null;
+        this.hierarchie = ville.aHierarchieContraction() ?
+                HierarchieContraction.construire(this, MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(this,
+                        ville instanceof GrapheVilleAvance ? (GrapheVilleAvance) ville : null)) : null;
+        this.surcouche = ville.getTailleCellulesCRP() > 0 ?
+                SurcoucheCRP.partitionner(this, ville.getTailleCellulesCRP()) : null;
+    }
+
+    /**
+     * Distance à vol d'oiseau entre deux noeuds compilés
+     */
+    double distance(int u, int v) {
+        double dx = x[v] - x[u];
+        double dy = y[v] - y[u];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Compile le graphe objet en tableaux CSR.
+     * Un même noeud enregistré sous plusieurs clés (cas de l'entrepôt) n'apparaît qu'une fois.
+     */
+    static GrapheCompile depuis(GrapheVille ville) {
+        return new GrapheCompile(ville);
+    }
+
+    /**
+     * Précalcule le coût de chaque virage (arc entrant, arc sortant) d'après l'angle
+     * du virage, pour ne faire qu'une lecture de tableau pendant les recherches
+     */
+    private double[] construireTableVirages(ProfilVirages profil) {
+        int[] nbEntrants = new int[nbNoeuds];
+        for (int v = 0; v < nbNoeuds; v++) {
+            nbEntrants[v] = offsetsEntrants[v + 1] - offsetsEntrants[v];
+            debutTableVirages[v + 1] = debutTableVirages[v] + nbEntrants[v] * (offsets[v + 1] - offsets[v]);
+            for (int i = 0; i < nbEntrants[v]; i++) {
+                rangEntrant[arcsEntrants[offsetsEntrants[v] + i]] = i;
+            }
+        }
+
+        double[] table = new double[debutTableVirages[nbNoeuds]];
+        int[] directions = new int[0];
+        for (int v = 0; v < nbNoeuds; v++) {
+            int degre = offsets[v + 1] - offsets[v];
+            boolean carrefour = typeNoeud[v] == TYPE_CARREFOUR;
+            if (directions.length < degre) directions = new int[degre];
+
+            for (int i = 0; i < nbEntrants[v]; i++) {
+                int a = arcsEntrants[offsetsEntrants[v] + i];
+                int ligne = debutTableVirages[v] + i * degre;
+
+                boolean autreSortie = false;
+                for (int j = 0; j < degre; j++) {
+                    directions[j] = direction(a, offsets[v] + j);
+                    autreSortie |= directions[j] != DirectionCalculator.DEMI_TOUR;
+                }
+
+                for (int j = 0; j < degre; j++) {
+                    // Un demi-tour reste permis en impasse (aucune autre sortie)
+                    if (directions[j] == DirectionCalculator.DEMI_TOUR && profil.estDemiTourInterdit() && autreSortie) {
+                        table[ligne + j] = Double.POSITIVE_INFINITY;
+                    } else {
+                        // Hors carrefour (maison au milieu d'une rue), seule l'interdiction s'applique
+                        table[ligne + j] = carrefour ? profil.getCout(directions[j]) : 0.0;
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    private int direction(int arcEntrant, int arcSortant) {
+        if (cibles[arcSortant] == sources[arcEntrant]) {
+            return DirectionCalculator.DEMI_TOUR;
+        }
+        return DirectionCalculator.classerVirage(noeuds[sources[arcEntrant]], noeuds[cibles[arcEntrant]],
+                noeuds[cibles[arcSortant]]);
+    }
+
+    /**
+     * Nom sous lequel l'orientation d'une rue voit une extrémité d'arc : en virages implicites,
+     * celui de la version du carrefour qu'aurait créée le graphe explicite
+     */
+    private String nomOrientation(Noeud n, Arc arc) {
+        if (viragesImplicites && n instanceof Carrefour) {
+            return n.getNom() + "_" + arc.getRue();
+        }
+        return n.getNom();
+    }
+
+    private static int rangRue(Noeud n, Arc arc) {
+        return n instanceof Carrefour ? ((Carrefour) n).getRangRue(arc.getIdRue()) : -1;
+    }
+
+    static byte typeDe(Noeud n) {
+        if (n instanceof Entrepot) return TYPE_ENTREPOT;
+        if (n instanceof Maison) return TYPE_MAISON;
+        if (n instanceof Immeuble) return TYPE_IMMEUBLE;
+        return TYPE_CARREFOUR;
+    }
+
+    /**
+     * Indice d'un noeud du graphe objet, ou -1 s'il n'appartient pas à l'instantané
+     */
+    int indice(Noeud noeud) {
+        int i = noeud.getId();
+        return i >= 0 && i < nbNoeuds && noeuds[i] == noeud ? i : -1;
+    }
+
+    int[] indices(Collection<Noeud> liste) {
+        int[] resultat = new int[liste.size()];
+        int k = 0;
+        for (Noeud n : liste) {
+            resultat[k++] = indice(n);
+        }
+        return resultat;
+    }
+
+    /**
+     * Indice compilé d'un Arc du graphe objet, ou -1
+     */
+    int indice(Arc arc) {
+        int id = arc.getId();
+        return id >= 0 && id < indiceParIdArc.length ? indiceParIdArc[id] : -1;
+    }
+
+    /**
+     * Virages implicites : temps de base du virage de arcEntrant vers arcSortant, hors coefficient
+     * horaire. Comprend le changement de rue (égal à l'arc CHANGEMENT du graphe explicite) et le
+     * coût géométrique du profil de virages ; Double.POSITIVE_INFINITY si le virage est interdit.
+     */
+    double tempsVirage(int arcEntrant, int arcSortant) {
+        if (arcEntrant < 0) {
+            return 0.0;
+        }
+        int v = cibles[arcEntrant];
+        double temps = 0.0;
+        if (typeNoeud[v] == TYPE_CARREFOUR && idRue[arcEntrant] != idRue[arcSortant]) {
+            temps = GrapheVille.tempsChangementRue(rangRueArrivee[arcEntrant], rangRueDepart[arcSortant]);
+        }
+        if (tableVirages != null) {
+            temps += tableVirages[debutTableVirages[v] + rangEntrant[arcEntrant] * (offsets[v + 1] - offsets[v]) +
+                    (arcSortant - offsets[v])];
+        }
+        return temps;
+    }
+
+    /**
+     * Vrai si l'on peut enchaîner les deux arcs sans virage coûteux ni interdit
+     */
+    boolean estVirageLibre(int arcEntrant, int arcSortant) {
+        return tempsVirage(arcEntrant, arcSortant) == 0.0;
+    }
+
+    /**
+     * Coût d'un virage avec le coefficient horaire des changements de rue
+     */
+    double coutVirage(int arcEntrant, int arcSortant, double[] coefRues) {
+        double temps = tempsVirage(arcEntrant, arcSortant);
+        return temps == 0.0 ? 0.0 : temps * coefRues[idRueChangement];
+    }
+
+    /**
+     * Arc CHANGEMENT équivalent à un virage, créé pour l'affichage d'un itinéraire
+     */
+    Arc creerArcChangement(int arcEntrant, int arcSortant) {
+        Noeud carrefour = noeuds[cibles[arcEntrant]];
+        return new Arc(carrefour, carrefour, tempsVirage(arcEntrant, arcSortant));
+    }
+
+    boolean estMaisonOuImmeuble(int noeud) {
+        return typeNoeud[noeud] == TYPE_MAISON || typeNoeud[noeud] == TYPE_IMMEUBLE;
+    }
+
+    /**
+     * Coefficient multiplicatif de chaque rue à l'heure actuelle.
+     * Une rue fermée reçoit Double.POSITIVE_INFINITY : ses arcs ne sont pas praticables.
+     * Sans contraintes (villeAvance == null), tous les coefficients valent 1.
+     */
+    double[] coefficientsRues(GrapheVilleAvance villeAvance) {
+        if (villeAvance == null) {
+            double[] coef = new double[rues.length];
+            Arrays.fill(coef, 1.0);
+            return coef;
+        }
+
+        // Même version des contraintes : même tableau (à ne pas modifier), ce qui rend immédiate
+        // la comparaison de deux politiques de coût
+        ContraintesHoraires contraintes = villeAvance.getContraintes();
+        CoefficientsRues cache = coefficientsEnCache;
+        if (cache != null && cache.contraintes == contraintes && cache.version == contraintes.getVersion()) {
+            return cache.coef;
+        }
+
+        int version = contraintes.getVersion();
+        double[] coef = new double[rues.length];
+        for (int r = 0; r < rues.length; r++) {
+            coef[r] = contraintes.estRueAccessible(rues[r]) ?
+                    contraintes.getCoefficientRetard(rues[r]) :
+                    Double.POSITIVE_INFINITY;
+        }
+        coefficientsEnCache = new CoefficientsRues(contraintes, version, coef);
+        return coef;
+    }
+
+    private static final class CoefficientsRues {
+        final ContraintesHoraires contraintes;
+        final int version;
+        final double[] coef;
+
+        CoefficientsRues(ContraintesHoraires contraintes, int version, double[] coef) {
+            this.contraintes = contraintes;
+            this.version = version;
+            this.coef = coef;
+        }
+    }
+
+    /**
+     * Équivalent de GrapheVilleAvance.estArcPraticable pour un arc compilé
+     */
+    boolean estPraticable(int arc, double[] coefRues) {
+        return orientationAutorisee[arc] && coefRues[idRue[arc]] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Équivalent de GrapheVilleAvance.calculerDureeAvecContraintes pour un arc compilé
+     */
+    double duree(int arc, double[] coefRues) {
+        return tempsParcours[arc] * coefRues[idRue[arc]];
+    }
+
+    /**
+     * Reconstruit la liste d'arcs du graphe objet à partir des arcs prédécesseurs d'une recherche
+     */
+    List<Arc> reconstruireChemin(int depart, int arrivee, EspaceRecherche espace) {
+        return reconstruireChemin(depart, arrivee, espace::precedent);
+    }
+
+    /**
+     * @param precedent arc prédécesseur de chaque noeud (-1 pour depart ou un noeud non atteint)
+     */
+    List<Arc> reconstruireChemin(int depart, int arrivee, IntUnaryOperator precedent) {
+        List<Arc> chemin = new ArrayList<>();
+        int courant = arrivee;
+        while (courant != depart) {
+            int a = precedent.applyAsInt(courant);
+            if (a < 0) break;
+            chemin.add(arcs[a]);
+            courant = sources[a];
+        }
+        Collections.reverse(chemin);
+        return chemin;
+    }
+
+    @Override
+    public String toString() {
+        return "GrapheCompile (" + nbNoeuds + " noeuds, " + nbArcs + " arcs, " + rues.length + " rues)";
+    }
+}
@@ -4,7 +4,9 @@ class GrapheVille {
     private Map<String, Noeud> noeuds;
     private Map<String, Noeud> noeudsOriginaux;
     private Map<String, double[]> coordonnees;
+    private Map<String, List<Noeud>> versionsParNom; // nom de base -> noeuds routables
     private Entrepot entrepot;
+    private TableSymboles symboles;
 
     private static final double DUREE_MIN = 1.0;
     private static final double DUREE_MAX = 5.0;
@@ -12,11 +14,62 @@ class GrapheVille {
 
     private Random random;
 
+    // Instantané CSR mis en cache, invalidé à chaque modification du graphe
+    private GrapheCompile grapheCompile;
+
+    // Chargement groupé : carrefours dont les changements de rue restent à créer
+    private boolean chargementGroupe;
+    private Set<Carrefour> carrefoursEnAttente;
+
+    // Virages implicites : un seul noeud par carrefour, changements de rue calculés à la recherche
+    private final boolean viragesImplicites;
+    private ProfilVirages profilVirages;
+
+    // Recherches point à point guidées par la distance à vol d'oiseau (A*)
+    private boolean rechercheAEtoile;
+
+    // Repères ALT précalculés à la compilation (0 : aucun)
+    private int nbReperes;
+    private ReperesALT.Strategie strategieReperes = ReperesALT.Strategie.ELOIGNES;
+
+    // Hiérarchie de contraction construite à la compilation (trajets directs)
+    private boolean hierarchieContraction;
+
+    // Surcouche CRP construite à la compilation (0 : aucune)
+    private int tailleCellulesCRP;
+
+    // Stockage des matrices de distances entre points de collecte (voir MatriceDistances)
+    private MatriceDistances.Stockage stockageDistances = MatriceDistances.Stockage.DOUBLE;
+    private int nbVoisinsDistances;
+    private boolean distancesHorsTas;
+
     public GrapheVille() {
+        this(false);
+    }
+
+    /**
+     * @param viragesImplicites si vrai, les carrefours ne sont pas dupliqués par rue et aucun
+     *                          arc CHANGEMENT n'est créé : la pénalité de changement de rue est
+     *                          appliquée pendant la recherche (voir RechercheVirages)
+     */
+    public GrapheVille(boolean viragesImplicites) {
+        this.viragesImplicites = viragesImplicites;
         noeuds = new HashMap<>();
         noeudsOriginaux = new HashMap<>();
         coordonnees = new HashMap<>();
+        versionsParNom = new HashMap<>();
+        carrefoursEnAttente = new LinkedHashSet<>();
+        symboles = new TableSymboles();
         random = new Random();
+        profilVirages = ProfilVirages.STANDARD;
+    }
+
+    /**
+     * Fixe la graine du générateur aléatoire (durées et coordonnées tirées au hasard) pour
+     * rendre une exécution reproductible
+     */
+    public void setGraine(long graine) {
+        random.setSeed(graine);
     }
 
     public void definirCoordonnees(String nom, double x, double y) {
@@ -57,7 +110,14 @@ class GrapheVille {
     }
 
     public Noeud getOuCreerNoeud(String nom) {
-        return noeuds.computeIfAbsent(nom, this::creerNoeud);
+        Noeud noeud = noeuds.get(nom);
+        if (noeud == null) {
+            noeud = creerNoeud(nom);
+            noeuds.put(nom, noeud);
+            symboles.enregistrerNoeud(noeud);
+            versionsParNom.computeIfAbsent(nom, k -> new ArrayList<>(1)).add(noeud);
+        }
+        return noeud;
     }
 
     public void ajouterTroncon(String rue, String nomDepart, String nomArrivee) {
@@ -71,6 +131,8 @@ class GrapheVille {
      * Pour une route bidirectionnelle, cette méthode doit être appelée 2 fois
      */
     public void ajouterTroncon(String rue, String nomDepart, String nomArrivee, double duree) {
+        invaliderCompilation();
+
         Noeud n1Original = getOuCreerNoeud(nomDepart);
         Noeud n2Original = getOuCreerNoeud(nomArrivee);
 
@@ -80,78 +142,167 @@ class GrapheVille {
         Noeud n1 = n1Original;
         Noeud n2 = n2Original;
 
+        int idRue = symboles.internerRue(rue);
+
+        if (viragesImplicites) {
+            // Les carrefours retiennent seulement l'ordre d'arrivée des rues
+            if (n1Original instanceof Carrefour) ((Carrefour) n1Original).enregistrerRue(rue, idRue);
+            if (n2Original instanceof Carrefour) ((Carrefour) n2Original).enregistrerRue(rue, idRue);
+            Arc arc = new Arc(n1, n2, rue, duree + n2.getTempsTraitement());
+            symboles.enregistrerArc(arc);
+            n1.ajouterArc(arc);
+            return;
+        }
+
         // CORRECTION : Créer des versions spécifiques par rue SEULEMENT pour les carrefours
-        if (n1Original instanceof Carrefour && !(n1Original instanceof Entrepot)) {
-            String cleN1 = nomDepart + "_" + rue;
-            if (!noeuds.containsKey(cleN1)) {
-                double[] coords = getCoordonnees(nomDepart);
-                n1 = new Carrefour(nomDepart, rue, coords[0], coords[1]);
-                noeuds.put(cleN1, n1);
-                ((Carrefour) n1Original).ajouterRue(rue);
-            } else {
-                n1 = noeuds.get(cleN1);
-            }
+        if (n1Original instanceof Carrefour) {
+            n1 = getOuCreerVersion((Carrefour) n1Original, nomDepart, rue, idRue);
         }
 
-        if (n2Original instanceof Carrefour && !(n2Original instanceof Entrepot)) {
-            String cleN2 = nomArrivee + "_" + rue;
-            if (!noeuds.containsKey(cleN2)) {
-                double[] coords = getCoordonnees(nomArrivee);
-                n2 = new Carrefour(nomArrivee, rue, coords[0], coords[1]);
-                noeuds.put(cleN2, n2);
-                ((Carrefour) n2Original).ajouterRue(rue);
-            } else {
-                n2 = noeuds.get(cleN2);
-            }
+        if (n2Original instanceof Carrefour) {
+            n2 = getOuCreerVersion((Carrefour) n2Original, nomArrivee, rue, idRue);
         }
 
         // IMPORTANT : Créer l'arc de n1 vers n2 (une seule direction)
         double dureeAvecTraitement = duree + n2.getTempsTraitement();
         Arc arc = new Arc(n1, n2, rue, dureeAvecTraitement);
+        symboles.enregistrerArc(arc);
         n1.ajouterArc(arc);
 
-        // Créer les changements de rue aux carrefours
-        creerChangementsRue(nomDepart);
-        creerChangementsRue(nomArrivee);
+        // Créer les changements de rue aux carrefours (différé en chargement groupé)
+        if (chargementGroupe) {
+            if (n1Original instanceof Carrefour) carrefoursEnAttente.add((Carrefour) n1Original);
+            if (n2Original instanceof Carrefour) carrefoursEnAttente.add((Carrefour) n2Original);
+        } else {
+            creerChangementsRue(n1Original);
+            creerChangementsRue(n2Original);
+        }
+    }
+
+    /**
+     * Début d'un chargement groupé : les tronçons sont ajoutés sans créer les arcs
+     * de changement de rue, qui seront tous construits par terminerChargementGroupe()
+     */
+    public void debuterChargementGroupe() {
+        chargementGroupe = true;
+    }
+
+    public void terminerChargementGroupe() {
+        terminerChargementGroupe(false);
     }
 
-    private void creerChangementsRue(String nomCarrefour) {
-        Noeud noeudOriginal = noeudsOriginaux.get(nomCarrefour);
+    /**
+     * Fin d'un chargement groupé : crée en une passe les changements de rue manquants
+     * de chaque carrefour modifié. Avec enParallele, les carrefours sont traités en parallèle
+     * (chacun ne modifie que ses propres versions) ; les identifiants des nouveaux arcs sont
+     * ensuite attribués dans l'ordre d'ajout des carrefours, quel que soit le mode.
+     */
+    public void terminerChargementGroupe(boolean enParallele) {
+        if (!chargementGroupe) return;
+        chargementGroupe = false;
 
-        if (!(noeudOriginal instanceof Carrefour) || noeudOriginal instanceof Entrepot) {
-            return;
+        List<Carrefour> carrefours = new ArrayList<>(carrefoursEnAttente);
+        carrefoursEnAttente.clear();
+
+        List<List<Arc>> arcsCrees = (enParallele ? carrefours.parallelStream() : carrefours.stream())
+                .map(GrapheVille::completerChangementsRue)
+                .collect(java.util.stream.Collectors.toList());
+
+        for (List<Arc> arcs : arcsCrees) {
+            for (Arc arc : arcs) {
+                symboles.enregistrerArc(arc);
+            }
         }
+        invaliderCompilation();
+    }
 
-        Carrefour carrefour = (Carrefour) noeudOriginal;
-        Set<String> rues = carrefour.getRues();
+    /**
+     * Temps de changement entre deux versions d'un carrefour, identique à celui du chargement
+     * tronçon par tronçon : l'arc est créé dès que la plus récente des deux versions apparaît,
+     * alors que le carrefour compte (rang le plus élevé + 1) rues.
+     */
+    static double tempsChangementRue(int rang1, int rang2) {
+        return TEMPS_CHANGEMENT_BASE + 0.5 * (Math.max(rang1, rang2) + 1);
+    }
 
-        if (rues.size() <= 1) return;
+    /**
+     * Crée les arcs de changement de rue absents entre toutes les versions d'un carrefour.
+     * Une seule lecture des arcs sortants de chaque version suffit à repérer les existants.
+     */
+    private static List<Arc> completerChangementsRue(Carrefour carrefour) {
+        List<Carrefour> versions = carrefour.getVersions();
+        int nbVersions = versions.size();
+        if (nbVersions <= 1) return Collections.emptyList();
+
+        List<Arc> crees = new ArrayList<>();
+        boolean[] existe = new boolean[nbVersions];
+
+        for (Carrefour n1 : versions) {
+            Arrays.fill(existe, false);
+            existe[n1.getRangVersion()] = true;
+            for (Arc arc : n1.getArcsSortants()) {
+                if (arc.estChangementRue()) {
+                    existe[((Carrefour) arc.getArrivee()).getRangVersion()] = true;
+                }
+            }
 
-        double tempsChangement = TEMPS_CHANGEMENT_BASE + 0.5 * rues.size();
+            for (Carrefour n2 : versions) {
+                if (!existe[n2.getRangVersion()]) {
+                    double tempsChangement = tempsChangementRue(n1.getRangVersion(), n2.getRangVersion());
+                    Arc arcChangement = new Arc(n1, n2, tempsChangement);
+                    n1.ajouterArc(arcChangement);
+                    crees.add(arcChangement);
+                }
+            }
+        }
+        return crees;
+    }
 
-        for (String rue1 : rues) {
-            for (String rue2 : rues) {
-                if (!rue1.equals(rue2)) {
-                    String cle1 = nomCarrefour + "_" + rue1;
-                    String cle2 = nomCarrefour + "_" + rue2;
+    private Carrefour getOuCreerVersion(Carrefour original, String nom, String rue, int idRue) {
+        Carrefour version = original.getVersion(idRue);
+        if (version == null) {
+            double[] coords = getCoordonnees(nom);
+            version = new Carrefour(nom, rue, coords[0], coords[1]);
+            noeuds.put(version.getNom(), version);
+            symboles.enregistrerNoeud(version);
+            original.ajouterVersion(version, idRue);
+
+            // Le carrefour d'origine n'a jamais d'arc : ses versions par rue le remplacent dans l'index
+            List<Noeud> versions = versionsParNom.computeIfAbsent(nom, k -> new ArrayList<>());
+            versions.remove(original);
+            versions.add(version);
+        }
+        return version;
+    }
 
-                    Noeud n1 = noeuds.get(cle1);
-                    Noeud n2 = noeuds.get(cle2);
+    private void creerChangementsRue(Noeud noeudOriginal) {
+        if (!(noeudOriginal instanceof Carrefour)) {
+            return;
+        }
 
-                    if (n1 != null && n2 != null) {
-                        boolean existe = false;
-                        for (Arc arc : n1.getArcsSortants()) {
-                            if (arc.estChangementRue() && arc.getArrivee().equals(n2)) {
-                                existe = true;
-                                break;
-                            }
-                        }
+        Carrefour carrefour = (Carrefour) noeudOriginal;
+        List<Carrefour> versions = carrefour.getVersions();
 
-                        if (!existe) {
-                            Arc arcChangement = new Arc(n1, n2, tempsChangement);
-                            n1.ajouterArc(arcChangement);
+        if (versions.size() <= 1) return;
+
+        double tempsChangement = TEMPS_CHANGEMENT_BASE + 0.5 * versions.size();
+
+        for (Carrefour n1 : versions) {
+            for (Carrefour n2 : versions) {
+                if (n1 != n2) {
+                    boolean existe = false;
+                    for (Arc arc : n1.getArcsSortants()) {
+                        if (arc.estChangementRue() && arc.getArrivee() == n2) {
+                            existe = true;
+                            break;
                         }
                     }
+
+                    if (!existe) {
+                        Arc arcChangement = new Arc(n1, n2, tempsChangement);
+                        symboles.enregistrerArc(arcChangement);
+                        n1.ajouterArc(arcChangement);
+                    }
                 }
             }
         }
@@ -169,17 +320,241 @@ class GrapheVille {
         return noeudsOriginaux.get(nom);
     }
 
+    /**
+     * Tous les noms sous lesquels un noeud est enregistré (versions de carrefours et
+     * noms supplémentaires de l'entrepôt compris)
+     */
+    Set<String> getNomsEnregistres() {
+        return Collections.unmodifiableSet(noeuds.keySet());
+    }
+
+    // ============ RESTAURATION (InstantanePlan) ============
+    // Les noeuds et arcs sont recréés dans l'ordre de leurs identifiants, sans repasser
+    // par ajouterTroncon : identifiants, versions et listes d'arcs sont ceux d'origine.
+
+    Noeud restaurerNoeud(byte type, String nom, double x, double y) {
+        Noeud noeud;
+        switch (type) {
+            case GrapheCompile.TYPE_ENTREPOT:
+                noeud = new Entrepot(nom, x, y);
+                if (entrepot == null) entrepot = (Entrepot) noeud;
+                break;
+            case GrapheCompile.TYPE_MAISON:
+                noeud = new Maison(nom, x, y);
+                break;
+            case GrapheCompile.TYPE_IMMEUBLE:
+                noeud = new Immeuble(nom, x, y);
+                break;
+            default:
+                noeud = new Carrefour(nom, x, y);
+        }
+        coordonnees.put(nom, new double[]{x, y});
+        noeuds.put(nom, noeud);
+        noeudsOriginaux.put(nom, noeud);
+        symboles.enregistrerNoeud(noeud);
+        versionsParNom.computeIfAbsent(nom, k -> new ArrayList<>(1)).add(noeud);
+        return noeud;
+    }
+
+    Carrefour restaurerVersion(Carrefour original, String rue, double x, double y) {
+        Carrefour version = new Carrefour(original.getNom(), rue, x, y);
+        noeuds.put(version.getNom(), version);
+        symboles.enregistrerNoeud(version);
+        original.ajouterVersion(version, symboles.internerRue(rue));
+
+        List<Noeud> versions = versionsParNom.get(original.getNom());
+        versions.remove(original);
+        versions.add(version);
+        return version;
+    }
+
+    void restaurerAlias(String nom, Noeud noeud) {
+        noeuds.put(nom, noeud);
+        noeudsOriginaux.put(nom, noeud);
+        versionsParNom.computeIfAbsent(nom, k -> new ArrayList<>(1)).add(noeud);
+    }
+
+    /**
+     * @param rue nom de la rue, ou null pour un arc de changement de rue
+     */
+    void restaurerArc(Noeud depart, Noeud arrivee, String rue, double duree) {
+        Arc arc;
+        if (rue == null) {
+            arc = new Arc(depart, arrivee, duree);
+        } else {
+            arc = new Arc(depart, arrivee, rue, duree);
+            if (viragesImplicites) {
+                int idRue = symboles.internerRue(rue);
+                if (depart instanceof Carrefour) ((Carrefour) depart).enregistrerRue(rue, idRue);
+                if (arrivee instanceof Carrefour) ((Carrefour) arrivee).enregistrerRue(rue, idRue);
+            }
+        }
+        symboles.enregistrerArc(arc);
+        depart.ajouterArc(arc);
+        invaliderCompilation();
+    }
+
+    public TableSymboles getSymboles() {
+        return symboles;
+    }
+
+    public boolean aViragesImplicites() {
+        return viragesImplicites;
+    }
+
+    /**
+     * Coûts de virage selon la géométrie des carrefours (mode virages implicites uniquement)
+     */
+    public void setProfilVirages(ProfilVirages profil) {
+        if (!viragesImplicites && !profil.estNeutre()) {
+            throw new IllegalStateException("Les coûts de virage nécessitent un graphe à virages implicites");
+        }
+        this.profilVirages = profil;
+        invaliderCompilation();
+    }
+
+    public ProfilVirages getProfilVirages() {
+        return profilVirages;
+    }
+
+    /**
+     * Active A* : les recherches vers un point sont guidées par la distance euclidienne
+     * à la cible (coordonnées des noeuds), sans changer les chemins trouvés
+     */
+    public void setRechercheAEtoile(boolean rechercheAEtoile) {
+        this.rechercheAEtoile = rechercheAEtoile;
+        invaliderCompilation();
+    }
+
+    public boolean aRechercheAEtoile() {
+        return rechercheAEtoile;
+    }
+
+    /**
+     * Précalcule nbReperes repères ALT à chaque compilation (0 pour n'en avoir aucun) : leurs
+     * tables de distances guident toutes les recherches point à point, A* activé ou non
+     */
+    public void setReperesALT(int nbReperes, ReperesALT.Strategie strategie) {
+        if (nbReperes < 0) {
+            throw new IllegalArgumentException("Nombre de repères négatif : " + nbReperes);
+        }
+        this.nbReperes = nbReperes;
+        this.strategieReperes = strategie;
+        invaliderCompilation();
+    }
+
+    public int getNbReperes() {
+        return nbReperes;
+    }
+
+    public ReperesALT.Strategie getStrategieReperes() {
+        return strategieReperes;
+    }
+
+    /**
+     * Construit à chaque compilation une hiérarchie de contraction pour le coût des trajets
+     * directs à ce moment-là : tant que les contraintes horaires ne changent pas, ces trajets
+     * sont des requêtes dans la hiérarchie (virages explicites uniquement)
+     */
+    public void setHierarchieContraction(boolean hierarchieContraction) {
+        if (viragesImplicites && hierarchieContraction) {
+            throw new IllegalStateException("La hiérarchie de contraction nécessite un graphe à virages explicites");
+        }
+        this.hierarchieContraction = hierarchieContraction;
+        invaliderCompilation();
+    }
+
+    public boolean aHierarchieContraction() {
+        return hierarchieContraction;
+    }
+
+    /**
+     * Partitionne le graphe à chaque compilation en cellules d'au plus tailleMaxCellule noeuds
+     * (0 pour ne pas le faire) : les trajets directs passent alors par la surcouche CRP, dont
+     * les coûts sont recalculés dès que les contraintes horaires changent (virages explicites
+     * uniquement). Ne se justifie que pour les grandes villes : sur les villes générées de
+     * BenchmarkRoutage.comparerSurcoucheCRP, les requêtes ne battent Dijkstra qu'à partir de
+     * quelque 20 000 noeuds compilés ; le programme interactif ne l'active pas
+     */
+    public void setSurcoucheCRP(int tailleMaxCellule) {
+        if (tailleMaxCellule < 0) {
+            throw new IllegalArgumentException("Taille de cellule négative : " + tailleMaxCellule);
+        }
+        if (viragesImplicites && tailleMaxCellule > 0) {
+            throw new IllegalStateException("La surcouche CRP nécessite un graphe à virages explicites");
+        }
+        this.tailleCellulesCRP = tailleMaxCellule;
+        invaliderCompilation();
+    }
+
+    public int getTailleCellulesCRP() {
+        return tailleCellulesCRP;
+    }
+
+    /**
+     * Stockage des matrices de distances entre points de collecte (arbre couvrant) : nbVoisins
+     * est le nombre de plus proches voisins gardés par point en stockage VOISINS, horsTas place
+     * les matrices denses hors du tas Java
+     */
+    public void setStockageDistances(MatriceDistances.Stockage stockage, int nbVoisins, boolean horsTas) {
+        if (stockage == MatriceDistances.Stockage.VOISINS && nbVoisins <= 0) {
+            throw new IllegalArgumentException("Nombre de voisins invalide : " + nbVoisins);
+        }
+        this.stockageDistances = stockage;
+        this.nbVoisinsDistances = nbVoisins;
+        this.distancesHorsTas = horsTas;
+    }
+
+    public MatriceDistances.Stockage getStockageDistances() {
+        return stockageDistances;
+    }
+
+    public int getNbVoisinsDistances() {
+        return nbVoisinsDistances;
+    }
+
+    public boolean aDistancesHorsTas() {
+        return distancesHorsTas;
+    }
+
+    public Noeud getNoeud(int id) {
+        return symboles.getNoeud(id);
+    }
+
+    public Arc getArc(int id) {
+        return symboles.getArc(id);
+    }
+
+    public int getIdRue(String rue) {
+        return symboles.getIdRue(rue);
+    }
+
     public Entrepot getEntrepot() {
         return entrepot;
     }
 
-    public List<Noeud> getToutesVersions(String nomBase) {
-        List<Noeud> versions = new ArrayList<>();
-        for (String cle : noeuds.keySet()) {
-            if (cle.startsWith(nomBase)) {
-                versions.add(noeuds.get(cle));
-            }
+    /**
+     * Fige le graphe en tableaux CSR indexés par entiers pour les recherches de chemin.
+     * L'instantané est conservé tant que le graphe n'est pas modifié.
+     */
+    public GrapheCompile compiler() {
+        if (grapheCompile == null) {
+            grapheCompile = GrapheCompile.depuis(this);
         }
-        return versions;
+        return grapheCompile;
+    }
+
+    protected void invaliderCompilation() {
+        grapheCompile = null;
+    }
+
+    /**
+     * Noeuds routables correspondant à un nom du plan : les versions par rue d'un carrefour,
+     * ou le noeud lui-même pour une maison, un immeuble ou l'entrepôt.
+     * Lecture directe de l'index maintenu par ajouterTroncon (le nom doit être exact).
+     */
+    public List<Noeud> getToutesVersions(String nomBase) {
+        List<Noeud> versions = versionsParNom.get(nomBase);
+        return versions == null ? Collections.emptyList() : Collections.unmodifiableList(versions);
     }
 }
\ No newline at end of file
@@ -11,7 +11,11 @@ class GrapheVilleAvance extends GrapheVille {
     private Map<String, List<String>> ruesParNom;
 
     public GrapheVilleAvance(OrientationRue.HypothèseOrientation hypothèse) {
-        super();
+        this(hypothèse, false);
+    }
+
+    public GrapheVilleAvance(OrientationRue.HypothèseOrientation hypothèse, boolean viragesImplicites) {
+        super(viragesImplicites);
         this.contraintes = new ContraintesHoraires();
         this.orientations = new OrientationRue(hypothèse);
         this.ruesParNom = new HashMap<>();
@@ -129,11 +133,18 @@ class GrapheVilleAvance extends GrapheVille {
         }
     }
 
+    @Override
+    public void setGraine(long graine) {
+        super.setGraine(graine);
+        contraintes.setGraine(graine);
+    }
+
     /**
      * Configurer l'orientation d'une rue AVANT d'ajouter ses segments
      */
     public void configurerOrientationRue(String rue, OrientationRue.TypeOrientation type) {
         orientations.configurerRue(rue, type);
+        invaliderCompilation();
     }
 
     /**
@@ -141,6 +152,7 @@ class GrapheVilleAvance extends GrapheVille {
      */
     public void configurerSensUnique(String rue, String depart, String arrivee) {
         orientations.configurerSensUnique(rue, depart, arrivee);
+        invaliderCompilation();
     }
 
     /**
@@ -169,6 +181,17 @@ class GrapheVilleAvance extends GrapheVille {
         return contraintes;
     }
 
+    /**
+     * Segments déclarés pour chaque rue ("départ->arrivée"), dans l'ordre d'ajout
+     */
+    Map<String, List<String>> getSegmentsParRue() {
+        return Collections.unmodifiableMap(ruesParNom);
+    }
+
+    void restaurerSegment(String rue, String segment) {
+        ruesParNom.computeIfAbsent(rue, k -> new ArrayList<>()).add(segment);
+    }
+
     public OrientationRue getOrientations() {
         return orientations;
     }
@@ -265,36 +288,12 @@ class GrapheVilleAvance extends GrapheVille {
      * Charger depuis le fichier avec gestion des orientations
      */
     public void chargerDepuisFichier(String fichier) throws Exception {
-        try (Scanner sc = new Scanner(new java.io.File(fichier))) {
-            while (sc.hasNextLine()) {
-                String ligne = sc.nextLine().trim();
-                if (ligne.isEmpty() || ligne.startsWith("#")) continue;
-
-                String[] parts = ligne.split(";");
-                if (parts.length >= 3) {
-                    String rue = parts[0].trim();
-                    String depart = parts[1].trim();
-                    String arrivee = parts[2].trim();
-                    double duree = 2.0;
-
-                    if (parts.length == 7) {
-                        double xDepart = Double.parseDouble(parts[3].trim());
-                        double yDepart = Double.parseDouble(parts[4].trim());
-                        double xArrivee = Double.parseDouble(parts[5].trim());
-                        double yArrivee = Double.parseDouble(parts[6].trim());
-
-                        definirCoordonnees(depart, xDepart, yDepart);
-                        definirCoordonnees(arrivee, xArrivee, yArrivee);
-
-                        double dx = xArrivee - xDepart;
-                        double dy = yArrivee - yDepart;
-                        double distance = Math.sqrt(dx * dx + dy * dy);
-                        duree = distance / 100.0;
-                    }
-
-                    ajouterTronconOriente(rue, depart, arrivee, duree);
-                }
-            }
+        // Les changements de rue sont créés en une passe à la fin du chargement
+        debuterChargementGroupe();
+        try {
+            ChargeurPlan.charger(this, fichier);
+        } finally {
+            terminerChargementGroupe(true);
         }
 
         // Configurer automatiquement selon l'hypothèse
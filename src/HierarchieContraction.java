@@ -0,0 +1,482 @@
+import java.util.*;
+
+/**
+ * Hiérarchie de contraction (Contraction Hierarchies) d'un graphe compilé, pour un coût figé
+ * (une PolitiqueCout : coefficients de retard et remises du moment de la construction).
+ *
+ * Les noeuds sont contractés un à un dans l'ordre de leur différence d'arêtes (raccourcis ajoutés
+ * moins arêtes retirées, plus le nombre de voisins déjà contractés pour répartir les contractions).
+ * Contracter v ajoute un raccourci u -> w pour chaque chemin u -> v -> w qu'aucun témoin (chemin
+ * sans v, au plus aussi court) ne remplace ; la recherche de témoin est bornée, un témoin non trouvé
+ * ne coûte qu'un raccourci de trop.
+ * Une requête est une recherche bidirectionnelle qui ne monte que vers des noeuds de rang supérieur
+ * (avec arrêt à la demande des noeuds atteints plus court par le haut) ;
+ * les raccourcis du chemin trouvé sont dépliés en arcs du graphe objet (arcs CHANGEMENT compris).
+ * Seuls les arcs praticables (orientation et rues ouvertes) entrent dans la hiérarchie.
+ */
+final class HierarchieContraction {
+
+    // Noeuds traités au plus par recherche de témoin : contraction effective, puis simple estimation
+    private static final int LIMITE_TEMOIN = 500;
+    private static final int LIMITE_TEMOIN_SIMULATION = 50;
+
+    private final GrapheCompile g;
+    private final MoteurPlusCourtChemin.PolitiqueCout politique;
+
+    // Arêtes : arcs compilés praticables, puis raccourcis (premiere suivie de seconde)
+    private int nbAretes;
+    private int[] origine = new int[16];
+    private int[] extremite = new int[16];
+    private double[] cout = new double[16];
+    private int[] arcCompile = new int[16];   // -1 pour un raccourci
+    private int[] premiere = new int[16];
+    private int[] seconde = new int[16];
+
+    private final int[] rang;
+    private final int[] noeudDeRang;
+    private int nbRaccourcis;
+    private long dureeConstruction;
+
+    // Graphe montant : arêtes de u vers un rang supérieur ; descendant : arêtes arrivant en v
+    // depuis un rang supérieur (parcourues à l'envers par la recherche arrière). Ces deux graphes
+    // et les requêtes numérotent les noeuds par rang : le haut de la hiérarchie, que toutes les
+    // requêtes visitent, reste groupé en mémoire. L'autre extrémité (son rang) et le coût sont
+    // recopiés à côté de chaque arête pour les parcourir sans indirection.
+    private int[] debutMontant;
+    private int[] aretesMontantes;
+    private int[] voisinsMontants;
+    private double[] coutsMontants;
+    private int[] debutDescendant;
+    private int[] aretesDescendantes;
+    private int[] voisinsDescendants;
+    private double[] coutsDescendants;
+
+    // Contraction : arêtes entre noeuds non encore contractés
+    private int[][] sortantes;
+    private int[] nbSortantes;
+    private int[][] entrantes;
+    private int[] nbEntrantes;
+    private boolean[] contracte;
+
+    private HierarchieContraction(GrapheCompile g, MoteurPlusCourtChemin.PolitiqueCout politique) {
+        this.g = g;
+        this.politique = politique;
+        this.rang = new int[g.nbNoeuds];
+        this.noeudDeRang = new int[g.nbNoeuds];
+    }
+
+    /**
+     * Contracte tout le graphe pour la politique donnée (graphe à virages explicites uniquement)
+     */
+    static HierarchieContraction construire(GrapheCompile g, MoteurPlusCourtChemin.PolitiqueCout politique) {
+        if (g.viragesImplicites) {
+            throw new IllegalStateException("La hiérarchie de contraction nécessite un graphe à virages explicites");
+        }
+        long debut = System.nanoTime();
+        HierarchieContraction h = new HierarchieContraction(g, politique);
+        h.initialiser();
+        h.contracter();
+        h.construireGrapheMontant();
+        h.sortantes = null;
+        h.entrantes = null;
+        h.dureeConstruction = System.nanoTime() - debut;
+        return h;
+    }
+
+    /**
+     * Vrai si la hiérarchie a été construite pour ce coût (mêmes coefficients, mêmes remises)
+     */
+    boolean accepte(MoteurPlusCourtChemin.PolitiqueCout autre) {
+        return politique.memeCout(autre);
+    }
+
+    int getNbRaccourcis() {
+        return nbRaccourcis;
+    }
+
+    // ============ CONSTRUCTION ============
+
+    private void initialiser() {
+        int n = g.nbNoeuds;
+        sortantes = new int[n][];
+        entrantes = new int[n][];
+        nbSortantes = new int[n];
+        nbEntrantes = new int[n];
+        contracte = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            sortantes[v] = new int[Math.max(2, g.offsets[v + 1] - g.offsets[v])];
+            entrantes[v] = new int[Math.max(2, g.offsetsEntrants[v + 1] - g.offsetsEntrants[v])];
+        }
+
+        double[] coefRues = politique.coefRues;
+        for (int a = 0; a < g.nbArcs; a++) {
+            int u = g.sources[a];
+            int v = g.cibles[a];
+            if (u == v || !g.estPraticable(a, coefRues)) continue;
+            double c = g.duree(a, coefRues) - politique.remise(v);
+
+            // Arcs parallèles : seul le moins coûteux (le premier à égalité) est gardé
+            int existante = trouverArete(u, v);
+            if (existante >= 0) {
+                if (c < cout[existante]) {
+                    cout[existante] = c;
+                    arcCompile[existante] = a;
+                }
+                continue;
+            }
+            nouvelleArete(u, v, c, a, -1, -1);
+        }
+    }
+
+    private void contracter() {
+        int n = g.nbNoeuds;
+        int[] voisinsContractes = new int[n];
+        int[] niveau = new int[n];
+        double[] priorite = new double[n];
+        EspaceRecherche temoins = new EspaceRecherche();
+        PriorityQueue<double[]> file = new PriorityQueue<>((p, q) ->
+                p[0] != q[0] ? Double.compare(p[0], q[0]) : Double.compare(p[1], q[1]));
+
+        for (int v = 0; v < n; v++) {
+            priorite[v] = priorite(v, voisinsContractes, niveau, temoins);
+            file.add(new double[]{priorite[v], v});
+        }
+
+        int prochainRang = 0;
+        while (!file.isEmpty()) {
+            double[] entree = file.poll();
+            int v = (int) entree[1];
+            if (contracte[v] || entree[0] != priorite[v]) continue;
+
+            // Mise à jour paresseuse : la priorité a pu augmenter depuis son calcul
+            double actuelle = priorite(v, voisinsContractes, niveau, temoins);
+            if (!file.isEmpty() && actuelle > file.peek()[0]) {
+                priorite[v] = actuelle;
+                file.add(new double[]{actuelle, v});
+                continue;
+            }
+
+            int[] voisins = voisinsNonContractes(v);
+            nbRaccourcis += contracterNoeud(v, false, temoins);
+            contracte[v] = true;
+            rang[v] = prochainRang;
+            noeudDeRang[prochainRang++] = v;
+
+            for (int x : voisins) {
+                voisinsContractes[x]++;
+                niveau[x] = Math.max(niveau[x], niveau[v] + 1);
+            }
+        }
+    }
+
+    private double priorite(int v, int[] voisinsContractes, int[] niveau, EspaceRecherche temoins) {
+        int raccourcis = contracterNoeud(v, true, temoins);
+        return 2 * (raccourcis - (nbEntrantes[v] + nbSortantes[v])) + voisinsContractes[v] + niveau[v];
+    }
+
+    /**
+     * Contracte v (ou compte seulement les raccourcis nécessaires si simulation)
+     *
+     * @return le nombre de raccourcis
+     */
+    private int contracterNoeud(int v, boolean simulation, EspaceRecherche temoins) {
+        int ajoutes = 0;
+        // Copies : l'ajout de raccourcis et le retrait des arêtes de v modifient les listes
+        int[] entrees = Arrays.copyOf(entrantes[v], nbEntrantes[v]);
+        int[] sorties = Arrays.copyOf(sortantes[v], nbSortantes[v]);
+
+        for (int e1 : entrees) {
+            int u = origine[e1];
+            double maxSortie = 0.0;
+            for (int e2 : sorties) {
+                if (extremite[e2] != u) maxSortie = Math.max(maxSortie, cout[e2]);
+            }
+            if (sorties.length == 0) continue;
+
+            rechercherTemoins(u, v, sorties, cout[e1] + maxSortie, simulation ? LIMITE_TEMOIN_SIMULATION : LIMITE_TEMOIN,
+                    temoins);
+            for (int e2 : sorties) {
+                int w = extremite[e2];
+                if (w == u) continue;
+                double parV = cout[e1] + cout[e2];
+                if (temoins.distance(w) <= parV) continue;
+
+                ajoutes++;
+                if (!simulation) ajouterRaccourci(u, w, parV, e1, e2);
+            }
+        }
+
+        if (!simulation) {
+            for (int e1 : entrees) retirer(sortantes, nbSortantes, origine[e1], e1);
+            for (int e2 : sorties) retirer(entrantes, nbEntrantes, extremite[e2], e2);
+        }
+        return ajoutes;
+    }
+
+    /**
+     * Plus courts chemins depuis u sans passer par v, jusqu'à ce que les extrémités des arêtes
+     * sorties soient toutes traitées, ou jusqu'à la borne ou limite noeuds traités
+     * (les distances restent lisibles dans temoins jusqu'à la recherche suivante)
+     */
+    private void rechercherTemoins(int u, int v, int[] sorties, double borne, int limite, EspaceRecherche temoins) {
+        temoins.commencer(g.nbNoeuds);
+        try {
+            int restantes = 0;
+            for (int e2 : sorties) {
+                if (extremite[e2] != u) {
+                    temoins.marquerCible(extremite[e2]);
+                    restantes++;
+                }
+            }
+            temoins.ameliorer(u, 0.0, -1);
+            int traites = 0;
+            while (!temoins.fileVide() && temoins.cleMin() <= borne && traites++ < limite) {
+                int x = temoins.extraireMin();
+                if (temoins.estCible(x) && --restantes == 0) break;
+                double dx = temoins.distance(x);
+                for (int i = 0; i < nbSortantes[x]; i++) {
+                    int e = sortantes[x][i];
+                    int y = extremite[e];
+                    if (y == v || temoins.estTraite(y)) continue;
+                    temoins.ameliorer(y, dx + cout[e], e);
+                }
+            }
+        } finally {
+            temoins.terminer();
+        }
+    }
+
+    private void ajouterRaccourci(int u, int w, double c, int e1, int e2) {
+        int existante = trouverArete(u, w);
+        if (existante >= 0) {
+            if (cout[existante] <= c) return;
+            cout[existante] = c;
+            arcCompile[existante] = -1;
+            premiere[existante] = e1;
+            seconde[existante] = e2;
+            return;
+        }
+        nouvelleArete(u, w, c, -1, e1, e2);
+    }
+
+    private int trouverArete(int u, int w) {
+        for (int i = 0; i < nbSortantes[u]; i++) {
+            int e = sortantes[u][i];
+            if (extremite[e] == w) return e;
+        }
+        return -1;
+    }
+
+    private void nouvelleArete(int u, int w, double c, int arc, int e1, int e2) {
+        if (nbAretes == origine.length) {
+            int capacite = nbAretes * 2;
+            origine = Arrays.copyOf(origine, capacite);
+            extremite = Arrays.copyOf(extremite, capacite);
+            cout = Arrays.copyOf(cout, capacite);
+            arcCompile = Arrays.copyOf(arcCompile, capacite);
+            premiere = Arrays.copyOf(premiere, capacite);
+            seconde = Arrays.copyOf(seconde, capacite);
+        }
+        int e = nbAretes++;
+        origine[e] = u;
+        extremite[e] = w;
+        cout[e] = c;
+        arcCompile[e] = arc;
+        premiere[e] = e1;
+        seconde[e] = e2;
+        ajouter(sortantes, nbSortantes, u, e);
+        ajouter(entrantes, nbEntrantes, w, e);
+    }
+
+    private static void ajouter(int[][] listes, int[] tailles, int v, int e) {
+        if (tailles[v] == listes[v].length) {
+            listes[v] = Arrays.copyOf(listes[v], tailles[v] * 2);
+        }
+        listes[v][tailles[v]++] = e;
+    }
+
+    private static void retirer(int[][] listes, int[] tailles, int v, int e) {
+        for (int i = 0; i < tailles[v]; i++) {
+            if (listes[v][i] == e) {
+                listes[v][i] = listes[v][--tailles[v]];
+                return;
+            }
+        }
+    }
+
+    private int[] voisinsNonContractes(int v) {
+        int[] voisins = new int[nbEntrantes[v] + nbSortantes[v]];
+        int nb = 0;
+        for (int i = 0; i < nbEntrantes[v]; i++) voisins[nb++] = origine[entrantes[v][i]];
+        for (int i = 0; i < nbSortantes[v]; i++) voisins[nb++] = extremite[sortantes[v][i]];
+        return voisins;
+    }
+
+    private void construireGrapheMontant() {
+        int n = g.nbNoeuds;
+        debutMontant = new int[n + 1];
+        debutDescendant = new int[n + 1];
+        for (int e = 0; e < nbAretes; e++) {
+            if (rang[extremite[e]] > rang[origine[e]]) debutMontant[rang[origine[e]] + 1]++;
+            else debutDescendant[rang[extremite[e]] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            debutMontant[v + 1] += debutMontant[v];
+            debutDescendant[v + 1] += debutDescendant[v];
+        }
+        aretesMontantes = new int[debutMontant[n]];
+        voisinsMontants = new int[debutMontant[n]];
+        coutsMontants = new double[debutMontant[n]];
+        aretesDescendantes = new int[debutDescendant[n]];
+        voisinsDescendants = new int[debutDescendant[n]];
+        coutsDescendants = new double[debutDescendant[n]];
+        int[] prochainMontant = Arrays.copyOf(debutMontant, n);
+        int[] prochainDescendant = Arrays.copyOf(debutDescendant, n);
+        for (int e = 0; e < nbAretes; e++) {
+            if (rang[extremite[e]] > rang[origine[e]]) {
+                int i = prochainMontant[rang[origine[e]]]++;
+                aretesMontantes[i] = e;
+                voisinsMontants[i] = rang[extremite[e]];
+                coutsMontants[i] = cout[e];
+            } else {
+                int i = prochainDescendant[rang[extremite[e]]]++;
+                aretesDescendantes[i] = e;
+                voisinsDescendants[i] = rang[origine[e]];
+                coutsDescendants[i] = cout[e];
+            }
+        }
+    }
+
+    // ============ REQUÊTE ============
+
+    /**
+     * Plus court chemin de source vers la plus proche des cibles
+     *
+     * @return le chemin (raccourcis dépliés), ou null si aucune cible n'est accessible
+     */
+    MoteurPlusCourtChemin.Chemin chercher(int source, int[] cibles) {
+        for (int t : cibles) {
+            if (t == source) {
+                return new MoteurPlusCourtChemin.Chemin(new ArrayList<>(), 0.0, source, -1, 0);
+            }
+        }
+
+        EspaceRecherche avant = EspaceRecherche.duThread();
+        EspaceRecherche arriere = EspaceRecherche.duThreadInverse();
+        avant.commencer(g.nbNoeuds);
+        arriere.commencer(g.nbNoeuds);
+        try {
+            avant.ameliorer(rang[source], 0.0, -1);
+            for (int t : cibles) {
+                arriere.ameliorer(rang[t], 0.0, -1);
+            }
+
+            // Chaque direction s'arrête quand sa clé minimale atteint le meilleur chemin trouvé
+            double meilleur = Double.POSITIVE_INFINITY;
+            int milieu = -1;
+            while (true) {
+                boolean avantActif = !avant.fileVide() && avant.cleMin() < meilleur;
+                boolean arriereActif = !arriere.fileVide() && arriere.cleMin() < meilleur;
+                if (!avantActif && !arriereActif) break;
+
+                if (avantActif && (!arriereActif || avant.cleMin() <= arriere.cleMin())) {
+                    int u = avant.extraireMin();
+                    double du = avant.distance(u);
+                    if (du + arriere.distance(u) < meilleur) {
+                        meilleur = du + arriere.distance(u);
+                        milieu = u;
+                    }
+                    if (estBloqueAvant(u, du, avant)) continue;
+                    for (int i = debutMontant[u]; i < debutMontant[u + 1]; i++) {
+                        int w = voisinsMontants[i];
+                        if (!avant.estTraite(w)) avant.ameliorer(w, du + coutsMontants[i], aretesMontantes[i]);
+                    }
+                } else {
+                    int v = arriere.extraireMin();
+                    double dv = arriere.distance(v);
+                    if (avant.distance(v) + dv < meilleur) {
+                        meilleur = avant.distance(v) + dv;
+                        milieu = v;
+                    }
+                    if (estBloqueArriere(v, dv, arriere)) continue;
+                    for (int i = debutDescendant[v]; i < debutDescendant[v + 1]; i++) {
+                        int x = voisinsDescendants[i];
+                        if (!arriere.estTraite(x)) arriere.ameliorer(x, dv + coutsDescendants[i], aretesDescendantes[i]);
+                    }
+                }
+            }
+            if (milieu < 0) {
+                return null;
+            }
+
+            // Arêtes de source au milieu (remontées à l'envers), puis du milieu à la cible
+            int[] montee = new int[16];
+            int nbMontee = 0;
+            for (int e = avant.precedent(milieu); e >= 0; e = avant.precedent(rang[origine[e]])) {
+                if (nbMontee == montee.length) montee = Arrays.copyOf(montee, nbMontee * 2);
+                montee[nbMontee++] = e;
+            }
+            List<Arc> arcs = new ArrayList<>();
+            int[] pile = new int[16];
+            for (int i = nbMontee - 1; i >= 0; i--) {
+                pile = deplier(montee[i], arcs, pile);
+            }
+            int arrivee = noeudDeRang[milieu];
+            for (int e = arriere.precedent(milieu); e >= 0; e = arriere.precedent(rang[extremite[e]])) {
+                pile = deplier(e, arcs, pile);
+                arrivee = extremite[e];
+            }
+
+            int dernierArc = arcs.isEmpty() ? -1 : g.indice(arcs.get(arcs.size() - 1));
+            return new MoteurPlusCourtChemin.Chemin(arcs, meilleur, arrivee, dernierArc,
+                    avant.getNbTraites() + arriere.getNbTraites());
+        } finally {
+            arriere.terminer();
+            avant.terminer();
+        }
+    }
+
+    /**
+     * Arrêt à la demande : u atteint en avant plus court depuis un noeud de rang supérieur
+     * n'est pas sur un plus court chemin montant, inutile de relâcher ses arêtes
+     */
+    private boolean estBloqueAvant(int u, double du, EspaceRecherche avant) {
+        for (int i = debutDescendant[u]; i < debutDescendant[u + 1]; i++) {
+            if (avant.distance(voisinsDescendants[i]) + coutsDescendants[i] < du) return true;
+        }
+        return false;
+    }
+
+    private boolean estBloqueArriere(int v, double dv, EspaceRecherche arriere) {
+        for (int i = debutMontant[v]; i < debutMontant[v + 1]; i++) {
+            if (arriere.distance(voisinsMontants[i]) + coutsMontants[i] < dv) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ajoute à arcs les arcs d'origine de l'arête e, dans l'ordre du parcours
+     */
+    private int[] deplier(int e, List<Arc> arcs, int[] pile) {
+        int sommet = 0;
+        pile[sommet++] = e;
+        while (sommet > 0) {
+            int x = pile[--sommet];
+            if (arcCompile[x] >= 0) {
+                arcs.add(g.arcs[arcCompile[x]]);
+                continue;
+            }
+            if (sommet + 2 > pile.length) pile = Arrays.copyOf(pile, pile.length * 2);
+            pile[sommet++] = seconde[x];
+            pile[sommet++] = premiere[x];
+        }
+        return pile;
+    }
+
+    @Override
+    public String toString() {
+        return "Hiérarchie de contraction : " + g.nbNoeuds + " noeuds, " + (nbAretes - nbRaccourcis) +
+                " arêtes et " + nbRaccourcis + " raccourcis, construite en " +
+                String.format("%.1f", dureeConstruction / 1e6) + " ms";
+    }
+}
@@ -0,0 +1,359 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Instantané binaire d'un GrapheVilleAvance chargé, pour éviter de relire le plan texte
+ * à chaque démarrage.
+ *
+ * Format (version 1, gros-boutiste) :
+ *   en-tête : MAGIC, VERSION, hypothèse, virages implicites, CRC32 et taille du plan texte
+ *             source, nombre de noeuds et d'arcs attendus, taille et CRC32 du corps
+ *   corps   : table des chaînes, rues, noeuds (type, nom, coordonnées, carrefour d'origine
+ *             et rue des versions), arcs (départ, arrivée, rue, durée avec traitement),
+ *             noms supplémentaires, segments par rue, orientations, contraintes de rues,
+ *             événements, heure
+ *
+ * Le fichier est ouvert par FileChannel.map. Noeuds, versions et arcs sont recréés dans
+ * l'ordre de leurs identifiants, sans analyse de texte, règles d'orientation ni création
+ * des changements de rue : le graphe restauré est identique à celui d'origine.
+ * L'instantané est considéré comme périmé si le plan texte a changé (CRC32), si
+ * l'hypothèse ou le mode de virages diffère, ou si le fichier est corrompu.
+ */
+class InstantanePlan {
+
+    private static final int MAGIC = 0x52505631; // "RPV1"
+    private static final int VERSION = 1;
+    private static final int TAILLE_EN_TETE = 4 + 4 + 1 + 1 + 8 + 8 + 4 + 4 + 4 + 8;
+
+    /**
+     * Écrit l'instantané d'une ville chargée depuis le plan texte fichierPlan.
+     * L'écriture passe par un fichier temporaire renommé à la fin.
+     */
+    public static void ecrire(GrapheVilleAvance ville, String fichierPlan, String fichierInstantane) throws IOException {
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> chaines = new ArrayList<>();
+        ByteArrayOutputStream octetsCorps = new ByteArrayOutputStream();
+        DataOutputStream corps = new DataOutputStream(octetsCorps);
+
+        ByteArrayOutputStream octetsDonnees = new ByteArrayOutputStream();
+        DataOutputStream donnees = new DataOutputStream(octetsDonnees);
+        TableSymboles symboles = ville.getSymboles();
+
+        // Rues dans l'ordre de leurs identifiants (0 = CHANGEMENT, déjà présent à la restauration)
+        donnees.writeInt(symboles.getNbRues());
+        for (int i = 1; i < symboles.getNbRues(); i++) {
+            donnees.writeInt(indiceChaine(symboles.getRue(i), indices, chaines));
+        }
+
+        // Noeuds dans l'ordre de leurs identifiants, versions de carrefours comprises
+        donnees.writeInt(symboles.getNbNoeuds());
+        for (int i = 0; i < symboles.getNbNoeuds(); i++) {
+            Noeud n = symboles.getNoeud(i);
+            Carrefour original = null;
+            if (n instanceof Carrefour && ((Carrefour) n).getRueCourante() != null) {
+                original = (Carrefour) ville.getNoeudOriginal(((Carrefour) n).getNomBase());
+            }
+            donnees.writeByte(GrapheCompile.typeDe(n));
+            donnees.writeInt(indiceChaine(nomBase(n), indices, chaines));
+            donnees.writeDouble(n.getX());
+            donnees.writeDouble(n.getY());
+            donnees.writeInt(original == null ? -1 : original.getId());
+            donnees.writeInt(original == null ? -1 : ((Carrefour) n).getIdRueCourante());
+        }
+
+        // Arcs dans l'ordre de leurs identifiants (même ordre que les listes d'arcs sortants)
+        donnees.writeInt(symboles.getNbArcs());
+        for (int i = 0; i < symboles.getNbArcs(); i++) {
+            Arc arc = symboles.getArc(i);
+            donnees.writeInt(arc.getDepart().getId());
+            donnees.writeInt(arc.getArrivee().getId());
+            donnees.writeInt(arc.getIdRue());
+            donnees.writeDouble(arc.getDuree());
+        }
+
+        // Noms sous lesquels un noeud est enregistré sans être son nom (entrepôt)
+        List<String> alias = new ArrayList<>();
+        for (String nom : ville.getNomsEnregistres()) {
+            Noeud n = ville.getNoeud(nom);
+            if (!nomBase(n).equals(nom) && !(n instanceof Carrefour && ((Carrefour) n).getRueCourante() != null)) {
+                alias.add(nom);
+            }
+        }
+        donnees.writeInt(alias.size());
+        for (String nom : alias) {
+            donnees.writeInt(indiceChaine(nom, indices, chaines));
+            donnees.writeInt(ville.getNoeud(nom).getId());
+        }
+
+        Map<String, List<String>> segments = ville.getSegmentsParRue();
+        donnees.writeInt(segments.size());
+        for (Map.Entry<String, List<String>> e : segments.entrySet()) {
+            donnees.writeInt(indiceChaine(e.getKey(), indices, chaines));
+            donnees.writeInt(e.getValue().size());
+            for (String segment : e.getValue()) {
+                donnees.writeInt(indiceChaine(segment, indices, chaines));
+            }
+        }
+
+        Collection<OrientationRue.ConfigurationRue> configurations = ville.getOrientations().getConfigurations();
+        donnees.writeInt(configurations.size());
+        for (OrientationRue.ConfigurationRue config : configurations) {
+            donnees.writeInt(indiceChaine(config.nomRue, indices, chaines));
+            donnees.writeByte(config.type.ordinal());
+            donnees.writeInt(config.sensUnique ? indiceChaine(config.sensAutoriseDepart, indices, chaines) : -1);
+            donnees.writeInt(config.sensUnique ? indiceChaine(config.sensAutoriseArrivee, indices, chaines) : -1);
+        }
+
+        ContraintesHoraires contraintes = ville.getContraintes();
+        Collection<ContraintesHoraires.ContrainteRue> contraintesRues = contraintes.getContraintesRues().values();
+        donnees.writeInt(contraintesRues.size());
+        for (ContraintesHoraires.ContrainteRue c : contraintesRues) {
+            donnees.writeInt(indiceChaine(c.nomRue, indices, chaines));
+            donnees.writeBoolean(c.interditLaJournee);
+            donnees.writeInt(c.heureOuverture);
+            donnees.writeInt(c.heureFermeture);
+        }
+
+        List<ContraintesHoraires.Evenement> evenements = contraintes.getEvenements();
+        donnees.writeInt(evenements.size());
+        for (ContraintesHoraires.Evenement evt : evenements) {
+            donnees.writeInt(indiceChaine(evt.rue, indices, chaines));
+            donnees.writeByte(evt.type.ordinal());
+            donnees.writeInt(evt.heureDebut);
+        }
+        donnees.writeInt(contraintes.getHeureActuelle());
+        donnees.flush();
+
+        // Table des chaînes en tête du corps
+        corps.writeInt(chaines.size());
+        for (String s : chaines) {
+            byte[] octets = s.getBytes(StandardCharsets.UTF_8);
+            corps.writeInt(octets.length);
+            corps.write(octets);
+        }
+        octetsDonnees.writeTo(corps);
+        corps.flush();
+        byte[] contenu = octetsCorps.toByteArray();
+
+        CRC32 crcCorps = new CRC32();
+        crcCorps.update(contenu);
+        long[] empreintePlan = empreinte(Paths.get(fichierPlan));
+
+        ByteBuffer enTete = ByteBuffer.allocate(TAILLE_EN_TETE);
+        enTete.putInt(MAGIC);
+        enTete.putInt(VERSION);
+        enTete.put((byte) ville.getOrientations().getHypothese().ordinal());
+        enTete.put((byte) (ville.aViragesImplicites() ? 1 : 0));
+        enTete.putLong(empreintePlan[0]);
+        enTete.putLong(empreintePlan[1]);
+        enTete.putInt(ville.getSymboles().getNbNoeuds());
+        enTete.putInt(ville.getSymboles().getNbArcs());
+        enTete.putInt(contenu.length);
+        enTete.putLong(crcCorps.getValue());
+        enTete.flip();
+
+        Path cible = Paths.get(fichierInstantane);
+        Path temporaire = Paths.get(fichierInstantane + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            canal.write(enTete);
+            canal.write(ByteBuffer.wrap(contenu));
+        }
+        Files.move(temporaire, cible, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Ouvre un instantané s'il est à jour par rapport au plan texte.
+     *
+     * @return la ville restaurée, ou null si l'instantané est absent, périmé ou corrompu
+     */
+    public static GrapheVilleAvance ouvrir(String fichierInstantane, String fichierPlan,
+                                           OrientationRue.HypothèseOrientation hypothese) {
+        Path chemin = Paths.get(fichierInstantane);
+        if (!Files.isRegularFile(chemin)) {
+            return null;
+        }
+
+        try (FileChannel canal = FileChannel.open(chemin, StandardOpenOption.READ)) {
+            if (canal.size() < TAILLE_EN_TETE) return null;
+            MappedByteBuffer tampon = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+
+            if (tampon.getInt() != MAGIC || tampon.getInt() != VERSION) return null;
+            if (tampon.get() != hypothese.ordinal()) return null;
+            boolean viragesImplicites = tampon.get() == 1;
+            long crcPlan = tampon.getLong();
+            long taillePlan = tampon.getLong();
+            int nbNoeuds = tampon.getInt();
+            int nbArcs = tampon.getInt();
+            int tailleCorps = tampon.getInt();
+            long crcAttendu = tampon.getLong();
+
+            if (tailleCorps != canal.size() - TAILLE_EN_TETE) return null;
+
+            Path plan = Paths.get(fichierPlan);
+            if (Files.isRegularFile(plan)) {
+                long[] empreintePlan = empreinte(plan);
+                if (empreintePlan[0] != crcPlan || empreintePlan[1] != taillePlan) return null;
+            }
+
+            ByteBuffer corps = tampon.slice();
+            CRC32 crc = new CRC32();
+            crc.update(corps.duplicate());
+            if (crc.getValue() != crcAttendu) return null;
+
+            GrapheVilleAvance ville = restaurer(corps, hypothese, viragesImplicites);
+            if (ville.getSymboles().getNbNoeuds() != nbNoeuds || ville.getSymboles().getNbArcs() != nbArcs) {
+                return null;
+            }
+            return ville;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ouvre l'instantané s'il est à jour ; sinon charge le plan texte et réécrit l'instantané
+     */
+    public static GrapheVilleAvance charger(String fichierPlan, String fichierInstantane,
+                                            OrientationRue.HypothèseOrientation hypothese) throws Exception {
+        GrapheVilleAvance ville = ouvrir(fichierInstantane, fichierPlan, hypothese);
+        if (ville != null) {
+            return ville;
+        }
+
+        ville = new GrapheVilleAvance(hypothese);
+        ville.chargerDepuisFichier(fichierPlan);
+        try {
+            ecrire(ville, fichierPlan, fichierInstantane);
+        } catch (IOException e) {
+            System.out.println("⚠️  Instantané non écrit : " + e.getMessage());
+        }
+        return ville;
+    }
+
+    private static GrapheVilleAvance restaurer(ByteBuffer corps, OrientationRue.HypothèseOrientation hypothese,
+                                               boolean viragesImplicites) {
+        String[] chaines = new String[corps.getInt()];
+        for (int i = 0; i < chaines.length; i++) {
+            byte[] octets = new byte[corps.getInt()];
+            corps.get(octets);
+            chaines[i] = new String(octets, StandardCharsets.UTF_8);
+        }
+
+        GrapheVilleAvance ville = new GrapheVilleAvance(hypothese, viragesImplicites);
+        TableSymboles symboles = ville.getSymboles();
+
+        int nbRuesTable = corps.getInt();
+        for (int i = 1; i < nbRuesTable; i++) {
+            symboles.internerRue(chaines[corps.getInt()]);
+        }
+
+        Noeud[] noeuds = new Noeud[corps.getInt()];
+        for (int i = 0; i < noeuds.length; i++) {
+            byte type = corps.get();
+            String nom = chaines[corps.getInt()];
+            double x = corps.getDouble();
+            double y = corps.getDouble();
+            int original = corps.getInt();
+            int idRue = corps.getInt();
+            noeuds[i] = original < 0
+                    ? ville.restaurerNoeud(type, nom, x, y)
+                    : ville.restaurerVersion((Carrefour) noeuds[original], symboles.getRue(idRue), x, y);
+        }
+
+        int nbArcs = corps.getInt();
+        for (int i = 0; i < nbArcs; i++) {
+            Noeud depart = noeuds[corps.getInt()];
+            Noeud arrivee = noeuds[corps.getInt()];
+            int idRue = corps.getInt();
+            String rue = idRue == TableSymboles.ID_RUE_CHANGEMENT ? null : symboles.getRue(idRue);
+            ville.restaurerArc(depart, arrivee, rue, corps.getDouble());
+        }
+
+        int nbAlias = corps.getInt();
+        for (int i = 0; i < nbAlias; i++) {
+            String nom = chaines[corps.getInt()];
+            ville.restaurerAlias(nom, noeuds[corps.getInt()]);
+        }
+
+        int nbRues = corps.getInt();
+        for (int i = 0; i < nbRues; i++) {
+            String rue = chaines[corps.getInt()];
+            int nbSegments = corps.getInt();
+            for (int k = 0; k < nbSegments; k++) {
+                ville.restaurerSegment(rue, chaines[corps.getInt()]);
+            }
+        }
+
+        int nbConfigurations = corps.getInt();
+        for (int i = 0; i < nbConfigurations; i++) {
+            String rue = chaines[corps.getInt()];
+            OrientationRue.TypeOrientation type = OrientationRue.TypeOrientation.values()[corps.get()];
+            int depart = corps.getInt();
+            int arrivee = corps.getInt();
+            if (type == OrientationRue.TypeOrientation.SENS_UNIQUE) {
+                ville.configurerSensUnique(rue, chaines[depart], chaines[arrivee]);
+            } else {
+                ville.configurerOrientationRue(rue, type);
+            }
+        }
+
+        ContraintesHoraires contraintes = ville.getContraintes();
+        int nbContraintes = corps.getInt();
+        for (int i = 0; i < nbContraintes; i++) {
+            String rue = chaines[corps.getInt()];
+            boolean interdite = corps.get() != 0;
+            int ouverture = corps.getInt();
+            int fermeture = corps.getInt();
+            if (interdite) {
+                contraintes.ajouterContrainteRue(rue, ouverture, fermeture);
+            }
+        }
+
+        int nbEvenements = corps.getInt();
+        for (int i = 0; i < nbEvenements; i++) {
+            String rue = chaines[corps.getInt()];
+            ContraintesHoraires.TypeEvenement type = ContraintesHoraires.TypeEvenement.values()[corps.get()];
+            contraintes.ajouterEvenement(rue, type, corps.getInt());
+        }
+
+        int heure = corps.getInt();
+        if (heure >= 6 && heure <= 22) {
+            contraintes.setHeureDepart(heure);
+        }
+        return ville;
+    }
+
+    private static String nomBase(Noeud n) {
+        return n instanceof Carrefour ? ((Carrefour) n).getNomBase() : n.getNom();
+    }
+
+    private static int indiceChaine(String s, Map<String, Integer> indices, List<String> chaines) {
+        Integer indice = indices.get(s);
+        if (indice == null) {
+            indice = chaines.size();
+            indices.put(s, indice);
+            chaines.add(s);
+        }
+        return indice;
+    }
+
+    /**
+     * CRC32 et taille d'un fichier, lu par projection mémoire
+     */
+    private static long[] empreinte(Path fichier) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            CRC32 crc = new CRC32();
+            if (canal.size() > 0) {
+                crc.update(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+            }
+            return new long[]{crc.getValue(), canal.size()};
+        }
+    }
+}
@@ -0,0 +1,650 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Matrice des distances entre k points (arbre couvrant, voyageur de commerce), sans temps de
+ * ramassage et avec les contraintes horaires du moment.
+ *
+ * Une seule recherche par point de départ, vers tous les autres points à la fois
+ * (MoteurPlusCourtChemin.chercherPlusProches), au lieu d'une recherche par couple : k recherches
+ * au lieu de k², lancées en parallèle sur le pool ForkJoin commun, chacune dans l'espace de
+ * travail de son thread. Le rangement des distances dépend du stockage (voir Stockage) : les
+ * matrices denses peuvent être placées hors du tas Java (ByteBuffer direct), et l'erreur due
+ * à la quantification est mesurée au remplissage (getErreurMax), à côté de sa borne.
+ * Un point peut avoir plusieurs noeuds (versions d'un carrefour, une par rue) : la recherche part
+ * de toutes ses versions à la fois, et la distance vers un point est celle de sa version la plus
+ * proche.
+ *
+ * Les chemins ne sont pas gardés : une tournée n'en emprunte qu'environ k sur k², et même réduits
+ * aux chemins vers les points, les arbres des prédécesseurs pèseraient k fois quelques milliers
+ * d'états. chemin(i, j) refait la recherche depuis i, arrêtée à j : c'est le même Dijkstra
+ * (mêmes coûts, même politique), il rend donc le chemin de l'arbre de i. Seuls les arbres des
+ * derniers points de départ demandés plusieurs fois (l'entrepôt, dans une tournée qui y revient)
+ * sont gardés, pour ne pas refaire leur recherche. chemin() n'est pas prévu pour plusieurs threads.
+ */
+abstract class MatriceDistances {
+
+    /**
+     * Rangement des distances
+     */
+    enum Stockage {
+        /** k * k double : distances exactes */
+        DOUBLE,
+        /** k * k float : erreur relative d'au plus 2^-24 */
+        FLOAT,
+        /** k * k entiers 16 bits, en virgule fixe sur l'étendue de chaque ligne : erreur d'au plus
+         *  un demi-pas, (max - min de la ligne) / 131068 */
+        ENTIER_16,
+        /** distances exactes vers les plus proches voisins de chaque point seulement, sauf pour
+         *  le point 0 (l'entrepôt) dont la ligne est complète : tout point reste atteignable */
+        VOISINS
+    }
+
+    /** Coût d'une distance infinie (point inaccessible, ou distance non rangée en stockage VOISINS)
+     *  pour les recherches de tournée, qui cherchent d'abord à s'en débarrasser */
+    static final double INACCESSIBLE = 1e6;
+    /** Écart en dessous duquel deux coûts de tournée sont tenus pour égaux */
+    static final double EPSILON = 1e-6;
+
+    private static final int NB_ARBRES = 4;
+
+    final int k;
+    private final GrapheCompile g;
+    private final MoteurPlusCourtChemin.PolitiqueCout politique;
+    private final MoteurPlusCourtChemin.Cible cible;   // toutes les versions de tous les points
+    private final int[][] versions;         // noeuds compilés de chaque point (vide s'il n'y est pas)
+    private long dureeCalcul;
+    private double erreurMax;               // plus grand écart mesuré entre distance rangée et exacte
+
+    private final int[] nbDemandes;         // chemins demandés depuis chaque point
+    private final Map<Integer, Arbre> arbres = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Arbre> plusAncien) {
+            return size() > NB_ARBRES;
+        }
+    };
+
+    /**
+     * Arbre des plus courts chemins d'un point de départ vers tous les autres
+     */
+    private static final class Arbre {
+        final int[] precedents;     // arc prédécesseur de chaque état (noeud, ou arc en virages implicites)
+        final int[] arrivees;       // version atteinte de chaque point (-1 si inaccessible)
+        final int[] derniersArcs;   // dernier arc du chemin vers chaque point (-1 si chemin vide)
+
+        Arbre(int[] precedents, int[] arrivees, int[] derniersArcs) {
+            this.precedents = precedents;
+            this.arrivees = arrivees;
+            this.derniersArcs = derniersArcs;
+        }
+    }
+
+    private MatriceDistances(GrapheCompile g, MoteurPlusCourtChemin.PolitiqueCout politique,
+                             MoteurPlusCourtChemin.Cible cible, int[][] versions) {
+        this.g = g;
+        this.politique = politique;
+        this.cible = cible;
+        this.k = versions.length;
+        this.versions = versions;
+        this.nbDemandes = new int[k];
+    }
+
+    /**
+     * Calcule la matrice entre les points donnés (un noeud par point, dans l'ordre des indices),
+     * avec le stockage choisi pour la ville (GrapheVille.setStockageDistances)
+     */
+    static MatriceDistances calculer(GrapheVille ville, List<Noeud> points) {
+        return calculer(ville, points, ville.getStockageDistances(), ville.getNbVoisinsDistances(),
+                ville.aDistancesHorsTas());
+    }
+
+    /**
+     * @param nbVoisins voisins gardés par point en stockage VOISINS
+     * @param horsTas   matrice dense rangée hors du tas Java
+     */
+    static MatriceDistances calculer(GrapheVille ville, List<Noeud> points, Stockage stockage, int nbVoisins,
+                                     boolean horsTas) {
+        List<List<Noeud>> versions = new ArrayList<>();
+        for (Noeud n : points) {
+            versions.add(Collections.singletonList(n));
+        }
+        return calculerVersions(ville, versions, stockage, nbVoisins, horsTas);
+    }
+
+    /**
+     * Calcule la matrice entre les points donnés par leurs versions (GrapheVille.getToutesVersions,
+     * une liste par point, dans l'ordre des indices), avec le stockage choisi pour la ville
+     */
+    static MatriceDistances calculerVersions(GrapheVille ville, List<List<Noeud>> versionsPoints) {
+        return calculerVersions(ville, versionsPoints, ville.getStockageDistances(), ville.getNbVoisinsDistances(),
+                ville.aDistancesHorsTas());
+    }
+
+    static MatriceDistances calculerVersions(GrapheVille ville, List<List<Noeud>> versionsPoints, Stockage stockage,
+                                             int nbVoisins, boolean horsTas) {
+        long debut = System.nanoTime();
+        GrapheCompile g = ville.compiler();
+        GrapheVilleAvance villeAvance = ville instanceof GrapheVilleAvance ? (GrapheVilleAvance) ville : null;
+        MoteurPlusCourtChemin.PolitiqueCout politique = MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, villeAvance);
+
+        int k = versionsPoints.size();
+        int[][] versions = new int[k][];
+        List<Noeud> toutes = new ArrayList<>();
+        int nbVersionsMax = 1;
+        for (int i = 0; i < k; i++) {
+            versions[i] = MoteurPlusCourtChemin.Cible.versions(g, versionsPoints.get(i)).noeuds;
+            toutes.addAll(versionsPoints.get(i));
+            nbVersionsMax = Math.max(nbVersionsMax, versions[i].length);
+        }
+        MoteurPlusCourtChemin.Cible cible = MoteurPlusCourtChemin.Cible.versions(g, toutes);
+
+        MatriceDistances matrice;
+        switch (stockage) {
+            case FLOAT:
+                matrice = new Flottants(g, politique, cible, versions, horsTas);
+                break;
+            case ENTIER_16:
+                matrice = new Entiers16(g, politique, cible, versions, horsTas);
+                break;
+            case VOISINS:
+                matrice = new Voisins(g, politique, cible, versions, nbVoisins);
+                break;
+            default:
+                matrice = new Doubles(g, politique, cible, versions, horsTas);
+        }
+
+        // En stockage VOISINS, la recherche depuis i s'arrête à ses nbVoisins plus proches (plus i) ;
+        // un point comptant pour au plus nbVersionsMax cibles, on en atteint autant de fois plus
+        int nbCiblesParPoint = nbVersionsMax;
+        double[] erreurs = new double[k];
+        IntStream.range(0, k).parallel().forEach(i -> {
+            double[] ligne = new double[k];
+            Arrays.fill(ligne, Double.POSITIVE_INFINITY);
+            if (versions[i].length > 0) {
+                int nbCibles = stockage == Stockage.VOISINS && i > 0 ? (nbVoisins + 1) * nbCiblesParPoint
+                        : Integer.MAX_VALUE;
+                Map<Integer, Double> atteints = new HashMap<>();
+                for (MoteurPlusCourtChemin.Chemin chemin : MoteurPlusCourtChemin.chercherPlusProches(g, versions[i], -1,
+                        cible, politique, nbCibles, EspaceRecherche.duThread(), false)) {
+                    atteints.put(chemin.arrivee, chemin.cout);
+                }
+                for (int j = 0; j < k; j++) {
+                    for (int v : versions[j]) {
+                        Double distance = atteints.get(v);
+                        if (distance != null) ligne[j] = Math.min(ligne[j], distance);
+                    }
+                }
+            }
+            erreurs[i] = matrice.ecrireLigne(i, ligne);
+        });
+
+        for (double erreur : erreurs) {
+            matrice.erreurMax = Math.max(matrice.erreurMax, erreur);
+        }
+        matrice.dureeCalcul = (System.nanoTime() - debut) / 1_000_000;
+        return matrice;
+    }
+
+    /**
+     * Range les distances exactes depuis le point i (une fois par ligne, lignes écrites en parallèle)
+     *
+     * @return le plus grand écart entre une distance rangée et sa valeur exacte
+     */
+    abstract double ecrireLigne(int i, double[] ligne);
+
+    /**
+     * Distance de i à j (infinie si j n'est pas accessible depuis i, ou si elle n'est pas rangée)
+     */
+    abstract double distance(int i, int j);
+
+    /**
+     * Nombre de points j dont la distance depuis i est rangée
+     */
+    abstract int nbVoisins(int i);
+
+    /**
+     * r-ième point dont la distance depuis i est rangée, par indice croissant
+     */
+    abstract int voisin(int i, int r);
+
+    /**
+     * Octets occupés par les distances
+     */
+    abstract long getOctets();
+
+    /**
+     * Borne de l'écart entre une distance rangée et sa valeur exacte
+     */
+    abstract double getErreurBornee();
+
+    abstract Stockage getStockage();
+
+    int taille() {
+        return k;
+    }
+
+    /**
+     * Vrai si la distance de i à j est rangée (elle peut être infinie)
+     */
+    boolean contient(int i, int j) {
+        return true;
+    }
+
+    /**
+     * Plus grand écart mesuré entre une distance rangée et sa valeur exacte
+     */
+    double getErreurMax() {
+        return erreurMax;
+    }
+
+    /**
+     * Distance de i à j, INACCESSIBLE si elle est infinie
+     */
+    double cout(int i, int j) {
+        double distance = distance(i, j);
+        return distance == Double.POSITIVE_INFINITY ? INACCESSIBLE : distance;
+    }
+
+    /**
+     * Les nb points retenus les plus proches de i (distance finie), du plus proche au plus loin :
+     * depuis i parmi ses voisins rangés si sortants, vers i sinon
+     */
+    int[] plusProches(int i, int nb, boolean sortants, IntPredicate retenu) {
+        int[] proches = new int[nb];
+        double[] distances = new double[nb];
+        int trouves = 0;
+        int nbEssais = sortants ? nbVoisins(i) : k;
+        for (int r = 0; r < nbEssais; r++) {
+            int j = sortants ? voisin(i, r) : r;
+            double distance = sortants ? distance(i, j) : distance(j, i);
+            if (j == i || distance == Double.POSITIVE_INFINITY || !retenu.test(j)) continue;
+            if (trouves == nb && distance >= distances[trouves - 1]) continue;
+
+            int place = trouves < nb ? trouves++ : trouves - 1;
+            while (place > 0 && distances[place - 1] > distance) {
+                proches[place] = proches[place - 1];
+                distances[place] = distances[place - 1];
+                place--;
+            }
+            proches[place] = j;
+            distances[place] = distance;
+        }
+        return Arrays.copyOf(proches, trouves);
+    }
+
+    /**
+     * Arcs du plus court chemin de i à j, recherché à nouveau depuis i (null si inaccessible)
+     */
+    List<Arc> chemin(int i, int j) {
+        if (contient(i, j) && distance(i, j) == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        Arbre arbre = arbres.get(i);
+        if (arbre == null && ++nbDemandes[i] > 1) {
+            arbre = calculerArbre(i);
+            arbres.put(i, arbre);
+        }
+        if (arbre == null) {
+            // Arrêtée à la version de j la plus proche
+            List<MoteurPlusCourtChemin.Chemin> chemins = MoteurPlusCourtChemin.chercherPlusProches(g, versions[i], -1,
+                    MoteurPlusCourtChemin.Cible.noeuds(versions[j]), politique, 1, EspaceRecherche.duThread(), true);
+            return chemins.isEmpty() ? null : chemins.get(0).arcs;
+        }
+
+        if (arbre.arrivees[j] < 0) {
+            return null;
+        }
+        if (arbre.derniersArcs[j] < 0) {
+            return new ArrayList<>();
+        }
+        int[] precedents = arbre.precedents;
+        return g.viragesImplicites
+                ? RechercheVirages.reconstruire(g, -1, arbre.derniersArcs[j], a -> precedents[a])
+                : g.reconstruireChemin(-1, arbre.arrivees[j], n -> precedents[n]);
+    }
+
+    /**
+     * Refait la recherche depuis i vers tous les points et en garde les prédécesseurs
+     */
+    private Arbre calculerArbre(int i) {
+        EspaceRecherche espace = EspaceRecherche.duThread();
+        Map<Integer, MoteurPlusCourtChemin.Chemin> atteints = new HashMap<>();
+        for (MoteurPlusCourtChemin.Chemin chemin : MoteurPlusCourtChemin.chercherPlusProches(g, versions[i], -1,
+                cible, politique, Integer.MAX_VALUE, espace, false)) {
+            atteints.put(chemin.arrivee, chemin);
+        }
+
+        // Les prédécesseurs restent lisibles jusqu'à la prochaine recherche de ce thread
+        int[] precedents = new int[g.viragesImplicites ? Math.max(g.nbArcs, g.nbNoeuds) : g.nbNoeuds];
+        for (int e = 0; e < precedents.length; e++) {
+            precedents[e] = espace.precedent(e);
+        }
+        // Pour chaque point, sa version atteinte la première
+        int[] arrivees = new int[k];
+        int[] derniersArcs = new int[k];
+        for (int j = 0; j < k; j++) {
+            MoteurPlusCourtChemin.Chemin premier = null;
+            for (int v : versions[j]) {
+                MoteurPlusCourtChemin.Chemin chemin = atteints.get(v);
+                if (chemin != null && (premier == null || chemin.nbTraites < premier.nbTraites)) {
+                    premier = chemin;
+                }
+            }
+            arrivees[j] = premier == null ? -1 : premier.arrivee;
+            derniersArcs[j] = premier == null ? -1 : premier.dernierArc;
+        }
+        return new Arbre(precedents, arrivees, derniersArcs);
+    }
+
+    long getDureeCalcul() {
+        return dureeCalcul;
+    }
+
+    @Override
+    public String toString() {
+        return "MatriceDistances " + getStockage() + " (" + k + " points, " + (getOctets() >> 10) + " Ko, " +
+                dureeCalcul + " ms, erreur max " + String.format("%.3g", erreurMax) + " pour une borne de " +
+                String.format("%.3g", getErreurBornee()) + ")";
+    }
+
+    /**
+     * Nombre de cases d'une matrice dense de k points, si elle tient dans un tampon
+     */
+    private static int casesDenses(int k, int octetsParCase) {
+        if ((long) k * k * octetsParCase > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Matrice dense trop grande pour " + k +
+                    " points : utiliser un stockage plus compact (ENTIER_16 ou VOISINS)");
+        }
+        return k * k;
+    }
+
+    private static ByteBuffer horsTas(int octets) {
+        return ByteBuffer.allocateDirect(octets).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Matrice dense de doubles
+     */
+    private static final class Doubles extends MatriceDistances {
+        private final DoubleBuffer distances;   // distances[i * k + j]
+
+        Doubles(GrapheCompile g, MoteurPlusCourtChemin.PolitiqueCout politique, MoteurPlusCourtChemin.Cible cible,
+                int[][] versions, boolean horsTas) {
+            super(g, politique, cible, versions);
+            int cases = casesDenses(k, Double.BYTES);
+            this.distances = horsTas ? horsTas(cases * Double.BYTES).asDoubleBuffer() : DoubleBuffer.allocate(cases);
+        }
+
+        @Override
+        double ecrireLigne(int i, double[] ligne) {
+            for (int j = 0; j < k; j++) {
+                distances.put(i * k + j, ligne[j]);
+            }
+            return 0.0;
+        }
+
+        @Override
+        double distance(int i, int j) {
+            return distances.get(i * k + j);
+        }
+
+        @Override
+        int nbVoisins(int i) {
+            return k;
+        }
+
+        @Override
+        int voisin(int i, int r) {
+            return r;
+        }
+
+        @Override
+        long getOctets() {
+            return (long) distances.capacity() * Double.BYTES;
+        }
+
+        @Override
+        double getErreurBornee() {
+            return 0.0;
+        }
+
+        @Override
+        Stockage getStockage() {
+            return Stockage.DOUBLE;
+        }
+    }
+
+    /**
+     * Matrice dense de floats
+     */
+    private static final class Flottants extends MatriceDistances {
+        private final FloatBuffer distances;
+        private final double[] plusGrandes;     // plus grande distance finie de chaque ligne
+
+        Flottants(GrapheCompile g, MoteurPlusCourtChemin.PolitiqueCout politique, MoteurPlusCourtChemin.Cible cible,
+                  int[][] versions, boolean horsTas) {
+            super(g, politique, cible, versions);
+            int cases = casesDenses(k, Float.BYTES);
+            this.distances = horsTas ? horsTas(cases * Float.BYTES).asFloatBuffer() : FloatBuffer.allocate(cases);
+            this.plusGrandes = new double[k];
+        }
+
+        @Override
+        double ecrireLigne(int i, double[] ligne) {
+            double erreur = 0.0;
+            for (int j = 0; j < k; j++) {
+                float valeur = (float) ligne[j];
+                distances.put(i * k + j, valeur);
+                if (ligne[j] != Double.POSITIVE_INFINITY) {
+                    erreur = Math.max(erreur, Math.abs(valeur - ligne[j]));
+                    plusGrandes[i] = Math.max(plusGrandes[i], Math.abs(ligne[j]));
+                }
+            }
+            return erreur;
+        }
+
+        @Override
+        double distance(int i, int j) {
+            return distances.get(i * k + j);
+        }
+
+        @Override
+        int nbVoisins(int i) {
+            return k;
+        }
+
+        @Override
+        int voisin(int i, int r) {
+            return r;
+        }
+
+        @Override
+        long getOctets() {
+            return (long) distances.capacity() * Float.BYTES;
+        }
+
+        @Override
+        double getErreurBornee() {
+            return Arrays.stream(plusGrandes).max().orElse(0.0) * 0x1p-24;
+        }
+
+        @Override
+        Stockage getStockage() {
+            return Stockage.FLOAT;
+        }
+    }
+
+    /**
+     * Matrice dense d'entiers 16 bits : la ligne i range (d - min_i) / pas_i arrondi,
+     * avec pas_i = (max_i - min_i) / 65534 ; 65535 (-1 en short) code une distance infinie
+     */
+    private static final class Entiers16 extends MatriceDistances {
+        private static final int CODE_MAX = 65534;
+        private static final short INFINIE = (short) 0xFFFF;
+
+        private final ShortBuffer codes;
+        private final double[] minimums;
+        private final double[] pas;
+
+        Entiers16(GrapheCompile g, MoteurPlusCourtChemin.PolitiqueCout politique, MoteurPlusCourtChemin.Cible cible,
+                  int[][] versions, boolean horsTas) {
+            super(g, politique, cible, versions);
+            int cases = casesDenses(k, Short.BYTES);
+            this.codes = horsTas ? horsTas(cases * Short.BYTES).asShortBuffer() : ShortBuffer.allocate(cases);
+            this.minimums = new double[k];
+            this.pas = new double[k];
+        }
+
+        @Override
+        double ecrireLigne(int i, double[] ligne) {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (double d : ligne) {
+                if (d == Double.POSITIVE_INFINITY) continue;
+                min = Math.min(min, d);
+                max = Math.max(max, d);
+            }
+            minimums[i] = min == Double.POSITIVE_INFINITY ? 0.0 : min;
+            pas[i] = max > min ? (max - min) / CODE_MAX : 0.0;
+
+            double erreur = 0.0;
+            for (int j = 0; j < k; j++) {
+                if (ligne[j] == Double.POSITIVE_INFINITY) {
+                    codes.put(i * k + j, INFINIE);
+                    continue;
+                }
+                int code = pas[i] == 0.0 ? 0 : (int) Math.round((ligne[j] - minimums[i]) / pas[i]);
+                codes.put(i * k + j, (short) code);
+                erreur = Math.max(erreur, Math.abs(decoder(i, code) - ligne[j]));
+            }
+            return erreur;
+        }
+
+        private double decoder(int i, int code) {
+            return minimums[i] + code * pas[i];
+        }
+
+        @Override
+        double distance(int i, int j) {
+            short code = codes.get(i * k + j);
+            return code == INFINIE ? Double.POSITIVE_INFINITY : decoder(i, code & 0xFFFF);
+        }
+
+        @Override
+        int nbVoisins(int i) {
+            return k;
+        }
+
+        @Override
+        int voisin(int i, int r) {
+            return r;
+        }
+
+        @Override
+        long getOctets() {
+            return (long) codes.capacity() * Short.BYTES + 2L * k * Double.BYTES;
+        }
+
+        @Override
+        double getErreurBornee() {
+            return Arrays.stream(pas).max().orElse(0.0) / 2;
+        }
+
+        @Override
+        Stockage getStockage() {
+            return Stockage.ENTIER_16;
+        }
+    }
+
+    /**
+     * Plus proches voisins de chaque point (ligne 0 complète), rangés par indice croissant
+     */
+    private static final class Voisins extends MatriceDistances {
+        private final int nbVoisinsMax;
+        private final int[][] colonnes;
+        private final double[][] valeurs;
+
+        Voisins(GrapheCompile g, MoteurPlusCourtChemin.PolitiqueCout politique, MoteurPlusCourtChemin.Cible cible,
+                int[][] versions, int nbVoisins) {
+            super(g, politique, cible, versions);
+            if (nbVoisins <= 0) {
+                throw new IllegalArgumentException("Nombre de voisins invalide : " + nbVoisins);
+            }
+            this.nbVoisinsMax = nbVoisins;
+            this.colonnes = new int[k][];
+            this.valeurs = new double[k][];
+        }
+
+        @Override
+        double ecrireLigne(int i, double[] ligne) {
+            int[] gardes;
+            if (i == 0) {
+                gardes = IntStream.range(0, k).toArray();
+            } else {
+                // i lui-même et ses nbVoisinsMax plus proches (égalités départagées par indice)
+                int[] proches = IntStream.range(0, k)
+                        .filter(j -> j != i && ligne[j] != Double.POSITIVE_INFINITY)
+                        .boxed()
+                        .sorted(Comparator.comparingDouble((Integer j) -> ligne[j]).thenComparingInt(j -> j))
+                        .limit(nbVoisinsMax)
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                gardes = Arrays.copyOf(proches, proches.length + 1);
+                gardes[proches.length] = i;
+                Arrays.sort(gardes);
+            }
+            double[] distances = new double[gardes.length];
+            for (int r = 0; r < gardes.length; r++) {
+                distances[r] = ligne[gardes[r]];
+            }
+            colonnes[i] = gardes;
+            valeurs[i] = distances;
+            return 0.0;
+        }
+
+        @Override
+        boolean contient(int i, int j) {
+            return Arrays.binarySearch(colonnes[i], j) >= 0;
+        }
+
+        @Override
+        double distance(int i, int j) {
+            int r = Arrays.binarySearch(colonnes[i], j);
+            return r < 0 ? Double.POSITIVE_INFINITY : valeurs[i][r];
+        }
+
+        @Override
+        int nbVoisins(int i) {
+            return colonnes[i].length;
+        }
+
+        @Override
+        int voisin(int i, int r) {
+            return colonnes[i][r];
+        }
+
+        @Override
+        long getOctets() {
+            long octets = 0;
+            for (int[] c : colonnes) {
+                octets += (long) c.length * (Integer.BYTES + Double.BYTES);
+            }
+            return octets;
+        }
+
+        @Override
+        double getErreurBornee() {
+            return 0.0;
+        }
+
+        @Override
+        Stockage getStockage() {
+            return Stockage.VOISINS;
+        }
+    }
+}
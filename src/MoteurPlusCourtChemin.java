@@ -0,0 +1,549 @@
+import java.util.*;
+
+/**
+ * Moteur de plus court chemin commun à toutes les recherches d'itinéraire, sur le graphe compilé.
+ *
+ * Une recherche combine :
+ * - une politique de coût : durée de l'arc (avec contraintes horaires ou non) moins une remise
+ *   sur le noeud d'arrivée (temps de traitement des points où l'on ne ramasse pas) ;
+ * - une cible : un noeud, toutes les versions d'un point, le départ d'un arc (virage vers cet arc
+ *   compris en virages implicites) ou le départ de n'importe quel arc non ramassé.
+ * La recherche s'arrête dès qu'une cible est extraite de la file.
+ * Si le graphe a la recherche A* activée ou des repères ALT, la file est ordonnée par distance plus
+ * un minorant du reste du trajet (voir Heuristique), ce qui ne change pas le coût trouvé.
+ *
+ * Les tableaux de travail (distances, prédécesseurs, file) sont ceux de l'EspaceRecherche du
+ * thread courant, remis à zéro en temps constant : une requête n'alloue que son résultat.
+ * En virages implicites, la recherche se fait sur les arcs (voir RechercheVirages).
+ */
+class MoteurPlusCourtChemin {
+
+    /**
+     * Chemin trouvé : arcs du graphe objet (virages compris) et coût total
+     */
+    static class Chemin {
+        final List<Arc> arcs;
+        final double cout;
+        final int arrivee;      // noeud compilé atteint
+        final int dernierArc;   // dernier arc compilé parcouru (arcEntree si chemin vide)
+        final int nbTraites;    // états extraits de la file par la recherche
+
+        Chemin(List<Arc> arcs, double cout, int arrivee, int dernierArc, int nbTraites) {
+            this.arcs = arcs;
+            this.cout = cout;
+            this.arrivee = arrivee;
+            this.dernierArc = dernierArc;
+            this.nbTraites = nbTraites;
+        }
+    }
+
+    /**
+     * Coût d'un arc : duree(arc) * coefficient de sa rue - remise(noeud d'arrivée)
+     */
+    static class PolitiqueCout {
+        final double[] coefRues;
+        private final double[] remise;       // null : aucune remise
+        private final boolean[] sansRemise;  // null : remise partout
+        private final double coefMin;        // plus petit coefficient des rues ouvertes
+
+        private PolitiqueCout(double[] coefRues, double[] remise, boolean[] sansRemise) {
+            this.coefRues = coefRues;
+            this.remise = remise;
+            this.sansRemise = sansRemise;
+            double min = Double.POSITIVE_INFINITY;
+            for (double c : coefRues) {
+                min = Math.min(min, c);
+            }
+            this.coefMin = min;
+        }
+
+        /**
+         * Trajet sans arrêt : le temps de traitement des points traversés n'est pas compté
+         */
+        static PolitiqueCout sansRamassage(GrapheCompile g, GrapheVilleAvance villeAvance) {
+            return new PolitiqueCout(g.coefficientsRues(villeAvance), g.tempsTraitement, null);
+        }
+
+        /**
+         * Temps de traitement compté à chaque point traversé (tournée complète)
+         */
+        static PolitiqueCout avecRamassage(GrapheCompile g, GrapheVilleAvance villeAvance) {
+            return new PolitiqueCout(g.coefficientsRues(villeAvance), null, null);
+        }
+
+        /**
+         * Temps de traitement compté seulement aux points de aRamasser
+         * (les autres noeuds que maisons et immeubles n'en ont pas)
+         */
+        static PolitiqueCout ramassageSelectif(GrapheCompile g, GrapheVilleAvance villeAvance, boolean[] aRamasser) {
+            return new PolitiqueCout(g.coefficientsRues(villeAvance), g.tempsTraitement, aRamasser);
+        }
+
+        double remise(int noeud) {
+            if (remise == null || (sansRemise != null && sansRemise[noeud])) {
+                return 0.0;
+            }
+            return remise[noeud];
+        }
+
+        /**
+         * Vrai si les deux politiques donnent le même coût à chaque arc
+         */
+        boolean memeCout(PolitiqueCout autre) {
+            return remise == autre.remise && sansRemise == autre.sansRemise &&
+                    Arrays.equals(coefRues, autre.coefRues);
+        }
+    }
+
+    /**
+     * Cible d'une recherche : ensemble de noeuds, ou départ de l'arc arcSuivant
+     */
+    static class Cible {
+        private static final int[] AUCUN = new int[0];
+
+        final int[] noeuds;       // vide si la cible est arcSuivant (virages implicites)
+        final int arcSuivant;
+
+        private Cible(int[] noeuds, int arcSuivant) {
+            this.noeuds = noeuds;
+            this.arcSuivant = arcSuivant;
+        }
+
+        static Cible noeud(GrapheCompile g, int noeud) {
+            return new Cible(new int[]{noeud}, -1);
+        }
+
+        /**
+         * N'importe lequel des noeuds compilés donnés
+         */
+        static Cible noeuds(int[] noeuds) {
+            return new Cible(noeuds, -1);
+        }
+
+        /**
+         * N'importe quelle version d'un point (getToutesVersions)
+         */
+        static Cible versions(GrapheCompile g, List<Noeud> versions) {
+            int[] indices = new int[versions.size()];
+            int nb = 0;
+            for (Noeud n : versions) {
+                int i = g.indice(n);
+                if (i >= 0) indices[nb++] = i;
+            }
+            return new Cible(Arrays.copyOf(indices, nb), -1);
+        }
+
+        /**
+         * Départ de l'arc compilé arc ; en virages implicites, le virage vers cet arc est compris
+         */
+        static Cible departArc(GrapheCompile g, int arc) {
+            return g.viragesImplicites ? new Cible(AUCUN, arc) : noeud(g, g.sources[arc]);
+        }
+
+        /**
+         * Départ de n'importe quel arc de rue praticable dont l'arc canonique est dans
+         * arcsARamasser sans être dans arcsRamasses
+         */
+        static Cible departsArcsNonRamasses(GrapheCompile g, BitSet arcsARamasser, BitSet arcsRamasses,
+                                            double[] coefRues) {
+            int[] departs = new int[16];
+            int nb = 0;
+            for (int a = 0; a < g.nbArcs; a++) {
+                if (g.arcs[a].estChangementRue() || !g.estPraticable(a, coefRues)) continue;
+                int id = g.arcs[a].getArcCanonique().getId();
+                if (arcsARamasser.get(id) && !arcsRamasses.get(id)) {
+                    if (nb == departs.length) departs = Arrays.copyOf(departs, nb * 2);
+                    departs[nb++] = g.sources[a];
+                }
+            }
+            return new Cible(Arrays.copyOf(departs, nb), -1);
+        }
+
+        /**
+         * Noeuds à atteindre (départ de arcSuivant en virages implicites)
+         */
+        int[] noeudsVises(GrapheCompile g) {
+            return arcSuivant >= 0 ? new int[]{g.sources[arcSuivant]} : noeuds;
+        }
+
+        void marquer(EspaceRecherche espace) {
+            for (int n : noeuds) {
+                espace.marquerCible(n);
+            }
+        }
+    }
+
+    /**
+     * Minorant A* du coût restant jusqu'à la cible la plus proche, maximum de deux minorants :
+     * - la distance à vol d'oiseau (A* activé), multipliée par le plus petit rapport coût / longueur
+     *   des arcs du graphe compilé ;
+     * - le minorant des repères ALT du graphe compilé, s'il en a, limité aux repères actifs
+     *   de la requête.
+     * Tous deux sont multipliés par le plus petit coefficient de retard des rues ouvertes.
+     * Chaque estimation est gardée dans l'espace de travail le temps de la recherche.
+     * Le minorant est cohérent (coût d'un arc >= écart des estimations de ses extrémités), donc
+     * la première cible extraite de la file reste la plus proche.
+     */
+    static final class Heuristique {
+        private static final int NB_CIBLES_MAX = 16;
+        private static final int NB_REPERES_ACTIFS = 4;
+        static final Heuristique NULLE = new Heuristique(0.0, 0.0, null, null, new int[0], false);
+
+        private final double facteurEuclidien;
+        private final double facteurReperes;
+        private final ReperesALT reperes;
+        private final int[] actifs;
+        private final int[] cibles;
+        private final boolean depuisCibles;  // minore d(cible, noeud) au lieu de d(noeud, cible)
+
+        private Heuristique(double facteurEuclidien, double facteurReperes, ReperesALT reperes, int[] actifs,
+                            int[] cibles, boolean depuisCibles) {
+            this.facteurEuclidien = facteurEuclidien;
+            this.facteurReperes = facteurReperes;
+            this.reperes = reperes;
+            this.actifs = actifs;
+            this.cibles = cibles;
+            this.depuisCibles = depuisCibles;
+        }
+
+        /**
+         * Heuristique d'une recherche, NULLE (Dijkstra) sans A* ni repères, sans minorant sûr
+         * ou avec trop de cibles pour qu'elle soit rentable
+         */
+        static Heuristique pour(GrapheCompile g, int source, Cible cible, PolitiqueCout politique) {
+            int[] cibles = cible.noeudsVises(g);
+            return creer(g, cibles, politique, false, source, cibles);
+        }
+
+        /**
+         * Minorant du coût depuis source, pour la recherche arrière d'une recherche bidirectionnelle
+         */
+        static Heuristique depuis(GrapheCompile g, int source, Cible cible, PolitiqueCout politique) {
+            return creer(g, new int[]{source}, politique, true, source, cible.noeudsVises(g));
+        }
+
+        private static Heuristique creer(GrapheCompile g, int[] cibles, PolitiqueCout politique,
+                                         boolean depuisCibles, int sourceRequete, int[] ciblesRequete) {
+            if (!g.rechercheAEtoile && g.reperes == null) {
+                return NULLE;
+            }
+            if (cibles.length == 0 || cibles.length > NB_CIBLES_MAX) {
+                return NULLE;
+            }
+
+            // duree * coef - remise >= coef * (duree - temps de traitement) si coef >= 1 ;
+            // en dessous de 1, seul le coût sans remise se minore simplement
+            double coefMin = politique.coefMin;
+            if (coefMin == Double.POSITIVE_INFINITY || (coefMin < 1.0 && politique.remise != null)) {
+                return NULLE;
+            }
+            double facteurEuclidien = 0.0;
+            if (g.rechercheAEtoile) {
+                facteurEuclidien = coefMin * (coefMin >= 1.0 ? g.dureeParUniteNette : g.dureeParUniteBrute);
+            }
+            double facteurReperes = g.reperes != null ? coefMin : 0.0;
+            if (facteurEuclidien <= 0.0 && facteurReperes <= 0.0) {
+                return NULLE;
+            }
+            int[] actifs = g.reperes != null ?
+                    g.reperes.actifs(sourceRequete, ciblesRequete, NB_REPERES_ACTIFS) : null;
+            return new Heuristique(facteurEuclidien, facteurReperes, g.reperes, actifs, cibles, depuisCibles);
+        }
+
+        boolean estNulle() {
+            return facteurEuclidien == 0.0 && facteurReperes == 0.0;
+        }
+
+        /**
+         * Estimation pour noeud, calculée une fois par recherche
+         */
+        double estimer(GrapheCompile g, int noeud, EspaceRecherche espace) {
+            if (estNulle()) {
+                return 0.0;
+            }
+            double estimation = espace.estimation(noeud);
+            if (Double.isNaN(estimation)) {
+                estimation = calculer(g, noeud);
+                espace.retenirEstimation(noeud, estimation);
+            }
+            return estimation;
+        }
+
+        double calculer(GrapheCompile g, int noeud) {
+            if (estNulle()) {
+                return 0.0;
+            }
+            double min = Double.POSITIVE_INFINITY;
+            for (int c : cibles) {
+                double estimation = facteurEuclidien * g.distance(noeud, c);
+                if (facteurReperes > 0.0) {
+                    double alt = depuisCibles ? reperes.minorant(c, noeud, actifs) : reperes.minorant(noeud, c, actifs);
+                    estimation = Math.max(estimation, facteurReperes * alt);
+                }
+                min = Math.min(min, estimation);
+            }
+            return min;
+        }
+    }
+
+    /**
+     * Plus court chemin depuis source (atteint par arcEntree en virages implicites, -1 sinon),
+     * dans l'espace de travail du thread courant
+     *
+     * @return le chemin vers la première cible atteinte, ou null si aucune n'est accessible
+     */
+    static Chemin chercher(GrapheCompile g, int source, int arcEntree, Cible cible, PolitiqueCout politique) {
+        return chercher(g, source, arcEntree, cible, politique, EspaceRecherche.duThread());
+    }
+
+    static Chemin chercher(GrapheCompile g, int source, int arcEntree, Cible cible, PolitiqueCout politique,
+                           EspaceRecherche espace) {
+        if (g.viragesImplicites) {
+            return RechercheVirages.chercher(g, source, arcEntree, cible, politique, espace);
+        }
+
+        double[] coefRues = politique.coefRues;
+        Heuristique heuristique = Heuristique.pour(g, source, cible, politique);
+        espace.commencer(g.nbNoeuds);
+        try {
+            cible.marquer(espace);
+            espace.ameliorer(source, 0.0, -1);
+
+            while (!espace.fileVide()) {
+                int courant = espace.extraireMin();
+                double distance = espace.distance(courant);
+
+                if (espace.estCible(courant)) {
+                    return new Chemin(g.reconstruireChemin(source, courant, espace), distance, courant,
+                            courant == source ? arcEntree : espace.precedent(courant), espace.getNbTraites());
+                }
+
+                for (int a = g.offsets[courant]; a < g.offsets[courant + 1]; a++) {
+                    if (!g.estPraticable(a, coefRues)) continue;
+
+                    int voisin = g.cibles[a];
+                    if (espace.estTraite(voisin)) continue;
+
+                    double nouvelleDistance = distance + (g.duree(a, coefRues) - politique.remise(voisin));
+                    if (nouvelleDistance < espace.distance(voisin)) {
+                        espace.ameliorer(voisin, nouvelleDistance,
+                                nouvelleDistance + heuristique.estimer(g, voisin, espace), a);
+                    }
+                }
+            }
+            return null;
+        } finally {
+            espace.terminer();
+        }
+    }
+
+    /**
+     * Recherche de plus proche voisin : un seul Dijkstra depuis source vers toutes les cibles à la fois
+     * (sans heuristique, les cibles étant traitées par distance croissante).
+     * Le chemin rendu vers chaque cible est celui que chercher() rendrait pour elle seule en Dijkstra.
+     *
+     * @param toutes faux pour s'arrêter dès la plus proche traitée (en gardant les cibles à égalité
+     *               de distance), vrai pour continuer jusqu'à la dernière cible accessible
+     * @return un chemin par cible traitée, dans l'ordre de traitement (vide si aucune n'est accessible)
+     */
+    static List<Chemin> chercherPlusProches(GrapheCompile g, int source, int arcEntree, Cible cible,
+                                            PolitiqueCout politique, boolean toutes) {
+        return chercherPlusProches(g, new int[]{source}, arcEntree, cible, politique,
+                toutes ? Integer.MAX_VALUE : 1, EspaceRecherche.duThread(), true);
+    }
+
+    /**
+     * @param sources  noeuds de départ, tous à distance nulle (ex. toutes les versions d'un point) ;
+     *                 arcEntree ne sert qu'avec une seule source
+     * @param nbCibles nombre de cibles après lequel s'arrêter (en gardant celles à égalité de distance
+     *                 avec la dernière)
+     * @param avecArcs faux pour ne pas reconstruire les arcs des chemins (arcs null) : les prédécesseurs
+     *                 restent lisibles dans espace jusqu'à sa prochaine recherche
+     */
+    static List<Chemin> chercherPlusProches(GrapheCompile g, int[] sources, int arcEntree, Cible cible,
+                                            PolitiqueCout politique, int nbCibles, EspaceRecherche espace,
+                                            boolean avecArcs) {
+        if (g.viragesImplicites) {
+            return RechercheVirages.chercherPlusProches(g, sources, arcEntree, cible, politique, nbCibles, espace,
+                    avecArcs);
+        }
+
+        double[] coefRues = politique.coefRues;
+        List<Chemin> chemins = new ArrayList<>();
+        espace.commencer(g.nbNoeuds);
+        try {
+            int restantes = 0;
+            for (int n : cible.noeuds) {
+                if (!espace.estCible(n)) {
+                    espace.marquerCible(n);
+                    restantes++;
+                }
+            }
+            for (int source : sources) {
+                espace.ameliorer(source, 0.0, -1);
+            }
+
+            double limite = Double.POSITIVE_INFINITY;
+            while (restantes > 0 && !espace.fileVide() && espace.cleMin() <= limite) {
+                int courant = espace.extraireMin();
+                double distance = espace.distance(courant);
+
+                if (espace.estCible(courant)) {
+                    // Les sources n'ont pas de prédécesseur : le chemin remonte jusqu'à l'une d'elles
+                    int precedent = espace.precedent(courant);
+                    chemins.add(new Chemin(avecArcs ? g.reconstruireChemin(-1, courant, espace) : null,
+                            distance, courant, precedent < 0 ? arcEntree : precedent, espace.getNbTraites()));
+                    restantes--;
+                    if (chemins.size() >= nbCibles) limite = distance;
+                }
+
+                for (int a = g.offsets[courant]; a < g.offsets[courant + 1]; a++) {
+                    if (!g.estPraticable(a, coefRues)) continue;
+
+                    int voisin = g.cibles[a];
+                    if (espace.estTraite(voisin)) continue;
+
+                    double nouvelleDistance = distance + (g.duree(a, coefRues) - politique.remise(voisin));
+                    if (nouvelleDistance < espace.distance(voisin)) {
+                        espace.ameliorer(voisin, nouvelleDistance, a);
+                    }
+                }
+            }
+            return chemins;
+        } finally {
+            espace.terminer();
+        }
+    }
+
+    /**
+     * Plus court chemin de source vers des noeuds cibles, par deux recherches simultanées :
+     * l'une en avant depuis source, l'autre en arrière depuis toutes les cibles sur l'adjacence
+     * inverse. On avance à chaque tour celle dont la clé minimale est la plus petite, et on retient
+     * la meilleure jonction (arc reliant un noeud atteint en avant à un noeud atteint en arrière),
+     * et l'on s'arrête quand la somme des deux clés minimales atteint cette jonction.
+     * En A*, les clés sont les distances plus le potentiel moyen p(v) = (h_cibles(v) - h_source(v)) / 2
+     * en avant, -p(v) en arrière : les coûts réduits restent positifs dans les deux sens, ce qui
+     * garde ce critère d'arrêt.
+     * En virages implicites, ou vers le départ d'un arc, la recherche reste unidirectionnelle.
+     * Si le graphe porte une hiérarchie de contraction construite pour ce coût, la requête y est faite.
+     * Sinon, si le graphe porte une surcouche CRP, la requête y est faite (après personnalisation
+     * de la surcouche pour ce coût si besoin).
+     *
+     * @return le chemin vers la cible la plus proche, ou null si aucune n'est accessible
+     */
+    static Chemin chercherBidirectionnel(GrapheCompile g, int source, Cible cible, PolitiqueCout politique) {
+        if (g.viragesImplicites || cible.arcSuivant >= 0) {
+            return chercher(g, source, -1, cible, politique);
+        }
+        if (g.hierarchie != null && g.hierarchie.accepte(politique)) {
+            return g.hierarchie.chercher(source, cible.noeuds);
+        }
+        if (g.surcouche != null) {
+            return g.surcouche.chercher(source, cible.noeuds, politique);
+        }
+        return chercherBidirectionnel(g, source, cible, politique,
+                EspaceRecherche.duThread(), EspaceRecherche.duThreadInverse());
+    }
+
+    static Chemin chercherBidirectionnel(GrapheCompile g, int source, Cible cible, PolitiqueCout politique,
+                                         EspaceRecherche avant, EspaceRecherche arriere) {
+        for (int t : cible.noeuds) {
+            if (t == source) {
+                return new Chemin(new ArrayList<>(), 0.0, source, -1, 0);
+            }
+        }
+
+        double[] coefRues = politique.coefRues;
+        Heuristique versCibles = Heuristique.pour(g, source, cible, politique);
+        Heuristique versSource = Heuristique.depuis(g, source, cible, politique);
+
+        avant.commencer(g.nbNoeuds);
+        arriere.commencer(g.nbNoeuds);
+        try {
+            avant.ameliorer(source, 0.0, potentiel(g, versCibles, versSource, source, avant), -1);
+            for (int t : cible.noeuds) {
+                arriere.ameliorer(t, 0.0, -potentiel(g, versCibles, versSource, t, arriere), -1);
+            }
+
+            double meilleur = Double.POSITIVE_INFINITY;
+            int arcJonction = -1;
+
+            while (!avant.fileVide() && !arriere.fileVide()) {
+                double cleAvant = avant.cleMin();
+                double cleArriere = arriere.cleMin();
+                if (cleAvant + cleArriere >= meilleur) {
+                    break;
+                }
+
+                if (cleAvant <= cleArriere) {
+                    int u = avant.extraireMin();
+                    double du = avant.distance(u);
+                    for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                        if (!g.estPraticable(a, coefRues)) continue;
+
+                        int v = g.cibles[a];
+                        double d = du + (g.duree(a, coefRues) - politique.remise(v));
+                        if (d + arriere.distance(v) < meilleur) {
+                            meilleur = d + arriere.distance(v);
+                            arcJonction = a;
+                        }
+                        // Un noeud déjà traité par l'autre recherche ne sert qu'à la jonction
+                        if (!avant.estTraite(v) && !arriere.estTraite(v) && d < avant.distance(v)) {
+                            avant.ameliorer(v, d, d + potentiel(g, versCibles, versSource, v, avant), a);
+                        }
+                    }
+                } else {
+                    int v = arriere.extraireMin();
+                    double dv = arriere.distance(v);
+                    for (int k = g.offsetsEntrants[v]; k < g.offsetsEntrants[v + 1]; k++) {
+                        int a = g.arcsEntrants[k];
+                        if (!g.estPraticable(a, coefRues)) continue;
+
+                        int u = g.sources[a];
+                        double d = dv + (g.duree(a, coefRues) - politique.remise(v));
+                        if (avant.distance(u) + d < meilleur) {
+                            meilleur = avant.distance(u) + d;
+                            arcJonction = a;
+                        }
+                        if (!arriere.estTraite(u) && !avant.estTraite(u) && d < arriere.distance(u)) {
+                            arriere.ameliorer(u, d, d - potentiel(g, versCibles, versSource, u, arriere), a);
+                        }
+                    }
+                }
+            }
+            if (arcJonction < 0) {
+                return null;
+            }
+
+            // Partie avant jusqu'à l'arc de jonction, puis arcs suivants de la recherche arrière
+            List<Arc> arcs = g.reconstruireChemin(source, g.sources[arcJonction], avant);
+            arcs.add(g.arcs[arcJonction]);
+            int dernierArc = arcJonction;
+            for (int a = arriere.precedent(g.cibles[arcJonction]); a >= 0; a = arriere.precedent(g.cibles[a])) {
+                arcs.add(g.arcs[a]);
+                dernierArc = a;
+            }
+            return new Chemin(arcs, meilleur, g.cibles[dernierArc], dernierArc,
+                    avant.getNbTraites() + arriere.getNbTraites());
+        } finally {
+            arriere.terminer();
+            avant.terminer();
+        }
+    }
+
+    /**
+     * Potentiel moyen d'un noeud, gardé dans l'espace de la direction qui l'utilise
+     */
+    private static double potentiel(GrapheCompile g, Heuristique versCibles, Heuristique versSource, int noeud,
+                                    EspaceRecherche espace) {
+        if (versCibles.estNulle() && versSource.estNulle()) {
+            return 0.0;
+        }
+        double p = espace.estimation(noeud);
+        if (Double.isNaN(p)) {
+            p = (versCibles.calculer(g, noeud) - versSource.calculer(g, noeud)) / 2.0;
+            espace.retenirEstimation(noeud, p);
+        }
+        return p;
+    }
+}
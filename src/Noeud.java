@@ -1,18 +1,22 @@
 import java.util.*;
 
 abstract class Noeud {
+    protected int id; // Identifiant dense attribué par la TableSymboles du graphe
     protected String nom;
     protected List<Arc> arcsSortants;
     protected double x; // Coordonnée X
     protected double y; // Coordonnée Y
 
     public Noeud(String nom, double x, double y) {
+        this.id = -1;
         this.nom = nom;
         this.x = x;
         this.y = y;
         this.arcsSortants = new ArrayList<>();
     }
 
+    public int getId() { return id; }
+    void setId(int id) { this.id = id; }
     public String getNom() { return nom; }
     public double getX() { return x; }
     public double getY() { return y; }
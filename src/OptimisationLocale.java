@@ -0,0 +1,337 @@
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Amélioration locale d'une tournée sur une MatriceDistances : l'ordre de visite donné (le point 0,
+ * l'entrepôt, en tête et fixe) est amélioré par des mouvements 2-opt (inversion d'une portion),
+ * Or-opt (déplacement d'une suite de 2 ou 3 points, retournée ou non) et déplacement d'un point,
+ * jusqu'à ce qu'aucun n'améliore plus la tournée.
+ *
+ * Seuls les mouvements qui relient un point à l'un de ses nbCandidats plus proches voisins sont
+ * essayés, et un point dont aucun mouvement n'a abouti n'est repris que si l'une de ses arêtes
+ * change (bits « don't look ») : une passe coûte O(nbCandidats * n) évaluations. Les distances
+ * pouvant être asymétriques (sens uniques), le coût d'une portion dans chaque sens est tenu par
+ * des sommes préfixes, ce qui garde l'évaluation d'un 2-opt en O(1) ; appliquer un mouvement coûte
+ * O(n). Une distance infinie (point inaccessible, ou distance non rangée en stockage VOISINS)
+ * compte pour MatriceDistances.INACCESSIBLE : la recherche cherche d'abord à s'en débarrasser.
+ */
+class OptimisationLocale {
+
+    private static final int LONGUEUR_MAX_SUITE = 3;
+
+    private final MatriceDistances matrice;
+    private final int n;
+    private int[] tournee;                  // points de la matrice dans l'ordre de visite, l'entrepôt en 0
+    private final int[] positions;          // position de chaque point dans la tournée (-1 s'il n'y est pas)
+    private final double[] avant;           // avant[p] : coût de tournee[0..p] dans le sens de la tournée
+    private final double[] arriere;         // arriere[p] : même portion parcourue à l'envers
+    private final int[][] candidats;        // plus proches voisins de chaque point de la tournée
+
+    private final PointsActifs actifs;
+
+    private double coutInitial;
+    private double coutFinal;
+    private int inaccessiblesInitiaux;
+    private int inaccessiblesFinaux;
+    private int nbDeuxOpt;
+    private int nbOrOpt;
+    private int nbDeplacements;
+    private long dureeCalcul;
+
+    private OptimisationLocale(MatriceDistances matrice, int[] ordre, int nbCandidats, int[][] candidats) {
+        this.matrice = matrice;
+        this.n = ordre.length;
+        this.tournee = ordre.clone();
+        this.positions = new int[matrice.taille()];
+        this.avant = new double[n + 1];
+        this.arriere = new double[n + 1];
+        this.candidats = candidats != null ? candidats : new int[matrice.taille()][];
+        this.actifs = new PointsActifs(matrice.taille());
+
+        Arrays.fill(positions, -1);
+        for (int p = 0; p < n; p++) {
+            if (positions[tournee[p]] >= 0) {
+                throw new IllegalArgumentException("Point visité deux fois : " + tournee[p]);
+            }
+            positions[tournee[p]] = p;
+        }
+        if (candidats == null) {
+            for (int point : tournee) {
+                this.candidats[point] = matrice.plusProches(point, nbCandidats, true, j -> positions[j] >= 0);
+            }
+        }
+    }
+
+    /**
+     * Améliore la tournée ordre (indices de la matrice, sans retour final à l'entrepôt, ordre[0] = 0)
+     *
+     * @param nbCandidats plus proches voisins essayés pour chaque point
+     */
+    static OptimisationLocale optimiser(MatriceDistances matrice, int[] ordre, int nbCandidats) {
+        if (nbCandidats <= 0) {
+            throw new IllegalArgumentException("Nombre de candidats invalide : " + nbCandidats);
+        }
+        verifierDepart(ordre);
+        OptimisationLocale optimisation = new OptimisationLocale(matrice, ordre, nbCandidats, null);
+        optimisation.ameliorer(null, () -> false);
+        return optimisation;
+    }
+
+    /**
+     * Variante pour les optimisations répétées d'une tournée de tous les points de la matrice (voir
+     * SolveurAnytime) : les candidats sont ceux calculés une fois pour toutes par candidats(), seuls
+     * les points aReprendre sont d'abord examinés (tous si null), et la recherche s'arrête dès que
+     * arret le demande, la tournée rendue étant la meilleure atteinte jusque-là
+     */
+    static OptimisationLocale optimiser(MatriceDistances matrice, int[] ordre, int[][] candidats,
+                                        int[] aReprendre, BooleanSupplier arret) {
+        verifierDepart(ordre);
+        if (ordre.length != matrice.taille()) {
+            throw new IllegalArgumentException("La tournée doit visiter les " + matrice.taille() + " points de la matrice");
+        }
+        OptimisationLocale optimisation = new OptimisationLocale(matrice, ordre, 0, candidats);
+        optimisation.ameliorer(aReprendre, arret);
+        return optimisation;
+    }
+
+    /**
+     * Les nbCandidats plus proches voisins de chaque point de la matrice
+     */
+    static int[][] candidats(MatriceDistances matrice, int nbCandidats) {
+        if (nbCandidats <= 0) {
+            throw new IllegalArgumentException("Nombre de candidats invalide : " + nbCandidats);
+        }
+        int[] tous = new int[matrice.taille()];
+        for (int i = 0; i < tous.length; i++) {
+            tous[i] = i;
+        }
+        return new OptimisationLocale(matrice, tous, nbCandidats, null).candidats;
+    }
+
+    private static void verifierDepart(int[] ordre) {
+        if (ordre.length == 0 || ordre[0] != 0) {
+            throw new IllegalArgumentException("La tournée doit partir de l'entrepôt (point 0)");
+        }
+    }
+
+    private void ameliorer(int[] aReprendre, BooleanSupplier arret) {
+        long debut = System.nanoTime();
+        mettreAJour();
+        coutInitial = coutConnu();
+        inaccessiblesInitiaux = nbInaccessibles();
+
+        for (int point : aReprendre != null ? aReprendre : tournee) {
+            actifs.activer(point);
+        }
+        while (!actifs.estVide() && !arret.getAsBoolean()) {
+            int point = actifs.prendre();
+            if (!deuxOpt(point)) {
+                deplacerSuite(point);
+            }
+        }
+
+        coutFinal = coutConnu();
+        inaccessiblesFinaux = nbInaccessibles();
+        dureeCalcul = (System.nanoTime() - debut) / 1_000_000;
+    }
+
+    // ============ MOUVEMENTS ============
+
+    /**
+     * 2-opt reliant point à l'un de ses candidats, par leurs suivants ou par leurs précédents
+     */
+    private boolean deuxOpt(int point) {
+        int p = positions[point];
+        for (int candidat : candidats[point]) {
+            int debut = Math.min(p, positions[candidat]);
+            int fin = Math.max(p, positions[candidat]);
+            if (essayerDeuxOpt(debut, fin) || essayerDeuxOpt(debut - 1, fin - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remplace les arêtes (t[i], t[i+1]) et (t[j], t[j+1]) par (t[i], t[j]) et (t[i+1], t[j+1]),
+     * en inversant t[i+1..j], si la tournée y gagne
+     */
+    private boolean essayerDeuxOpt(int i, int j) {
+        if (i < 0 || j - i < 2) {
+            return false;
+        }
+        int a = tournee[i], b = tournee[i + 1], c = tournee[j], d = tournee[suivant(j)];
+        double delta = matrice.cout(a, c) + matrice.cout(b, d) - matrice.cout(a, b) - matrice.cout(c, d)
+                + (arriere[j] - arriere[i + 1]) - (avant[j] - avant[i + 1]);
+        if (delta >= -MatriceDistances.EPSILON) {
+            return false;
+        }
+
+        for (int g = i + 1, h = j; g < h; g++, h--) {
+            int echange = tournee[g];
+            tournee[g] = tournee[h];
+            tournee[h] = echange;
+        }
+        mettreAJour();
+        nbDeuxOpt++;
+        actifs.activer(a, b, c, d);
+        return true;
+    }
+
+    /**
+     * Déplace une suite d'au plus LONGUEUR_MAX_SUITE points commençant ou finissant par point
+     * à côté d'un candidat de l'une de ses extrémités
+     */
+    private boolean deplacerSuite(int point) {
+        int p = positions[point];
+        for (int longueur = 1; longueur <= LONGUEUR_MAX_SUITE; longueur++) {
+            if (essayerDeplacement(p, p + longueur - 1)
+                    || (longueur > 1 && essayerDeplacement(p - longueur + 1, p))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean essayerDeplacement(int debut, int fin) {
+        if (debut < 1 || fin > n - 1 || n - (fin - debut + 1) < 2) {
+            return false;
+        }
+        int premier = tournee[debut], dernier = tournee[fin];
+        int precedent = tournee[debut - 1], suivant = tournee[suivant(fin)];
+        double retrait = matrice.cout(precedent, premier) + matrice.cout(dernier, suivant)
+                - matrice.cout(precedent, suivant);
+        double interne = avant[fin] - avant[debut];
+        double interneInverse = arriere[fin] - arriere[debut];
+
+        for (int extremite : new int[]{premier, dernier}) {
+            for (int candidat : candidats[extremite]) {
+                int pc = positions[candidat];
+                if (pc >= debut && pc <= fin) continue;
+
+                // Insertion après le candidat ou avant lui, une fois la suite retirée
+                for (int px : new int[]{pc, precedentHors(pc, debut, fin)}) {
+                    int x = tournee[px], y = tournee[suivantHors(px, debut, fin)];
+                    if (x == precedent) continue;   // même place
+
+                    double insertion = matrice.cout(x, premier) + interne + matrice.cout(dernier, y)
+                            - matrice.cout(x, y);
+                    double insertionInverse = matrice.cout(x, dernier) + interneInverse + matrice.cout(premier, y)
+                            - matrice.cout(x, y);
+                    boolean inverse = insertionInverse < insertion;
+                    double delta = Math.min(insertion, insertionInverse) - interne - retrait;
+                    if (delta < -MatriceDistances.EPSILON) {
+                        deplacer(debut, fin, px, inverse);
+                        if (debut == fin) nbDeplacements++;
+                        else nbOrOpt++;
+                        actifs.activer(precedent, suivant, x, y, premier, dernier);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retire tournee[debut..fin] et l'insère (retournée si inverse) après la position px
+     */
+    private void deplacer(int debut, int fin, int px, boolean inverse) {
+        int[] nouvelle = new int[n];
+        int r = 0;
+        for (int p = 0; p < n; p++) {
+            if (p >= debut && p <= fin) continue;
+            nouvelle[r++] = tournee[p];
+            if (p == px) {
+                for (int s = 0; s <= fin - debut; s++) {
+                    nouvelle[r++] = tournee[inverse ? fin - s : debut + s];
+                }
+            }
+        }
+        tournee = nouvelle;
+        mettreAJour();
+    }
+
+    // ============ OUTILS ============
+
+    private int suivant(int p) {
+        return p + 1 == n ? 0 : p + 1;
+    }
+
+    private int precedentHors(int p, int debut, int fin) {
+        int q = p == 0 ? n - 1 : p - 1;
+        return q >= debut && q <= fin ? debut - 1 : q;
+    }
+
+    private int suivantHors(int p, int debut, int fin) {
+        int q = suivant(p);
+        return q >= debut && q <= fin ? suivant(fin) : q;
+    }
+
+    /**
+     * Positions et sommes préfixes de la tournée, après chaque mouvement
+     */
+    private void mettreAJour() {
+        for (int p = 0; p < n; p++) {
+            int i = tournee[p], j = tournee[suivant(p)];
+            positions[i] = p;
+            avant[p + 1] = avant[p] + matrice.cout(i, j);
+            arriere[p + 1] = arriere[p] + matrice.cout(j, i);
+        }
+    }
+
+    private double coutConnu() {
+        double total = 0.0;
+        for (int p = 0; p < n; p++) {
+            double distance = matrice.distance(tournee[p], tournee[suivant(p)]);
+            if (distance != Double.POSITIVE_INFINITY) total += distance;
+        }
+        return total;
+    }
+
+    private int nbInaccessibles() {
+        int nb = 0;
+        for (int p = 0; p < n; p++) {
+            if (matrice.distance(tournee[p], tournee[suivant(p)]) == Double.POSITIVE_INFINITY) nb++;
+        }
+        return nb;
+    }
+
+    // ============ RÉSULTAT ============
+
+    /**
+     * Tournée améliorée (indices de la matrice, l'entrepôt en tête, sans retour final)
+     */
+    int[] getOrdre() {
+        return tournee.clone();
+    }
+
+    double getCoutInitial() {
+        return coutInitial;
+    }
+
+    double getCoutFinal() {
+        return coutFinal;
+    }
+
+    double getGain() {
+        return coutInitial - coutFinal;
+    }
+
+    long getDureeCalcul() {
+        return dureeCalcul;
+    }
+
+    @Override
+    public String toString() {
+        String resultat = "Optimisation locale : " + String.format("%.1f", coutInitial) + " → " +
+                String.format("%.1f", coutFinal) + " min (gain " + String.format("%.1f", getGain()) + " min, " +
+                String.format("%.1f", coutInitial > 0 ? 100.0 * getGain() / coutInitial : 0.0) + " %) en " +
+                dureeCalcul + " ms : " + nbDeuxOpt + " 2-opt, " + nbOrOpt + " Or-opt, " +
+                nbDeplacements + " déplacements";
+        if (inaccessiblesInitiaux > 0 || inaccessiblesFinaux > 0) {
+            resultat += ", trajets de distance inconnue : " + inaccessiblesInitiaux + " → " + inaccessiblesFinaux;
+        }
+        return resultat;
+    }
+}
@@ -150,6 +150,10 @@ class OrientationRue {
         return config.ramassageDeuxCotes;
     }
 
+    Collection<ConfigurationRue> getConfigurations() {
+        return Collections.unmodifiableCollection(configurations.values());
+    }
+
     public ConfigurationRue getConfiguration(String nomRue) {
         return configurations.get(nomRue);
     }
@@ -211,21 +215,26 @@ class OrientationRue {
 
     public int compterArcsARamasser(GrapheVille ville) {
         int count = 0;
-        Set<String> arcsVus = new HashSet<>();
+        BitSet arcsVus = new BitSet(ville.getSymboles().getNbArcs());
 
         for (Noeud noeud : ville.getNoeuds()) {
             for (Arc arc : noeud.getArcsSortants()) {
                 if (arc.estChangementRue()) continue;
 
-                String cleArc = arc.getRue() + ":" + arc.getDepart().getNom() + "->" + arc.getArrivee().getNom();
+                int idArc = arc.getArcCanonique().getId();
 
-                if (arcsVus.contains(cleArc)) continue;
-                arcsVus.add(cleArc);
+                if (arcsVus.get(idArc)) continue;
+                arcsVus.set(idArc);
 
                 if (hypothèse == HypothèseOrientation.HO1) {
                     if (ramassageDeuxCotes(arc.getRue())) {
-                        String cleInverse = arc.getRue() + ":" + arc.getArrivee().getNom() + "->" + arc.getDepart().getNom();
-                        arcsVus.add(cleInverse);
+                        // Arc inverse sur la même rue : ramassé en même temps
+                        for (Arc inverse : arc.getArrivee().getArcsSortants()) {
+                            if (inverse.getIdRue() == arc.getIdRue() && inverse.getArrivee() == arc.getDepart()) {
+                                arcsVus.set(inverse.getArcCanonique().getId());
+                                break;
+                            }
+                        }
                     }
                 }
 
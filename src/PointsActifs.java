@@ -0,0 +1,37 @@
+import java.util.*;
+
+/**
+ * Points à reprendre d'une recherche locale de tournée (bits « don't look ») : un point n'est
+ * repris que si l'une de ses arêtes a changé depuis son dernier examen, et n'est en file qu'une fois
+ */
+class PointsActifs {
+
+    private final Deque<Integer> file = new ArrayDeque<>();
+    private final boolean[] enFile;
+
+    PointsActifs(int nbPoints) {
+        this.enFile = new boolean[nbPoints];
+    }
+
+    void activer(int... points) {
+        for (int point : points) {
+            if (!enFile[point]) {
+                enFile[point] = true;
+                file.add(point);
+            }
+        }
+    }
+
+    boolean estVide() {
+        return file.isEmpty();
+    }
+
+    /**
+     * Retire le plus ancien point en file
+     */
+    int prendre() {
+        int point = file.poll();
+        enFile[point] = false;
+        return point;
+    }
+}
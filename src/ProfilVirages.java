@@ -0,0 +1,55 @@
+/**
+ * Coûts de virage d'un véhicule selon la direction prise à un carrefour
+ * (classes de DirectionCalculator), en minutes.
+ * Ces coûts s'ajoutent au temps de changement de rue et suivent le même coefficient horaire.
+ * Ils ne sont appliqués qu'en mode virages implicites, où la recherche connaît l'arc d'arrivée.
+ */
+class ProfilVirages {
+
+    // Aucun coût ni interdiction : comportement historique
+    static final ProfilVirages STANDARD = new ProfilVirages(0.0, 0.0, 0.0, 0.0, false);
+
+    private final double[] coutParDirection;
+    private final boolean demiTourInterdit;
+
+    public ProfilVirages(double toutDroit, double gauche, double droite, double demiTour, boolean demiTourInterdit) {
+        if (toutDroit < 0 || gauche < 0 || droite < 0 || demiTour < 0) {
+            throw new IllegalArgumentException("Les coûts de virage doivent être positifs");
+        }
+        this.coutParDirection = new double[]{toutDroit, gauche, droite, demiTour};
+        this.demiTourInterdit = demiTourInterdit;
+    }
+
+    /**
+     * Camion benne : tourner à gauche coûte plus que tourner à droite, demi-tour interdit
+     * (sauf en impasse)
+     */
+    static ProfilVirages camionBenne() {
+        return new ProfilVirages(0.0, 0.5, 0.2, 0.0, true);
+    }
+
+    public double getCout(int direction) {
+        return coutParDirection[direction];
+    }
+
+    public boolean estDemiTourInterdit() {
+        return demiTourInterdit;
+    }
+
+    /**
+     * Vrai si le profil ne change rien aux coûts (pas de table de virages à construire)
+     */
+    public boolean estNeutre() {
+        for (double cout : coutParDirection) {
+            if (cout != 0.0) return false;
+        }
+        return !demiTourInterdit;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Virages : tout droit %.1f, gauche %.1f, droite %.1f, demi-tour %s",
+                coutParDirection[0], coutParDirection[1], coutParDirection[2],
+                demiTourInterdit ? "interdit" : String.format("%.1f", coutParDirection[3]));
+    }
+}
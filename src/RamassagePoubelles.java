@@ -2,70 +2,25 @@ import java.io.File;
 import java.util.*;
 
 public class RamassagePoubelles {
-    public static void main(String[] args) {
-        // MODIFICATION : Utiliser GrapheVilleAvance au lieu de GrapheVille
-        GrapheVilleAvance ville = new GrapheVilleAvance(OrientationRue.HypothèseOrientation.HO3);
-
-        try (Scanner fichier = new Scanner(new File("plan_ville.txt"))) {
-            while (fichier.hasNextLine()) {
-                String ligne = fichier.nextLine().trim();
-                if (ligne.isEmpty() || ligne.startsWith("#")) continue;
-
-                String[] parts = ligne.split(";");
-                if (parts.length >= 3) {
-                    String rue = parts[0].trim();
-                    String depart = parts[1].trim();
-                    String arrivee = parts[2].trim();
-                    double duree = 2.0; // CORRECTION : Valeur par défaut
-
-                    if (parts.length == 7) {
-                        double xDepart = Double.parseDouble(parts[3].trim());
-                        double yDepart = Double.parseDouble(parts[4].trim());
-                        double xArrivee = Double.parseDouble(parts[5].trim());
-                        double yArrivee = Double.parseDouble(parts[6].trim());
-
-                        ville.definirCoordonnees(depart, xDepart, yDepart);
-                        ville.definirCoordonnees(arrivee, xArrivee, yArrivee);
-
-                        // CORRECTION : Calculer la durée basée sur la distance
-                        double dx = xArrivee - xDepart;
-                        double dy = yArrivee - yDepart;
-                        double distance = Math.sqrt(dx * dx + dy * dy);
-                        duree = distance / 100.0; // Conversion distance -> temps
-                    }
-
-                    // CORRECTION : Passer les 4 paramètres requis
-                    ville.ajouterTronconOriente(rue, depart, arrivee, duree);
-                }
-            }
-            System.out.println("✅ Fichier plan_ville.txt chargé avec succès !");
-
-            // AJOUT : Configurer des contraintes horaires réalistes
-            configurerContraintes(ville);
 
-        } catch (Exception e) {
-            System.out.println("⚠️  Erreur de chargement, utilisation des données de test...");
-
-            ville.definirCoordonnees("Entrepot Base", 0, 0);
-            ville.definirCoordonnees("Carrefour1", 100, 0);
-            ville.definirCoordonnees("Maison1", 200, 0);
-            ville.definirCoordonnees("Maison2", 300, 0);
-            ville.definirCoordonnees("Carrefour2", 400, 0);
-            ville.definirCoordonnees("Carrefour3", 100, 100);
-            ville.definirCoordonnees("Immeuble1", 100, 200);
-            ville.definirCoordonnees("Maison3", 100, 300);
-
-            ville.ajouterTronconOriente("Rue1", "Entrepot Base", "Carrefour1", 3.0);
-            ville.ajouterTronconOriente("Rue1", "Carrefour1", "Maison1", 2.0);
-            ville.ajouterTronconOriente("Rue1", "Maison1", "Maison2", 1.5);
-            ville.ajouterTronconOriente("Rue1", "Maison2", "Carrefour2", 2.0);
-            ville.ajouterTronconOriente("Rue2", "Carrefour1", "Carrefour3", 3.0);
-            ville.ajouterTronconOriente("Rue2", "Carrefour3", "Immeuble1", 2.0);
-            ville.ajouterTronconOriente("Rue2", "Immeuble1", "Maison3", 1.5);
-            ville.ajouterTronconOriente("Rue3", "Carrefour2", "Carrefour3", 3.5);
+    private static final String FICHIER_PLAN = "plan_ville.txt";
+    private static final String FICHIER_INSTANTANE = "plan_ville.bin";
 
+    public static void main(String[] args) {
+        // Instantané binaire si le plan n'a pas changé depuis son écriture, sinon plan texte
+        GrapheVilleAvance ville = InstantanePlan.ouvrir(FICHIER_INSTANTANE, FICHIER_PLAN,
+                OrientationRue.HypothèseOrientation.HO3);
+        if (ville != null) {
+            System.out.println("✅ Instantané " + FICHIER_INSTANTANE + " ouvert (plan inchangé)");
             configurerContraintes(ville);
+        } else {
+            ville = chargerPlanTexte();
         }
+        // A*, les repères ALT et la hiérarchie de contraction restent désactivés : A* traite moins de
+        // noeuds que Dijkstra mais n'est pas plus rapide sur les villes générées
+        // (BenchmarkRoutage.comparerAEtoile, de 3 600 à 230 000 noeuds), et les précalculs des repères
+        // et de la hiérarchie, refaits à chaque compilation, ne se rattrapent qu'après des centaines de
+        // trajets directs (BenchmarkRoutage.comparerALT et comparerHierarchie)
 
         System.out.println("\n" + "=".repeat(70));
         System.out.println("   🚛 SYSTÈME DE GESTION DE COLLECTE DES DÉCHETS 🗑️");
@@ -121,6 +76,15 @@ public class RamassagePoubelles {
                     case 13:
                         genererEvenements(ville, sc);
                         break;
+                    case 14:
+                        voyageurCommerceTempsLimite(ville, sc);
+                        break;
+                    case 15:
+                        voyageurCommerceLinKernighan(ville, sc);
+                        break;
+                    case 16:
+                        voyageurCommerceAsymetrique(ville, sc);
+                        break;
                     case 0:
                         System.out.println("\n" + "=".repeat(70));
                         System.out.println("✅ Merci d'avoir utilisé le système de collecte !");
@@ -136,6 +100,55 @@ public class RamassagePoubelles {
         }
     }
 
+    private static GrapheVilleAvance chargerPlanTexte() {
+        // MODIFICATION : Utiliser GrapheVilleAvance au lieu de GrapheVille
+        GrapheVilleAvance ville = new GrapheVilleAvance(OrientationRue.HypothèseOrientation.HO3);
+        ville.debuterChargementGroupe();
+
+        try {
+            ChargeurPlan.Bilan bilan = ChargeurPlan.charger(ville, FICHIER_PLAN);
+            System.out.println("✅ Fichier plan_ville.txt chargé avec succès !");
+            System.out.println("   " + bilan);
+
+            // Créer en une passe tous les changements de rue aux carrefours
+            ville.terminerChargementGroupe(true);
+            try {
+                InstantanePlan.ecrire(ville, FICHIER_PLAN, FICHIER_INSTANTANE);
+            } catch (Exception e) {
+                System.out.println("⚠️  Instantané non écrit : " + e.getMessage());
+            }
+
+            // AJOUT : Configurer des contraintes horaires réalistes
+            configurerContraintes(ville);
+
+        } catch (Exception e) {
+            System.out.println("⚠️  Erreur de chargement, utilisation des données de test...");
+
+            ville.definirCoordonnees("Entrepot Base", 0, 0);
+            ville.definirCoordonnees("Carrefour1", 100, 0);
+            ville.definirCoordonnees("Maison1", 200, 0);
+            ville.definirCoordonnees("Maison2", 300, 0);
+            ville.definirCoordonnees("Carrefour2", 400, 0);
+            ville.definirCoordonnees("Carrefour3", 100, 100);
+            ville.definirCoordonnees("Immeuble1", 100, 200);
+            ville.definirCoordonnees("Maison3", 100, 300);
+
+            ville.ajouterTronconOriente("Rue1", "Entrepot Base", "Carrefour1", 3.0);
+            ville.ajouterTronconOriente("Rue1", "Carrefour1", "Maison1", 2.0);
+            ville.ajouterTronconOriente("Rue1", "Maison1", "Maison2", 1.5);
+            ville.ajouterTronconOriente("Rue1", "Maison2", "Carrefour2", 2.0);
+            ville.ajouterTronconOriente("Rue2", "Carrefour1", "Carrefour3", 3.0);
+            ville.ajouterTronconOriente("Rue2", "Carrefour3", "Immeuble1", 2.0);
+            ville.ajouterTronconOriente("Rue2", "Immeuble1", "Maison3", 1.5);
+            ville.ajouterTronconOriente("Rue3", "Carrefour2", "Carrefour3", 3.5);
+            ville.terminerChargementGroupe(true);
+
+            configurerContraintes(ville);
+        }
+
+        return ville;
+    }
+
     private static void afficherMenu() {
         System.out.println("\n" + "=".repeat(70));
         System.out.println("📋 MENU PRINCIPAL");
@@ -151,6 +164,9 @@ public class RamassagePoubelles {
         System.out.println("  6 - 🔍 Voyageur de commerce : Plus Proche Voisin");
         System.out.println("  7 - 🌳 Voyageur de commerce : Approche MST");
         System.out.println("  8 - ⚖️  Voyageur de commerce : MST avec capacités");
+        System.out.println(" 14 - ⏱️  Voyageur de commerce : meilleure tournée en temps limité");
+        System.out.println(" 15 - 🔗 Voyageur de commerce : Lin-Kernighan (grandes tournées)");
+        System.out.println(" 16 - ↪️  Voyageur de commerce : Lin-Kernighan affiné pour les sens uniques");
 
         System.out.println("\n--- 📅 THÈME 3 : Planification des secteurs ---");
         System.out.println("  9 - 🎨 Planifier les secteurs (sans capacité)");
@@ -364,8 +380,9 @@ public class RamassagePoubelles {
 
         List<String> points = saisirPointsCollecte(sc);
         if (points.isEmpty()) return;
+        int nbCandidats = saisirOptimisationLocale(ville, points, sc);
 
-        Itineraire itin = VoyageurCommerce.approcheProchevoisin(ville, points);
+        Itineraire itin = VoyageurCommerce.approcheProchevoisin(ville, points, nbCandidats);
         System.out.println(itin);
 
         proposerVisualisation(ville, itin, sc, "graphe_proche_voisin.txt");
@@ -378,13 +395,80 @@ public class RamassagePoubelles {
 
         List<String> points = saisirPointsCollecte(sc);
         if (points.isEmpty()) return;
+        int nbCandidats = saisirOptimisationLocale(ville, points, sc);
 
-        Itineraire itin = VoyageurCommerce.approcheMST(ville, points);
+        Itineraire itin = VoyageurCommerce.approcheMST(ville, points, nbCandidats);
         System.out.println(itin);
 
         proposerVisualisation(ville, itin, sc, "graphe_mst.txt");
     }
 
+    private static void voyageurCommerceTempsLimite(GrapheVille ville, Scanner sc) {
+        System.out.println("\n" + "=".repeat(70));
+        System.out.println("⏱️  THÈME 2 - VOYAGEUR DE COMMERCE : TOURNÉE EN TEMPS LIMITÉ");
+        System.out.println("=".repeat(70));
+
+        List<String> points = saisirPointsCollecte(sc);
+        if (points.isEmpty()) return;
+
+        System.out.print("Temps accordé au calcul (ms) : ");
+        long delai = sc.nextLong();
+        sc.nextLine();
+        if (delai < 0) {
+            System.out.println("❌ Temps invalide (doit être positif)");
+            return;
+        }
+
+        Itineraire itin = VoyageurCommerce.approcheAnytime(ville, points, Echeance.dans(delai));
+        System.out.println(itin);
+
+        proposerVisualisation(ville, itin, sc, "graphe_temps_limite.txt");
+    }
+
+    private static void voyageurCommerceLinKernighan(GrapheVille ville, Scanner sc) {
+        System.out.println("\n" + "=".repeat(70));
+        System.out.println("🔗 THÈME 2 - VOYAGEUR DE COMMERCE : LIN-KERNIGHAN");
+        System.out.println("=".repeat(70));
+
+        List<String> points = saisirPointsCollecte(sc);
+        if (points.isEmpty()) return;
+
+        System.out.print("Temps accordé aux échanges (ms) : ");
+        long budget = sc.nextLong();
+        sc.nextLine();
+        if (budget < 0) {
+            System.out.println("❌ Temps invalide (doit être positif)");
+            return;
+        }
+
+        Itineraire itin = VoyageurCommerce.approcheLinKernighan(ville, points, budget);
+        System.out.println(itin);
+
+        proposerVisualisation(ville, itin, sc, "graphe_lin_kernighan.txt");
+    }
+
+    private static void voyageurCommerceAsymetrique(GrapheVille ville, Scanner sc) {
+        System.out.println("\n" + "=".repeat(70));
+        System.out.println("↪️  THÈME 2 - VOYAGEUR DE COMMERCE : TOURNÉE ASYMÉTRIQUE");
+        System.out.println("=".repeat(70));
+
+        List<String> points = saisirPointsCollecte(sc);
+        if (points.isEmpty()) return;
+
+        System.out.print("Temps accordé aux échanges de Lin-Kernighan (ms) : ");
+        long budget = sc.nextLong();
+        sc.nextLine();
+        if (budget < 0) {
+            System.out.println("❌ Temps invalide (doit être positif)");
+            return;
+        }
+
+        Itineraire itin = VoyageurCommerce.approcheAsymetrique(ville, points, budget);
+        System.out.println(itin);
+
+        proposerVisualisation(ville, itin, sc, "graphe_asymetrique.txt");
+    }
+
     private static void voyageurCommerceMSTAvecCapacite(GrapheVille ville, Scanner sc) {
         System.out.println("\n" + "=".repeat(70));
         System.out.println("⚖️  THÈME 2 - VOYAGEUR DE COMMERCE : MST AVEC CAPACITÉS");
@@ -462,6 +546,20 @@ public class RamassagePoubelles {
         return points;
     }
 
+    /**
+     * Plus proches voisins essayés par la recherche locale (0 si l'utilisateur n'en veut pas, ou si la
+     * tournée exacte est calculée à la place)
+     */
+    private static int saisirOptimisationLocale(GrapheVille ville, List<String> points, Scanner sc) {
+        // La tournée exacte, calculée à la place, n'a rien à gagner de la recherche locale
+        if (VoyageurCommerce.estPetiteTournee(ville, points)) {
+            return 0;
+        }
+        System.out.print("Améliorer la tournée par recherche locale ? (o/n) : ");
+        String reponse = sc.nextLine().trim().toLowerCase();
+        return reponse.equals("o") || reponse.equals("oui") ? VoyageurCommerce.NB_CANDIDATS_OPTIMISATION : 0;
+    }
+
     // ============ THÈME 3 ============
 
     private static void planificationSansCapacite(Scanner sc) {
@@ -2,23 +2,6 @@ import java.util.*;
 
 class RechercheItineraire {
 
-    private static class InfoDijkstra implements Comparable<InfoDijkstra> {
-        Noeud noeud;
-        double distance;
-        Arc arcPrecedent;
-
-        public InfoDijkstra(Noeud noeud, double distance, Arc arcPrecedent) {
-            this.noeud = noeud;
-            this.distance = distance;
-            this.arcPrecedent = arcPrecedent;
-        }
-
-        @Override
-        public int compareTo(InfoDijkstra autre) {
-            return Double.compare(this.distance, autre.distance);
-        }
-    }
-
     // Aller directement à UNE maison (sans ramassage intermédiaire)
     public static Itineraire trajetDirect(GrapheVille graphe, String nomArrivee) {
         Noeud depart = graphe.getEntrepot();
@@ -40,75 +23,25 @@ class RechercheItineraire {
             villeAvance.getContraintes().afficherEtat();
         }
 
-        // Utiliser Dijkstra en ignorant les temps de ramassage
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, Arc> predecesseurs = new HashMap<>();
-        Set<String> traites = new HashSet<>();
-        PriorityQueue<InfoDijkstra> file = new PriorityQueue<>();
-
-        distances.put(depart.getNom(), 0.0);
-        predecesseurs.put(depart.getNom(), null);
-        file.add(new InfoDijkstra(depart, 0.0, null));
-
-        Noeud meilleurArrivee = null;
-        double meilleureDistance = Double.MAX_VALUE;
-
-        while (!file.isEmpty()) {
-            InfoDijkstra info = file.poll();
-            Noeud courant = info.noeud;
-
-            if (traites.contains(courant.getNom())) continue;
-            traites.add(courant.getNom());
-
-            for (Noeud arrivee : noeudsArrivee) {
-                if (courant.equals(arrivee) || courant.getNom().equals(arrivee.getNom())) {
-                    if (info.distance < meilleureDistance) {
-                        meilleureDistance = info.distance;
-                        meilleurArrivee = courant;
-                    }
-                }
-            }
-
-            if (meilleurArrivee != null && info.distance > meilleureDistance) {
-                break;
-            }
-
-            for (Arc arc : courant.getArcsSortants()) {
-                // AJOUT : Vérifier si l'arc est praticable
-                if (avecContraintes && !villeAvance.estArcPraticable(arc)) {
-                    continue;
-                }
-
-                Noeud voisin = arc.getArrivee();
-
-                if (traites.contains(voisin.getNom())) continue;
-
-                // Pour trajet direct: on ignore les temps de ramassage des maisons intermédiaires
-                // MODIFICATION : Utiliser durée avec contraintes
-                double dureeBase = avecContraintes ?
-                        villeAvance.calculerDureeAvecContraintes(arc) :
-                        arc.getDuree();
-                double dureeSansRamassage = dureeBase - voisin.getTempsTraitement();
-                double nouvelleDistance = distances.get(courant.getNom()) + dureeSansRamassage;
-
-                if (!distances.containsKey(voisin.getNom()) ||
-                        nouvelleDistance < distances.get(voisin.getNom())) {
-                    distances.put(voisin.getNom(), nouvelleDistance);
-                    predecesseurs.put(voisin.getNom(), arc);
-                    file.add(new InfoDijkstra(voisin, nouvelleDistance, arc));
-                }
-            }
-        }
-
-        if (meilleurArrivee == null) {
+        // Plus court chemin en ignorant les temps de ramassage (sur le graphe compilé), cherché
+        // à la fois depuis l'entrepôt et depuis toutes les versions de la destination
+        GrapheCompile g = graphe.compiler();
+        int source = g.indice(depart);
+        MoteurPlusCourtChemin.PolitiqueCout politique = MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, villeAvance);
+        MoteurPlusCourtChemin.Chemin chemin = MoteurPlusCourtChemin.chercherBidirectionnel(g, source,
+                MoteurPlusCourtChemin.Cible.versions(g, noeudsArrivee), politique);
+        if (chemin == null) {
             throw new RuntimeException("Aucun chemin trouvé vers " + nomArrivee);
         }
+        return terminerTrajetDirect(graphe, versItineraire(g, source, chemin), chemin.cout, nomArrivee);
+    }
 
-        if (avecContraintes) {
+    private static Itineraire terminerTrajetDirect(GrapheVille graphe, Itineraire itin,
+                                                   double meilleureDistance, String nomArrivee) {
+        if (graphe instanceof GrapheVilleAvance) {
             System.out.println("⏱️  Durée totale ajustée : " + String.format("%.1f", meilleureDistance) + " minutes");
         }
 
-        Itineraire itin = reconstruireChemin(depart, meilleurArrivee, predecesseurs);
         itin.setVille(graphe); // AJOUT : Passer la référence au graphe
         // Marquer seulement la destination finale comme point de ramassage
         itin.ajouterMaisonARamasser(nomArrivee);
@@ -140,6 +73,7 @@ class RechercheItineraire {
         Set<String> maisonsRestantes = new HashSet<>(maisonsAVisiter);
         List<Arc> cheminTotal = new ArrayList<>();
         Noeud positionActuelle = depart;
+        int arcEntree = -1; // Virages implicites : dernier arc de rue parcouru
         double tempsTotal = 0.0;
 
         while (!maisonsRestantes.isEmpty()) {
@@ -148,19 +82,24 @@ class RechercheItineraire {
             double distanceMin = Double.MAX_VALUE;
             List<Arc> cheminVersMaison = null;
 
-            for (String maison : maisonsRestantes) {
-                try {
-                    // Chercher le chemin depuis la position actuelle
-                    Itineraire itinTemp = dijkstraDepuis(graphe, positionActuelle, maison, maisonsRestantes, villeAvance);
-                    double distance = itinTemp.dureeTotal();
+            // Maisons et immeubles où l'on ramasse : les autres sont traversés sans arrêt
+            MoteurPlusCourtChemin.PolitiqueCout politique = politiqueRamassage(graphe, maisonsRestantes, villeAvance);
+
+            // Une seule recherche par étape vers toutes les maisons restantes. Le choix se fait sur
+            // dureeTotal(), qui n'est pas le coût de la recherche : on les traite donc toutes
+            Map<String, Itineraire> itineraires = itinerairesVersMaisons(graphe, positionActuelle, arcEntree,
+                    maisonsRestantes, politique);
 
-                    if (distance < distanceMin) {
-                        distanceMin = distance;
-                        maisonLaPlusProche = maison;
-                        cheminVersMaison = new ArrayList<>(itinTemp.getArcs());
-                    }
-                } catch (Exception e) {
-                    // Cette maison n'est pas accessible
+            for (String maison : maisonsRestantes) {
+                // Chemin depuis la position actuelle
+                Itineraire itinTemp = itineraires.get(maison);
+                if (itinTemp == null) continue; // Cette maison n'est pas accessible
+
+                double distance = itinTemp.dureeTotal();
+                if (distance < distanceMin) {
+                    distanceMin = distance;
+                    maisonLaPlusProche = maison;
+                    cheminVersMaison = new ArrayList<>(itinTemp.getArcs());
                 }
             }
 
@@ -175,6 +114,7 @@ class RechercheItineraire {
             // Mettre à jour la position
             if (!cheminVersMaison.isEmpty()) {
                 positionActuelle = cheminVersMaison.get(cheminVersMaison.size() - 1).getArrivee();
+                arcEntree = RechercheVirages.dernierArcRue(graphe.compiler(), cheminVersMaison, arcEntree);
             }
 
             // AJOUT : Avancer le temps
@@ -201,102 +141,48 @@ class RechercheItineraire {
         return itin;
     }
 
-    // Dijkstra depuis un noeud quelconque
-    private static Itineraire dijkstraDepuis(GrapheVille graphe, Noeud depart, String nomArrivee,
-                                             Set<String> maisonsARamasser, GrapheVilleAvance villeAvance) {
-        List<Noeud> noeudsArrivee = graphe.getToutesVersions(nomArrivee);
-        if (noeudsArrivee.isEmpty()) {
-            throw new RuntimeException("Destination inconnue: " + nomArrivee);
-        }
-
-        boolean avecContraintes = villeAvance != null;
-
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, Arc> predecesseurs = new HashMap<>();
-        Set<String> traites = new HashSet<>();
-        PriorityQueue<InfoDijkstra> file = new PriorityQueue<>();
-
-        distances.put(depart.getNom(), 0.0);
-        predecesseurs.put(depart.getNom(), null);
-        file.add(new InfoDijkstra(depart, 0.0, null));
-
-        Noeud meilleurArrivee = null;
-        double meilleureDistance = Double.MAX_VALUE;
-
-        while (!file.isEmpty()) {
-            InfoDijkstra info = file.poll();
-            Noeud courant = info.noeud;
-
-            if (traites.contains(courant.getNom())) continue;
-            traites.add(courant.getNom());
-
-            for (Noeud arrivee : noeudsArrivee) {
-                if (courant.equals(arrivee) || courant.getNom().equals(arrivee.getNom())) {
-                    if (info.distance < meilleureDistance) {
-                        meilleureDistance = info.distance;
-                        meilleurArrivee = courant;
-                    }
-                }
-            }
-
-            if (meilleurArrivee != null && info.distance > meilleureDistance) {
-                break;
-            }
-
-            for (Arc arc : courant.getArcsSortants()) {
-                // AJOUT : Vérifier si l'arc est praticable
-                if (avecContraintes && !villeAvance.estArcPraticable(arc)) {
-                    continue;
-                }
-
-                Noeud voisin = arc.getArrivee();
-
-                if (traites.contains(voisin.getNom())) continue;
-
-                // Calculer la durée: inclure le ramassage SI c'est une maison à ramasser
-                // MODIFICATION : Utiliser durée avec contraintes
-                double dureeArc = avecContraintes ?
-                        villeAvance.calculerDureeAvecContraintes(arc) :
-                        arc.getDuree();
-
-                if ((voisin instanceof Maison || voisin instanceof Immeuble)
-                        && !maisonsARamasser.contains(voisin.getNom())) {
-                    // On passe par cette maison mais on ne ramasse pas
-                    dureeArc -= voisin.getTempsTraitement();
-                }
-
-                double nouvelleDistance = distances.get(courant.getNom()) + dureeArc;
+    // Politique de coût d'une étape : ramassage seulement aux maisons restantes
+    private static MoteurPlusCourtChemin.PolitiqueCout politiqueRamassage(GrapheVille graphe, Set<String> maisonsARamasser,
+                                                                          GrapheVilleAvance villeAvance) {
+        GrapheCompile g = graphe.compiler();
+        boolean[] aRamasser = new boolean[g.nbNoeuds];
+        for (String nom : maisonsARamasser) {
+            Noeud n = graphe.getNoeud(nom);
+            int i = n == null ? -1 : g.indice(n);
+            if (i >= 0) aRamasser[i] = true;
+        }
+        return MoteurPlusCourtChemin.PolitiqueCout.ramassageSelectif(g, villeAvance, aRamasser);
+    }
 
-                if (!distances.containsKey(voisin.getNom()) ||
-                        nouvelleDistance < distances.get(voisin.getNom())) {
-                    distances.put(voisin.getNom(), nouvelleDistance);
-                    predecesseurs.put(voisin.getNom(), arc);
-                    file.add(new InfoDijkstra(voisin, nouvelleDistance, arc));
-                }
+    // Itinéraires depuis un noeud vers chaque maison accessible (vers sa version la plus proche),
+    // par une seule recherche de plus proche voisin menée jusqu'à la dernière maison
+    private static Map<String, Itineraire> itinerairesVersMaisons(GrapheVille graphe, Noeud depart, int arcEntree,
+                                                                  Set<String> maisons,
+                                                                  MoteurPlusCourtChemin.PolitiqueCout politique) {
+        GrapheCompile g = graphe.compiler();
+        int source = g.indice(depart);
+
+        Map<Integer, String> maisonDuNoeud = new HashMap<>();
+        List<Noeud> versions = new ArrayList<>();
+        for (String maison : maisons) {
+            for (Noeud n : graphe.getToutesVersions(maison)) {
+                maisonDuNoeud.putIfAbsent(g.indice(n), maison);
+                versions.add(n);
             }
         }
 
-        if (meilleurArrivee == null) {
-            throw new RuntimeException("Aucun chemin trouvé vers " + nomArrivee);
+        Map<String, Itineraire> itineraires = new HashMap<>();
+        for (MoteurPlusCourtChemin.Chemin chemin : MoteurPlusCourtChemin.chercherPlusProches(g, source, arcEntree,
+                MoteurPlusCourtChemin.Cible.versions(g, versions), politique, true)) {
+            // La première version traitée d'une maison est la plus proche
+            itineraires.putIfAbsent(maisonDuNoeud.get(chemin.arrivee), versItineraire(g, source, chemin));
         }
-
-        return reconstruireChemin(depart, meilleurArrivee, predecesseurs);
+        return itineraires;
     }
 
-    private static Itineraire reconstruireChemin(Noeud depart, Noeud arrivee, Map<String, Arc> predecesseurs) {
-        List<Arc> chemin = new ArrayList<>();
-        Noeud courant = arrivee;
-
-        while (!courant.equals(depart)) {
-            Arc arc = predecesseurs.get(courant.getNom());
-            if (arc == null) break;
-            chemin.add(arc);
-            courant = arc.getDepart();
-        }
-
-        Collections.reverse(chemin);
-        Itineraire itineraire = new Itineraire(depart, arrivee);
-        chemin.forEach(itineraire::ajouterArc);
+    private static Itineraire versItineraire(GrapheCompile g, int depart, MoteurPlusCourtChemin.Chemin chemin) {
+        Itineraire itineraire = new Itineraire(g.noeuds[depart], g.noeuds[chemin.arrivee]);
+        chemin.arcs.forEach(itineraire::ajouterArc);
         return itineraire;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,236 @@
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Recherche de plus court chemin sur un graphe à virages implicites (appelée par MoteurPlusCourtChemin).
+ * Les états sont les arcs (on sait par quelle rue on est arrivé à un carrefour) : la pénalité
+ * de changement de rue est ajoutée au passage d'un arc à l'autre, au lieu d'être portée par
+ * des versions de carrefour et des arcs CHANGEMENT. Les coûts obtenus sont identiques à ceux
+ * du graphe explicite, et les chemins rendus contiennent des arcs CHANGEMENT recréés pour
+ * que l'affichage des itinéraires ne change pas.
+ * Avec un ProfilVirages, le coût géométrique du virage s'y ajoute et les virages interdits
+ * ne sont jamais empruntés.
+ */
+class RechercheVirages {
+
+    /**
+     * Plus court chemin depuis un noeud, atteint par arcEntree (-1 si aucun, ex. l'entrepôt).
+     * La cible est soit un ensemble de noeuds, soit le départ de l'arc cible.arcSuivant,
+     * virage vers cet arc compris.
+     * Les états de l'espace de travail sont ici les arcs compilés.
+     *
+     * @return le chemin, ou null si aucune cible n'est accessible
+     */
+    static MoteurPlusCourtChemin.Chemin chercher(GrapheCompile g, int source, int arcEntree,
+                                                 MoteurPlusCourtChemin.Cible cible,
+                                                 MoteurPlusCourtChemin.PolitiqueCout politique,
+                                                 EspaceRecherche espace) {
+        for (int n : cible.noeuds) {
+            if (n == source) {
+                return new MoteurPlusCourtChemin.Chemin(new ArrayList<>(), 0.0, source, arcEntree, 0);
+            }
+        }
+
+        double[] coefRues = politique.coefRues;
+        MoteurPlusCourtChemin.Heuristique heuristique = MoteurPlusCourtChemin.Heuristique.pour(g, source, cible, politique);
+        int arcCible = cible.arcSuivant;
+        int departCible = arcCible >= 0 ? g.sources[arcCible] : -1;
+        int meilleurArc = -1;
+        double meilleureDistance = Double.POSITIVE_INFINITY;
+        boolean cibleSurPlace = false;
+
+        if (source == departCible) {
+            meilleureDistance = g.coutVirage(arcEntree, arcCible, coefRues);
+            cibleSurPlace = meilleureDistance != Double.POSITIVE_INFINITY;
+        }
+
+        // Les cibles sont des noeuds : elles sont marquées dans le tableau des états (arcs),
+        // indicé par noeud, ce qui suppose nbArcs >= nbNoeuds ; sinon on agrandit l'espace
+        espace.commencer(Math.max(g.nbArcs, g.nbNoeuds));
+        try {
+            cible.marquer(espace);
+
+            for (int b = g.offsets[source]; b < g.offsets[source + 1]; b++) {
+                if (!g.estPraticable(b, coefRues)) continue;
+                double d = g.coutVirage(arcEntree, b, coefRues) + g.duree(b, coefRues)
+                        - politique.remise(g.cibles[b]);
+                if (d < espace.distance(b)) {
+                    espace.ameliorer(b, d, d + heuristique.estimer(g, g.cibles[b], espace), -1);
+                }
+            }
+
+            // En A*, la clé minorant tout chemin passant par l'arc, on s'arrête dès qu'elle
+            // atteint le meilleur coût trouvé
+            while (!espace.fileVide()) {
+                if (espace.cleMin() >= meilleureDistance) break;
+                int a = espace.extraireMin();
+                double distance = espace.distance(a);
+
+                int noeud = g.cibles[a];
+                if (espace.estCible(noeud)) {
+                    meilleurArc = a;
+                    meilleureDistance = distance;
+                    break;
+                }
+                if (noeud == departCible) {
+                    double d = distance + g.coutVirage(a, arcCible, coefRues);
+                    if (d < meilleureDistance) {
+                        meilleureDistance = d;
+                        meilleurArc = a;
+                        cibleSurPlace = false;
+                    }
+                }
+
+                for (int b = g.offsets[noeud]; b < g.offsets[noeud + 1]; b++) {
+                    if (espace.estTraite(b) || !g.estPraticable(b, coefRues)) continue;
+
+                    double nouvelleDistance = distance + g.coutVirage(a, b, coefRues) +
+                            (g.duree(b, coefRues) - politique.remise(g.cibles[b]));
+                    if (nouvelleDistance < espace.distance(b)) {
+                        espace.ameliorer(b, nouvelleDistance,
+                                nouvelleDistance + heuristique.estimer(g, g.cibles[b], espace), a);
+                    }
+                }
+            }
+
+            if (cibleSurPlace) {
+                List<Arc> arcs = new ArrayList<>();
+                if (!g.estVirageLibre(arcEntree, arcCible)) {
+                    arcs.add(g.creerArcChangement(arcEntree, arcCible));
+                }
+                return new MoteurPlusCourtChemin.Chemin(arcs, meilleureDistance, source, arcEntree,
+                        espace.getNbTraites());
+            }
+            if (meilleurArc < 0) {
+                return null;
+            }
+
+            List<Arc> arcs = reconstruire(g, arcEntree, meilleurArc, espace);
+            if (arcCible >= 0 && !g.estVirageLibre(meilleurArc, arcCible)) {
+                arcs.add(g.creerArcChangement(meilleurArc, arcCible));
+            }
+            return new MoteurPlusCourtChemin.Chemin(arcs, meilleureDistance, g.cibles[meilleurArc], meilleurArc,
+                    espace.getNbTraites());
+        } finally {
+            espace.terminer();
+        }
+    }
+
+    /**
+     * Recherche de plus proche voisin vers plusieurs noeuds cibles (voir
+     * MoteurPlusCourtChemin.chercherPlusProches) : un noeud cible est atteint par le premier
+     * arc traité qui y arrive, les suivants n'y changent rien.
+     */
+    static List<MoteurPlusCourtChemin.Chemin> chercherPlusProches(GrapheCompile g, int[] sources, int arcEntree,
+                                                                 MoteurPlusCourtChemin.Cible cible,
+                                                                 MoteurPlusCourtChemin.PolitiqueCout politique,
+                                                                 int nbCibles, EspaceRecherche espace,
+                                                                 boolean avecArcs) {
+        double[] coefRues = politique.coefRues;
+        List<MoteurPlusCourtChemin.Chemin> chemins = new ArrayList<>();
+        BitSet atteintes = new BitSet(g.nbNoeuds);
+        espace.commencer(Math.max(g.nbArcs, g.nbNoeuds));
+        try {
+            int restantes = 0;
+            for (int n : cible.noeuds) {
+                if (!espace.estCible(n)) {
+                    espace.marquerCible(n);
+                    restantes++;
+                }
+            }
+
+            double limite = Double.POSITIVE_INFINITY;
+            for (int source : sources) {
+                if (espace.estCible(source) && !atteintes.get(source)) {
+                    chemins.add(new MoteurPlusCourtChemin.Chemin(avecArcs ? new ArrayList<>() : null, 0.0, source,
+                            arcEntree, 0));
+                    atteintes.set(source);
+                    restantes--;
+                    if (chemins.size() >= nbCibles) limite = 0.0;
+                }
+            }
+
+            for (int source : sources) {
+                for (int b = g.offsets[source]; b < g.offsets[source + 1]; b++) {
+                    if (!g.estPraticable(b, coefRues)) continue;
+                    double d = g.coutVirage(arcEntree, b, coefRues) + g.duree(b, coefRues)
+                            - politique.remise(g.cibles[b]);
+                    if (d < espace.distance(b)) {
+                        espace.ameliorer(b, d, -1);
+                    }
+                }
+            }
+
+            while (restantes > 0 && !espace.fileVide() && espace.cleMin() <= limite) {
+                int a = espace.extraireMin();
+                double distance = espace.distance(a);
+
+                int noeud = g.cibles[a];
+                if (espace.estCible(noeud) && !atteintes.get(noeud)) {
+                    chemins.add(new MoteurPlusCourtChemin.Chemin(avecArcs ? reconstruire(g, arcEntree, a, espace) : null,
+                            distance, noeud, a, espace.getNbTraites()));
+                    atteintes.set(noeud);
+                    restantes--;
+                    if (chemins.size() >= nbCibles) limite = distance;
+                }
+
+                for (int b = g.offsets[noeud]; b < g.offsets[noeud + 1]; b++) {
+                    if (espace.estTraite(b) || !g.estPraticable(b, coefRues)) continue;
+
+                    double nouvelleDistance = distance + g.coutVirage(a, b, coefRues) +
+                            (g.duree(b, coefRues) - politique.remise(g.cibles[b]));
+                    if (nouvelleDistance < espace.distance(b)) {
+                        espace.ameliorer(b, nouvelleDistance, a);
+                    }
+                }
+            }
+            return chemins;
+        } finally {
+            espace.terminer();
+        }
+    }
+
+    /**
+     * Remonte les arcs prédécesseurs et intercale un arc CHANGEMENT à chaque virage
+     */
+    private static List<Arc> reconstruire(GrapheCompile g, int arcEntree, int dernierArc, EspaceRecherche espace) {
+        return reconstruire(g, arcEntree, dernierArc, espace::precedent);
+    }
+
+    /**
+     * @param precedents arc prédécesseur de chaque arc (-1 pour le premier du chemin)
+     */
+    static List<Arc> reconstruire(GrapheCompile g, int arcEntree, int dernierArc, IntUnaryOperator precedents) {
+        int nb = 0;
+        for (int a = dernierArc; a >= 0; a = precedents.applyAsInt(a)) {
+            nb++;
+        }
+        int[] suite = new int[nb];
+        for (int a = dernierArc; a >= 0; a = precedents.applyAsInt(a)) {
+            suite[--nb] = a;
+        }
+
+        List<Arc> arcs = new ArrayList<>();
+        int precedent = arcEntree;
+        for (int a : suite) {
+            if (!g.estVirageLibre(precedent, a)) {
+                arcs.add(g.creerArcChangement(precedent, a));
+            }
+            arcs.add(g.arcs[a]);
+            precedent = a;
+        }
+        return arcs;
+    }
+
+    /**
+     * Dernier arc de rue d'un chemin du graphe objet, converti en indice compilé (-1 si aucun)
+     */
+    static int dernierArcRue(GrapheCompile g, List<Arc> chemin, int parDefaut) {
+        for (int i = chemin.size() - 1; i >= 0; i--) {
+            if (!chemin.get(i).estChangementRue()) {
+                return g.indice(chemin.get(i));
+            }
+        }
+        return parDefaut;
+    }
+}
@@ -0,0 +1,379 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Points de repère ALT (A*, Landmarks, inégalité triangulaire) d'un graphe compilé.
+ *
+ * Pour chaque repère L, on précalcule d(L, v) et d(v, L) pour tous les noeuds v, sur le coût de
+ * base d'un arc : sa durée moins le temps de traitement de l'arrivée, sans coefficient de retard
+ * (l'orientation des rues est celle du graphe compilé). Par l'inégalité triangulaire,
+ * d(u, t) >= d(L, t) - d(L, u) et d(u, t) >= d(u, L) - d(t, L) : le maximum sur les repères
+ * minore la distance restante et sert d'heuristique A* (voir MoteurPlusCourtChemin.Heuristique).
+ *
+ * Les tables sont rangées par noeud (tous les repères d'un noeud côte à côte) et calculées en
+ * parallèle, une recherche complète par repère et par sens. Une requête n'interroge que ses
+ * repères actifs, ceux qui minorent le mieux la distance entre ses extrémités.
+ */
+final class ReperesALT {
+
+    /**
+     * Choix des repères
+     */
+    enum Strategie {
+        /** chaque repère est le noeud le plus éloigné des repères déjà choisis */
+        ELOIGNES,
+        /** méthode « avoid » : on descend l'arbre des plus courts chemins d'une racine vers la
+         *  branche la plus mal minorée par les repères déjà choisis */
+        EVITEMENT
+    }
+
+    private static final long GRAINE = 20_240_601L;
+
+    final int nbReperes;
+    final int[] reperes;
+    private final double[] depuis;  // depuis[v * nbReperes + k] = d(repère k, v)
+    private final double[] vers;    // vers[v * nbReperes + k] = d(v, repère k)
+    private final long dureeCalcul;
+
+    private ReperesALT(int[] reperes, double[] depuis, double[] vers, long dureeCalcul) {
+        this.nbReperes = reperes.length;
+        this.reperes = reperes;
+        this.depuis = depuis;
+        this.vers = vers;
+        this.dureeCalcul = dureeCalcul;
+    }
+
+    /**
+     * Choisit nbReperes repères selon la stratégie et calcule leurs tables de distances
+     */
+    static ReperesALT calculer(GrapheCompile g, int nbReperes, Strategie strategie) {
+        if (nbReperes <= 0) {
+            throw new IllegalArgumentException("Le nombre de repères doit être positif : " + nbReperes);
+        }
+        long debut = System.nanoTime();
+        int n = g.nbNoeuds;
+        int k = Math.min(nbReperes, n);
+        if (k == 0) {
+            return new ReperesALT(new int[0], new double[0], new double[0], System.nanoTime() - debut);
+        }
+
+        double[][] tablesDepuis = new double[k][];
+        double[][] tablesVers = new double[k][];
+        int[] reperes = strategie == Strategie.ELOIGNES ?
+                choisirEloignes(g, k) :
+                choisirEvitement(g, k, tablesDepuis, tablesVers);
+
+        // Une recherche complète par repère et par sens (celles déjà faites par le choix sont gardées)
+        IntStream.range(0, 2 * k).parallel().forEach(i -> {
+            int r = i / 2;
+            boolean inverse = i % 2 == 1;
+            double[][] tables = inverse ? tablesVers : tablesDepuis;
+            if (tables[r] == null) {
+                tables[r] = distancesCompletes(g, reperes[r], inverse);
+            }
+        });
+
+        double[] depuis = new double[n * k];
+        double[] vers = new double[n * k];
+        for (int r = 0; r < k; r++) {
+            for (int v = 0; v < n; v++) {
+                depuis[v * k + r] = tablesDepuis[r][v];
+                vers[v * k + r] = tablesVers[r][v];
+            }
+        }
+        return new ReperesALT(reperes, depuis, vers, System.nanoTime() - debut);
+    }
+
+    /**
+     * Repères actifs d'une requête : les nb repères qui minorent le mieux la distance de source
+     * à la plus proche des cibles (tous s'il n'y en a pas plus de nb)
+     */
+    int[] actifs(int source, int[] cibles, int nb) {
+        int[] indices = new int[nbReperes];
+        double[] scores = new double[nbReperes];
+        for (int r = 0; r < nbReperes; r++) {
+            indices[r] = r;
+            double score = Double.POSITIVE_INFINITY;
+            for (int t : cibles) {
+                score = Math.min(score, terme(r, source, t, 0.0));
+            }
+            scores[r] = score;
+        }
+        if (nbReperes <= nb) {
+            return indices;
+        }
+        // Sélection des nb meilleurs scores, en gardant l'ordre des repères à égalité
+        for (int i = 0; i < nb; i++) {
+            int meilleur = i;
+            for (int j = i + 1; j < nbReperes; j++) {
+                if (scores[indices[j]] > scores[indices[meilleur]]) meilleur = j;
+            }
+            int tmp = indices[i];
+            indices[i] = indices[meilleur];
+            indices[meilleur] = tmp;
+        }
+        return Arrays.copyOf(indices, nb);
+    }
+
+    /**
+     * Minorant de la distance de base de u à t d'après les repères actifs (0 si aucun ne renseigne)
+     */
+    double minorant(int u, int t, int[] actifs) {
+        double meilleur = 0.0;
+        for (int r : actifs) {
+            meilleur = terme(r, u, t, meilleur);
+        }
+        return meilleur;
+    }
+
+    /**
+     * Max de meilleur et des deux inégalités triangulaires du repère r pour d(u, t) ;
+     * un terme infini n'apporte rien de sûr (noeud hors de portée du repère)
+     */
+    private double terme(int r, int u, int t, double meilleur) {
+        int iu = u * nbReperes + r;
+        int it = t * nbReperes + r;
+        double avant = depuis[it] - depuis[iu];
+        if (avant > meilleur && avant != Double.POSITIVE_INFINITY) meilleur = avant;
+        double arriere = vers[iu] - vers[it];
+        if (arriere > meilleur && arriere != Double.POSITIVE_INFINITY) meilleur = arriere;
+        return meilleur;
+    }
+
+    // ============ CHOIX DES REPÈRES ============
+
+    /**
+     * Premier repère : le noeud le plus éloigné du noeud 0 ; chacun des suivants : le noeud
+     * atteignable dont la distance au plus proche repère choisi est la plus grande.
+     * Les distances au plus proche repère sont tenues à jour par une recherche depuis chaque
+     * nouveau repère, arrêtée là où elle n'améliore plus rien.
+     */
+    private static int[] choisirEloignes(GrapheCompile g, int k) {
+        double[] auPlusProche = new double[g.nbNoeuds];
+        Arrays.fill(auPlusProche, Double.POSITIVE_INFINITY);
+        rapprocher(g, 0, auPlusProche);
+        int premier = plusEloigne(auPlusProche);
+        Arrays.fill(auPlusProche, Double.POSITIVE_INFINITY);
+
+        int[] reperes = new int[k];
+        reperes[0] = premier;
+        rapprocher(g, premier, auPlusProche);
+        for (int r = 1; r < k; r++) {
+            reperes[r] = plusEloigne(auPlusProche);
+            rapprocher(g, reperes[r], auPlusProche);
+        }
+        return reperes;
+    }
+
+    private static int plusEloigne(double[] distances) {
+        int meilleur = 0;
+        double max = -1.0;
+        for (int v = 0; v < distances.length; v++) {
+            if (distances[v] != Double.POSITIVE_INFINITY && distances[v] > max) {
+                max = distances[v];
+                meilleur = v;
+            }
+        }
+        return meilleur;
+    }
+
+    /**
+     * Abaisse auPlusProche[v] à d(origine, v) là où c'est plus court
+     */
+    private static void rapprocher(GrapheCompile g, int origine, double[] auPlusProche) {
+        EspaceRecherche espace = EspaceRecherche.duThread();
+        espace.commencer(g.nbNoeuds);
+        try {
+            espace.ameliorer(origine, 0.0, -1);
+            while (!espace.fileVide()) {
+                int u = espace.extraireMin();
+                double du = espace.distance(u);
+                if (du >= auPlusProche[u]) continue;
+                auPlusProche[u] = du;
+                for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                    if (!g.orientationAutorisee[a]) continue;
+                    int v = g.cibles[a];
+                    if (!espace.estTraite(v)) espace.ameliorer(v, du + coutBase(g, a), a);
+                }
+            }
+        } finally {
+            espace.terminer();
+        }
+    }
+
+    /**
+     * Méthode « avoid » (Goldberg et Werneck) : depuis une racine tirée au hasard, le poids d'un
+     * noeud est l'écart entre sa distance et le minorant des repères déjà choisis ; on descend
+     * l'arbre des plus courts chemins vers le sous-arbre de plus grand poids sans repère, jusqu'à
+     * une feuille. Les tables de chaque repère sont calculées au fil du choix (dans tablesDepuis
+     * et tablesVers), car le minorant en a besoin.
+     */
+    private static int[] choisirEvitement(GrapheCompile g, int k, double[][] tablesDepuis, double[][] tablesVers) {
+        int n = g.nbNoeuds;
+        Random random = new Random(GRAINE);
+        int[] reperes = new int[k];
+        boolean[] estRepere = new boolean[n];
+
+        double[] distances = new double[n];
+        int[] arcPere = new int[n];
+        int[] ordre = new int[n];
+        double[] taille = new double[n];
+        int[] debutFils = new int[n + 1];
+        int[] fils = new int[n];
+
+        for (int r = 0; r < k; r++) {
+            int racine = random.nextInt(n);
+            int nbAtteints = arbre(g, racine, distances, arcPere, ordre);
+
+            // Poids des sous-arbres, des feuilles vers la racine
+            for (int i = nbAtteints - 1; i >= 0; i--) {
+                int v = ordre[i];
+                double minorant = 0.0;
+                for (int q = 0; q < r; q++) {
+                    double avant = tablesDepuis[q][v] - tablesDepuis[q][racine];
+                    double arriere = tablesVers[q][racine] - tablesVers[q][v];
+                    if (avant > minorant && avant != Double.POSITIVE_INFINITY) minorant = avant;
+                    if (arriere > minorant && arriere != Double.POSITIVE_INFINITY) minorant = arriere;
+                }
+                taille[v] += distances[v] - minorant;
+            }
+            for (int i = nbAtteints - 1; i >= 0; i--) {
+                int v = ordre[i];
+                if (estRepere[v]) taille[v] = Double.NEGATIVE_INFINITY;
+                if (v != racine) {
+                    int pere = g.sources[arcPere[v]];
+                    if (taille[v] == Double.NEGATIVE_INFINITY) taille[pere] = Double.NEGATIVE_INFINITY;
+                    else if (taille[pere] != Double.NEGATIVE_INFINITY) taille[pere] += taille[v];
+                }
+            }
+
+            // Fils de chaque noeud de l'arbre
+            Arrays.fill(debutFils, 0);
+            for (int i = 1; i < nbAtteints; i++) {
+                debutFils[g.sources[arcPere[ordre[i]]] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                debutFils[v + 1] += debutFils[v];
+            }
+            int[] prochain = Arrays.copyOf(debutFils, n);
+            for (int i = 1; i < nbAtteints; i++) {
+                int v = ordre[i];
+                fils[prochain[g.sources[arcPere[v]]]++] = v;
+            }
+
+            // Descente vers le fils le plus lourd ; un sous-arbre contenant un repère est évité
+            int courant = racine;
+            while (true) {
+                int suivant = -1;
+                for (int i = debutFils[courant]; i < debutFils[courant + 1]; i++) {
+                    int f = fils[i];
+                    if (taille[f] != Double.NEGATIVE_INFINITY && (suivant < 0 || taille[f] > taille[suivant])) {
+                        suivant = f;
+                    }
+                }
+                if (suivant < 0) break;
+                courant = suivant;
+            }
+            if (estRepere[courant]) {
+                courant = plusEloigne(distances);
+            }
+            reperes[r] = courant;
+            estRepere[courant] = true;
+
+            int repere = courant;
+            int indice = r;
+            IntStream.range(0, 2).parallel().forEach(sens -> {
+                if (sens == 0) tablesDepuis[indice] = distancesCompletes(g, repere, false);
+                else tablesVers[indice] = distancesCompletes(g, repere, true);
+            });
+
+            for (int i = 0; i < nbAtteints; i++) {
+                taille[ordre[i]] = 0.0;
+            }
+        }
+        return reperes;
+    }
+
+    /**
+     * Arbre des plus courts chemins depuis racine : distances (infinies hors de l'arbre), arc
+     * père et noeuds dans l'ordre de traitement
+     *
+     * @return le nombre de noeuds atteints
+     */
+    private static int arbre(GrapheCompile g, int racine, double[] distances, int[] arcPere, int[] ordre) {
+        EspaceRecherche espace = EspaceRecherche.duThread();
+        espace.commencer(g.nbNoeuds);
+        try {
+            int nb = 0;
+            espace.ameliorer(racine, 0.0, -1);
+            while (!espace.fileVide()) {
+                int u = espace.extraireMin();
+                ordre[nb++] = u;
+                double du = espace.distance(u);
+                for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                    if (!g.orientationAutorisee[a]) continue;
+                    int v = g.cibles[a];
+                    if (!espace.estTraite(v)) espace.ameliorer(v, du + coutBase(g, a), a);
+                }
+            }
+            for (int v = 0; v < g.nbNoeuds; v++) {
+                distances[v] = espace.distance(v);
+                arcPere[v] = espace.precedent(v);
+            }
+            return nb;
+        } finally {
+            espace.terminer();
+        }
+    }
+
+    // ============ TABLES ============
+
+    /**
+     * Distances de base depuis origine vers tous les noeuds (vers origine si inverse)
+     */
+    private static double[] distancesCompletes(GrapheCompile g, int origine, boolean inverse) {
+        EspaceRecherche espace = EspaceRecherche.duThread();
+        espace.commencer(g.nbNoeuds);
+        try {
+            espace.ameliorer(origine, 0.0, -1);
+            while (!espace.fileVide()) {
+                int u = espace.extraireMin();
+                double du = espace.distance(u);
+                if (inverse) {
+                    for (int i = g.offsetsEntrants[u]; i < g.offsetsEntrants[u + 1]; i++) {
+                        int a = g.arcsEntrants[i];
+                        if (!g.orientationAutorisee[a]) continue;
+                        int v = g.sources[a];
+                        if (!espace.estTraite(v)) espace.ameliorer(v, du + coutBase(g, a), a);
+                    }
+                } else {
+                    for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                        if (!g.orientationAutorisee[a]) continue;
+                        int v = g.cibles[a];
+                        if (!espace.estTraite(v)) espace.ameliorer(v, du + coutBase(g, a), a);
+                    }
+                }
+            }
+            double[] distances = new double[g.nbNoeuds];
+            for (int v = 0; v < g.nbNoeuds; v++) {
+                distances[v] = espace.distance(v);
+            }
+            return distances;
+        } finally {
+            espace.terminer();
+        }
+    }
+
+    /**
+     * Coût de base d'un arc : minore son coût pour toute politique dont les coefficients de
+     * retard sont au moins 1 et la remise au plus le temps de traitement de l'arrivée
+     */
+    static double coutBase(GrapheCompile g, int arc) {
+        return Math.max(0.0, g.tempsParcours[arc] - g.tempsTraitement[g.cibles[arc]]);
+    }
+
+    @Override
+    public String toString() {
+        return nbReperes + " repères ALT calculés en " + String.format("%.1f", dureeCalcul / 1e6) + " ms";
+    }
+}
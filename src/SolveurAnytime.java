@@ -0,0 +1,304 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Tournée « anytime » sur une MatriceDistances : une réponse à l'échéance, d'autant meilleure que
+ * le délai est long.
+ *
+ * Une première tournée (plus proche voisin) est construite avant tout, de sorte qu'il y ait une
+ * réponse même si l'échéance est déjà passée. Puis un travailleur par processeur, sur le pool
+ * ForkJoin commun, enchaîne les départs jusqu'à l'échéance : construction par plus proche voisin
+ * randomisé (tirage parmi les NB_TIRAGE plus proches non visités), amélioration par
+ * OptimisationLocale, puis recherche locale itérée (double pont entre points proches dans la
+ * tournée, qui échange deux portions sans en inverser aucune, suivi d'une nouvelle optimisation
+ * qui ne reprend que les extrémités des arêtes changées ; gardé s'il ne dégrade pas la tournée).
+ * Après autant de perturbations sans gain que de points (au moins NB_ECHECS_MIN_AVANT_RELANCE), le
+ * travailleur repart, une fois sur deux d'une nouvelle construction, une fois sur deux de la
+ * meilleure tournée commune. Les candidats de la recherche locale sont calculés une fois pour tous
+ * les travailleurs, et les optimisations s'interrompent elles aussi à l'échéance.
+ *
+ * La meilleure tournée est partagée sans verrou par une AtomicReference (compareAndSet), et chaque
+ * amélioration est annoncée au rappel, par coûts strictement décroissants. Une distance infinie
+ * compte pour MatriceDistances.INACCESSIBLE.
+ */
+class SolveurAnytime {
+
+    private static final int NB_TIRAGE = 3;
+    private static final int NB_ECHECS_MIN_AVANT_RELANCE = 50;
+    private static final int FENETRE_PERTURBATION = 10;
+    private static final long GRAINE = 1;
+
+    /**
+     * Tournée meilleure que toutes celles trouvées avant elle
+     */
+    static class Amelioration {
+        private final int[] ordre;
+        private final double cout;
+        private final long instant;         // ms depuis le début de la résolution
+        private final int travailleur;
+
+        private Amelioration(int[] ordre, double cout, long instant, int travailleur) {
+            this.ordre = ordre;
+            this.cout = cout;
+            this.instant = instant;
+            this.travailleur = travailleur;
+        }
+
+        /**
+         * Tournée (indices de la matrice, l'entrepôt en tête, sans retour final)
+         */
+        int[] getOrdre() {
+            return ordre.clone();
+        }
+
+        double getCout() {
+            return cout;
+        }
+
+        long getInstant() {
+            return instant;
+        }
+
+        int getTravailleur() {
+            return travailleur;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + instant + " ms] " + String.format("%.1f", cout) + " min (travailleur " + travailleur + ")";
+        }
+    }
+
+    private final MatriceDistances matrice;
+    private final int n;
+    private final int nbCandidats;
+    private int[][] candidats;
+    private final Echeance echeance;
+    private final Consumer<Amelioration> surAmelioration;
+    private final long debut = System.nanoTime();
+
+    private final AtomicReference<Amelioration> meilleure = new AtomicReference<>();
+    private final Object annonces = new Object();
+    private double dernierCoutAnnonce = Double.POSITIVE_INFINITY;     // gardé par annonces
+    private final AtomicInteger nbDeparts = new AtomicInteger();
+    private final AtomicLong nbPerturbations = new AtomicLong();
+
+    private int nbTravailleurs;
+    private double coutInitial;
+    private long dureeCalcul;
+
+    private SolveurAnytime(MatriceDistances matrice, Echeance echeance, int nbCandidats,
+                           Consumer<Amelioration> surAmelioration) {
+        this.matrice = matrice;
+        this.n = matrice.taille();
+        this.nbCandidats = nbCandidats;
+        this.echeance = echeance;
+        this.surAmelioration = surAmelioration;
+    }
+
+    /**
+     * Meilleure tournée passant par tous les points de la matrice (l'entrepôt, point 0, en tête)
+     * trouvée avant l'échéance
+     *
+     * @param nbCandidats     plus proches voisins essayés par OptimisationLocale
+     * @param surAmelioration appelé à chaque nouvelle meilleure tournée, depuis le travailleur qui l'a
+     *                        trouvée : doit pouvoir être appelé depuis n'importe quel thread
+     */
+    static SolveurAnytime resoudre(MatriceDistances matrice, Echeance echeance, int nbCandidats,
+                                   Consumer<Amelioration> surAmelioration) {
+        if (nbCandidats <= 0) {
+            throw new IllegalArgumentException("Nombre de candidats invalide : " + nbCandidats);
+        }
+        if (matrice.taille() == 0) {
+            throw new IllegalArgumentException("La tournée doit partir de l'entrepôt (point 0)");
+        }
+        SolveurAnytime solveur = new SolveurAnytime(matrice, echeance, nbCandidats, surAmelioration);
+        solveur.chercher();
+        return solveur;
+    }
+
+    private void chercher() {
+        int[] initiale = construire(null);
+        coutInitial = coutTournee(initiale);
+        proposer(initiale, coutInitial, 0);
+
+        // Avec au plus un point à visiter, il n'y a qu'une tournée
+        if (n >= 3) {
+            candidats = OptimisationLocale.candidats(matrice, nbCandidats);
+            nbTravailleurs = Runtime.getRuntime().availableProcessors();
+            IntStream.range(0, nbTravailleurs).parallel().forEach(this::travailler);
+        }
+        dureeCalcul = (System.nanoTime() - debut) / 1_000_000;
+    }
+
+    /**
+     * Départs successifs d'un travailleur jusqu'à l'échéance ; le travailleur 0 part de la tournée
+     * initiale
+     */
+    private void travailler(int numero) {
+        Random aleatoire = new Random(GRAINE + numero);
+        int[] extremites = new int[6];
+        int[] courante = null;
+        double coutCourant = 0.0;
+        int nbEchecs = 0;
+        int nbRelances = 0;
+        int nbEchecsAvantRelance = Math.max(NB_ECHECS_MIN_AVANT_RELANCE, n);
+
+        while (!echeance.estDepassee()) {
+            if (courante == null || nbEchecs >= nbEchecsAvantRelance) {
+                if (courante == null && numero == 0) {
+                    courante = optimiser(meilleure.get().ordre, null);
+                } else if (nbRelances % 2 == 1) {
+                    courante = optimiser(perturber(meilleure.get().ordre, aleatoire, extremites), extremites);
+                } else {
+                    courante = optimiser(construire(aleatoire), null);
+                }
+                nbRelances++;
+                nbDeparts.incrementAndGet();
+
+                coutCourant = coutTournee(courante);
+                nbEchecs = 0;
+                proposer(courante, coutCourant, numero);
+                continue;
+            }
+
+            int[] voisine = optimiser(perturber(courante, aleatoire, extremites), extremites);
+            double coutVoisine = coutTournee(voisine);
+            nbPerturbations.incrementAndGet();
+            if (coutVoisine < coutCourant - MatriceDistances.EPSILON) {
+                nbEchecs = 0;
+                proposer(voisine, coutVoisine, numero);
+            } else {
+                nbEchecs++;
+            }
+            if (coutVoisine <= coutCourant + MatriceDistances.EPSILON) {
+                courante = voisine;
+                coutCourant = coutVoisine;
+            }
+        }
+    }
+
+    /**
+     * Remplace la meilleure tournée commune si ordre fait mieux, puis l'annonce
+     */
+    private void proposer(int[] ordre, double cout, int travailleur) {
+        Amelioration amelioration = null;
+        while (true) {
+            Amelioration actuelle = meilleure.get();
+            if (actuelle != null && cout >= actuelle.cout - MatriceDistances.EPSILON) {
+                return;
+            }
+            if (amelioration == null) {
+                amelioration = new Amelioration(ordre, cout, (System.nanoTime() - debut) / 1_000_000, travailleur);
+            }
+            if (meilleure.compareAndSet(actuelle, amelioration)) {
+                break;
+            }
+        }
+
+        // Une meilleure tournée a pu être trouvée et annoncée entre-temps par un autre travailleur
+        synchronized (annonces) {
+            if (amelioration.cout < dernierCoutAnnonce) {
+                dernierCoutAnnonce = amelioration.cout;
+                surAmelioration.accept(amelioration);
+            }
+        }
+    }
+
+    // ============ CONSTRUCTION ET PERTURBATION ============
+
+    /**
+     * Plus proche voisin depuis l'entrepôt ; avec aleatoire, chaque point est tiré parmi les NB_TIRAGE
+     * plus proches non visités. Sans point non visité accessible, le premier non visité suit
+     */
+    private int[] construire(Random aleatoire) {
+        int[] ordre = new int[n];
+        boolean[] visite = new boolean[n];
+        visite[0] = true;
+        int premierNonVisite = 1;
+
+        for (int p = 1; p < n; p++) {
+            int[] proches = matrice.plusProches(ordre[p - 1], NB_TIRAGE, true, j -> !visite[j]);
+            while (visite[premierNonVisite]) premierNonVisite++;
+            int choisi = proches.length == 0 ? premierNonVisite
+                    : proches[aleatoire == null ? 0 : aleatoire.nextInt(proches.length)];
+            ordre[p] = choisi;
+            visite[choisi] = true;
+        }
+        return ordre;
+    }
+
+    /**
+     * Double pont : deux portions consécutives, d'au plus FENETRE_PERTURBATION points chacune, sont
+     * échangées sans être inversées (l'entrepôt reste en tête) ; les extrémités des arêtes changées
+     * sont rangées dans extremites
+     */
+    private int[] perturber(int[] ordre, Random aleatoire, int[] extremites) {
+        int p1 = 1 + aleatoire.nextInt(n - 2);
+        int p2 = p1 + 1 + aleatoire.nextInt(Math.min(FENETRE_PERTURBATION, n - 1 - p1));
+        int p3 = p2 + 1 + aleatoire.nextInt(Math.min(FENETRE_PERTURBATION, n - p2));
+
+        int[] perturbee = new int[n];
+        System.arraycopy(ordre, 0, perturbee, 0, p1);
+        System.arraycopy(ordre, p2, perturbee, p1, p3 - p2);
+        System.arraycopy(ordre, p1, perturbee, p1 + p3 - p2, p2 - p1);
+        System.arraycopy(ordre, p3, perturbee, p3, n - p3);
+
+        extremites[0] = ordre[p1 - 1];
+        extremites[1] = ordre[p1];
+        extremites[2] = ordre[p2 - 1];
+        extremites[3] = ordre[p2];
+        extremites[4] = ordre[p3 - 1];
+        extremites[5] = ordre[p3 % n];
+        return perturbee;
+    }
+
+    /**
+     * Optimisation locale interrompue à l'échéance, en ne reprenant d'abord que aReprendre (tous si null)
+     */
+    private int[] optimiser(int[] ordre, int[] aReprendre) {
+        return OptimisationLocale.optimiser(matrice, ordre, candidats, aReprendre, echeance::estDepassee).getOrdre();
+    }
+
+    private double coutTournee(int[] ordre) {
+        double total = 0.0;
+        for (int p = 0; p < n; p++) {
+            total += matrice.cout(ordre[p], ordre[(p + 1) % n]);
+        }
+        return total;
+    }
+
+    // ============ RÉSULTAT ============
+
+    /**
+     * Meilleure tournée trouvée (indices de la matrice, l'entrepôt en tête, sans retour final)
+     */
+    int[] getOrdre() {
+        return meilleure.get().getOrdre();
+    }
+
+    double getCout() {
+        return meilleure.get().cout;
+    }
+
+    Amelioration getMeilleure() {
+        return meilleure.get();
+    }
+
+    long getDureeCalcul() {
+        return dureeCalcul;
+    }
+
+    @Override
+    public String toString() {
+        Amelioration m = meilleure.get();
+        return "Recherche anytime : " + nbTravailleurs + " travailleurs, " + nbDeparts.get() + " départs, " +
+                nbPerturbations.get() + " perturbations : " + String.format("%.1f", coutInitial) + " → " +
+                String.format("%.1f", m.cout) + " min en " + dureeCalcul + " ms (meilleure tournée à " +
+                m.instant + " ms, travailleur " + m.travailleur + ")";
+    }
+}
@@ -0,0 +1,380 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Tournée optimale sur une MatriceDistances pour les petites tournées (l'entrepôt, point 0, et au
+ * plus NB_MAX_SEPARATION autres points), distances orientées comprises.
+ *
+ * Jusqu'à NB_MAX_HELD_KARP points : programmation dynamique de Held-Karp sur les sous-ensembles,
+ * coût[ensemble][dernier] = plus court chemin partant de l'entrepôt, visitant l'ensemble et finissant
+ * par dernier, dans une table de float (2^m * m cases, 84 Mo pour 20 points). Les ensembles de même
+ * taille ne dépendent que de ceux de la taille précédente : chaque couche est calculée en parallèle
+ * sur le pool ForkJoin commun. La tournée est retrouvée en remontant la table, sans table des
+ * prédécesseurs ; elle est optimale aux arrondis des float près.
+ *
+ * Au-delà : séparation et évaluation en profondeur, les points les plus proches d'abord, bornée par
+ * la meilleure tournée connue (au départ, plus proche voisin amélioré par OptimisationLocale, ou la
+ * tournée donnée si elle est meilleure) et
+ * minorée par la réduction de la matrice des points restants. Un chemin est aussi abandonné si un
+ * autre, déjà exploré, finissait au même point avec les mêmes points restants pour moins cher
+ * (au plus NB_MAX_ETATS chemins retenus). Si le budget de temps est dépassé, la meilleure tournée
+ * trouvée est rendue sans preuve d'optimalité.
+ */
+class SolveurExact {
+
+    static final int NB_MAX_HELD_KARP = 20;
+    static final int NB_MAX_SEPARATION = 30;
+
+    private static final int NB_MAX_ETATS = 4_000_000;
+
+    enum Methode {HELD_KARP, SEPARATION_EVALUATION}
+
+    private final MatriceDistances matrice;
+    private final int k;
+    private final double[] couts;           // couts[i * k + j], distance infinie comptée MatriceDistances.INACCESSIBLE
+    private Methode methode;
+    private int[] ordre;
+    private double cout;
+    private boolean optimal = true;
+    private long nbNoeudsExplores;
+    private long dureeCalcul;
+
+    // Séparation et évaluation
+    private long echeance;
+    private int[] chemin;
+    private int[] meilleurChemin;
+    private final Map<Long, Double> etats = new HashMap<>();   // meilleur coût par (points restants, point courant)
+    private int[] lignes;
+    private int[] colonnes;
+    private double[] sorties;
+
+    private SolveurExact(MatriceDistances matrice) {
+        this.matrice = matrice;
+        this.k = matrice.taille();
+        this.couts = new double[k * k];
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) {
+                couts[i * k + j] = matrice.cout(i, j);
+            }
+        }
+    }
+
+    /**
+     * Vrai si une tournée de nbPoints points (hors entrepôt) est à la portée du solveur
+     */
+    static boolean convient(int nbPoints) {
+        return nbPoints <= NB_MAX_SEPARATION;
+    }
+
+    /**
+     * Tournée optimale passant par tous les points de la matrice, depuis et vers l'entrepôt (point 0)
+     *
+     * @param budget durée maximale de la séparation et évaluation, en millisecondes
+     */
+    static SolveurExact resoudre(MatriceDistances matrice, long budget) {
+        return resoudre(matrice, budget, null);
+    }
+
+    /**
+     * @param tourneeConnue tournée (l'entrepôt en tête, sans retour final) qui sert de première borne à
+     *                      la séparation et évaluation si elle est meilleure que la sienne (null si aucune)
+     */
+    static SolveurExact resoudre(MatriceDistances matrice, long budget, int[] tourneeConnue) {
+        int nbPoints = matrice.taille() - 1;
+        if (nbPoints < 0 || !convient(nbPoints)) {
+            throw new IllegalArgumentException("Trop de points pour une tournée exacte : " + nbPoints +
+                    " (au plus " + NB_MAX_SEPARATION + ")");
+        }
+        if (budget < 0) {
+            throw new IllegalArgumentException("Budget de temps négatif : " + budget);
+        }
+        long debut = System.nanoTime();
+        SolveurExact solveur = new SolveurExact(matrice);
+        if (nbPoints <= NB_MAX_HELD_KARP) {
+            solveur.heldKarp();
+        } else {
+            solveur.separationEvaluation(debut + budget * 1_000_000, tourneeConnue);
+        }
+        solveur.dureeCalcul = (System.nanoTime() - debut) / 1_000_000;
+        return solveur;
+    }
+
+    // ============ HELD-KARP ============
+
+    private void heldKarp() {
+        methode = Methode.HELD_KARP;
+        int m = k - 1;                      // le point p + 1 est le bit p
+        if (m == 0) {
+            ordre = new int[]{0};
+            cout = 0.0;
+            return;
+        }
+
+        float[] c = new float[k * k];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (float) couts[i];
+        }
+        float[] table = new float[(1 << m) * m];    // table[ensemble * m + dernier]
+        for (int j = 0; j < m; j++) {
+            table[(1 << j) * m + j] = c[j + 1];
+        }
+        for (int taille = 2; taille <= m; taille++) {
+            int tailleCouche = taille;
+            IntStream.range(1, 1 << m).parallel()
+                    .filter(ensemble -> Integer.bitCount(ensemble) == tailleCouche)
+                    .forEach(ensemble -> {
+                        for (int j = 0; j < m; j++) {
+                            if ((ensemble & (1 << j)) == 0) continue;
+                            int avant = ensemble ^ (1 << j);
+                            float meilleur = Float.POSITIVE_INFINITY;
+                            for (int i = 0; i < m; i++) {
+                                if ((avant & (1 << i)) == 0) continue;
+                                float candidat = table[avant * m + i] + c[(i + 1) * k + j + 1];
+                                if (candidat < meilleur) meilleur = candidat;
+                            }
+                            table[ensemble * m + j] = meilleur;
+                        }
+                    });
+        }
+
+        // Remontée depuis le dernier point de la meilleure tournée
+        int ensemble = (1 << m) - 1;
+        int dernier = -1;
+        float meilleur = Float.POSITIVE_INFINITY;
+        for (int j = 0; j < m; j++) {
+            float candidat = table[ensemble * m + j] + c[(j + 1) * k];
+            if (candidat < meilleur) {
+                meilleur = candidat;
+                dernier = j;
+            }
+        }
+        ordre = new int[k];
+        for (int p = m; p >= 1; p--) {
+            ordre[p] = dernier + 1;
+            int avant = ensemble ^ (1 << dernier);
+            int precedent = -1;
+            meilleur = Float.POSITIVE_INFINITY;
+            for (int i = 0; i < m; i++) {
+                if ((avant & (1 << i)) == 0) continue;
+                float candidat = table[avant * m + i] + c[(i + 1) * k + dernier + 1];
+                if (candidat < meilleur) {
+                    meilleur = candidat;
+                    precedent = i;
+                }
+            }
+            ensemble = avant;
+            dernier = precedent;
+        }
+        cout = coutTournee(ordre);
+        nbNoeudsExplores = (long) m << m;
+    }
+
+    // ============ SÉPARATION ET ÉVALUATION ============
+
+    private void separationEvaluation(long echeance, int[] tourneeConnue) {
+        methode = Methode.SEPARATION_EVALUATION;
+        this.echeance = echeance;
+
+        // Première borne : plus proche voisin, puis recherche locale
+        int[] depart = new int[k];
+        boolean[] visites = new boolean[k];
+        visites[0] = true;
+        for (int p = 1; p < k; p++) {
+            int plusProche = -1;
+            for (int j = 1; j < k; j++) {
+                if (!visites[j] && (plusProche < 0 || couts[depart[p - 1] * k + j] < couts[depart[p - 1] * k + plusProche])) {
+                    plusProche = j;
+                }
+            }
+            depart[p] = plusProche;
+            visites[plusProche] = true;
+        }
+        meilleurChemin = OptimisationLocale.optimiser(matrice, depart, Math.min(10, k - 1)).getOrdre();
+        cout = coutTournee(meilleurChemin);
+        if (tourneeConnue != null && coutTournee(tourneeConnue) < cout) {
+            meilleurChemin = tourneeConnue.clone();
+            cout = coutTournee(meilleurChemin);
+        }
+
+        chemin = new int[k];
+        lignes = new int[k + 1];
+        colonnes = new int[k];
+        sorties = new double[k];
+        int restants = 0;
+        for (int j = 1; j < k; j++) {
+            restants |= 1 << (j - 1);
+        }
+        optimal = explorer(0, restants, 0.0, 1);
+        ordre = meilleurChemin;
+    }
+
+    /**
+     * Prolonge le chemin fixé jusqu'à la position p, arrêté au point courant
+     *
+     * @return faux si le budget est épuisé avant la fin de l'exploration
+     */
+    private boolean explorer(int courant, int restants, double coutChemin, int p) {
+        if ((++nbNoeudsExplores & 0xFFF) == 0 && System.nanoTime() > echeance) {
+            return false;
+        }
+        if (restants == 0) {
+            double total = coutChemin + couts[courant * k];
+            if (total < cout - MatriceDistances.EPSILON) {
+                cout = total;
+                chemin[0] = 0;
+                meilleurChemin = Arrays.copyOf(chemin, k);
+            }
+            return true;
+        }
+        if (coutChemin + minorant(courant, restants) >= cout - MatriceDistances.EPSILON) {
+            return true;
+        }
+
+        // Un chemin déjà atteint moins cher, avec les mêmes points restants et le même point courant, domine
+        if (etats.size() < NB_MAX_ETATS) {
+            Double dejaVu = etats.putIfAbsent(((long) restants << 5) | courant, coutChemin);
+            if (dejaVu != null) {
+                if (dejaVu <= coutChemin + MatriceDistances.EPSILON) return true;
+                etats.put(((long) restants << 5) | courant, coutChemin);
+            }
+        } else {
+            Double dejaVu = etats.get(((long) restants << 5) | courant);
+            if (dejaVu != null && dejaVu <= coutChemin + MatriceDistances.EPSILON) return true;
+        }
+
+        // Suivants les plus proches d'abord
+        int[] suivants = new int[Integer.bitCount(restants)];
+        int nb = 0;
+        for (int reste = restants; reste != 0; reste &= reste - 1) {
+            int j = Integer.numberOfTrailingZeros(reste) + 1;
+            int place = nb++;
+            while (place > 0 && couts[courant * k + suivants[place - 1]] > couts[courant * k + j]) {
+                suivants[place] = suivants[place - 1];
+                place--;
+            }
+            suivants[place] = j;
+        }
+        for (int j : suivants) {
+            chemin[p] = j;
+            if (!explorer(j, restants & ~(1 << (j - 1)), coutChemin + couts[courant * k + j], p + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Minorant du coût restant, le plus grand de deux :
+     * - réduction de la matrice restante : chaque point restant, et le point courant, doit sortir une
+     *   fois vers un point restant (ou l'entrepôt pour finir), d'où la somme des plus petites sorties ;
+     *   une fois ces sorties retranchées, chaque point restant et l'entrepôt doivent encore être atteints ;
+     * - arbre couvrant minimum du point courant, des points restants et de l'entrepôt (chaque arête au
+     *   coût du moins cher de ses deux sens) : le chemin restant en est un
+     */
+    private double minorant(int courant, int restants) {
+        int nb = 0;
+        lignes[nb] = courant;
+        colonnes[nb++] = 0;
+        for (int reste = restants; reste != 0; reste &= reste - 1) {
+            lignes[nb] = colonnes[nb] = Integer.numberOfTrailingZeros(reste) + 1;
+            nb++;
+        }
+
+        double total = 0.0;
+        for (int a = 0; a < nb; a++) {
+            int v = lignes[a];
+            double min = Double.POSITIVE_INFINITY;
+            for (int b = 0; b < nb; b++) {
+                int w = colonnes[b];
+                if (w != v && !(a == 0 && w == 0)) min = Math.min(min, couts[v * k + w]);
+            }
+            sorties[a] = min;
+            total += min;
+        }
+        for (int b = 0; b < nb; b++) {
+            int w = colonnes[b];
+            double min = Double.POSITIVE_INFINITY;
+            for (int a = 0; a < nb; a++) {
+                int v = lignes[a];
+                if (w != v && !(a == 0 && w == 0)) min = Math.min(min, couts[v * k + w] - sorties[a]);
+            }
+            total += min;
+        }
+        return Math.max(total, arbreMinimum(nb, courant != 0));
+    }
+
+    /**
+     * Poids de l'arbre couvrant minimum (Prim) des nb points de lignes, plus l'entrepôt si avecEntrepot
+     */
+    private double arbreMinimum(int nb, boolean avecEntrepot) {
+        int nbPoints = nb;
+        if (avecEntrepot) {
+            lignes[nbPoints++] = 0;
+        }
+        double[] cles = sorties;
+        Arrays.fill(cles, 0, nbPoints, Double.POSITIVE_INFINITY);
+        double total = 0.0;
+        int dernier = nbPoints - 1;     // le point ajouté en dernier est échangé en fin de liste
+        int ajoute = lignes[0];
+        lignes[0] = lignes[dernier];
+        lignes[dernier] = ajoute;
+        for (int restant = dernier; restant > 0; restant--) {
+            int meilleur = 0;
+            for (int a = 0; a < restant; a++) {
+                int v = lignes[a];
+                cles[a] = Math.min(cles[a], Math.min(couts[v * k + ajoute], couts[ajoute * k + v]));
+                if (cles[a] < cles[meilleur]) meilleur = a;
+            }
+            total += cles[meilleur];
+            ajoute = lignes[meilleur];
+            lignes[meilleur] = lignes[restant - 1];
+            lignes[restant - 1] = ajoute;
+            cles[meilleur] = cles[restant - 1];
+        }
+        return total;
+    }
+
+    private double coutTournee(int[] tournee) {
+        double total = 0.0;
+        for (int p = 0; p < k; p++) {
+            total += couts[tournee[p] * k + tournee[(p + 1) % k]];
+        }
+        return total;
+    }
+
+    // ============ RÉSULTAT ============
+
+    /**
+     * Tournée trouvée (indices de la matrice, l'entrepôt en tête, sans retour final)
+     */
+    int[] getOrdre() {
+        return ordre.clone();
+    }
+
+    double getCout() {
+        return cout;
+    }
+
+    /**
+     * Faux si la séparation et évaluation a été arrêtée par son budget
+     */
+    boolean estOptimal() {
+        return optimal;
+    }
+
+    Methode getMethode() {
+        return methode;
+    }
+
+    long getDureeCalcul() {
+        return dureeCalcul;
+    }
+
+    @Override
+    public String toString() {
+        return "Tournée " + (optimal ? "optimale" : "non prouvée optimale (budget épuisé)") + " par " +
+                (methode == Methode.HELD_KARP ? "Held-Karp" : "séparation et évaluation") + " : " +
+                String.format("%.1f", cout) + " min, " + (k - 1) + " points, " + nbNoeudsExplores + " " +
+                (methode == Methode.HELD_KARP ? "états" : "noeuds") + ", " + dureeCalcul + " ms";
+    }
+}
@@ -0,0 +1,453 @@
+import java.util.*;
+
+/**
+ * Tournée de type Lin-Kernighan sur une MatriceDistances, pour les tournées de milliers de points
+ * où le 2-opt seul plafonne.
+ *
+ * Un mouvement est une suite d'au plus PROFONDEUR_MAX échanges 2-opt enchaînés depuis un même point
+ * t1 (échange séquentiel jusqu'à 6 arêtes) : chaque échange casse l'arête qui ferme la tournée au
+ * précédent, et la suite continue tant que le gain partiel reste positif. Aux premiers niveaux,
+ * plusieurs choix sont essayés (LARGEURS). Les voisins essayés sont les plus proches au sens de
+ * l'alpha-proximité calculée sur l'arbre couvrant minimum (coût d'une arête moins la plus grande
+ * arête du chemin de l'arbre qui relie ses extrémités), comme dans LKH, sans l'ascension de
+ * sous-gradient. Un point dont les mouvements n'ont rien donné n'est repris que si ses voisins
+ * dans la tournée changent. Une fois la tournée bloquée, et tant que le budget de temps le
+ * permet, une perturbation locale (double pont entre points proches dans la tournée) est suivie
+ * d'une nouvelle optimisation ; elle n'est gardée que si la tournée y gagne.
+ *
+ * La recherche se fait sur les distances symétrisées (moyenne des deux sens), les inversions ne
+ * changeant alors pas le coût des portions inversées. La tournée est ensuite orientée dans le
+ * meilleur sens et reprise par OptimisationLocale, qui tient compte des sens uniques.
+ */
+class SolveurLinKernighan {
+
+    private static final int PROFONDEUR_MAX = 5;
+    private static final int[] LARGEURS = {5, 3, 1, 1, 1};
+    private static final int FENETRE_PERTURBATION = 50;
+
+    private final MatriceDistances matrice;
+    private final int n;
+    private final int[] tournee;            // ordre de visite (lu dans un sens ou l'autre selon sens)
+    private final int[] positions;
+    private boolean sens = true;            // vrai : tournee lue par positions croissantes
+    private int[][] candidats;
+
+    private final PointsActifs actifs;
+    private final List<Integer> touches = new ArrayList<>();   // points dont les arêtes ont changé
+    private final Random aleatoire = new Random(1);
+
+    private double coutInitial;
+    private double coutFinal;
+    private int nbAmeliorations;
+    private int nbPerturbations;
+    private int nbPerturbationsGardees;
+    private long dureeCandidats;
+    private long dureeCalcul;
+    private OptimisationLocale finition;
+
+    private SolveurLinKernighan(MatriceDistances matrice, int[] ordre) {
+        this.matrice = matrice;
+        this.n = ordre.length;
+        this.tournee = ordre.clone();
+        this.positions = new int[matrice.taille()];
+        this.actifs = new PointsActifs(matrice.taille());
+
+        if (n != matrice.taille()) {
+            throw new IllegalArgumentException("La tournée doit visiter les " + matrice.taille() + " points de la matrice");
+        }
+        Arrays.fill(positions, -1);
+        for (int p = 0; p < n; p++) {
+            if (positions[tournee[p]] >= 0) {
+                throw new IllegalArgumentException("Point visité deux fois : " + tournee[p]);
+            }
+            positions[tournee[p]] = p;
+        }
+    }
+
+    /**
+     * Améliore la tournée ordre (tous les indices de la matrice, l'entrepôt 0 en tête, sans retour final)
+     *
+     * @param parents     arbre couvrant minimum des points (parent de chaque indice, -1 pour la racine)
+     * @param nbCandidats voisins essayés pour chaque point
+     * @param budget      durée de recherche, en millisecondes, au-delà de la première optimisation
+     */
+    static SolveurLinKernighan resoudre(MatriceDistances matrice, int[] ordre, int[] parents, int nbCandidats,
+                                        long budget) {
+        if (nbCandidats <= 0) {
+            throw new IllegalArgumentException("Nombre de candidats invalide : " + nbCandidats);
+        }
+        if (budget < 0) {
+            throw new IllegalArgumentException("Budget de temps négatif : " + budget);
+        }
+        if (ordre.length == 0 || ordre[0] != 0) {
+            throw new IllegalArgumentException("La tournée doit partir de l'entrepôt (point 0)");
+        }
+        SolveurLinKernighan solveur = new SolveurLinKernighan(matrice, ordre);
+        solveur.optimiser(parents, nbCandidats, budget);
+        return solveur;
+    }
+
+    private void optimiser(int[] parents, int nbCandidats, long budget) {
+        long debut = System.nanoTime();
+        coutInitial = coutOriente(getOrdreSymetrique(), false);
+        candidats = candidatsAlpha(parents, nbCandidats);
+        dureeCandidats = (System.nanoTime() - debut) / 1_000_000;
+
+        if (n >= 8) {
+            for (int point : tournee) {
+                actifs.activer(point);
+            }
+            viderFile();
+
+            // Perturbations tant que le budget le permet
+            long echeance = System.nanoTime() + budget * 1_000_000;
+            double cout = coutSymetrique();
+            int[] sauvegarde = tournee.clone();
+            boolean sensSauvegarde = sens;
+            while (System.nanoTime() < echeance) {
+                nbPerturbations++;
+                double essai = cout + perturber() - viderFile();
+                if (essai < cout - MatriceDistances.EPSILON) {
+                    cout = essai;
+                    nbPerturbationsGardees++;
+                    System.arraycopy(tournee, 0, sauvegarde, 0, n);
+                    sensSauvegarde = sens;
+                } else {
+                    System.arraycopy(sauvegarde, 0, tournee, 0, n);
+                    sens = sensSauvegarde;
+                    for (int p = 0; p < n; p++) {
+                        positions[tournee[p]] = p;
+                    }
+                }
+            }
+        }
+
+        // Meilleur sens, puis finition avec les distances orientées
+        int[] ordre = getOrdreSymetrique();
+        boolean inverse = coutOriente(ordre, true) < coutOriente(ordre, false);
+        if (inverse) {
+            for (int g = 1, h = n - 1; g < h; g++, h--) {
+                int echange = ordre[g];
+                ordre[g] = ordre[h];
+                ordre[h] = echange;
+            }
+        }
+        finition = OptimisationLocale.optimiser(matrice, ordre, nbCandidats);
+        coutFinal = finition.getCoutFinal();
+        dureeCalcul = (System.nanoTime() - debut) / 1_000_000;
+    }
+
+    // ============ MOUVEMENTS ============
+
+    /**
+     * Optimise depuis les points actifs jusqu'à ce qu'aucun mouvement n'aboutisse
+     * @return le gain total (distances symétrisées)
+     */
+    private double viderFile() {
+        double total = 0.0;
+        while (!actifs.estVide()) {
+            int t1 = actifs.prendre();
+            for (int cote = 0; cote < 2; cote++) {
+                touches.clear();
+                double gain = approfondir(t1, 0, 0.0);
+                if (gain > MatriceDistances.EPSILON) {
+                    total += gain;
+                    nbAmeliorations++;
+                    actifs.activer(t1);
+                    for (int point : touches) {
+                        actifs.activer(point);
+                    }
+                    break;
+                }
+                sens = !sens;   // t2 de l'autre côté de t1
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Niveau d'un mouvement depuis t1 : casse l'arête (t1, t2), relie t2 à un candidat t3, casse
+     * (t4, t3) où t4 précède t3, et referme par (t1, t4) en inversant le chemin de t2 à t4
+     *
+     * @param gain gain de la tournée courante sur celle du début du mouvement
+     * @return le gain du mouvement gardé (0 si la tournée est revenue à son état de départ)
+     */
+    private double approfondir(int t1, int niveau, double gain) {
+        int t2 = suivant(t1);
+        double gainOuvert = gain + cout(t1, t2);
+
+        // Choix classés par gain partiel après avoir cassé (t4, t3)
+        int largeur = LARGEURS[niveau];
+        int[] t3s = new int[largeur];
+        double[] gains = new double[largeur];
+        int nb = 0;
+        for (int t3 : candidats[t2]) {
+            if (t3 == t1 || t3 == suivant(t2)) continue;
+            double g1 = gainOuvert - cout(t2, t3);
+            if (g1 <= MatriceDistances.EPSILON) continue;
+            double g2 = g1 + cout(precedent(t3), t3);
+            if (nb == largeur && g2 <= gains[nb - 1]) continue;
+
+            int place = nb < largeur ? nb++ : nb - 1;
+            while (place > 0 && gains[place - 1] < g2) {
+                t3s[place] = t3s[place - 1];
+                gains[place] = gains[place - 1];
+                place--;
+            }
+            t3s[place] = t3;
+            gains[place] = g2;
+        }
+
+        for (int c = 0; c < nb; c++) {
+            int t3 = t3s[c];
+            int t4 = precedent(t3);
+            inverser(t2, t4);
+            orienter(t1, t4);
+
+            double gainFerme = gains[c] - cout(t1, t4);
+            if (gainFerme > MatriceDistances.EPSILON) {
+                touches.add(t2);
+                touches.add(t3);
+                touches.add(t4);
+                return gainFerme;
+            }
+            if (niveau + 1 < PROFONDEUR_MAX) {
+                double gainSuite = approfondir(t1, niveau + 1, gainFerme);
+                if (gainSuite > MatriceDistances.EPSILON) {
+                    touches.add(t2);
+                    touches.add(t3);
+                    touches.add(t4);
+                    return gainSuite;
+                }
+            }
+
+            // Retour à la tournée d'avant cet échange
+            inverser(t4, t2);
+            orienter(t1, t2);
+        }
+        return 0.0;
+    }
+
+    /**
+     * Double pont entre quatre coupures proches dans la tournée : A B C D devient A C B D
+     * @return la variation de coût (distances symétrisées)
+     */
+    private double perturber() {
+        int fenetre = Math.min(FENETRE_PERTURBATION, n / 4);
+        int p1 = aleatoire.nextInt(n - 3 * fenetre);
+        int p2 = p1 + 1 + aleatoire.nextInt(fenetre);
+        int p3 = p2 + 1 + aleatoire.nextInt(fenetre);   // B = ]p1, p2], C = ]p2, p3], D commence après p3
+
+        int a = tournee[p1], b1 = tournee[p1 + 1], b2 = tournee[p2];
+        int c1 = tournee[p2 + 1], c2 = tournee[p3], d = tournee[(p3 + 1) % n];
+        double variation = cout(a, c1) + cout(c2, b1) + cout(b2, d) - cout(a, b1) - cout(b2, c1) - cout(c2, d);
+
+        int[] milieu = new int[p3 - p1];
+        int r = 0;
+        for (int p = p2 + 1; p <= p3; p++) milieu[r++] = tournee[p];
+        for (int p = p1 + 1; p <= p2; p++) milieu[r++] = tournee[p];
+        for (int s = 0; s < milieu.length; s++) {
+            tournee[p1 + 1 + s] = milieu[s];
+            positions[milieu[s]] = p1 + 1 + s;
+        }
+        actifs.activer(a, b1, b2, c1, c2, d);
+        return variation;
+    }
+
+    // ============ TOURNÉE ============
+
+    private int suivant(int point) {
+        int p = positions[point];
+        return sens ? tournee[p + 1 == n ? 0 : p + 1] : tournee[p == 0 ? n - 1 : p - 1];
+    }
+
+    private int precedent(int point) {
+        int p = positions[point];
+        return sens ? tournee[p == 0 ? n - 1 : p - 1] : tournee[p + 1 == n ? 0 : p + 1];
+    }
+
+    /**
+     * Lit la tournée dans le sens où suivant(t1) vaut voisin
+     */
+    private void orienter(int t1, int voisin) {
+        if (suivant(t1) != voisin) {
+            sens = !sens;
+        }
+    }
+
+    /**
+     * Inverse le chemin de b à c (dans le sens de lecture), ou le reste de la tournée s'il est plus court :
+     * le cycle obtenu est le même, seul le sens de lecture peut changer
+     */
+    private void inverser(int b, int c) {
+        int i = sens ? positions[b] : positions[c];
+        int j = sens ? positions[c] : positions[b];
+        int longueur = (j - i + n) % n + 1;
+        if (2 * longueur > n) {
+            int debut = j + 1 == n ? 0 : j + 1;
+            j = i == 0 ? n - 1 : i - 1;
+            i = debut;
+            longueur = n - longueur;
+        }
+        for (int s = 0; s < longueur / 2; s++) {
+            int g = (i + s) % n, h = (j - s + n) % n;
+            int echange = tournee[g];
+            tournee[g] = tournee[h];
+            tournee[h] = echange;
+            positions[tournee[g]] = g;
+            positions[tournee[h]] = h;
+        }
+    }
+
+    /**
+     * Distance symétrisée
+     */
+    private double cout(int i, int j) {
+        return (matrice.cout(i, j) + matrice.cout(j, i)) / 2;
+    }
+
+    private double coutSymetrique() {
+        double total = 0.0;
+        for (int p = 0; p < n; p++) {
+            total += cout(tournee[p], tournee[(p + 1) % n]);
+        }
+        return total;
+    }
+
+    /**
+     * Coût de l'ordre donné, parcouru à l'envers si inverse (sans compter les trajets inaccessibles)
+     */
+    private double coutOriente(int[] ordre, boolean inverse) {
+        double total = 0.0;
+        for (int p = 0; p < n; p++) {
+            int i = ordre[p], j = ordre[(p + 1) % n];
+            double d = inverse ? matrice.distance(j, i) : matrice.distance(i, j);
+            if (d != Double.POSITIVE_INFINITY) total += d;
+        }
+        return total;
+    }
+
+    /**
+     * Tournée dans le sens de lecture, depuis l'entrepôt
+     */
+    private int[] getOrdreSymetrique() {
+        int[] ordre = new int[n];
+        int point = 0;
+        for (int p = 0; p < n; p++) {
+            ordre[p] = point;
+            point = suivant(point);
+        }
+        return ordre;
+    }
+
+    // ============ CANDIDATS ============
+
+    /**
+     * Les nbCandidats voisins de chaque point de plus petite alpha-proximité (à égalité, les plus proches).
+     * Pour chaque point i, beta[j] est la plus grande arête du chemin de l'arbre entre i et j, calculée
+     * en parcourant l'arbre dans l'ordre de Prim (un parent avant ses enfants) : O(n²) en tout
+     */
+    private int[][] candidatsAlpha(int[] parents, int nbCandidats) {
+        int k = matrice.taille();
+        List<List<Integer>> enfants = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+            enfants.add(new ArrayList<>());
+        }
+        int racine = -1;
+        for (int i = 0; i < k; i++) {
+            if (parents[i] < 0) racine = i;
+            else enfants.get(parents[i]).add(i);
+        }
+        int[] ordreArbre = new int[k];
+        int nbOrdonnes = 0;
+        ordreArbre[nbOrdonnes++] = racine;
+        for (int r = 0; r < nbOrdonnes; r++) {
+            for (int enfant : enfants.get(ordreArbre[r])) {
+                ordreArbre[nbOrdonnes++] = enfant;
+            }
+        }
+        if (racine < 0 || nbOrdonnes != k) {
+            throw new IllegalArgumentException("L'arbre couvrant ne relie pas les " + k + " points");
+        }
+
+        double[] poidsArbre = new double[k];
+        for (int i = 0; i < k; i++) {
+            if (parents[i] >= 0) poidsArbre[i] = cout(i, parents[i]);
+        }
+
+        int[][] resultat = new int[k][];
+        double[] beta = new double[k];
+        int[] marque = new int[k];
+        Arrays.fill(marque, -1);
+        for (int i : ordreArbre) {
+            beta[i] = Double.NEGATIVE_INFINITY;
+            marque[i] = i;
+            for (int u = i; parents[u] >= 0; u = parents[u]) {
+                beta[parents[u]] = Math.max(beta[u], poidsArbre[u]);
+                marque[parents[u]] = i;
+            }
+            for (int r = 1; r < k; r++) {
+                int j = ordreArbre[r];
+                if (marque[j] != i) beta[j] = Math.max(beta[parents[j]], poidsArbre[j]);
+            }
+
+            int[] proches = new int[nbCandidats];
+            double[] alphas = new double[nbCandidats];
+            double[] couts = new double[nbCandidats];
+            int nb = 0;
+            for (int r = 0; r < matrice.nbVoisins(i); r++) {
+                int j = matrice.voisin(i, r);
+                if (j == i || matrice.distance(i, j) == Double.POSITIVE_INFINITY) continue;
+                double c = cout(i, j);
+                double alpha = Math.max(0.0, c - beta[j]);
+                if (nb == nbCandidats && (alpha > alphas[nb - 1] || (alpha == alphas[nb - 1] && c >= couts[nb - 1]))) {
+                    continue;
+                }
+
+                int place = nb < nbCandidats ? nb++ : nb - 1;
+                while (place > 0 && (alphas[place - 1] > alpha || (alphas[place - 1] == alpha && couts[place - 1] > c))) {
+                    proches[place] = proches[place - 1];
+                    alphas[place] = alphas[place - 1];
+                    couts[place] = couts[place - 1];
+                    place--;
+                }
+                proches[place] = j;
+                alphas[place] = alpha;
+                couts[place] = c;
+            }
+            resultat[i] = Arrays.copyOf(proches, nb);
+        }
+        return resultat;
+    }
+
+    // ============ RÉSULTAT ============
+
+    /**
+     * Tournée trouvée (indices de la matrice, l'entrepôt en tête, sans retour final)
+     */
+    int[] getOrdre() {
+        return finition.getOrdre();
+    }
+
+    double getCoutInitial() {
+        return coutInitial;
+    }
+
+    double getCoutFinal() {
+        return coutFinal;
+    }
+
+    long getDureeCalcul() {
+        return dureeCalcul;
+    }
+
+    @Override
+    public String toString() {
+        double gain = coutInitial - coutFinal;
+        return "Lin-Kernighan : " + String.format("%.1f", coutInitial) + " → " + String.format("%.1f", coutFinal) +
+                " min (gain " + String.format("%.1f", gain) + " min, " +
+                String.format("%.1f", coutInitial > 0 ? 100.0 * gain / coutInitial : 0.0) + " %) en " + dureeCalcul +
+                " ms dont " + dureeCandidats + " ms de candidats : " + nbAmeliorations + " mouvements, " +
+                nbPerturbationsGardees + "/" + nbPerturbations + " perturbations gardées";
+    }
+}
@@ -0,0 +1,570 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Surcouche CRP (Customizable Route Planning) d'un graphe compilé à virages explicites.
+ *
+ * La partition ne dépend pas des coûts : bissections successives des noeuds selon leur plus
+ * grande étendue (x ou y). Les cellules du niveau 0 ont au plus tailleMaxCellule noeuds, celles
+ * de chaque niveau suivant FACTEUR_NIVEAU fois plus et regroupent des cellules entières du niveau
+ * inférieur. Les bords d'une cellule sont ses noeuds reliés par un arc à une autre cellule du
+ * même niveau.
+ * La personnalisation calcule, pour une politique de coût, la matrice des plus courts chemins
+ * entre bords à l'intérieur de chaque cellule, sur son graphe local : au niveau 0 ses arcs
+ * d'origine, au-dessus les matrices du niveau inférieur et les arcs entre ses cellules. Les niveaux sont traités l'un
+ * après l'autre, les cellules d'un niveau en parallèle ; c'est refait à la première requête dont
+ * le coût diffère (heure, événement, rue fermée...).
+ * Une requête parcourt en chaque noeud le plus haut niveau dont la cellule ne contient ni le
+ * départ ni une cible (les arcs d'origine dans les cellules du départ et des cibles) ; un passage
+ * par une matrice est déplié en refaisant la recherche dans sa cellule, niveau par niveau.
+ */
+final class SurcoucheCRP {
+
+    static final int FACTEUR_NIVEAU = 16;
+
+    private final GrapheCompile g;
+    private final int tailleMaxCellule;
+    private final int nbNiveaux;
+    private final int[] tailleNiveau;      // nombre maximal de noeuds d'une cellule de chaque niveau
+    private final int[][] cellule;         // cellule[niveau][noeud]
+    private final int[] nbCellules;
+    private final int[][] rangBord;        // rang du noeud parmi les bords de sa cellule, -1 sinon
+    private final int[][] debutBords;      // bords de la cellule c : bords[n][debutBords[n][c]] à bords[n][debutBords[n][c + 1] - 1]
+    private final int[][] bords;
+    // Matrices, tous niveaux à la suite : celle de la cellule c du niveau n commence à
+    // debutMatrice[premiereCellule[n] + c] (nb x nb, bord i vers bord j en i * nb + j)
+    private final int[] premiereCellule;
+    private final int[] debutMatrice;
+    // Graphe local de chaque cellule, fixe lui aussi : ses bords d'abord (dans l'ordre de bords),
+    // puis au niveau 0 ses autres noeuds, au-dessus les autres bords du niveau inférieur. Les
+    // personnalisations y font de petites recherches sur des rangs locaux contigus.
+    // Lien : arc d'origine (>= 0) ou -2 - indice d'une entrée de matrice du niveau inférieur.
+    private final int[][] debutLocaux;     // noeuds locaux de la cellule c : à partir de debutLocaux[n][c]
+    private final int[][] debutLiens;      // liens du noeud local s : debutLiens[n][s] à debutLiens[n][s + 1] - 1
+    private final int[][] liensDepuis;     // rang local de l'origine du lien
+    private final int[][] liensVers;       // rang local de l'extrémité du lien
+    private final int[][] liens;
+    private long dureePartition;
+
+    private volatile Personnalisation courante;
+
+    /**
+     * Coûts des matrices pour une politique
+     */
+    private static final class Personnalisation {
+        final MoteurPlusCourtChemin.PolitiqueCout politique;
+        final double[] couts;
+        final long duree;
+
+        Personnalisation(MoteurPlusCourtChemin.PolitiqueCout politique, double[] couts, long duree) {
+            this.politique = politique;
+            this.couts = couts;
+            this.duree = duree;
+        }
+    }
+
+    private SurcoucheCRP(GrapheCompile g, int tailleMaxCellule) {
+        this.g = g;
+        this.tailleMaxCellule = tailleMaxCellule;
+        // Un niveau de plus tant qu'il compterait au moins 4 cellules : au-dessus, les matrices
+        // de quelques cellules géantes coûtent plus à personnaliser qu'elles ne font gagner
+        int niveaux = 1;
+        for (long taille = (long) tailleMaxCellule * FACTEUR_NIVEAU; taille * 4 <= g.nbNoeuds;
+             taille *= FACTEUR_NIVEAU) {
+            niveaux++;
+        }
+        this.nbNiveaux = niveaux;
+        this.tailleNiveau = new int[nbNiveaux];
+        for (int n = 0; n < nbNiveaux; n++) {
+            tailleNiveau[n] = (int) Math.min(Integer.MAX_VALUE, tailleMaxCellule * (long) Math.pow(FACTEUR_NIVEAU, n));
+        }
+
+        this.cellule = new int[nbNiveaux][g.nbNoeuds];
+        this.nbCellules = new int[nbNiveaux];
+        int[] ordre = new int[g.nbNoeuds];
+        for (int v = 0; v < g.nbNoeuds; v++) ordre[v] = v;
+        couper(ordre, 0, g.nbNoeuds, Integer.MAX_VALUE);
+
+        this.rangBord = new int[nbNiveaux][];
+        this.debutBords = new int[nbNiveaux][];
+        this.bords = new int[nbNiveaux][];
+        this.premiereCellule = new int[nbNiveaux + 1];
+        for (int n = 0; n < nbNiveaux; n++) {
+            premiereCellule[n + 1] = premiereCellule[n] + nbCellules[n];
+            trouverBords(n);
+        }
+        this.debutMatrice = new int[premiereCellule[nbNiveaux] + 1];
+        for (int n = 0; n < nbNiveaux; n++) {
+            for (int c = 0; c < nbCellules[n]; c++) {
+                int nb = debutBords[n][c + 1] - debutBords[n][c];
+                int k = premiereCellule[n] + c;
+                debutMatrice[k + 1] = debutMatrice[k] + nb * nb;
+            }
+        }
+
+        this.debutLocaux = new int[nbNiveaux][];
+        this.debutLiens = new int[nbNiveaux][];
+        this.liensDepuis = new int[nbNiveaux][];
+        this.liensVers = new int[nbNiveaux][];
+        this.liens = new int[nbNiveaux][];
+        for (int n = 0; n < nbNiveaux; n++) {
+            construireGrapheLocal(n);
+        }
+    }
+
+    /**
+     * Partitionne le graphe (graphe à virages explicites uniquement) ; les coûts seront calculés
+     * à la première requête
+     */
+    static SurcoucheCRP partitionner(GrapheCompile g, int tailleMaxCellule) {
+        if (g.viragesImplicites) {
+            throw new IllegalStateException("La surcouche CRP nécessite un graphe à virages explicites");
+        }
+        if (tailleMaxCellule <= 0) {
+            throw new IllegalArgumentException("Taille de cellule invalide : " + tailleMaxCellule);
+        }
+        long debut = System.nanoTime();
+        SurcoucheCRP surcouche = new SurcoucheCRP(g, tailleMaxCellule);
+        surcouche.dureePartition = System.nanoTime() - debut;
+        return surcouche;
+    }
+
+    // ============ PARTITION ============
+
+    /**
+     * Coupe ordre[debut..fin) en deux jusqu'à la taille du niveau 0 ; chaque morceau qui passe
+     * sous la taille d'un niveau (et dont le parent la dépassait) devient une cellule de ce niveau
+     */
+    private void couper(int[] ordre, int debut, int fin, int tailleParent) {
+        int taille = fin - debut;
+        for (int n = 0; n < nbNiveaux; n++) {
+            if (taille <= tailleNiveau[n] && tailleParent > tailleNiveau[n]) {
+                int c = nbCellules[n]++;
+                for (int i = debut; i < fin; i++) cellule[n][ordre[i]] = c;
+            }
+        }
+        if (taille <= tailleMaxCellule) {
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = debut; i < fin; i++) {
+            int v = ordre[i];
+            minX = Math.min(minX, g.x[v]);
+            maxX = Math.max(maxX, g.x[v]);
+            minY = Math.min(minY, g.y[v]);
+            maxY = Math.max(maxY, g.y[v]);
+        }
+        double[] cle = maxX - minX >= maxY - minY ? g.x : g.y;
+        int milieu = (debut + fin) >>> 1;
+        selectionner(ordre, cle, debut, fin, milieu);
+        couper(ordre, debut, milieu, taille);
+        couper(ordre, milieu, fin, taille);
+    }
+
+    /**
+     * Place en ordre[k] le noeud de rang k selon cle, les plus petits avant, les plus grands après
+     */
+    private static void selectionner(int[] ordre, double[] cle, int debut, int fin, int k) {
+        int gauche = debut;
+        int droite = fin - 1;
+        while (gauche < droite) {
+            double pivot = cle[ordre[(gauche + droite) >>> 1]];
+            int i = gauche;
+            int j = droite;
+            while (i <= j) {
+                while (cle[ordre[i]] < pivot) i++;
+                while (cle[ordre[j]] > pivot) j--;
+                if (i <= j) {
+                    int t = ordre[i];
+                    ordre[i++] = ordre[j];
+                    ordre[j--] = t;
+                }
+            }
+            if (k <= j) droite = j;
+            else if (k >= i) gauche = i;
+            else return;
+        }
+    }
+
+    /**
+     * Bords du niveau n : extrémités des arcs entre deux de ses cellules (sens et fermetures
+     * comprises, la partition devant valoir pour tous les coûts)
+     */
+    private void trouverBords(int n) {
+        int[] cel = cellule[n];
+        boolean[] estBord = new boolean[g.nbNoeuds];
+        for (int a = 0; a < g.nbArcs; a++) {
+            if (cel[g.sources[a]] != cel[g.cibles[a]]) {
+                estBord[g.sources[a]] = true;
+                estBord[g.cibles[a]] = true;
+            }
+        }
+        int[] debut = new int[nbCellules[n] + 1];
+        for (int v = 0; v < g.nbNoeuds; v++) {
+            if (estBord[v]) debut[cel[v] + 1]++;
+        }
+        for (int c = 0; c < nbCellules[n]; c++) debut[c + 1] += debut[c];
+        int[] liste = new int[debut[nbCellules[n]]];
+        int[] rang = new int[g.nbNoeuds];
+        int[] prochain = Arrays.copyOf(debut, nbCellules[n]);
+        for (int v = 0; v < g.nbNoeuds; v++) {
+            if (estBord[v]) {
+                rang[v] = prochain[cel[v]] - debut[cel[v]];
+                liste[prochain[cel[v]]++] = v;
+            } else {
+                rang[v] = -1;
+            }
+        }
+        debutBords[n] = debut;
+        bords[n] = liste;
+        rangBord[n] = rang;
+    }
+
+    private void construireGrapheLocal(int n) {
+        int[] cel = cellule[n];
+        int nbC = nbCellules[n];
+        int[] debut = new int[nbC + 1];
+        for (int v = 0; v < g.nbNoeuds; v++) {
+            if (n == 0 || rangBord[n - 1][v] >= 0) debut[cel[v] + 1]++;
+        }
+        for (int c = 0; c < nbC; c++) debut[c + 1] += debut[c];
+
+        int[] noeuds = new int[debut[nbC]];
+        int[] rang = new int[g.nbNoeuds];
+        int[] prochain = Arrays.copyOf(debut, nbC);
+        for (int c = 0; c < nbC; c++) {
+            for (int b = debutBords[n][c]; b < debutBords[n][c + 1]; b++) {
+                int v = bords[n][b];
+                rang[v] = prochain[c] - debut[c];
+                noeuds[prochain[c]++] = v;
+            }
+        }
+        for (int v = 0; v < g.nbNoeuds; v++) {
+            if ((n == 0 || rangBord[n - 1][v] >= 0) && rangBord[n][v] < 0) {
+                rang[v] = prochain[cel[v]] - debut[cel[v]];
+                noeuds[prochain[cel[v]]++] = v;
+            }
+        }
+
+        int[] debutL = new int[noeuds.length + 1];
+        for (int s = 0; s < noeuds.length; s++) {
+            debutL[s + 1] = debutL[s] + poserLiens(n, noeuds[s], rang, null, null, 0);
+        }
+        int[] vers = new int[debutL[noeuds.length]];
+        int[] codes = new int[debutL[noeuds.length]];
+        int[] depuis = new int[debutL[noeuds.length]];
+        for (int s = 0; s < noeuds.length; s++) {
+            poserLiens(n, noeuds[s], rang, vers, codes, debutL[s]);
+            Arrays.fill(depuis, debutL[s], debutL[s + 1], rang[noeuds[s]]);
+        }
+        debutLocaux[n] = debut;
+        debutLiens[n] = debutL;
+        liensVers[n] = vers;
+        liensDepuis[n] = depuis;
+        liens[n] = codes;
+    }
+
+    /**
+     * Liens du noeud u dans le graphe local de sa cellule du niveau n, écrits à partir de pos
+     * (seulement comptés si vers est null)
+     */
+    private int poserLiens(int n, int u, int[] rang, int[] vers, int[] codes, int pos) {
+        int nb = 0;
+        if (n > 0) {
+            int[] sousBords = bords[n - 1];
+            int sc = cellule[n - 1][u];
+            int i = rangBord[n - 1][u];
+            int premier = debutBords[n - 1][sc];
+            int m = debutBords[n - 1][sc + 1] - premier;
+            int base = debutMatrice[premiereCellule[n - 1] + sc] + i * m;
+            for (int j = 0; j < m; j++) {
+                if (j == i) continue;
+                if (vers != null) {
+                    vers[pos + nb] = rang[sousBords[premier + j]];
+                    codes[pos + nb] = -2 - (base + j);
+                }
+                nb++;
+            }
+        }
+        for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+            int v = g.cibles[a];
+            if (cellule[n][v] != cellule[n][u] || (n > 0 && cellule[n - 1][v] == cellule[n - 1][u])) continue;
+            if (vers != null) {
+                vers[pos + nb] = rang[v];
+                codes[pos + nb] = a;
+            }
+            nb++;
+        }
+        return nb;
+    }
+
+    // ============ PERSONNALISATION ============
+
+    /**
+     * Recalcule les matrices de toutes les cellules pour cette politique (si elle diffère de la
+     * personnalisation courante)
+     */
+    synchronized void personnaliser(MoteurPlusCourtChemin.PolitiqueCout politique) {
+        Personnalisation p = courante;
+        if (p != null && p.politique.memeCout(politique)) {
+            return;
+        }
+        long debut = System.nanoTime();
+        double[] couts = new double[debutMatrice[premiereCellule[nbNiveaux]]];
+        for (int n = 0; n < nbNiveaux; n++) {
+            int niveau = n;
+            IntStream.range(0, nbCellules[n]).parallel()
+                    .forEach(c -> personnaliserCellule(niveau, c, politique, couts));
+        }
+        courante = new Personnalisation(politique, couts, System.nanoTime() - debut);
+    }
+
+    private void personnaliserCellule(int n, int c, MoteurPlusCourtChemin.PolitiqueCout politique, double[] couts) {
+        int nb = debutBords[n][c + 1] - debutBords[n][c];
+        if (nb == 0) return;
+
+        // Coût de chaque lien de la cellule, calculé une fois pour toutes ses recherches
+        int premierLocal = debutLocaux[n][c];
+        int premierLien = debutLiens[n][premierLocal];
+        double[] coutsLiens = new double[debutLiens[n][debutLocaux[n][c + 1]] - premierLien];
+        for (int l = 0; l < coutsLiens.length; l++) {
+            coutsLiens[l] = coutLien(liens[n][premierLien + l], politique, couts);
+        }
+
+        EspaceRecherche espace = EspaceRecherche.duThread();
+        int base = debutMatrice[premiereCellule[n] + c];
+        for (int i = 0; i < nb; i++) {
+            explorerCellule(n, c, i, -1, coutsLiens, politique, couts, espace);
+            for (int j = 0; j < nb; j++) {
+                couts[base + i * nb + j] = espace.distance(j);
+            }
+        }
+    }
+
+    private double coutLien(int lien, MoteurPlusCourtChemin.PolitiqueCout politique, double[] couts) {
+        if (lien < 0) {
+            return couts[-2 - lien];
+        }
+        double[] coefRues = politique.coefRues;
+        return g.estPraticable(lien, coefRues) ?
+                g.duree(lien, coefRues) - politique.remise(g.cibles[lien]) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Plus courts chemins dans le graphe local de la cellule c du niveau n, du rang local depart
+     * jusqu'au rang local arrivee s'il est donné (coutsLiens : coûts précalculés des liens de la
+     * cellule, ou null). Les états sont les rangs locaux et les prédécesseurs des indices de liens ;
+     * ils restent lisibles dans espace jusqu'à la recherche suivante.
+     */
+    private void explorerCellule(int n, int c, int depart, int arrivee, double[] coutsLiens,
+                                 MoteurPlusCourtChemin.PolitiqueCout politique, double[] couts, EspaceRecherche espace) {
+        int premierLocal = debutLocaux[n][c];
+        int premierLien = debutLiens[n][premierLocal];
+        int[] debutL = debutLiens[n];
+        int[] vers = liensVers[n];
+        espace.commencer(debutLocaux[n][c + 1] - premierLocal);
+        try {
+            espace.ameliorer(depart, 0.0, -1);
+            while (!espace.fileVide()) {
+                int u = espace.extraireMin();
+                if (u == arrivee) return;
+                double du = espace.distance(u);
+                for (int l = debutL[premierLocal + u]; l < debutL[premierLocal + u + 1]; l++) {
+                    int w = vers[l];
+                    if (espace.estTraite(w)) continue;
+                    double d = coutsLiens != null ? coutsLiens[l - premierLien] : coutLien(liens[n][l], politique, couts);
+                    if (d == Double.POSITIVE_INFINITY) continue;
+                    espace.ameliorer(w, du + d, l);
+                }
+            }
+        } finally {
+            espace.terminer();
+        }
+    }
+
+    /**
+     * Relâche depuis le bord u les entrées de la matrice de sa cellule du niveau n ; le
+     * prédécesseur noté est -2 - indice de l'entrée dans les matrices
+     */
+    private void relacherMatrice(int n, int u, double du, double[] couts, EspaceRecherche espace) {
+        int i = rangBord[n][u];
+        if (i < 0) return;
+        int c = cellule[n][u];
+        int premier = debutBords[n][c];
+        int nb = debutBords[n][c + 1] - premier;
+        int base = debutMatrice[premiereCellule[n] + c] + i * nb;
+        for (int j = 0; j < nb; j++) {
+            double d = couts[base + j];
+            int w = bords[n][premier + j];
+            if (j == i || d == Double.POSITIVE_INFINITY || espace.estTraite(w)) continue;
+            espace.ameliorer(w, du + d, -2 - (base + j));
+        }
+    }
+
+    // ============ REQUÊTE ============
+
+    /**
+     * Plus court chemin de source vers la plus proche des cibles pour cette politique
+     * (personnalise d'abord la surcouche si besoin)
+     *
+     * @return le chemin en arcs d'origine, ou null si aucune cible n'est accessible
+     */
+    MoteurPlusCourtChemin.Chemin chercher(int source, int[] cibles, MoteurPlusCourtChemin.PolitiqueCout politique) {
+        for (int t : cibles) {
+            if (t == source) {
+                return new MoteurPlusCourtChemin.Chemin(new ArrayList<>(), 0.0, source, -1, 0);
+            }
+        }
+        Personnalisation p = courante;
+        if (p == null || !p.politique.memeCout(politique)) {
+            personnaliser(politique);
+            p = courante;
+        }
+        double[] couts = p.couts;
+        double[] coefRues = politique.coefRues;
+
+        EspaceRecherche espace = EspaceRecherche.duThread();
+        int arrivee = -1;
+        double cout;
+        int nbTraites;
+        // Étapes du chemin, de l'arrivée vers le départ : arc d'origine (>= 0) ou -2 - indice
+        // d'une entrée de matrice
+        int[] etapes = new int[16];
+        int nbEtapes = 0;
+        espace.commencer(g.nbNoeuds);
+        try {
+            for (int t : cibles) espace.marquerCible(t);
+            espace.ameliorer(source, 0.0, -1);
+            while (!espace.fileVide()) {
+                int u = espace.extraireMin();
+                if (espace.estCible(u)) {
+                    arrivee = u;
+                    break;
+                }
+                double du = espace.distance(u);
+                int n = niveauRequete(u, source, cibles);
+                if (n >= 0) {
+                    relacherMatrice(n, u, du, couts, espace);
+                }
+                for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                    int v = g.cibles[a];
+                    if (n >= 0 && cellule[n][v] == cellule[n][u]) continue;
+                    if (espace.estTraite(v) || !g.estPraticable(a, coefRues)) continue;
+                    espace.ameliorer(v, du + (g.duree(a, coefRues) - politique.remise(v)), a);
+                }
+            }
+            if (arrivee < 0) {
+                return null;
+            }
+            cout = espace.distance(arrivee);
+            nbTraites = espace.getNbTraites();
+            for (int x = arrivee; x != source; ) {
+                int etape = espace.precedent(x);
+                if (nbEtapes == etapes.length) etapes = Arrays.copyOf(etapes, nbEtapes * 2);
+                etapes[nbEtapes++] = etape;
+                x = etape >= 0 ? g.sources[etape] : departEntree(-2 - etape);
+            }
+        } finally {
+            espace.terminer();
+        }
+
+        List<Arc> arcs = new ArrayList<>();
+        for (int i = nbEtapes - 1; i >= 0; i--) {
+            deplier(etapes[i], politique, couts, espace, arcs);
+        }
+        int dernierArc = arcs.isEmpty() ? -1 : g.indice(arcs.get(arcs.size() - 1));
+        return new MoteurPlusCourtChemin.Chemin(arcs, cout, arrivee, dernierArc, nbTraites);
+    }
+
+    /**
+     * Plus haut niveau dont la cellule de u ne contient ni la source ni une cible, -1 si aucun
+     */
+    private int niveauRequete(int u, int source, int[] cibles) {
+        for (int n = nbNiveaux - 1; n >= 0; n--) {
+            int[] cel = cellule[n];
+            int c = cel[u];
+            boolean locale = c == cel[source];
+            for (int t : cibles) locale |= cel[t] == c;
+            if (!locale) return n;
+        }
+        return -1;
+    }
+
+    /**
+     * Ajoute à arcs les arcs d'origine d'une étape (arc, ou entrée de matrice dépliée en
+     * refaisant la recherche dans sa cellule)
+     */
+    private void deplier(int etape, MoteurPlusCourtChemin.PolitiqueCout politique, double[] couts,
+                         EspaceRecherche espace, List<Arc> arcs) {
+        if (etape >= 0) {
+            arcs.add(g.arcs[etape]);
+            return;
+        }
+        int k = -2 - etape;
+        int celluleGlobale = celluleDeEntree(k);
+        int n = niveauDeCellule(celluleGlobale);
+        int c = celluleGlobale - premiereCellule[n];
+        int nb = debutBords[n][c + 1] - debutBords[n][c];
+        // Les bords sont les premiers rangs locaux de la cellule
+        int depart = (k - debutMatrice[celluleGlobale]) / nb;
+        int arrivee = (k - debutMatrice[celluleGlobale]) % nb;
+
+        explorerCellule(n, c, depart, arrivee, null, politique, couts, espace);
+        int[] sousEtapes = new int[16];
+        int nbSousEtapes = 0;
+        for (int x = arrivee; x != depart; ) {
+            int l = espace.precedent(x);
+            if (nbSousEtapes == sousEtapes.length) sousEtapes = Arrays.copyOf(sousEtapes, nbSousEtapes * 2);
+            sousEtapes[nbSousEtapes++] = liens[n][l];
+            x = liensDepuis[n][l];
+        }
+        for (int i = nbSousEtapes - 1; i >= 0; i--) {
+            deplier(sousEtapes[i], politique, couts, espace, arcs);
+        }
+    }
+
+    /**
+     * Bord de départ de l'entrée k des matrices
+     */
+    private int departEntree(int k) {
+        int celluleGlobale = celluleDeEntree(k);
+        int n = niveauDeCellule(celluleGlobale);
+        int c = celluleGlobale - premiereCellule[n];
+        int nb = debutBords[n][c + 1] - debutBords[n][c];
+        return bords[n][debutBords[n][c] + (k - debutMatrice[celluleGlobale]) / nb];
+    }
+
+    private int celluleDeEntree(int k) {
+        // Dernière cellule dont la matrice commence en k ou avant (les matrices vides sont sautées)
+        int bas = 0;
+        int haut = premiereCellule[nbNiveaux] - 1;
+        while (bas < haut) {
+            int milieu = (bas + haut + 1) >>> 1;
+            if (debutMatrice[milieu] <= k) bas = milieu;
+            else haut = milieu - 1;
+        }
+        return bas;
+    }
+
+    private int niveauDeCellule(int celluleGlobale) {
+        int n = 0;
+        while (premiereCellule[n + 1] <= celluleGlobale) n++;
+        return n;
+    }
+
+    @Override
+    public String toString() {
+        Personnalisation p = courante;
+        StringBuilder sb = new StringBuilder("Surcouche CRP : ");
+        for (int n = 0; n < nbNiveaux; n++) {
+            sb.append(n == 0 ? "" : ", ").append("niveau ").append(n).append(" : ").append(nbCellules[n])
+                    .append(" cellules et ").append(bords[n].length).append(" bords");
+        }
+        sb.append(" ; partition en ").append(String.format("%.1f", dureePartition / 1e6)).append(" ms");
+        if (p != null) {
+            sb.append(", personnalisation en ").append(String.format("%.1f", p.duree / 1e6)).append(" ms");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.*;
+
+/**
+ * Table des symboles d'un graphe de ville.
+ * Attribue à chaque Noeud, chaque nom de rue et chaque Arc un identifiant entier dense
+ * au moment de sa création. Les identifiants servent d'indices de tableaux et de BitSet
+ * à la place des clés construites par concaténation de chaînes.
+ */
+class TableSymboles {
+
+    static final int ID_RUE_CHANGEMENT = 0;
+
+    private final List<Noeud> noeuds;
+    private final List<Arc> arcs;
+    private final List<String> rues;
+    private final Map<String, Integer> idsRues;
+
+    public TableSymboles() {
+        this.noeuds = new ArrayList<>();
+        this.arcs = new ArrayList<>();
+        this.rues = new ArrayList<>();
+        this.idsRues = new HashMap<>();
+        internerRue(GrapheCompile.RUE_CHANGEMENT);
+    }
+
+    /**
+     * Enregistre un noeud nouvellement créé (sans effet s'il possède déjà un identifiant)
+     */
+    public int enregistrerNoeud(Noeud noeud) {
+        if (noeud.getId() < 0) {
+            noeud.setId(noeuds.size());
+            noeuds.add(noeud);
+        }
+        return noeud.getId();
+    }
+
+    public int enregistrerArc(Arc arc) {
+        arc.setIdentifiants(arcs.size(), internerRue(arc.getRue()));
+        arcs.add(arc);
+        return arc.getId();
+    }
+
+    public int internerRue(String rue) {
+        Integer id = idsRues.get(rue);
+        if (id == null) {
+            id = rues.size();
+            idsRues.put(rue, id);
+            rues.add(rue);
+        }
+        return id;
+    }
+
+    /**
+     * Identifiant d'une rue déjà connue, ou -1
+     */
+    public int getIdRue(String rue) {
+        Integer id = idsRues.get(rue);
+        return id == null ? -1 : id;
+    }
+
+    public Noeud getNoeud(int id) { return noeuds.get(id); }
+    public Arc getArc(int id) { return arcs.get(id); }
+    public String getRue(int id) { return rues.get(id); }
+
+    public int getNbNoeuds() { return noeuds.size(); }
+    public int getNbArcs() { return arcs.size(); }
+    public int getNbRues() { return rues.size(); }
+
+    public List<Noeud> getNoeuds() { return Collections.unmodifiableList(noeuds); }
+    public List<String> getRues() { return Collections.unmodifiableList(rues); }
+}
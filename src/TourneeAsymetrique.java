@@ -0,0 +1,282 @@
+import java.util.*;
+
+/**
+ * Dernière passe sur une tournée d'une MatriceDistances asymétrique (rues à sens unique : la
+ * distance de A à B n'est pas celle de B à A), par des mouvements qui ne parcourent jamais une
+ * portion de tournée à l'envers.
+ *
+ * La tournée de départ est celle de Lin-Kernighan, déjà reprise par OptimisationLocale qui évalue
+ * exactement les inversions dans les deux sens. Deux mouvements qui gardent le sens de chaque
+ * portion, évalués en O(1), la complètent :
+ * - Or-opt : une suite d'au plus LONGUEUR_MAX_SUITE points est déplacée, dans le même sens, entre
+ *   deux points voisins de la tournée ;
+ * - échange de deux portions consécutives (3-opt sans inversion) : a → [a' .. b] → [b' .. c] → c'
+ *   devient a → [b' .. c] → [a' .. b] → c'.
+ * Les arêtes créées relient un point à l'un de ses plus proches successeurs (distance depuis lui) ou
+ * prédécesseurs (distance vers lui), et un point n'est repris que si l'une de ses arêtes change.
+ * Seuls les mouvements qui raccourcissent la tournée sont appliqués : elle ne fait jamais pire que
+ * celle de départ. Une distance infinie compte pour MatriceDistances.INACCESSIBLE.
+ */
+class TourneeAsymetrique {
+
+    private static final int LONGUEUR_MAX_SUITE = 3;
+
+    private final MatriceDistances matrice;
+    private final int n;
+    private int[] tournee;
+    private final int[] positions;
+    private int[][] successeurs;            // plus proches successeurs de chaque point
+    private int[][] predecesseurs;          // plus proches prédécesseurs de chaque point
+
+    private final PointsActifs actifs;
+
+    private double coutInitial;
+    private double coutFinal;
+    private double asymetrie;
+    private int nbOrOpt;
+    private int nbEchanges;
+    private long dureeCalcul;
+
+    private TourneeAsymetrique(MatriceDistances matrice, int[] ordre) {
+        this.matrice = matrice;
+        this.n = matrice.taille();
+        this.tournee = ordre.clone();
+        this.positions = new int[n];
+        this.actifs = new PointsActifs(n);
+
+        if (ordre.length != n) {
+            throw new IllegalArgumentException("La tournée doit visiter les " + n + " points de la matrice");
+        }
+        if (n == 0 || ordre[0] != 0) {
+            throw new IllegalArgumentException("La tournée doit partir de l'entrepôt (point 0)");
+        }
+        Arrays.fill(positions, -1);
+        for (int p = 0; p < n; p++) {
+            if (positions[tournee[p]] >= 0) {
+                throw new IllegalArgumentException("Point visité deux fois : " + tournee[p]);
+            }
+            positions[tournee[p]] = p;
+        }
+    }
+
+    /**
+     * Améliore la tournée ordre (tous les points de la matrice, l'entrepôt en tête, sans retour final)
+     *
+     * @param nbCandidats successeurs et prédécesseurs essayés pour chaque point
+     */
+    static TourneeAsymetrique ameliorer(MatriceDistances matrice, int[] ordre, int nbCandidats) {
+        if (nbCandidats <= 0) {
+            throw new IllegalArgumentException("Nombre de candidats invalide : " + nbCandidats);
+        }
+        long debut = System.nanoTime();
+        TourneeAsymetrique tournee = new TourneeAsymetrique(matrice, ordre);
+        tournee.coutInitial = tournee.coutConnu();
+        tournee.ameliorer(nbCandidats);
+        tournee.coutFinal = tournee.coutConnu();
+        tournee.dureeCalcul = (System.nanoTime() - debut) / 1_000_000;
+        return tournee;
+    }
+
+    // ============ AMÉLIORATION ============
+
+    private void ameliorer(int nbCandidats) {
+        successeurs = new int[n][];
+        predecesseurs = new int[n][];
+        for (int i = 0; i < n; i++) {
+            successeurs[i] = matrice.plusProches(i, nbCandidats, true, j -> true);
+            predecesseurs[i] = matrice.plusProches(i, nbCandidats, false, j -> true);
+        }
+        asymetrie = mesurerAsymetrie();
+        if (n < 4) {
+            return;
+        }
+
+        for (int point : tournee) {
+            actifs.activer(point);
+        }
+        while (!actifs.estVide()) {
+            int point = actifs.prendre();
+            if (!deplacerSuite(point)) {
+                echangerPortions(point);
+            }
+        }
+    }
+
+    /**
+     * Or-opt : déplace une suite commençant ou finissant par point, dans le même sens
+     */
+    private boolean deplacerSuite(int point) {
+        int p = positions[point];
+        for (int longueur = 1; longueur <= LONGUEUR_MAX_SUITE && longueur < n - 1; longueur++) {
+            if (essayerDeplacement(p, longueur) || (longueur > 1 && essayerDeplacement(p - longueur + 1, longueur))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Déplace la suite de longueur points à partir de la position debut (modulo n) entre x et y,
+     * l'arête créée partant d'un prédécesseur proche de son premier point ou arrivant à un
+     * successeur proche de son dernier point
+     */
+    private boolean essayerDeplacement(int debut, int longueur) {
+        debut = (debut + n) % n;
+        int premier = tournee[debut], dernier = tournee[(debut + longueur - 1) % n];
+        int precedent = tournee[(debut + n - 1) % n], suivant = tournee[(debut + longueur) % n];
+        double retrait = matrice.cout(precedent, premier) + matrice.cout(dernier, suivant)
+                - matrice.cout(precedent, suivant);
+
+        for (int cote = 0; cote < 2; cote++) {
+            int[] proches = cote == 0 ? predecesseurs[premier] : successeurs[dernier];
+            for (int proche : proches) {
+                if (dansSuite(proche, debut, longueur)) continue;
+                int x = cote == 0 ? proche : tournee[(positions[proche] + n - 1) % n];
+                int y = cote == 0 ? tournee[(positions[proche] + 1) % n] : proche;
+                if (x == dernier) x = precedent;    // y suivait la suite
+                if (y == premier) y = suivant;      // x précédait la suite
+                if (x == precedent && y == suivant) continue;   // même place
+
+                double delta = matrice.cout(x, premier) + matrice.cout(dernier, y) - matrice.cout(x, y) - retrait;
+                if (delta < -MatriceDistances.EPSILON) {
+                    deplacer(debut, longueur, x);
+                    nbOrOpt++;
+                    actifs.activer(precedent, suivant, x, y, premier, dernier);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean dansSuite(int point, int debut, int longueur) {
+        return (positions[point] - debut + n) % n < longueur;
+    }
+
+    /**
+     * Retire la suite de longueur points commençant à la position debut et la replace après x
+     */
+    private void deplacer(int debut, int longueur, int x) {
+        int[] nouvelle = new int[n];
+        int r = 0;
+        for (int s = 0; s < n - longueur; s++) {
+            int point = tournee[(debut + longueur + s) % n];
+            nouvelle[r++] = point;
+            if (point == x) {
+                for (int t = 0; t < longueur; t++) {
+                    nouvelle[r++] = tournee[(debut + t) % n];
+                }
+            }
+        }
+        tournee = nouvelle;
+        for (int p = 0; p < n; p++) {
+            positions[tournee[p]] = p;
+        }
+    }
+
+    /**
+     * Échange de deux portions consécutives depuis a : arête créée de a vers un successeur proche b',
+     * puis de b (qui précède b') vers un successeur proche c', c précédant c'
+     */
+    private boolean echangerPortions(int a) {
+        int pa = positions[a];
+        int aPrime = tournee[(pa + 1) % n];
+        for (int bPrime : successeurs[a]) {
+            int rangB = (positions[bPrime] - pa + n) % n;   // rang de b' à partir de a
+            if (rangB < 2) continue;
+            int b = tournee[(positions[bPrime] + n - 1) % n];
+            double gainPartiel = matrice.cout(a, aPrime) + matrice.cout(b, bPrime) - matrice.cout(a, bPrime);
+            if (gainPartiel <= MatriceDistances.EPSILON) continue;
+
+            for (int cPrime : successeurs[b]) {
+                int rangC = (positions[cPrime] - pa + n) % n;
+                if (rangC <= rangB) continue;               // c' après b', a exclu
+                int c = tournee[(positions[cPrime] + n - 1) % n];
+
+                double delta = matrice.cout(c, aPrime) + matrice.cout(b, cPrime) - matrice.cout(c, cPrime)
+                        - gainPartiel;
+                if (delta < -MatriceDistances.EPSILON) {
+                    echanger(pa, rangB, rangC);
+                    nbEchanges++;
+                    actifs.activer(a, aPrime, b, bPrime, c, cPrime);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * a → [a' .. b] → [b' .. c] → c' devient a → [b' .. c] → [a' .. b] → c', les rangs étant comptés depuis a
+     */
+    private void echanger(int pa, int rangB, int rangC) {
+        int[] portions = new int[rangC - 1];
+        int r = 0;
+        for (int rang = rangB; rang < rangC; rang++) {
+            portions[r++] = tournee[(pa + rang) % n];
+        }
+        for (int rang = 1; rang < rangB; rang++) {
+            portions[r++] = tournee[(pa + rang) % n];
+        }
+        for (int s = 0; s < portions.length; s++) {
+            int p = (pa + 1 + s) % n;
+            tournee[p] = portions[s];
+            positions[portions[s]] = p;
+        }
+    }
+
+    // ============ OUTILS ============
+
+    /**
+     * Écart relatif moyen entre les deux sens, sur les arêtes candidates connues dans les deux sens
+     */
+    private double mesurerAsymetrie() {
+        double ecarts = 0.0, total = 0.0;
+        for (int i = 0; i < n; i++) {
+            for (int j : successeurs[i]) {
+                double aller = matrice.distance(i, j), retour = matrice.distance(j, i);
+                if (retour == Double.POSITIVE_INFINITY) continue;
+                ecarts += Math.abs(aller - retour);
+                total += aller + retour;
+            }
+        }
+        return total > 0 ? 2 * ecarts / total : 0.0;
+    }
+
+    private double coutConnu() {
+        double total = 0.0;
+        for (int p = 0; p < n; p++) {
+            double distance = matrice.distance(tournee[p], tournee[(p + 1) % n]);
+            if (distance != Double.POSITIVE_INFINITY) total += distance;
+        }
+        return total;
+    }
+
+    // ============ RÉSULTAT ============
+
+    /**
+     * Tournée (indices de la matrice, l'entrepôt en tête, sans retour final)
+     */
+    int[] getOrdre() {
+        int[] ordre = new int[n];
+        for (int p = 0; p < n; p++) {
+            ordre[p] = tournee[(positions[0] + p) % n];
+        }
+        return ordre;
+    }
+
+    double getCoutFinal() {
+        return coutFinal;
+    }
+
+    long getDureeCalcul() {
+        return dureeCalcul;
+    }
+
+    @Override
+    public String toString() {
+        return "Tournée asymétrique (asymétrie " + String.format("%.1f", 100 * asymetrie) + " %) : " +
+                String.format("%.1f", coutInitial) + " → " + String.format("%.1f", coutFinal) + " min en " +
+                dureeCalcul + " ms : " + nbOrOpt + " Or-opt, " + nbEchanges + " échanges de portions";
+    }
+}
@@ -33,9 +33,8 @@ class TourneeComplete {
             villeAvance.getContraintes().afficherEtat();
         }
 
-        // Collecter tous les arcs à ramasser (en excluant les changements de rue)
-        Set<String> arcsARamasser = new HashSet<>();
-        Map<String, Arc> arcsParCle = new HashMap<>();
+        // Collecter tous les arcs à ramasser (en excluant les changements de rue), indexés par identifiant
+        BitSet arcsARamasser = new BitSet(ville.getSymboles().getNbArcs());
 
         for (Noeud noeud : ville.getNoeuds()) {
             for (Arc arc : noeud.getArcsSortants()) {
@@ -45,25 +44,27 @@ class TourneeComplete {
                         continue; // Ignorer les arcs non praticables
                     }
 
-                    String cle = arc.getCleDirectionnelle();
-                    arcsARamasser.add(cle);
-                    arcsParCle.put(cle, arc);
+                    arcsARamasser.set(arc.getArcCanonique().getId());
                     arc.reinitialiserRamassage();
                 }
             }
         }
 
-        System.out.println("Nombre d'arcs à ramasser: " + arcsARamasser.size());
+        int nbArcsARamasser = arcsARamasser.cardinality();
+        System.out.println("Nombre d'arcs à ramasser: " + nbArcsARamasser);
 
         // Construire la tournée avec l'algorithme du postier chinois simplifié
         List<ArcAParcourir> tournee = new ArrayList<>();
-        Set<String> arcsRamasses = new HashSet<>();
+        BitSet arcsRamasses = new BitSet(arcsARamasser.size());
+        int nbArcsRamasses = 0;
         Noeud positionActuelle = entrepot;
+        int arcEntree = -1; // Virages implicites : dernier arc de rue parcouru
+        GrapheCompile g = ville.compiler();
         double tempsTotal = 0.0;
 
-        while (arcsRamasses.size() < arcsARamasser.size()) {
+        while (nbArcsRamasses < nbArcsARamasser) {
             // Chercher un arc non ramassé depuis la position actuelle
-            Arc arcNonRamasse = trouverArcNonRamasse(positionActuelle, arcsARamasser, arcsRamasses, villeAvance);
+            Arc arcNonRamasse = trouverArcNonRamasse(g, positionActuelle, arcEntree, arcsARamasser, arcsRamasses, villeAvance);
 
             if (arcNonRamasse != null) {
                 // On peut ramasser directement depuis notre position
@@ -72,8 +73,10 @@ class TourneeComplete {
                         arcNonRamasse.getDuree();
 
                 tournee.add(new ArcAParcourir(arcNonRamasse, true));
-                arcsRamasses.add(arcNonRamasse.getCleDirectionnelle());
+                arcsRamasses.set(arcNonRamasse.getArcCanonique().getId());
+                nbArcsRamasses++;
                 positionActuelle = arcNonRamasse.getArrivee();
+                arcEntree = g.indice(arcNonRamasse);
                 tempsTotal += dureeArc;
 
                 // AJOUT : Avancer le temps
@@ -82,14 +85,15 @@ class TourneeComplete {
                 }
             } else {
                 // Il faut aller vers un arc non ramassé (sans ramasser en chemin)
-                Arc procheArcNonRamasse = trouverProcheArcNonRamasse(ville, positionActuelle, arcsARamasser, arcsRamasses, villeAvance);
+                Arc procheArcNonRamasse = trouverProcheArcNonRamasse(ville, positionActuelle, arcEntree, arcsARamasser, arcsRamasses, villeAvance);
 
                 if (procheArcNonRamasse == null) {
                     break; // Tous les arcs ont été ramassés
                 }
 
                 // Trouver le chemin le plus court vers cet arc
-                List<Arc> cheminVers = cheminLePlusCourt(ville, positionActuelle, procheArcNonRamasse.getDepart(), villeAvance);
+                List<Arc> cheminVers = cheminLePlusCourt(ville, positionActuelle, arcEntree, procheArcNonRamasse.getDepart(),
+                        procheArcNonRamasse, villeAvance);
 
                 // Ajouter le chemin (sans ramassage)
                 for (Arc arc : cheminVers) {
@@ -119,8 +123,10 @@ class TourneeComplete {
                         procheArcNonRamasse.getDuree();
 
                 tournee.add(new ArcAParcourir(procheArcNonRamasse, true));
-                arcsRamasses.add(procheArcNonRamasse.getCleDirectionnelle());
+                arcsRamasses.set(procheArcNonRamasse.getArcCanonique().getId());
+                nbArcsRamasses++;
                 positionActuelle = procheArcNonRamasse.getArrivee();
+                arcEntree = g.indice(procheArcNonRamasse);
                 tempsTotal += dureeRamassage;
 
                 // AJOUT : Avancer le temps
@@ -131,7 +137,7 @@ class TourneeComplete {
         }
 
         // Retourner à l'entrepôt
-        List<Arc> cheminRetour = cheminLePlusCourt(ville, positionActuelle, entrepot, villeAvance);
+        List<Arc> cheminRetour = cheminLePlusCourt(ville, positionActuelle, arcEntree, entrepot, null, villeAvance);
         for (Arc arc : cheminRetour) {
             double dureeArc = avecContraintes ?
                     villeAvance.calculerDureeAvecContraintes(arc) :
@@ -156,16 +162,22 @@ class TourneeComplete {
     }
 
     // Trouve un arc non ramassé depuis le noeud actuel
-    private static Arc trouverArcNonRamasse(Noeud noeud, Set<String> tousArcs, Set<String> arcsRamasses, GrapheVilleAvance villeAvance) {
+    private static Arc trouverArcNonRamasse(GrapheCompile g, Noeud noeud, int arcEntree,
+                                            BitSet tousArcs, BitSet arcsRamasses, GrapheVilleAvance villeAvance) {
         for (Arc arc : noeud.getArcsSortants()) {
             if (!arc.estChangementRue()) {
+                // Virages implicites : un virage coûteux ou interdit n'est pas un ramassage direct
+                if (g.viragesImplicites && !g.estVirageLibre(arcEntree, g.indice(arc))) {
+                    continue;
+                }
+
                 // AJOUT : Vérifier si l'arc est praticable
                 if (villeAvance != null && !villeAvance.estArcPraticable(arc)) {
                     continue;
                 }
 
-                String cle = arc.getCleDirectionnelle();
-                if (tousArcs.contains(cle) && !arcsRamasses.contains(cle)) {
+                int id = arc.getArcCanonique().getId();
+                if (tousArcs.get(id) && !arcsRamasses.get(id)) {
                     return arc;
                 }
             }
@@ -174,8 +186,8 @@ class TourneeComplete {
     }
 
     // Trouve l'arc non ramassé le plus proche
-    private static Arc trouverProcheArcNonRamasse(GrapheVille ville, Noeud position,
-                                                  Set<String> tousArcs, Set<String> arcsRamasses,
+    private static Arc trouverProcheArcNonRamasse(GrapheVille ville, Noeud position, int arcEntree,
+                                                  BitSet tousArcs, BitSet arcsRamasses,
                                                   GrapheVilleAvance villeAvance) {
         Arc plusProche = null;
         double distanceMin = Double.MAX_VALUE;
@@ -188,10 +200,10 @@ class TourneeComplete {
                         continue;
                     }
 
-                    String cle = arc.getCleDirectionnelle();
-                    if (tousArcs.contains(cle) && !arcsRamasses.contains(cle)) {
+                    int id = arc.getArcCanonique().getId();
+                    if (tousArcs.get(id) && !arcsRamasses.get(id)) {
                         // Calculer la distance de notre position au début de cet arc
-                        List<Arc> chemin = cheminLePlusCourt(ville, position, arc.getDepart(), villeAvance);
+                        List<Arc> chemin = cheminLePlusCourt(ville, position, arcEntree, arc.getDepart(), arc, villeAvance);
                         double distance = calculerDistance(chemin, villeAvance);
 
                         if (distance < distanceMin) {
@@ -207,66 +219,17 @@ class TourneeComplete {
     }
 
     // Calcule le chemin le plus court entre deux noeuds
-    private static List<Arc> cheminLePlusCourt(GrapheVille ville, Noeud depart, Noeud arrivee, GrapheVilleAvance villeAvance) {
-        if (depart.equals(arrivee)) {
-            return new ArrayList<>();
-        }
-
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, Arc> predecesseurs = new HashMap<>();
-        Set<String> traites = new HashSet<>();
-        PriorityQueue<InfoDijkstra> file = new PriorityQueue<>();
-
-        distances.put(depart.getNom(), 0.0);
-        file.add(new InfoDijkstra(depart, 0.0));
-
-        while (!file.isEmpty()) {
-            InfoDijkstra info = file.poll();
-            Noeud courant = info.noeud;
-
-            if (traites.contains(courant.getNom())) continue;
-            traites.add(courant.getNom());
-
-            if (courant.equals(arrivee)) {
-                break;
-            }
-
-            for (Arc arc : courant.getArcsSortants()) {
-                // AJOUT : Vérifier si l'arc est praticable
-                if (villeAvance != null && !villeAvance.estArcPraticable(arc)) {
-                    continue;
-                }
-
-                Noeud voisin = arc.getArrivee();
-                if (traites.contains(voisin.getNom())) continue;
-
-                // AJOUT : Utiliser la durée avec contraintes
-                double dureeArc = villeAvance != null ?
-                        villeAvance.calculerDureeAvecContraintes(arc) :
-                        arc.getDuree();
-                double nouvelleDist = distances.get(courant.getNom()) + dureeArc;
-
-                if (!distances.containsKey(voisin.getNom()) || nouvelleDist < distances.get(voisin.getNom())) {
-                    distances.put(voisin.getNom(), nouvelleDist);
-                    predecesseurs.put(voisin.getNom(), arc);
-                    file.add(new InfoDijkstra(voisin, nouvelleDist));
-                }
-            }
-        }
-
-        // Reconstruire le chemin
-        List<Arc> chemin = new ArrayList<>();
-        Noeud courant = arrivee;
-
-        while (!courant.equals(depart)) {
-            Arc arc = predecesseurs.get(courant.getNom());
-            if (arc == null) break;
-            chemin.add(arc);
-            courant = arc.getDepart();
-        }
-
-        Collections.reverse(chemin);
-        return chemin;
+    // Virages implicites : arcEntree est l'arc compilé par lequel on est arrivé à depart, et le
+    // virage vers arcSuivant (arc à ramasser ensuite, ou null) est compris dans le chemin
+    private static List<Arc> cheminLePlusCourt(GrapheVille ville, Noeud depart, int arcEntree, Noeud arrivee,
+                                               Arc arcSuivant, GrapheVilleAvance villeAvance) {
+        GrapheCompile g = ville.compiler();
+        MoteurPlusCourtChemin.Cible cible = arcSuivant == null ?
+                MoteurPlusCourtChemin.Cible.noeud(g, g.indice(arrivee)) :
+                MoteurPlusCourtChemin.Cible.departArc(g, g.indice(arcSuivant));
+        MoteurPlusCourtChemin.Chemin chemin = MoteurPlusCourtChemin.chercher(g, g.indice(depart), arcEntree, cible,
+                MoteurPlusCourtChemin.PolitiqueCout.avecRamassage(g, villeAvance));
+        return chemin == null ? new ArrayList<>() : chemin.arcs;
     }
 
     // Calcule la distance totale d'un chemin
@@ -306,20 +269,4 @@ class TourneeComplete {
 
         return itin;
     }
-
-    // Classe interne pour Dijkstra
-    private static class InfoDijkstra implements Comparable<InfoDijkstra> {
-        Noeud noeud;
-        double distance;
-
-        InfoDijkstra(Noeud noeud, double distance) {
-            this.noeud = noeud;
-            this.distance = distance;
-        }
-
-        @Override
-        public int compareTo(InfoDijkstra autre) {
-            return Double.compare(this.distance, autre.distance);
-        }
-    }
 }
\ No newline at end of file
@@ -1,21 +1,55 @@
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Thème 2 : Optimiser les ramassages des points de collecte
- * Résout le problème du voyageur de commerce avec deux approches :
+ * Résout le problème du voyageur de commerce avec six approches :
  * - Approche 1 : Plus proche voisin
  * - Approche 2 : MST (Arbre couvrant de poids minimum)
+ * - Approche 3 : Lin-Kernighan, à partir du parcours de l'arbre couvrant
+ * - Approche 4 : Tournée exacte pour les petites tournées
+ * - Approche 5 : Lin-Kernighan affiné par des mouvements sans inversion, pour les rues à sens unique
+ * - Approche 6 : Meilleure tournée trouvée avant une échéance, sur tous les processeurs
+ * Les tournées des approches 1 et 2 peuvent ensuite être améliorées par recherche locale
+ * (voir OptimisationLocale)
  */
 class VoyageurCommerce {
 
+    /** Plus proches voisins essayés par la recherche locale proposée après les approches 1 et 2 */
+    static final int NB_CANDIDATS_OPTIMISATION = 8;
+    /** Points au plus (hors entrepôt) d'une tournée dont les approches 1 et 2 sont remplacées par la
+     *  tournée exacte : Held-Karp y prend ~0,15 s sur un processeur (0,4 s à 18 points, 1,6 s à 20) */
+    static final int NB_MAX_TOURNEE_EXACTE = 16;
+    /** Temps accordé à la tournée exacte (ms), au-delà de SolveurExact.NB_MAX_HELD_KARP points */
+    static final long BUDGET_EXACT = 1_000;
+    private static final int NB_CANDIDATS_LK = 5;
+    private static final int NB_CANDIDATS_ASYMETRIQUE = 8;
+    private static final int NB_CANDIDATS_ANYTIME = 5;
+
     /**
      * APPROCHE 1 : Plus proche voisin
-     * Visite à chaque étape le point le plus proche non encore visité
+     * Visite à chaque étape le point le plus proche non encore visité. Une petite tournée
+     * (estPetiteTournee) est remplacée par la tournée exacte (approche 4)
      */
     public static Itineraire approcheProchevoisin(GrapheVille ville, List<String> pointsCollecte) {
+        return approcheProchevoisin(ville, pointsCollecte, 0);
+    }
+
+    /**
+     * @param nbCandidatsOptimisation plus proches voisins essayés par la recherche locale qui
+     *                                améliore ensuite la tournée (0 pour la garder telle quelle)
+     */
+    public static Itineraire approcheProchevoisin(GrapheVille ville, List<String> pointsCollecte,
+                                                 int nbCandidatsOptimisation) {
         if (pointsCollecte.isEmpty()) {
             throw new RuntimeException("Aucun point de collecte spécifié");
         }
+        verifierCandidats(nbCandidatsOptimisation);
+        if (estPetiteTournee(ville, pointsCollecte)) {
+            System.out.println("\nAu plus " + NB_MAX_TOURNEE_EXACTE + " points : la tournée exacte, aussi rapide " +
+                    "à cette taille, remplace le plus proche voisin");
+            return approcheExacte(ville, pointsCollecte, BUDGET_EXACT);
+        }
 
         Entrepot entrepot = ville.getEntrepot();
         if (entrepot == null) {
@@ -25,8 +59,10 @@ class VoyageurCommerce {
         System.out.println("\n=== Approche 1 : Plus Proche Voisin ===");
 
         Set<String> nonVisites = new HashSet<>(pointsCollecte);
+        List<String> ordreVisite = new ArrayList<>();
         List<Arc> cheminTotal = new ArrayList<>();
         Noeud positionActuelle = entrepot;
+        int arcEntree = -1; // Virages implicites : dernier arc de rue parcouru
         double distanceTotale = 0.0;
 
         System.out.println("Départ de : " + entrepot.getNom());
@@ -36,30 +72,28 @@ class VoyageurCommerce {
             double distanceMin = Double.MAX_VALUE;
             List<Arc> cheminVersProche = null;
 
-            // Trouver le point le plus proche
+            // Trouver le point le plus proche : une seule recherche vers toutes les versions des points
+            // non visités, arrêtée au plus proche (égalités comprises)
+            Map<Integer, List<Arc>> cheminsProches = cheminsLesPlusProches(ville, positionActuelle, arcEntree, nonVisites);
             for (String point : nonVisites) {
-                List<Noeud> versions = ville.getToutesVersions(point);
-                if (versions.isEmpty()) continue;
-
-                // Chercher le chemin le plus court vers ce point
-                for (Noeud noeudPoint : versions) {
-                    try {
-                        List<Arc> chemin = cheminLePlusCourt(ville, positionActuelle, noeudPoint);
-                        double distance = calculerDistance(chemin, ville);
-
-                        if (distance < distanceMin) {
-                            distanceMin = distance;
-                            plusProche = point;
-                            cheminVersProche = chemin;
-                        }
-                    } catch (Exception e) {
-                        // Point non accessible
+                for (Noeud noeudPoint : ville.getToutesVersions(point)) {
+                    List<Arc> chemin = cheminsProches.get(ville.compiler().indice(noeudPoint));
+                    if (chemin == null) continue; // Plus loin, ou non accessible
+
+                    double distance = calculerDistance(chemin, ville);
+                    if (distance < distanceMin) {
+                        distanceMin = distance;
+                        plusProche = point;
+                        cheminVersProche = chemin;
                     }
                 }
             }
 
             if (plusProche == null) {
-                throw new RuntimeException("Impossible d'atteindre tous les points de collecte");
+                // Aucun point restant n'est accessible d'ici (rue fermée, sens unique...) : ils sont
+                // écartés et la tournée rentre à l'entrepôt
+                System.out.println("⚠️  Points inaccessibles, écartés de la tournée : " + new TreeSet<>(nonVisites));
+                break;
             }
 
             // Ajouter ce chemin
@@ -70,11 +104,13 @@ class VoyageurCommerce {
 
             // Mise à jour
             positionActuelle = cheminVersProche.get(cheminVersProche.size() - 1).getArrivee();
+            arcEntree = RechercheVirages.dernierArcRue(ville.compiler(), cheminVersProche, arcEntree);
             nonVisites.remove(plusProche);
+            ordreVisite.add(plusProche);
         }
 
         // Retour à l'entrepôt
-        List<Arc> retour = cheminLePlusCourt(ville, positionActuelle, entrepot);
+        List<Arc> retour = cheminLePlusCourt(ville, positionActuelle, arcEntree, entrepot);
         cheminTotal.addAll(retour);
         double distanceRetour = calculerDistance(retour, ville);
         distanceTotale += distanceRetour;
@@ -82,24 +118,54 @@ class VoyageurCommerce {
         System.out.println("→ Retour à " + entrepot.getNom() + " (distance: " + String.format("%.1f", distanceRetour) + " min)");
         System.out.println("\nDistance totale : " + String.format("%.1f", distanceTotale) + " min");
 
+        // Optimisation locale de l'ordre de visite : les trajets sont alors ceux de la matrice des distances
+        if (nbCandidatsOptimisation > 0) {
+            List<String> points = new ArrayList<>(ordreVisite);
+            points.add(0, entrepot.getNom());
+            points.add(entrepot.getNom());
+            DistancesEntrePoints chemins = calculerDistances(ville, points.subList(0, points.size() - 1));
+            List<String> ordre = optimiserOrdre(chemins, points, nbCandidatsOptimisation);
+
+            cheminTotal = new ArrayList<>();
+            distanceTotale = relierPoints(ville, chemins, ordre, cheminTotal);
+            System.out.println("\nDistance totale après optimisation : " + String.format("%.1f", distanceTotale) + " min");
+        }
+
         // Construire l'itinéraire
         Itineraire itin = new Itineraire(entrepot, entrepot);
         itin.setVille(ville); // AJOUT
         for (Arc arc : cheminTotal) {
             itin.ajouterArc(arc);
         }
-        itin.setMaisonsARamasser(new HashSet<>(pointsCollecte));
+        Set<String> ramasses = new HashSet<>(pointsCollecte);
+        ramasses.removeAll(nonVisites);
+        itin.setMaisonsARamasser(ramasses);
 
         return itin;
     }
 
     /**
      * APPROCHE 2 : MST (Arbre couvrant de poids minimum)
+     * Une petite tournée (estPetiteTournee) est remplacée par la tournée exacte (approche 4)
      */
     public static Itineraire approcheMST(GrapheVille ville, List<String> pointsCollecte) {
+        return approcheMST(ville, pointsCollecte, 0);
+    }
+
+    /**
+     * @param nbCandidatsOptimisation plus proches voisins essayés par la recherche locale qui
+     *                                améliore l'ordre du parcours (0 pour le garder tel quel)
+     */
+    public static Itineraire approcheMST(GrapheVille ville, List<String> pointsCollecte, int nbCandidatsOptimisation) {
         if (pointsCollecte.isEmpty()) {
             throw new RuntimeException("Aucun point de collecte spécifié");
         }
+        verifierCandidats(nbCandidatsOptimisation);
+        if (estPetiteTournee(ville, pointsCollecte)) {
+            System.out.println("\nAu plus " + NB_MAX_TOURNEE_EXACTE + " points : la tournée exacte, aussi rapide " +
+                    "à cette taille, remplace l'arbre couvrant");
+            return approcheExacte(ville, pointsCollecte, BUDGET_EXACT);
+        }
 
         Entrepot entrepot = ville.getEntrepot();
         if (entrepot == null) {
@@ -112,57 +178,28 @@ class VoyageurCommerce {
         List<String> points = new ArrayList<>(pointsCollecte);
         points.add(0, entrepot.getNom()); // Ajouter l'entrepôt au début
 
-        Map<String, Map<String, Double>> grapheComplet = new HashMap<>();
-        Map<String, Map<String, List<Arc>>> chemins = new HashMap<>();
-
         System.out.println("Étape 1 : Calcul du graphe complet...");
 
-        for (String p1 : points) {
-            grapheComplet.put(p1, new HashMap<>());
-            chemins.put(p1, new HashMap<>());
-
-            for (String p2 : points) {
-                if (!p1.equals(p2)) {
-                    Noeud n1 = getNoeudPourNom(ville, p1);
-                    Noeud n2 = getNoeudPourNom(ville, p2);
-
-                    if (n1 != null && n2 != null) {
-                        List<Arc> chemin = cheminLePlusCourt(ville, n1, n2);
-                        double distance = calculerDistance(chemin, ville);
-                        grapheComplet.get(p1).put(p2, distance);
-                        chemins.get(p1).put(p2, chemin);
-                    }
-                }
-            }
-        }
+        DistancesEntrePoints chemins = calculerDistances(ville, points);
 
         // Étape 2 : Construire l'arbre couvrant minimum (Algorithme de Prim)
         System.out.println("Étape 2 : Construction du MST...");
-        Map<String, String> mst = construireMST(grapheComplet, entrepot.getNom());
+        Map<String, String> mst = construireMST(chemins, entrepot.getNom());
 
         // Étape 3 : Parcours préfixe de l'arbre
         System.out.println("Étape 3 : Parcours préfixe du MST...");
-        List<String> ordreParcours = new ArrayList<>();
-        Set<String> visites = new HashSet<>();
-        parcoursPrefixe(entrepot.getNom(), mst, ordreParcours, visites, grapheComplet);
+        List<String> ordreParcours = parcoursPrefixe(entrepot.getNom(), mst);
+
+        // Étape 3 bis : Optimisation locale de l'ordre de visite
+        if (nbCandidatsOptimisation > 0) {
+            System.out.println("Étape 3 bis : Optimisation locale...");
+            ordreParcours = optimiserOrdre(chemins, ordreParcours, nbCandidatsOptimisation);
+        }
 
         // Étape 4 : Shortcutting - construire le chemin final
         System.out.println("Étape 4 : Application du shortcutting...");
         List<Arc> cheminFinal = new ArrayList<>();
-        double distanceTotale = 0.0;
-
-        for (int i = 0; i < ordreParcours.size() - 1; i++) {
-            String depart = ordreParcours.get(i);
-            String arrivee = ordreParcours.get(i + 1);
-
-            List<Arc> segment = chemins.get(depart).get(arrivee);
-            if (segment != null) {
-                cheminFinal.addAll(segment);
-                double dist = calculerDistance(segment, ville);
-                distanceTotale += dist;
-                System.out.println(depart + " → " + arrivee + " (" + String.format("%.1f", dist) + " min)");
-            }
-        }
+        double distanceTotale = relierPoints(ville, chemins, ordreParcours, cheminFinal);
 
         System.out.println("\nDistance totale : " + String.format("%.1f", distanceTotale) + " min");
 
@@ -202,35 +239,13 @@ class VoyageurCommerce {
         points.add(0, entrepot.getNom());
 
         // Créer le graphe complet
-        Map<String, Map<String, Double>> grapheComplet = new HashMap<>();
-        Map<String, Map<String, List<Arc>>> chemins = new HashMap<>();
-
-        for (String p1 : points) {
-            grapheComplet.put(p1, new HashMap<>());
-            chemins.put(p1, new HashMap<>());
-
-            for (String p2 : points) {
-                if (!p1.equals(p2)) {
-                    Noeud n1 = getNoeudPourNom(ville, p1);
-                    Noeud n2 = getNoeudPourNom(ville, p2);
-
-                    if (n1 != null && n2 != null) {
-                        List<Arc> chemin = cheminLePlusCourt(ville, n1, n2);
-                        double distance = calculerDistance(chemin, ville);
-                        grapheComplet.get(p1).put(p2, distance);
-                        chemins.get(p1).put(p2, chemin);
-                    }
-                }
-            }
-        }
+        DistancesEntrePoints chemins = calculerDistances(ville, points);
 
         // Construire MST
-        Map<String, String> mst = construireMST(grapheComplet, entrepot.getNom());
+        Map<String, String> mst = construireMST(chemins, entrepot.getNom());
 
         // Parcours préfixe
-        List<String> ordreParcours = new ArrayList<>();
-        Set<String> visites = new HashSet<>();
-        parcoursPrefixe(entrepot.getNom(), mst, ordreParcours, visites, grapheComplet);
+        List<String> ordreParcours = parcoursPrefixe(entrepot.getNom(), mst);
 
         // Étape 5 : Découper en tournées selon les capacités
         System.out.println("\nDécoupage en tournées :");
@@ -250,7 +265,7 @@ class VoyageurCommerce {
             if (chargeActuelle + contenance > capaciteMax && !pointsTourneeActuelle.isEmpty()) {
                 // Finir la tournée actuelle et revenir à l'entrepôt
                 String dernierPoint = ordreParcours.get(i);
-                List<Arc> retour = chemins.get(dernierPoint).get(entrepot.getNom());
+                List<Arc> retour = chemins.get(dernierPoint, entrepot.getNom());
                 tourneeActuelle.addAll(retour);
 
                 // Créer l'itinéraire de la tournée
@@ -272,11 +287,11 @@ class VoyageurCommerce {
                 chargeActuelle = 0.0;
 
                 // Aller de l'entrepôt au point actuel
-                List<Arc> allerVersPoint = chemins.get(entrepot.getNom()).get(arrivee);
+                List<Arc> allerVersPoint = chemins.get(entrepot.getNom(), arrivee);
                 tourneeActuelle.addAll(allerVersPoint);
             } else {
                 // Ajouter le segment à la tournée actuelle
-                List<Arc> segment = chemins.get(depart).get(arrivee);
+                List<Arc> segment = chemins.get(depart, arrivee);
                 if (segment != null) {
                     tourneeActuelle.addAll(segment);
                 }
@@ -292,7 +307,7 @@ class VoyageurCommerce {
         // Finir la dernière tournée
         if (!pointsTourneeActuelle.isEmpty()) {
             String dernierPoint = ordreParcours.get(ordreParcours.size() - 2);
-            List<Arc> retour = chemins.get(dernierPoint).get(entrepot.getNom());
+            List<Arc> retour = chemins.get(dernierPoint, entrepot.getNom());
             tourneeActuelle.addAll(retour);
 
             Itineraire itin = new Itineraire(entrepot, entrepot);
@@ -312,78 +327,357 @@ class VoyageurCommerce {
         return tournees;
     }
 
+    /**
+     * APPROCHE 3 : Lin-Kernighan
+     * Part du parcours préfixe de l'arbre couvrant minimum et l'améliore par des échanges enchaînés
+     * (voir SolveurLinKernighan), en poursuivant la recherche pendant budget millisecondes
+     */
+    public static Itineraire approcheLinKernighan(GrapheVille ville, List<String> pointsCollecte, long budget) {
+        Entrepot entrepot = verifierTournee(ville, pointsCollecte);
+
+        System.out.println("\n=== Approche 3 : Lin-Kernighan ===");
+
+        System.out.println("Étape 1 : Calcul du graphe complet et du MST...");
+        DistancesEntrePoints chemins = distancesTournee(ville, entrepot, pointsCollecte);
+
+        System.out.println("Étape 2 : Échanges de Lin-Kernighan (" + budget + " ms)...");
+        int[] ordre = ordreLinKernighan(chemins, budget);
+
+        System.out.println("Étape 3 : Construction du chemin final...");
+        return itineraireTournee(ville, entrepot, chemins, ordre, pointsCollecte);
+    }
+
+    /**
+     * APPROCHE 4 : Tournée exacte
+     * Tournée optimale pour les petites tournées (voir SolveurExact) : Held-Karp jusqu'à
+     * SolveurExact.NB_MAX_HELD_KARP points, séparation et évaluation dans la limite de budget
+     * millisecondes jusqu'à SolveurExact.NB_MAX_SEPARATION, Lin-Kernighan au-delà. La séparation
+     * part de la tournée de Lin-Kernighan (un dixième du budget) : même arrêtée au budget, elle ne
+     * rend jamais pire
+     */
+    public static Itineraire approcheExacte(GrapheVille ville, List<String> pointsCollecte, long budget) {
+        Entrepot entrepot = verifierTournee(ville, pointsCollecte);
+
+        System.out.println("\n=== Approche 4 : Tournée Exacte ===");
+
+        System.out.println("Étape 1 : Calcul du graphe complet...");
+        DistancesEntrePoints chemins = distancesTournee(ville, entrepot, pointsCollecte);
+
+        int[] ordre;
+        int nbPoints = chemins.noms.size() - 1;
+        if (SolveurExact.convient(nbPoints)) {
+            int[] tourneeConnue = null;
+            if (nbPoints > SolveurExact.NB_MAX_HELD_KARP) {
+                System.out.println("Étape 2 : Première tournée par Lin-Kernighan (" + budget / 10 + " ms)...");
+                tourneeConnue = ordreLinKernighan(chemins, budget / 10);
+            }
+            System.out.println("Étape 2" + (tourneeConnue != null ? " bis" : "") + " : Recherche de la tournée optimale...");
+            SolveurExact solveur = SolveurExact.resoudre(chemins.matrice, budget - budget / 10, tourneeConnue);
+            System.out.println("   " + solveur);
+            ordre = solveur.getOrdre();
+        } else {
+            System.out.println("Étape 2 : " + nbPoints + " points, au-delà de " + SolveurExact.NB_MAX_SEPARATION +
+                    " : échanges de Lin-Kernighan (" + budget + " ms)...");
+            ordre = ordreLinKernighan(chemins, budget);
+        }
+
+        System.out.println("Étape 3 : Construction du chemin final...");
+        return itineraireTournee(ville, entrepot, chemins, ordre, pointsCollecte);
+    }
+
+    /**
+     * APPROCHE 5 : Tournée asymétrique
+     * Pour les rues à sens unique (HO2, HO3), où l'aller et le retour entre deux points diffèrent :
+     * la tournée de Lin-Kernighan (approche 3, budget en ms) est reprise par des Or-opt et des
+     * échanges de portions qui ne parcourent jamais une portion de tournée à l'envers (voir
+     * TourneeAsymetrique) ; elle ne fait jamais pire que l'approche 3
+     */
+    public static Itineraire approcheAsymetrique(GrapheVille ville, List<String> pointsCollecte, long budget) {
+        Entrepot entrepot = verifierTournee(ville, pointsCollecte);
+
+        System.out.println("\n=== Approche 5 : Tournée Asymétrique ===");
+
+        System.out.println("Étape 1 : Calcul du graphe complet et du MST...");
+        DistancesEntrePoints chemins = distancesTournee(ville, entrepot, pointsCollecte);
+
+        System.out.println("Étape 2 : Échanges de Lin-Kernighan (" + budget + " ms)...");
+        int[] ordre = ordreLinKernighan(chemins, budget);
+
+        System.out.println("Étape 3 : Mouvements sans inversion...");
+        TourneeAsymetrique tournee = TourneeAsymetrique.ameliorer(chemins.matrice, ordre, NB_CANDIDATS_ASYMETRIQUE);
+        System.out.println("   " + tournee);
+
+        System.out.println("Étape 4 : Construction du chemin final...");
+        return itineraireTournee(ville, entrepot, chemins, tournee.getOrdre(), pointsCollecte);
+    }
+
+    /**
+     * APPROCHE 6 : Tournée en temps limité
+     * Départs multiples en parallèle, chacun amélioré par recherche locale itérée, jusqu'à l'échéance
+     * (voir SolveurAnytime) ; chaque amélioration est affichée dès qu'elle est trouvée. L'échéance
+     * court dès l'appel et couvre le calcul des distances et la recherche ; seule la construction du
+     * chemin final la suit
+     */
+    public static Itineraire approcheAnytime(GrapheVille ville, List<String> pointsCollecte, Echeance echeance) {
+        return approcheAnytime(ville, pointsCollecte, echeance, amelioration -> System.out.println("   " + amelioration));
+    }
+
+    /**
+     * APPROCHE 6, chaque amélioration étant transmise à surAmelioration (depuis le thread qui l'a trouvée)
+     */
+    public static Itineraire approcheAnytime(GrapheVille ville, List<String> pointsCollecte, Echeance echeance,
+                                             Consumer<SolveurAnytime.Amelioration> surAmelioration) {
+        Entrepot entrepot = verifierTournee(ville, pointsCollecte);
+
+        System.out.println("\n=== Approche 6 : Tournée en Temps Limité ===");
+
+        System.out.println("Étape 1 : Calcul du graphe complet...");
+        DistancesEntrePoints chemins = distancesTournee(ville, entrepot, pointsCollecte);
+
+        System.out.println("Étape 2 : Départs multiples en parallèle (" + echeance.getRestant() + " ms)...");
+        SolveurAnytime solveur = SolveurAnytime.resoudre(chemins.matrice, echeance, NB_CANDIDATS_ANYTIME,
+                surAmelioration);
+        System.out.println("   " + solveur);
+
+        System.out.println("Étape 3 : Construction du chemin final...");
+        return itineraireTournee(ville, entrepot, chemins, solveur.getOrdre(), pointsCollecte);
+    }
+
     // ============ MÉTHODES UTILITAIRES ============
 
-    private static Noeud getNoeudPourNom(GrapheVille ville, String nom) {
-        List<Noeud> versions = ville.getToutesVersions(nom);
-        return versions.isEmpty() ? null : versions.get(0);
+    /**
+     * Matrice des distances entre les points (une recherche depuis toutes les versions de chaque
+     * point, voir MatriceDistances), rangée selon le stockage choisi pour la ville
+     */
+    private static DistancesEntrePoints calculerDistances(GrapheVille ville, List<String> points) {
+        List<List<Noeud>> versions = new ArrayList<>();
+        List<String> noms = new ArrayList<>();
+        Map<String, Integer> indices = new HashMap<>();  // indice de chaque point dans la matrice, -1 sans noeud
+        for (String p : points) {
+            List<Noeud> versionsPoint = ville.getToutesVersions(p);
+            indices.put(p, versionsPoint.isEmpty() ? -1 : versions.size());
+            if (!versionsPoint.isEmpty()) {
+                versions.add(versionsPoint);
+                noms.add(p);
+            }
+        }
+        MatriceDistances matrice = MatriceDistances.calculerVersions(ville, versions);
+        if (matrice.getStockage() != MatriceDistances.Stockage.DOUBLE) {
+            System.out.println("   " + matrice);
+        }
+        return new DistancesEntrePoints(matrice, points, noms, indices);
     }
 
-    private static List<Arc> cheminLePlusCourt(GrapheVille ville, Noeud depart, Noeud arrivee) {
-        if (depart.equals(arrivee)) {
-            return new ArrayList<>();
+    /**
+     * Vrai si les approches 1 et 2 rendent la tournée exacte : au plus NB_MAX_TOURNEE_EXACTE points,
+     * l'entrepôt non compris, et une matrice dense. En stockage VOISINS, une distance non rangée
+     * compte pour MatriceDistances.INACCESSIBLE : la tournée « optimale » ne le serait que sur le
+     * graphe des voisins, et peut faire pire que le plus proche voisin
+     */
+    static boolean estPetiteTournee(GrapheVille ville, List<String> pointsCollecte) {
+        if (ville.getStockageDistances() == MatriceDistances.Stockage.VOISINS) {
+            return false;
+        }
+        Set<String> points = new HashSet<>(pointsCollecte);
+        if (ville.getEntrepot() != null) {
+            points.remove(ville.getEntrepot().getNom());
         }
+        return points.size() <= NB_MAX_TOURNEE_EXACTE;
+    }
 
-        // AJOUT : Gérer les contraintes
-        boolean avecContraintes = ville instanceof GrapheVilleAvance;
-        GrapheVilleAvance villeAvance = avecContraintes ? (GrapheVilleAvance) ville : null;
+    private static void verifierCandidats(int nbCandidats) {
+        if (nbCandidats < 0) {
+            throw new IllegalArgumentException("Nombre de candidats négatif : " + nbCandidats);
+        }
+    }
 
-        Map<String, Double> distances = new HashMap<>();
-        Map<String, Arc> predecesseurs = new HashMap<>();
-        Set<String> traites = new HashSet<>();
-        PriorityQueue<InfoDijkstra> file = new PriorityQueue<>();
+    private static Entrepot verifierTournee(GrapheVille ville, List<String> pointsCollecte) {
+        if (pointsCollecte.isEmpty()) {
+            throw new RuntimeException("Aucun point de collecte spécifié");
+        }
 
-        distances.put(depart.getNom(), 0.0);
-        file.add(new InfoDijkstra(depart, 0.0));
+        Entrepot entrepot = ville.getEntrepot();
+        if (entrepot == null) {
+            throw new RuntimeException("Entrepôt non trouvé");
+        }
+        return entrepot;
+    }
 
-        while (!file.isEmpty()) {
-            InfoDijkstra info = file.poll();
-            Noeud courant = info.noeud;
+    /**
+     * Matrice des distances entre l'entrepôt (indice 0) et les points de collecte, chacun une fois
+     */
+    private static DistancesEntrePoints distancesTournee(GrapheVille ville, Entrepot entrepot,
+                                                        List<String> pointsCollecte) {
+        Set<String> uniques = new LinkedHashSet<>(pointsCollecte);
+        uniques.remove(entrepot.getNom());
+        List<String> points = new ArrayList<>(uniques);
+        points.add(0, entrepot.getNom());
 
-            if (traites.contains(courant.getNom())) continue;
-            traites.add(courant.getNom());
+        DistancesEntrePoints chemins = calculerDistances(ville, points);
+        if (chemins.indices.get(entrepot.getNom()) != 0) {
+            throw new RuntimeException("Entrepôt absent du plan");
+        }
 
-            if (courant.getNom().equals(arrivee.getNom())) {
-                break;
+        // Un point qu'on ne peut atteindre depuis l'entrepôt, ou d'où l'on ne peut y revenir, n'entre
+        // dans aucune tournée : il est écarté, comme par le plus proche voisin
+        Set<String> inaccessibles = new TreeSet<>();
+        for (int i = 1; i < chemins.noms.size(); i++) {
+            if (chemins.matrice.distance(0, i) == Double.POSITIVE_INFINITY ||
+                    (chemins.matrice.contient(i, 0) && chemins.matrice.distance(i, 0) == Double.POSITIVE_INFINITY)) {
+                inaccessibles.add(chemins.noms.get(i));
             }
+        }
+        if (!inaccessibles.isEmpty()) {
+            System.out.println("⚠️  Points inaccessibles, écartés de la tournée : " + inaccessibles);
+            points.removeAll(inaccessibles);
+            chemins = calculerDistances(ville, points);
+        }
+        return chemins;
+    }
 
-            for (Arc arc : courant.getArcsSortants()) {
-                // AJOUT : Vérifier si praticable
-                if (avecContraintes && !villeAvance.estArcPraticable(arc)) {
-                    continue;
-                }
+    /**
+     * Tournée de Lin-Kernighan partant du parcours préfixe de l'arbre couvrant minimum
+     */
+    private static int[] ordreLinKernighan(DistancesEntrePoints chemins, long budget) {
+        String racine = chemins.noms.get(0);
+        Map<String, String> mst = construireMST(chemins, racine);
+        int[] parents = new int[chemins.noms.size()];
+        for (int i = 0; i < parents.length; i++) {
+            String parent = mst.get(chemins.noms.get(i));
+            parents[i] = parent == null ? -1 : chemins.indices.get(parent);
+        }
 
-                Noeud voisin = arc.getArrivee();
-                if (traites.contains(voisin.getNom())) continue;
+        int[] ordre = indicesVisites(chemins, parcoursPrefixe(racine, mst));
+        SolveurLinKernighan solveur = SolveurLinKernighan.resoudre(chemins.matrice, ordre, parents,
+                NB_CANDIDATS_LK, budget);
+        System.out.println("   " + solveur);
+        return solveur.getOrdre();
+    }
 
-                // AJOUT : Utiliser durée avec contraintes
-                double dureeBase = avecContraintes ?
-                        villeAvance.calculerDureeAvecContraintes(arc) :
-                        arc.getDuree();
-                double dureeSansRamassage = dureeBase - voisin.getTempsTraitement();
-                double nouvelleDist = distances.get(courant.getNom()) + dureeSansRamassage;
+    /**
+     * Itinéraire suivant une tournée de la matrice (indices, l'entrepôt en tête)
+     */
+    private static Itineraire itineraireTournee(GrapheVille ville, Entrepot entrepot, DistancesEntrePoints chemins,
+                                                int[] ordre, List<String> pointsCollecte) {
+        List<Arc> cheminFinal = new ArrayList<>();
+        double distanceTotale = relierPoints(ville, chemins, nomsVisites(chemins, ordre), cheminFinal);
 
-                if (!distances.containsKey(voisin.getNom()) || nouvelleDist < distances.get(voisin.getNom())) {
-                    distances.put(voisin.getNom(), nouvelleDist);
-                    predecesseurs.put(voisin.getNom(), arc);
-                    file.add(new InfoDijkstra(voisin, nouvelleDist));
-                }
+        System.out.println("\nDistance totale : " + String.format("%.1f", distanceTotale) + " min");
+
+        Itineraire itin = new Itineraire(entrepot, entrepot);
+        itin.setVille(ville);
+        for (Arc arc : cheminFinal) {
+            itin.ajouterArc(arc);
+        }
+        Set<String> ramasses = new HashSet<>(pointsCollecte);
+        ramasses.retainAll(chemins.points);
+        itin.setMaisonsARamasser(ramasses);
+
+        return itin;
+    }
+
+    /**
+     * Améliore l'ordre de visite par recherche locale sur la matrice (voir OptimisationLocale) : chaque
+     * point n'y figure plus qu'une fois, entre le départ et le retour à l'entrepôt (ordre.get(0)) ;
+     * les points sans noeud, dont aucun trajet ne part, sont écartés
+     */
+    private static List<String> optimiserOrdre(DistancesEntrePoints chemins, List<String> ordre, int nbCandidats) {
+        String entrepot = ordre.get(0);
+        if (chemins.indices.get(entrepot) != 0) {
+            return ordre;
+        }
+        OptimisationLocale optimisation = OptimisationLocale.optimiser(chemins.matrice,
+                indicesVisites(chemins, ordre), nbCandidats);
+        System.out.println("   " + optimisation);
+        return nomsVisites(chemins, optimisation.getOrdre());
+    }
+
+    /**
+     * Indices de la matrice des points de l'ordre, chacun à sa première visite
+     */
+    private static int[] indicesVisites(DistancesEntrePoints chemins, List<String> ordre) {
+        Set<Integer> visites = new LinkedHashSet<>();
+        for (String point : ordre) {
+            int i = chemins.indices.get(point);
+            if (i >= 0) visites.add(i);
+        }
+        return visites.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Noms des points d'une tournée de la matrice partant de l'entrepôt (indice 0), retour compris
+     */
+    private static List<String> nomsVisites(DistancesEntrePoints chemins, int[] ordre) {
+        List<String> noms = new ArrayList<>();
+        for (int i : ordre) {
+            noms.add(chemins.noms.get(i));
+        }
+        noms.add(chemins.noms.get(0));
+        return noms;
+    }
+
+    /**
+     * Ajoute à cheminTotal les trajets entre points successifs de l'ordre
+     * @return la distance parcourue
+     */
+    private static double relierPoints(GrapheVille ville, DistancesEntrePoints chemins, List<String> ordre,
+                                       List<Arc> cheminTotal) {
+        double distanceTotale = 0.0;
+        for (int i = 0; i < ordre.size() - 1; i++) {
+            String depart = ordre.get(i);
+            String arrivee = ordre.get(i + 1);
+
+            List<Arc> segment = chemins.get(depart, arrivee);
+            if (segment != null) {
+                cheminTotal.addAll(segment);
+                double dist = calculerDistance(segment, ville);
+                distanceTotale += dist;
+                System.out.println(depart + " → " + arrivee + " (" + String.format("%.1f", dist) + " min)");
             }
         }
+        return distanceTotale;
+    }
+
+    static List<Arc> cheminLePlusCourt(GrapheVille ville, Noeud depart, Noeud arrivee) {
+        return cheminLePlusCourt(ville, depart, -1, arrivee);
+    }
+
+    /**
+     * @param arcEntree en virages implicites, arc compilé par lequel on est arrivé à depart (-1 si aucun)
+     */
+    static List<Arc> cheminLePlusCourt(GrapheVille ville, Noeud depart, int arcEntree, Noeud arrivee) {
+        // AJOUT : Gérer les contraintes
+        boolean avecContraintes = ville instanceof GrapheVilleAvance;
+        GrapheVilleAvance villeAvance = avecContraintes ? (GrapheVilleAvance) ville : null;
+
+        GrapheCompile g = ville.compiler();
+        MoteurPlusCourtChemin.Chemin chemin = MoteurPlusCourtChemin.chercher(g, g.indice(depart), arcEntree,
+                MoteurPlusCourtChemin.Cible.noeud(g, g.indice(arrivee)),
+                MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, villeAvance));
+        return chemin == null ? new ArrayList<>() : chemin.arcs;
+    }
 
-        // Reconstruire le chemin
-        List<Arc> chemin = new ArrayList<>();
-        Noeud courant = arrivee;
+    /**
+     * Chemins vers les versions des points les plus proches de depart (plus proche voisin),
+     * indexés par noeud compilé
+     */
+    private static Map<Integer, List<Arc>> cheminsLesPlusProches(GrapheVille ville, Noeud depart, int arcEntree,
+                                                                 Set<String> points) {
+        GrapheVilleAvance villeAvance = ville instanceof GrapheVilleAvance ? (GrapheVilleAvance) ville : null;
 
-        while (!courant.getNom().equals(depart.getNom())) {
-            Arc arc = predecesseurs.get(courant.getNom());
-            if (arc == null) break;
-            chemin.add(arc);
-            courant = arc.getDepart();
+        List<Noeud> versions = new ArrayList<>();
+        for (String point : points) {
+            versions.addAll(ville.getToutesVersions(point));
         }
 
-        Collections.reverse(chemin);
-        return chemin;
+        GrapheCompile g = ville.compiler();
+        Map<Integer, List<Arc>> chemins = new HashMap<>();
+        for (MoteurPlusCourtChemin.Chemin chemin : MoteurPlusCourtChemin.chercherPlusProches(g, g.indice(depart),
+                arcEntree, MoteurPlusCourtChemin.Cible.versions(g, versions),
+                MoteurPlusCourtChemin.PolitiqueCout.sansRamassage(g, villeAvance), false)) {
+            chemins.put(chemin.arrivee, chemin.arcs);
+        }
+        return chemins;
     }
 
     private static double calculerDistance(List<Arc> chemin, GrapheVille ville) {
@@ -404,14 +698,14 @@ class VoyageurCommerce {
      * Construit un arbre couvrant de poids minimum avec l'algorithme de Prim
      * @return Map parent[noeud] = parent dans le MST
      */
-    private static Map<String, String> construireMST(Map<String, Map<String, Double>> graphe, String racine) {
+    private static Map<String, String> construireMST(DistancesEntrePoints graphe, String racine) {
         Map<String, String> parent = new HashMap<>();
         Map<String, Double> cles = new HashMap<>();
         Set<String> dansMST = new HashSet<>();
         PriorityQueue<PairDistanceNoeud> file = new PriorityQueue<>();
 
         // Initialisation
-        for (String noeud : graphe.keySet()) {
+        for (String noeud : graphe.points) {
             cles.put(noeud, Double.MAX_VALUE);
         }
 
@@ -425,17 +719,21 @@ class VoyageurCommerce {
             if (dansMST.contains(u)) continue;
             dansMST.add(u);
 
-            // Pour chaque voisin de u
-            if (graphe.containsKey(u)) {
-                for (Map.Entry<String, Double> entry : graphe.get(u).entrySet()) {
-                    String v = entry.getKey();
-                    double poids = entry.getValue();
-
-                    if (!dansMST.contains(v) && poids < cles.get(v)) {
-                        cles.put(v, poids);
-                        parent.put(v, u);
-                        file.add(new PairDistanceNoeud(v, poids));
-                    }
+            // Pour chaque voisin de u dont la distance est connue
+            int i = graphe.indices.get(u);
+            for (int r = 0; i >= 0 && r < graphe.matrice.nbVoisins(i); r++) {
+                int j = graphe.matrice.voisin(i, r);
+                String v = graphe.noms.get(j);
+                if (v.equals(u)) continue;
+
+                // Comme avant, un point inaccessible est à distance nulle
+                double poids = graphe.matrice.distance(i, j);
+                if (poids == Double.POSITIVE_INFINITY) poids = 0.0;
+
+                if (!dansMST.contains(v) && poids < cles.get(v)) {
+                    cles.put(v, poids);
+                    parent.put(v, u);
+                    file.add(new PairDistanceNoeud(v, poids));
                 }
             }
         }
@@ -444,42 +742,79 @@ class VoyageurCommerce {
     }
 
     /**
-     * Parcours préfixe de l'arbre MST
+     * Parcours préfixe de l'arbre MST, avec une pile explicite (l'arbre peut avoir la profondeur
+     * de milliers de points)
      */
-    private static void parcoursPrefixe(String noeud, Map<String, String> mst,
-                                        List<String> ordre, Set<String> visites,
-                                        Map<String, Map<String, Double>> graphe) {
-        if (visites.contains(noeud)) return;
-
-        ordre.add(noeud);
-        visites.add(noeud);
-
-        // Trouver les enfants de ce noeud dans le MST
+    private static List<String> parcoursPrefixe(String racine, Map<String, String> mst) {
+        // Enfants de chaque noeud, dans l'ordre de la table du MST
+        Map<String, List<String>> enfants = new HashMap<>();
         for (Map.Entry<String, String> entry : mst.entrySet()) {
-            if (entry.getValue() != null && entry.getValue().equals(noeud)) {
-                parcoursPrefixe(entry.getKey(), mst, ordre, visites, graphe);
+            if (entry.getValue() != null) {
+                enfants.computeIfAbsent(entry.getValue(), n -> new ArrayList<>()).add(entry.getKey());
             }
         }
 
-        // Shortcutting : retour direct à l'entrepôt après avoir visité tous les enfants
-        if (!ordre.isEmpty() && !noeud.equals(ordre.get(0))) {
-            ordre.add(ordre.get(0)); // Retour à la racine (entrepôt)
+        List<String> ordre = new ArrayList<>();
+        Set<String> visites = new HashSet<>();
+        Deque<String> noeuds = new ArrayDeque<>();
+        Deque<Iterator<String>> suivants = new ArrayDeque<>();
+        ordre.add(racine);
+        visites.add(racine);
+        noeuds.push(racine);
+        suivants.push(enfants.getOrDefault(racine, Collections.emptyList()).iterator());
+
+        while (!noeuds.isEmpty()) {
+            Iterator<String> it = suivants.peek();
+            if (it.hasNext()) {
+                String enfant = it.next();
+                if (visites.add(enfant)) {
+                    ordre.add(enfant);
+                    noeuds.push(enfant);
+                    suivants.push(enfants.getOrDefault(enfant, Collections.emptyList()).iterator());
+                }
+                continue;
+            }
+            String noeud = noeuds.pop();
+            suivants.pop();
+
+            // Shortcutting : retour direct à l'entrepôt après avoir visité tous les enfants
+            if (!noeud.equals(ordre.get(0))) {
+                ordre.add(ordre.get(0)); // Retour à la racine (entrepôt)
+            }
         }
+        return ordre;
     }
 
     // Classes internes
-    private static class InfoDijkstra implements Comparable<InfoDijkstra> {
-        Noeud noeud;
-        double distance;
 
-        InfoDijkstra(Noeud noeud, double distance) {
-            this.noeud = noeud;
-            this.distance = distance;
+    /**
+     * Points d'une tournée et leur matrice des distances ; les chemins sont recherchés à la demande :
+     * seuls les trajets que la tournée emprunte sont reconstruits
+     */
+    private static class DistancesEntrePoints {
+        final MatriceDistances matrice;
+        final List<String> points;
+        final List<String> noms;               // nom du point de chaque indice de la matrice
+        final Map<String, Integer> indices;    // indice de chaque point dans la matrice, -1 sans noeud
+
+        DistancesEntrePoints(MatriceDistances matrice, List<String> points, List<String> noms,
+                             Map<String, Integer> indices) {
+            this.matrice = matrice;
+            this.points = points;
+            this.noms = noms;
+            this.indices = indices;
         }
 
-        @Override
-        public int compareTo(InfoDijkstra autre) {
-            return Double.compare(this.distance, autre.distance);
+        /**
+         * Chemin de depart à arrivee (vide si inaccessible), null pour un même point ou un point sans noeud
+         */
+        List<Arc> get(String depart, String arrivee) {
+            int i = indices.get(depart), j = indices.get(arrivee);
+            if (depart.equals(arrivee) || i < 0 || j < 0) {
+                return null;
+            }
+            List<Arc> chemin = matrice.chemin(i, j);
+            return chemin == null ? new ArrayList<>() : chemin;
         }
     }
 